@@ -16,9 +16,15 @@ import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.function.BiFunction;
 
 @RestController()
 @RequestMapping("/v1/attachment")
@@ -67,18 +73,18 @@ public class AttachmentsController {
     public ResponseEntity<Resource> download(
             Authentication authentication,
             @Schema(name = "attachmentId", description = "The unique id of the attachment", required = true)
-            @PathVariable @NotNull String attachmentId
+            @PathVariable @NotNull String attachmentId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            WebRequest webRequest
     ) throws Exception {
-        StorageObjectDTO objectDTO = attachmentService.getAttachmentContent(attachmentId);
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.valueOf(objectDTO.contentType()));
-        headers.setContentDisposition(
-                ContentDisposition
-                        .inline()
-                        .filename(objectDTO.filename(), StandardCharsets.UTF_8)
-                        .build()
+        return contentResponse(
+                attachmentService.getAttachmentContentDescription(attachmentId),
+                range,
+                ifRange,
+                webRequest,
+                (offset, length) -> attachmentService.getAttachmentContent(attachmentId, offset, length)
         );
-        return new ResponseEntity<>(new InputStreamResource(objectDTO.file()), headers, HttpStatus.OK);
     }
 
     @GetMapping(
@@ -90,17 +96,119 @@ public class AttachmentsController {
     public ResponseEntity<Resource> downloadPreview(
             Authentication authentication,
             @Schema(name = "attachmentId", description = "The unique id of the attachment", required = true)
-            @PathVariable String attachmentId
+            @PathVariable String attachmentId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            WebRequest webRequest
     ) throws Exception {
-        StorageObjectDTO objectDTO = attachmentService.getPreviewContent(attachmentId);
+        return contentResponse(
+                attachmentService.getPreviewContentDescription(attachmentId),
+                range,
+                ifRange,
+                webRequest,
+                (offset, length) -> attachmentService.getPreviewContent(attachmentId, offset, length)
+        );
+    }
+
+    /**
+     * Create the response for a stored content
+     * <p>
+     * the conditional request are evaluated on the content description, so a not modified content
+     * is never read. A single byte range is served as partial content, multiple ranges or a range
+     * with a not matching If-Range are served as the full content.
+     *
+     * @param description the description of the content
+     * @param range       the Range header
+     * @param ifRange     the If-Range header
+     * @param webRequest  the request
+     * @param loader      load the content range given offset and length
+     * @return the response
+     */
+    private ResponseEntity<Resource> contentResponse(
+            StorageObjectDTO description,
+            String range,
+            String ifRange,
+            WebRequest webRequest,
+            BiFunction<Long, Long, StorageObjectDTO> loader
+    ) {
+        long lastModified = description.lastModified() != null ? description.lastModified().toEpochMilli() : -1;
+        if (webRequest.checkNotModified(description.etag(), lastModified)) {
+            // 304 has been already set on the response
+            return null;
+        }
+
+        long length = description.length();
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.valueOf(objectDTO.contentType()));
+        headers.setContentType(MediaType.valueOf(description.contentType()));
         headers.setContentDisposition(
                 ContentDisposition
                         .inline()
-                        .filename(objectDTO.filename(), StandardCharsets.UTF_8)
+                        .filename(description.filename(), StandardCharsets.UTF_8)
                         .build()
         );
-        return new ResponseEntity<>(new InputStreamResource(objectDTO.file()), headers, HttpStatus.OK);
+        headers.setETag(description.etag());
+        if (lastModified >= 0) headers.setLastModified(lastModified);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        HttpRange httpRange = getSingleRange(range, ifRange, description);
+        if (httpRange == null) {
+            headers.setContentLength(length);
+            return new ResponseEntity<>(new InputStreamResource(loader.apply(0L, length).file()), headers, HttpStatus.OK);
+        }
+
+        long start;
+        long end;
+        try {
+            start = httpRange.getRangeStart(length);
+            end = httpRange.getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */%d".formatted(length));
+            return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        }
+        headers.setContentLength(end - start + 1);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes %d-%d/%d".formatted(start, end, length));
+        return new ResponseEntity<>(new InputStreamResource(loader.apply(start, end - start + 1).file()), headers, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    /**
+     * Return the range to serve
+     *
+     * @param range       the Range header
+     * @param ifRange     the If-Range header
+     * @param description the description of the content
+     * @return the single range to serve or null if the full content should be served
+     */
+    private HttpRange getSingleRange(String range, String ifRange, StorageObjectDTO description) {
+        if (range == null) return null;
+        if (ifRange != null && !ifRangeMatches(ifRange, description)) return null;
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            // a not valid range is ignored
+            return null;
+        }
+    }
+
+    /**
+     * Check if the If-Range validator matches the current content
+     *
+     * @param ifRange     the If-Range header, an entity tag or a date
+     * @param description the description of the content
+     * @return true if the range can be applied
+     */
+    private boolean ifRangeMatches(String ifRange, StorageObjectDTO description) {
+        String validator = ifRange.trim();
+        if (validator.startsWith("\"") || validator.startsWith("W/")) {
+            // only a strong entity tag can be used
+            return validator.equals(description.etag());
+        }
+        if (description.lastModified() == null) return false;
+        try {
+            long ifRangeDate = ZonedDateTime.parse(validator, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+            return ifRangeDate == description.lastModified().getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
     }
 }
@@ -50,6 +50,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 
+@Validated
 @AllArgsConstructor
 @RestController
 @RequestMapping("/v1/domain")
@@ -81,6 +82,27 @@ public class DomainWorkController {
         return ApiResultResponse.of(workService.createNew(domainId, newWorkDTO, logIf));
     }
 
+    @Operation(summary = "Create many works with a single operation and return the result of each one")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Works processed, each result report if the work has been saved")
+    })
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping(
+            path = "/{domainId}/work/bulk",
+            produces = MediaType.APPLICATION_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    @PreAuthorize("@baseAuthorizationService.checkAuthenticated(#authentication) and @workAuthorizationService.checkCanCreate(#authentication, #domainId, #newWorkDTOs)")
+    public ApiResultResponse<List<NewWorkBulkResultDTO>> createNewWorks(
+            Authentication authentication,
+            @Schema(description = "Is the domain id to use to create the works")
+            @PathVariable String domainId,
+            @Schema(description = "The new works to create")
+            @RequestBody List<@Valid NewWorkDTO> newWorkDTOs
+    ) {
+        return ApiResultResponse.of(workService.createMany(domainId, newWorkDTOs));
+    }
+
     @Operation(summary = "Update a work")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Work saved")
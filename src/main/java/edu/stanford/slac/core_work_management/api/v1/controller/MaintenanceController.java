@@ -111,7 +111,7 @@ public class MaintenanceController {
                     @RequestParam(value = "limit", required = false, defaultValue = "10") Optional<Integer> limit,
                     @Schema(description = "The size of the context to return")
                     @RequestParam(value = "contextSize", required = false, defaultValue = "0") Optional<Integer> contextSize,
-                    @Schema(description = "The id of the anchor to use for pagination")
+                    @Schema(description = "The cursor (or the id) of the anchor to use for pagination")
                     @RequestParam(value = "anchorId", required = false) Optional<String> anchorId,
                     @Schema(description = "The from date to use for the search")
                     @RequestParam(value = "from", required = false) Optional<LocalDateTime> from,
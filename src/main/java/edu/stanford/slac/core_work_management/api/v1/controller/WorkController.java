@@ -53,7 +53,7 @@ public class WorkController {
     @PostAuthorize("@workAuthorizationService.applyCompletionDTOList(returnObject, authentication)")
     public ApiResultResponse<List<WorkSummaryDTO>> findAllWork(
             Authentication authentication,
-            @Schema(name = "anchorId", description = "Is the id of an entry from where start the search")
+            @Schema(name = "anchorId", description = "Is the cursor (or the id) of an entry from where start the search")
             @RequestParam("anchorId") Optional<String> anchorId,
             @Schema(name = "contextSize", description = "Include this number of entries before the startDate (used for highlighting entries)")
             @RequestParam("contextSize") Optional<Integer> contextSize,
@@ -28,5 +28,7 @@ public record BucketSlotDTO(
         @Schema(description = "The end date and time of the bucket slot")
         LocalDateTime to,
         @Schema(description = "The id of the work type admitted to the bucket slot")
-        Set<WorkTypeDTO> admittedWorkType
+        Set<WorkTypeDTO> admittedWorkType,
+        @Schema(description = "The opaque cursor of the bucket slot, to use as anchor for the pagination")
+        String cursor
 ) {}
@@ -0,0 +1,24 @@
+package edu.stanford.slac.core_work_management.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "The result of the creation of a single work within a bulk creation")
+public record NewWorkBulkResultDTO(
+        @Schema(description = "The index of the work in the submitted list")
+        Integer index,
+        @Schema(description = "The id of the created work, missing if the work has not been created")
+        String id,
+        @Schema(description = "The number assigned to the created work")
+        Long workNumber,
+        @Schema(description = "The error code, 0 if the work has been created")
+        Integer errorCode,
+        @Schema(description = "The error message if the work has not been created")
+        String errorMessage
+) {
+}
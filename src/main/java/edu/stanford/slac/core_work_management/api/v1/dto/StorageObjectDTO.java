@@ -6,16 +6,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 
 import java.io.InputStream;
+import java.time.Instant;
 
 @Builder(toBuilder = true)
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonIgnoreProperties(ignoreUnknown = true)
 @Schema(description = "DTO for the storage object")
 public record StorageObjectDTO (
+        @Schema(description = "The unique id of the stored object")
+        String id,
         @Schema(description = "The filename of the object")
         String filename,
         @Schema(description = "The content type of the object")
         String contentType,
+        @Schema(description = "The full length of the object in bytes")
+        Long length,
+        @Schema(description = "The last modification of the object")
+        Instant lastModified,
+        @Schema(description = "The entity tag of the object")
+        String etag,
         @Schema(description = "The file input stream of the object")
         InputStream file
 ){}
@@ -59,6 +59,8 @@ public record WorkSummaryDTO(
         PersonDTO lastModifiedBy,
         Long version,
         @Schema(description = "The authorization access for the work specific resources")
-        List<AuthorizationResourceDTO> accessList
+        List<AuthorizationResourceDTO> accessList,
+        @Schema(description = "The opaque cursor of the work, to use as anchor for the pagination")
+        String cursor
 ) {
 }
@@ -23,6 +23,7 @@ import edu.stanford.slac.core_work_management.model.BucketSlotQueryParameter;
 import edu.stanford.slac.core_work_management.model.BucketSlotWorkType;
 import edu.stanford.slac.core_work_management.service.DomainService;
 import edu.stanford.slac.core_work_management.service.LOVService;
+import edu.stanford.slac.core_work_management.utility.PageCursor;
 import org.mapstruct.*;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -30,6 +31,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Mapper(
+        imports = PageCursor.class,
         unmappedTargetPolicy = ReportingPolicy.IGNORE,
         componentModel = MappingConstants.ComponentModel.SPRING,
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE,
@@ -74,6 +76,7 @@ public abstract class BucketSlotMapper {
     @Mapping(target = "type", qualifiedByName = "toLOVValueDTO")
     @Mapping(target = "status", qualifiedByName = "toLOVValueDTO")
     @Mapping(target = "admittedWorkType", expression = "java(getWorkType(bucketSlot.getAdmittedWorkTypeIds()))")
+    @Mapping(target = "cursor", expression = "java(PageCursor.encode(bucketSlot.getCreatedDate(), bucketSlot.getId()))")
     public abstract BucketSlotDTO toDTO(BucketSlot bucketSlot);
 
     /**
@@ -1,11 +1,11 @@
 package edu.stanford.slac.core_work_management.api.v1.mapper;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.core_work_management.api.v1.dto.CommentDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.NewCommentDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.UpdateCommentDTO;
 import edu.stanford.slac.core_work_management.model.Comment;
+import edu.stanford.slac.core_work_management.service.PersonResolverService;
 import jakarta.validation.Valid;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -19,7 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 )
 public abstract class CommentMapping {
     @Autowired
-    private PeopleGroupService peopleGroupService;
+    private PersonResolverService personResolverService;
 
     abstract public Comment toModel(String relatedDocumentId, NewCommentDTO newCommentDTO);
 
@@ -30,6 +30,6 @@ public abstract class CommentMapping {
 
     public PersonDTO getPersonDTO(String email) {
         if (email == null) return null;
-        return peopleGroupService.findPersonByEMail(email);
+        return personResolverService.findPersonByEMail(email);
     }
 }
@@ -0,0 +1,24 @@
+package edu.stanford.slac.core_work_management.api.v1.mapper;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
+import edu.stanford.slac.ad.eed.baselib.model.Person;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Map the persons read from LDAP with the attribute mapper of the base library
+ */
+@Mapper(
+        unmappedTargetPolicy = ReportingPolicy.IGNORE,
+        componentModel = MappingConstants.ComponentModel.SPRING
+)
+public abstract class PersonMapper {
+    /**
+     * Map a person to a DTO
+     *
+     * @param person the person
+     * @return the DTO
+     */
+    public abstract PersonDTO toDTO(Person person);
+}
@@ -9,7 +9,6 @@ import org.mapstruct.ReportingPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.core_work_management.api.v1.dto.DomainDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.NewShopGroupDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.ShopGroupDTO;
@@ -18,6 +17,7 @@ import edu.stanford.slac.core_work_management.api.v1.dto.UpdateShopGroupDTO;
 import edu.stanford.slac.core_work_management.model.ShopGroup;
 import edu.stanford.slac.core_work_management.model.ShopGroupUser;
 import edu.stanford.slac.core_work_management.service.DomainService;
+import edu.stanford.slac.core_work_management.service.PersonResolverService;
 
 @Mapper(
         unmappedTargetPolicy = ReportingPolicy.IGNORE,
@@ -27,7 +27,7 @@ public abstract class ShopGroupMapper {
     @Autowired
     private DomainService domainService;
     @Autowired
-    PeopleGroupService peopleGroupService;
+    PersonResolverService personResolverService;
 
     /**
      * Map a shop group to a DTO
@@ -79,7 +79,7 @@ public abstract class ShopGroupMapper {
      * @return the model
      */
     public PersonDTO fillPersonDTOById(String userId){
-        return peopleGroupService.findPersonByEMail(userId);
+        return personResolverService.findPersonByEMail(userId);
     }
 
     /**
@@ -6,7 +6,6 @@ import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.ad.eed.baselib.service.ModelHistoryService;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.core_work_management.api.v1.dto.*;
 import edu.stanford.slac.core_work_management.exception.AttachmentNotFound;
 import edu.stanford.slac.core_work_management.exception.CustomAttributeNotFound;
@@ -15,6 +14,7 @@ import edu.stanford.slac.core_work_management.model.*;
 import edu.stanford.slac.core_work_management.model.value.*;
 import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
 import edu.stanford.slac.core_work_management.service.*;
+import edu.stanford.slac.core_work_management.utility.PageCursor;
 import org.mapstruct.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -24,10 +24,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 import static edu.stanford.slac.core_work_management.config.AuthorizationStringConfig.WORK_AUTHORIZATION_TEMPLATE;
@@ -37,6 +36,7 @@ import static edu.stanford.slac.core_work_management.config.AuthorizationStringC
  */
 @Mapper(
         componentModel = "spring",
+        imports = PageCursor.class,
         unmappedTargetPolicy = ReportingPolicy.IGNORE,
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE,
         nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS
@@ -61,7 +61,7 @@ public abstract class WorkMapper {
     @Autowired
     DomainMapper domainMapper;
     @Autowired
-    PeopleGroupService peopleGroupService;
+    PersonResolverService personResolverService;
     @Autowired
     AttachmentService attachmentService;
 
@@ -135,8 +135,288 @@ public abstract class WorkMapper {
     @Mapping(target = "domain", expression = "java(toDomainDTO(work.getDomainId()))")
     @Mapping(target = "createdBy", expression = "java(getPersonDTO(work.getCreatedBy()))")
     @Mapping(target = "lastModifiedBy", expression = "java(getPersonDTO(work.getLastModifiedBy()))")
+    @Mapping(target = "cursor", expression = "java(PageCursor.encode(work.getCreatedDate(), work.getId()))")
     abstract public WorkSummaryDTO toSummaryDTO(Work work, WorkDetailsOptionDTO workDetailsOptionDTO);
 
+    /**
+     * Convert the {@link Work} to a {@link WorkSummaryDTO} without resolving the referenced entities
+     *
+     * @param work the entity to convert
+     * @return the converted DTO
+     */
+    @Named("toSummaryDTOWithoutReferences")
+    @Mapping(target = "workType", ignore = true)
+    @Mapping(target = "domain", ignore = true)
+    @Mapping(target = "currentStatus", ignore = true)
+    @Mapping(target = "currentBucketAssociation", ignore = true)
+    @Mapping(target = "createdBy", ignore = true)
+    @Mapping(target = "lastModifiedBy", ignore = true)
+    @Mapping(target = "cursor", expression = "java(PageCursor.encode(work.getCreatedDate(), work.getId()))")
+    abstract public WorkSummaryDTO toSummaryDTOWithoutReferences(Work work);
+
+    /**
+     * Convert the {@link Work} to a {@link WorkDTO} without resolving the referenced entities
+     *
+     * @param work the entity to convert
+     * @return the converted DTO
+     */
+    @Named("toDTOWithoutReferences")
+    @Mapping(target = "workType", ignore = true)
+    @Mapping(target = "customFields", ignore = true)
+    @Mapping(target = "domain", ignore = true)
+    @Mapping(target = "changesHistory", ignore = true)
+    @Mapping(target = "currentStatus", ignore = true)
+    @Mapping(target = "statusHistory", ignore = true)
+    @Mapping(target = "currentBucketAssociation", ignore = true)
+    @Mapping(target = "bucketAssociationsHistory", ignore = true)
+    @Mapping(target = "userWatchlist", ignore = true)
+    @Mapping(target = "createdBy", ignore = true)
+    @Mapping(target = "lastModifiedBy", ignore = true)
+    abstract public WorkDTO toDTOWithoutReferences(Work work);
+
+    /**
+     * Convert the {@link WorkStatusLog} to a {@link WorkStatusLogDTO} without resolving the user
+     *
+     * @param workStatusLog the entity to convert
+     * @return the converted DTO
+     */
+    @Named("toWorkStatusLogWithoutReferences")
+    @Mapping(target = "changedBy", ignore = true)
+    abstract public WorkStatusLogDTO toWorkStatusLogWithoutReferences(WorkStatusLog workStatusLog);
+
+    /**
+     * Convert the {@link WorkBucketAssociation} to a {@link WorkBucketAssociationDTO} without resolving the bucket
+     *
+     * @param bucketAssociation the entity to convert
+     * @return the converted DTO
+     */
+    @Named("toBucketAssociationDTOWithoutReferences")
+    @Mapping(target = "bucket", ignore = true)
+    abstract public WorkBucketAssociationDTO toBucketAssociationDTOWithoutReferences(WorkBucketAssociation bucketAssociation);
+
+    /**
+     * Convert a list of {@link Work} to a list of {@link WorkSummaryDTO}
+     * <p>
+     * all the entities referenced by the works are resolved once for the whole list
+     *
+     * @param works                the entities to convert
+     * @param workDetailsOptionDTO the option for the conversion
+     * @return the converted DTOs
+     */
+    public List<WorkSummaryDTO> toSummaryDTO(List<Work> works, WorkDetailsOptionDTO workDetailsOptionDTO) {
+        if (works == null || works.isEmpty()) return Collections.emptyList();
+        WorkMappingReferences references = resolveReferences(works, false);
+        return works.stream()
+                .map(
+                        work -> toSummaryDTOWithoutReferences(work)
+                                .toBuilder()
+                                .workType(toWorkTypeDTO(work, references))
+                                .domain(toDomainDTO(work.getDomainId(), references))
+                                .currentStatus(toWorkStatusLog(work.getCurrentStatus(), references))
+                                .currentBucketAssociation(toDTO(work.getCurrentBucketAssociation(), references))
+                                .createdBy(getPersonDTO(work.getCreatedBy(), references))
+                                .lastModifiedBy(getPersonDTO(work.getLastModifiedBy(), references))
+                                .build()
+                )
+                .toList();
+    }
+
+    /**
+     * Convert a list of {@link Work} to a list of {@link WorkDTO}
+     * <p>
+     * all the entities referenced by the works, and by their custom fields, are resolved once for the whole list
+     *
+     * @param works                the entities to convert
+     * @param workDetailsOptionDTO the option for the conversion
+     * @return the converted DTOs
+     */
+    public List<WorkDTO> toDTO(List<Work> works, WorkDetailsOptionDTO workDetailsOptionDTO) {
+        if (works == null || works.isEmpty()) return Collections.emptyList();
+        WorkMappingReferences references = resolveReferences(works, true);
+        return works.stream()
+                .map(
+                        work -> toDTOWithoutReferences(work)
+                                .toBuilder()
+                                .workType(toWorkTypeDTO(work, references))
+                                .customFields(toCustomFieldValuesDTOForWork(work.getWorkType().getId(), work.getCustomFields(), references))
+                                .domain(toDomainDTO(work.getDomainId(), references))
+                                .changesHistory(getChanges(work.getId(), workDetailsOptionDTO))
+                                .currentStatus(toWorkStatusLog(work.getCurrentStatus(), references))
+                                .statusHistory(
+                                        work.getStatusHistory() == null ? null : work.getStatusHistory().stream()
+                                                .map(log -> toWorkStatusLog(log, references))
+                                                .toList()
+                                )
+                                .currentBucketAssociation(toDTO(work.getCurrentBucketAssociation(), references))
+                                .bucketAssociationsHistory(
+                                        work.getBucketAssociationsHistory() == null ? null : work.getBucketAssociationsHistory().stream()
+                                                .map(association -> toDTO(association, references))
+                                                .toList()
+                                )
+                                .userWatchlist(
+                                        work.getUserWatchlist() == null ? null : work.getUserWatchlist().stream()
+                                                .map(email -> getPersonDTO(email, references))
+                                                .collect(Collectors.toSet())
+                                )
+                                .createdBy(getPersonDTO(work.getCreatedBy(), references))
+                                .lastModifiedBy(getPersonDTO(work.getLastModifiedBy(), references))
+                                .build()
+                )
+                .toList();
+    }
+
+    /**
+     * Resolve all the entities referenced by the works
+     * <p>
+     * domains, buckets, lov values and work types are fetched with a single query each,
+     * every distinct user is resolved only once
+     *
+     * @param works                the works to scan
+     * @param includeCustomFields  if true also the references of the custom fields are resolved
+     * @return the resolved references
+     */
+    private WorkMappingReferences resolveReferences(List<Work> works, boolean includeCustomFields) {
+        Set<String> domainIds = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        Set<String> bucketIds = new HashSet<>();
+        Set<String> lovIds = new HashSet<>();
+        Set<String> workTypeIds = new HashSet<>();
+        works.forEach(
+                work -> {
+                    addIfNotNull(domainIds, work.getDomainId());
+                    addIfNotNull(emails, work.getCreatedBy());
+                    addIfNotNull(emails, work.getLastModifiedBy());
+                    if (work.getCurrentStatus() != null) addIfNotNull(emails, work.getCurrentStatus().getChangedBy());
+                    if (work.getCurrentBucketAssociation() != null) addIfNotNull(bucketIds, work.getCurrentBucketAssociation().getBucketId());
+                    if (!includeCustomFields) return;
+
+                    if (work.getWorkType() != null) addIfNotNull(workTypeIds, work.getWorkType().getId());
+                    if (work.getStatusHistory() != null) work.getStatusHistory().forEach(log -> addIfNotNull(emails, log.getChangedBy()));
+                    if (work.getBucketAssociationsHistory() != null) work.getBucketAssociationsHistory().forEach(a -> addIfNotNull(bucketIds, a.getBucketId()));
+                    if (work.getUserWatchlist() != null) work.getUserWatchlist().forEach(email -> addIfNotNull(emails, email));
+                    if (work.getCustomFields() == null) return;
+                    work.getCustomFields().stream().map(CustomField::getValue).filter(Objects::nonNull).forEach(
+                            value -> {
+                                if (value instanceof LOVValue lovValue) addIfNotNull(lovIds, lovValue.getValue());
+                                else if (value instanceof BucketValue bucketValue) addIfNotNull(bucketIds, bucketValue.getValue());
+                                else if (value instanceof UsersValue usersValue && usersValue.getValue() != null) usersValue.getValue().forEach(email -> addIfNotNull(emails, email));
+                            }
+                    );
+                }
+        );
+
+        Map<String, PersonDTO> persons = new HashMap<>(personResolverService.findPersonsByEMails(emails));
+        Map<String, Map<String, String>> customFieldNames = new HashMap<>();
+        if (!workTypeIds.isEmpty()) {
+            workTypeRepository.findAllById(workTypeIds).forEach(
+                    workType -> customFieldNames.put(
+                            workType.getId(),
+                            Objects.requireNonNullElse(workType.getCustomFields(), Collections.<WATypeCustomField>emptyList())
+                                    .stream()
+                                    .collect(Collectors.toMap(WATypeCustomField::getId, WATypeCustomField::getName, (a, b) -> a))
+                    )
+            );
+        }
+        return WorkMappingReferences.builder()
+                .domains(domainService.findAllByIds(domainIds).stream().collect(Collectors.toMap(DomainDTO::id, Function.identity())))
+                .persons(persons)
+                .buckets(bucketService.findAllByIds(bucketIds).stream().collect(Collectors.toMap(BucketSlotDTO::id, Function.identity())))
+                .lovValues(lovService.findAllLovValueByIds(lovIds).stream().collect(Collectors.toMap(LOVElementDTO::id, Function.identity())))
+                .customFieldNames(customFieldNames)
+                .workTypes(new HashMap<>())
+                .build();
+    }
+
+    private static void addIfNotNull(Set<String> set, String value) {
+        if (value != null) set.add(value);
+    }
+
+    /**
+     * Get the person by email from the resolved references
+     *
+     * @param email      the email of the person
+     * @param references the resolved references
+     * @return the person
+     */
+    public PersonDTO getPersonDTO(String email, WorkMappingReferences references) {
+        if (email == null) return null;
+        var person = references.persons().get(email);
+        return person != null ? person : getPersonDTO(email);
+    }
+
+    /**
+     * Get the domain by id from the resolved references
+     *
+     * @param domainId   the id of the domain
+     * @param references the resolved references
+     * @return the domain
+     */
+    public DomainDTO toDomainDTO(String domainId, WorkMappingReferences references) {
+        if (domainId == null) return null;
+        var domain = references.domains().get(domainId);
+        // fallback fire the not found exception
+        return domain != null ? domain : toDomainDTO(domainId);
+    }
+
+    /**
+     * Get the bucket by id from the resolved references
+     *
+     * @param bucketId   the id of the bucket
+     * @param references the resolved references
+     * @return the bucket
+     */
+    public BucketSlotDTO fetchBucket(String bucketId, WorkMappingReferences references) {
+        if (bucketId == null) return null;
+        var bucket = references.buckets().get(bucketId);
+        // fallback fire the not found exception
+        return bucket != null ? bucket : fetchBucket(bucketId);
+    }
+
+    /**
+     * Convert the embedded work type reusing the already converted one with the same content
+     *
+     * @param work       the work that contains the work type
+     * @param references the resolved references
+     * @return the converted DTO
+     */
+    public EmbeddableWorkTypeDTO toWorkTypeDTO(Work work, WorkMappingReferences references) {
+        if (work.getWorkType() == null) return null;
+        return references.workTypes().computeIfAbsent(
+                work.getWorkType(),
+                workType -> toWorkTypeDTOFromWorkTypeId(work.getDomainId(), workType)
+        );
+    }
+
+    /**
+     * Convert the {@link WorkStatusLog} to a {@link WorkStatusLogDTO} using the resolved references
+     *
+     * @param workStatusLog the entity to convert
+     * @param references    the resolved references
+     * @return the converted DTO
+     */
+    public WorkStatusLogDTO toWorkStatusLog(WorkStatusLog workStatusLog, WorkMappingReferences references) {
+        if (workStatusLog == null) return null;
+        return toWorkStatusLogWithoutReferences(workStatusLog)
+                .toBuilder()
+                .changedBy(getPersonDTO(workStatusLog.getChangedBy(), references))
+                .build();
+    }
+
+    /**
+     * Convert the {@link WorkBucketAssociation} to a {@link WorkBucketAssociationDTO} using the resolved references
+     *
+     * @param bucketAssociation the entity to convert
+     * @param references        the resolved references
+     * @return the converted DTO
+     */
+    public WorkBucketAssociationDTO toDTO(WorkBucketAssociation bucketAssociation, WorkMappingReferences references) {
+        if (bucketAssociation == null) return null;
+        return toBucketAssociationDTOWithoutReferences(bucketAssociation)
+                .toBuilder()
+                .bucket(fetchBucket(bucketAssociation.getBucketId(), references))
+                .build();
+    }
+
     /**
      * Convert the {@link WorkBucketAssociation} to a {@link WorkBucketAssociationDTO}
      *
@@ -154,7 +434,7 @@ public abstract class WorkMapper {
      */
     public PersonDTO getPersonDTO(String email) {
         if(email==null) return null;
-        return peopleGroupService.findPersonByEMail(email);
+        return personResolverService.findPersonByEMail(email);
     }
 
     /**
@@ -240,6 +520,35 @@ public abstract class WorkMapper {
         ).toList();
     }
 
+    /**
+     * Convert the {@link CustomField} to a {@link CustomFieldDTO} using the resolved references
+     *
+     * @param workTypeId             the id of the work type
+     * @param customAttributesValues the list of the custom attributes
+     * @param references             the resolved references
+     * @return the converted DTO
+     */
+    public List<CustomFieldDTO> toCustomFieldValuesDTOForWork(String workTypeId, List<CustomField> customAttributesValues, WorkMappingReferences references) {
+        if (customAttributesValues == null) return null;
+        var fieldNames = references.customFieldNames().getOrDefault(workTypeId, Collections.emptyMap());
+        return customAttributesValues.stream().map(
+                customAttribute -> CustomFieldDTO.builder()
+                        .id(customAttribute.getId())
+                        .name(
+                                Optional.ofNullable(fieldNames.get(customAttribute.getId()))
+                                        .orElseThrow(
+                                                () -> CustomAttributeNotFound.notFoundById()
+                                                        .id(customAttribute.getId())
+                                                        .build()
+                                        )
+                        )
+                        .value(
+                                toValueDTO(customAttribute.getValue(), references)
+                        )
+                        .build()
+        ).toList();
+    }
+
     /**
      * Convert static string field to {@link }LOVValueDTO}
      *
@@ -547,7 +856,7 @@ public abstract class WorkMapper {
             List<PersonDTO> foundUsers = new ArrayList<>();
             ((UsersValue) abstractValue).getValue().forEach(
                     userId -> {
-                        foundUsers.add(peopleGroupService.findPersonByEMail(userId));
+                        foundUsers.add(personResolverService.findPersonByEMail(userId));
                     }
             );
             // now create the value and return it
@@ -567,9 +876,53 @@ public abstract class WorkMapper {
         return newAttributeValue;
     }
 
+    /**
+     * Convert the {@link AbstractValue} to a {@link ValueDTO} using the resolved references
+     * for the value that point to other entities
+     *
+     * @param abstractValue the entity to convert
+     * @param references    the resolved references
+     * @return the converted DTO
+     */
+    protected ValueDTO toValueDTO(AbstractValue abstractValue, WorkMappingReferences references) {
+        if (abstractValue instanceof LOVValue lValue && references.lovValues().containsKey(lValue.getValue())) {
+            var lovElementFound = references.lovValues().get(lValue.getValue());
+            return ValueDTO
+                    .builder()
+                    .type(ValueTypeDTO.LOV)
+                    .value(lovElementFound.value())
+                    .originalValue(lovElementFound)
+                    .build();
+        } else if (abstractValue instanceof BucketValue bucketValue && references.buckets().containsKey(bucketValue.getValue())) {
+            var bucketSlotDTO = references.buckets().get(bucketValue.getValue());
+            return ValueDTO
+                    .builder()
+                    .type(ValueTypeDTO.Bucket)
+                    .value("%s[%s]".formatted(bucketSlotDTO.type().value(), bucketSlotDTO.description() != null ? bucketSlotDTO.description() : ""))
+                    .originalValue(bucketSlotDTO)
+                    .build();
+        } else if (abstractValue instanceof UsersValue usersValue) {
+            return ValueDTO
+                    .builder()
+                    .type(ValueTypeDTO.Users)
+                    .value(String.join(",", usersValue.getValue()))
+                    .originalValue(usersValue.getValue().stream().map(email -> getPersonDTO(email, references)).toList())
+                    .build();
+        }
+        // all other type don't need lookup or fallback to the single fetch that fire the not found exception
+        return toValueDTO(abstractValue);
+    }
+
     @AfterMapping
     protected void afterMapping(@MappingTarget final WorkDTO.WorkDTOBuilder target, Work source) {
-        var listOfReferenced = lovService.getLOVFieldReference(LOVDomainTypeDTO.Work, source.getDomainId(), source.getWorkType().getId()).keySet();
+        // the static field are taken from the model and the dynamic one from the embedded work type
+        // so no query is needed to find the work type
+        var listOfReferenced = new HashSet<>(lovService.getLOVFieldReference(LOVDomainTypeDTO.Work, source.getDomainId(), null).keySet());
+        if (source.getWorkType() != null && source.getWorkType().getCustomFields() != null) {
+            source.getWorkType().getCustomFields().stream()
+                    .filter(customField -> customField.getLovFieldReference() != null)
+                    .forEach(customField -> listOfReferenced.add(customField.getName()));
+        }
         var targetFields = target.getClass().getDeclaredFields();
         var sourceFields = source.getClass().getDeclaredFields();
         listOfReferenced.forEach(
@@ -0,0 +1,35 @@
+package edu.stanford.slac.core_work_management.api.v1.mapper;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.BucketSlotDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.DomainDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.EmbeddableWorkTypeDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.LOVElementDTO;
+import edu.stanford.slac.core_work_management.model.EmbeddableWorkType;
+import lombok.Builder;
+
+import java.util.Map;
+
+/**
+ * Hold all the entities referenced by a set of works that are mapped together
+ * <p>
+ * every entity is resolved once for the whole set so the mapping of each single
+ * work is done without accessing the database or the people directory
+ *
+ * @param domains          the domains by id
+ * @param persons          the persons by email
+ * @param buckets          the bucket slots by id
+ * @param lovValues        the lov elements by id
+ * @param customFieldNames the custom field name by work type id and custom field id
+ * @param workTypes        the converted embeddable work type, filled during the mapping
+ */
+@Builder
+public record WorkMappingReferences(
+        Map<String, DomainDTO> domains,
+        Map<String, PersonDTO> persons,
+        Map<String, BucketSlotDTO> buckets,
+        Map<String, LOVElementDTO> lovValues,
+        Map<String, Map<String, String>> customFieldNames,
+        Map<EmbeddableWorkType, EmbeddableWorkTypeDTO> workTypes
+) {
+}
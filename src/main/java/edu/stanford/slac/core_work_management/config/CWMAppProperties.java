@@ -5,6 +5,8 @@ import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @Log4j2
 @Getter
 @Setter
@@ -16,4 +18,24 @@ public class CWMAppProperties {
     private String workflowProcessingTopic;
     private Integer kafkaConsumerConcurrency;
     private String smtpServer;
+    private Integer bucketProcessingBatchSize = 50;
+    private Integer eventTriggerProcessingBatchSize = 200;
+    private Integer workflowProcessingParallelism = 32;
+    private Integer workSequenceBlockSize = 100;
+    private Duration personCacheTtl = Duration.ofMinutes(10);
+    private Duration personNegativeCacheTtl = Duration.ofMinutes(1);
+    private Integer personCacheMaxSize = 10000;
+    private Integer psConversionWorkers = 2;
+    private Integer psConversionQueueCapacity = 20;
+    private Duration psConversionTimeout = Duration.ofSeconds(60);
+    private Duration psConversionQueueWait = Duration.ofSeconds(30);
+    private Long dueEventSweepDelay = 600000L;
+    private Duration schedulerLeaseTtl = Duration.ofSeconds(30);
+    private Duration outboxRelayDelay = Duration.ofMillis(500);
+    private Integer outboxRelayBatchSize = 500;
+    private String outboxProducerCompression = "lz4";
+    private Duration outboxProducerLinger = Duration.ofMillis(10);
+    private Integer outboxProducerBatchSize = 65536;
+    private String previewProducerCompression = "lz4";
+    private Boolean compactMessageFormat = false;
 }
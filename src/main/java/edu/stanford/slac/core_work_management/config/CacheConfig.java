@@ -0,0 +1,54 @@
+package edu.stanford.slac.core_work_management.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.metrics.cache.CacheMetricsRegistrar;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.util.List;
+
+/**
+ * Configure the caches shared by all the cluster nodes
+ * <p>
+ * the caches are backed by hazelcast maps with near cache (see hazelcast.yaml), so the entries
+ * evicted on one node are invalidated on all the others
+ */
+@Log4j2
+@Configuration
+@EnableCaching
+@RequiredArgsConstructor
+public class CacheConfig {
+    public static final String DOMAINS_CACHE = "domains";
+    public static final String WORK_TYPES_CACHE = "work-types";
+    public static final String WORKFLOW_CACHE = "workflow";
+    private static final List<String> CACHE_NAMES = List.of(DOMAINS_CACHE, WORK_TYPES_CACHE, WORKFLOW_CACHE);
+
+    private final CacheManager cacheManager;
+    private final ObjectProvider<CacheMetricsRegistrar> cacheMetricsRegistrar;
+
+    /**
+     * Register the hit and miss metrics of the caches
+     * <p>
+     * the hazelcast caches are created on first use, so they are bound explicitly
+     * once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bindCacheMetrics() {
+        cacheMetricsRegistrar.ifAvailable(
+                registrar -> CACHE_NAMES.forEach(
+                        cacheName -> {
+                            Cache cache = cacheManager.getCache(cacheName);
+                            if (cache != null && registrar.bindCacheToRegistry(cache)) {
+                                log.info("Metrics enabled for cache {}", cacheName);
+                            }
+                        }
+                )
+        );
+    }
+}
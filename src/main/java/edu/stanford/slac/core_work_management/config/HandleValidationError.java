@@ -1,6 +1,7 @@
 package edu.stanford.slac.core_work_management.config;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -23,4 +24,18 @@ public class HandleValidationError {
                 errors
         );
     }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Object> handleConstraintViolationException(ConstraintViolationException ex) {
+        // raised by the validation of the elements of a request body list
+        StringBuilder sb = new StringBuilder();
+        ex.getConstraintViolations().forEach(violation -> sb.append("[%s] %s".formatted(violation.getPropertyPath(), violation.getMessage())));
+        Map<String, String> errors = new HashMap<>();
+        errors.put("errorCode", "-1");
+        errors.put("errorMessage", sb.toString());
+        errors.put("errorDomain", "binding errors");
+        return ResponseEntity.badRequest().body(
+                errors
+        );
+    }
 }
\ No newline at end of file
@@ -1,13 +1,17 @@
 package edu.stanford.slac.core_work_management.config;
 
-import edu.stanford.slac.core_work_management.elog_api.dto.ImportEntryDTO;
-import edu.stanford.slac.core_work_management.model.Attachment;
+import edu.stanford.slac.core_work_management.model.PreviewRequest;
 import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
+import edu.stanford.slac.core_work_management.utility.PreviewRequestSerde;
+import edu.stanford.slac.core_work_management.utility.ProcessWorkflowInfoSerde;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
@@ -18,7 +22,6 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.Map;
 
@@ -29,10 +32,13 @@ import java.util.Map;
 public class KafkaConfig {
     private final MeterRegistry meterRegistry;
     private final KafkaProperties kafkaProperties;
+    private final CWMAppProperties cwmAppProperties;
     @Value("${edu.stanford.slac.core-work-management.kafka-consumer-concurrency}")
     private int concurrencyLevel = 1;
     @Value("${edu.stanford.slac.core-work-management.elog-import-topic}")
     private String importEntryTopic;
+    @Value("${edu.stanford.slac.core-work-management.workflow-processing-max-poll-records:500}")
+    private int workflowProcessingMaxPollRecords = 500;
 
     @Bean
     public KafkaAdmin kafkaAdmin() {
@@ -60,75 +66,62 @@ public class KafkaConfig {
     }
 
     @Bean
-    public ProducerFactory<String, ImportEntryDTO> importEntryProducerFactory() {
-        Map<String, Object> props = kafkaProperties.buildProducerProperties();
-        DefaultKafkaProducerFactory<String, ImportEntryDTO> pf = new DefaultKafkaProducerFactory<>(props);
-        pf.addListener(new MicrometerProducerListener<>(meterRegistry));
-        return pf;
-    }
-
-    @Bean
-    public KafkaTemplate<String, ImportEntryDTO> importEntryDTOKafkaTemplate() {
-        return new KafkaTemplate<>(importEntryProducerFactory());
-    }
-
-    @Bean
-    public ConsumerFactory<String, Attachment> attachmentKafkaListenerConsumerFactory() {
+    public ConsumerFactory<String, PreviewRequest> attachmentKafkaListenerConsumerFactory() {
         Map<String, Object> props = kafkaProperties.buildConsumerProperties();
 
         // Calculate max poll records based on concurrency level
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 2 * concurrencyLevel);
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-        props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class.getName());  // Replace JsonDeserializer with your key deserializer if different
-        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class.getName());
-        DefaultKafkaConsumerFactory<String, Attachment> cf = new DefaultKafkaConsumerFactory<>(
+        DefaultKafkaConsumerFactory<String, PreviewRequest> cf = new DefaultKafkaConsumerFactory<>(
                 props,
-                new StringDeserializer(),
-                new JsonDeserializer<>(Attachment.class, false)
+                new ErrorHandlingDeserializer<>(new StringDeserializer()),
+                new ErrorHandlingDeserializer<>(new PreviewRequestSerde())
         );
         cf.addListener(new MicrometerConsumerListener<>(meterRegistry));
         return cf;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Attachment> attachmentKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Attachment> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, PreviewRequest> attachmentKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, PreviewRequest> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(attachmentKafkaListenerConsumerFactory());
         factory.setConcurrency(concurrencyLevel);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);  // Set AckMode to MANUAL
+        // the PostScript previews are acknowledged by the conversion workers, the commits wait for the gaps to be filled
+        factory.getContainerProperties().setAsyncAcks(true);
         return factory;
     }
 
+    // used by the retry topics of the preview processing, the records are republished one by one
     @Bean
-    public ProducerFactory<String, Attachment> attachementProducerFactory() {
+    public ProducerFactory<String, PreviewRequest> previewRequestProducerFactory() {
         Map<String, Object> props = kafkaProperties.buildProducerProperties();
-        DefaultKafkaProducerFactory<String, Attachment> pf = new DefaultKafkaProducerFactory<>(props);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, cwmAppProperties.getPreviewProducerCompression());
+        DefaultKafkaProducerFactory<String, PreviewRequest> pf = new DefaultKafkaProducerFactory<>(
+                props,
+                new StringSerializer(),
+                new PreviewRequestSerde(cwmAppProperties.getCompactMessageFormat())
+        );
         pf.addListener(new MicrometerProducerListener<>(meterRegistry));
         return pf;
     }
 
     @Bean
-    public KafkaTemplate<String, Attachment> attachmentKafkaTemplate() {
-        return new KafkaTemplate<>(attachementProducerFactory());
+    public KafkaTemplate<String, PreviewRequest> previewRequestKafkaTemplate() {
+        return new KafkaTemplate<>(previewRequestProducerFactory());
     }
 
-    // workflow processing consumer and producer
+    // workflow processing consumer, the records are published by the outbox relay
     @Bean
     public ConsumerFactory<String, ProcessWorkflowInfo> workflowProcessingKafkaListenerConsumerFactory() {
         Map<String, Object> props = kafkaProperties.buildConsumerProperties();
 
-        // Calculate max poll records based on concurrency level
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 2 * concurrencyLevel);
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-        props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class.getName());  // Replace JsonDeserializer with your key deserializer if different
-        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class.getName());
+        // the records of a poll are processed concurrently by the batch listener
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, workflowProcessingMaxPollRecords);
         DefaultKafkaConsumerFactory<String, ProcessWorkflowInfo> cf = new DefaultKafkaConsumerFactory<>(
                 props,
-                new StringDeserializer(),
-                new JsonDeserializer<>(ProcessWorkflowInfo.class, false)
+                new ErrorHandlingDeserializer<>(new StringDeserializer()),
+                new ErrorHandlingDeserializer<>(new ProcessWorkflowInfoSerde())
         );
         cf.addListener(new MicrometerConsumerListener<>(meterRegistry));
         return cf;
@@ -140,20 +133,34 @@ public class KafkaConfig {
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(workflowProcessingKafkaListenerConsumerFactory());
         factory.setConcurrency(concurrencyLevel);
+        factory.setBatchListener(true);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);  // Set AckMode to MANUAL
         return factory;
     }
 
+    // outbox relay producer, the values are already serialized when enqueued
     @Bean
-    public ProducerFactory<String, ProcessWorkflowInfo> workflowProcessingProducerFactory() {
+    public ProducerFactory<String, byte[]> outboxProducerFactory() {
         Map<String, Object> props = kafkaProperties.buildProducerProperties();
-        DefaultKafkaProducerFactory<String, ProcessWorkflowInfo> pf = new DefaultKafkaProducerFactory<>(props);
+        // the retries of the relay never duplicate or reorder the records
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        // the relay sends whole batches, so they are compressed and packed together
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, cwmAppProperties.getOutboxProducerCompression());
+        props.put(ProducerConfig.LINGER_MS_CONFIG, (int) cwmAppProperties.getOutboxProducerLinger().toMillis());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, cwmAppProperties.getOutboxProducerBatchSize());
+        DefaultKafkaProducerFactory<String, byte[]> pf = new DefaultKafkaProducerFactory<>(
+                props,
+                new StringSerializer(),
+                new ByteArraySerializer()
+        );
         pf.addListener(new MicrometerProducerListener<>(meterRegistry));
         return pf;
     }
 
     @Bean
-    public KafkaTemplate<String, ProcessWorkflowInfo> workflowProcessingKafkaTemplate() {
-        return new KafkaTemplate<>(workflowProcessingProducerFactory());
+    public KafkaTemplate<String, byte[]> outboxKafkaTemplate() {
+        return new KafkaTemplate<>(outboxProducerFactory());
     }
-}
\ No newline at end of file
+}
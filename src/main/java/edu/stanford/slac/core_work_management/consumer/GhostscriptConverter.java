@@ -0,0 +1,52 @@
+package edu.stanford.slac.core_work_management.consumer;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Convert the PostScript files to PDF running ghostscript
+ * <p>
+ * the process is killed when it does not complete within the timeout
+ */
+@Log4j2
+@Component
+public class GhostscriptConverter implements PostScriptConverter {
+    @Override
+    public void convertToPDF(Path psFile, Path pdfFile, Duration timeout) throws IOException, TimeoutException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(
+                "gs",
+                "-dNOPAUSE",
+                "-dBATCH",
+                "-dSAFER",
+                "-sDEVICE=pdfwrite",
+                "-sOutputFile=" + pdfFile.toString(),
+                psFile.toString()
+        )
+                // the output is not used, discarding it avoids the process block on a full pipe
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+
+        Process process = processBuilder.start();
+        try {
+            if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException("Ghostscript did not convert %s in %s".formatted(psFile, timeout));
+            }
+        } finally {
+            if (process.isAlive()) {
+                log.warn("Killing ghostscript process {} converting {}", process.pid(), psFile);
+                process.destroyForcibly();
+            }
+        }
+
+        int exitCode = process.exitValue();
+        if (exitCode != 0) {
+            throw new IOException("Ghostscript failed to convert PS to PDF. Exit code: " + exitCode);
+        }
+    }
+}
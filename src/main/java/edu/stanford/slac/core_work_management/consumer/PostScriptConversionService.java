@@ -0,0 +1,182 @@
+package edu.stanford.slac.core_work_management.consumer;
+
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Render the previews of the PostScript contents on a dedicated pool of workers
+ * <p>
+ * every conversion runs an external process, so the number of concurrent conversions is limited by the
+ * number of workers and every conversion has a timeout. The jobs waiting for a worker are kept in a bounded
+ * queue; when the queue is full the submission waits for a free slot, slowing down the consumer instead of
+ * accumulating the contents on disk. The wait is bounded well below the kafka poll interval, so the consumer
+ * is never evicted from its group; when it expires the submission is rejected and the record is retried.
+ */
+@Log4j2
+@Service
+public class PostScriptConversionService {
+    private final PostScriptConverter postScriptConverter;
+    private final PreviewRenderer previewRenderer;
+    private final Duration conversionTimeout;
+    private final Duration queueWait;
+    private final ThreadPoolExecutor executor;
+    private final Timer successTimer;
+    private final Timer failedTimer;
+    private final Counter timeoutCounter;
+    private final Counter rejectedCounter;
+
+    public PostScriptConversionService(PostScriptConverter postScriptConverter, PreviewRenderer previewRenderer, CWMAppProperties cwmAppProperties, MeterRegistry meterRegistry) {
+        this.postScriptConverter = postScriptConverter;
+        this.previewRenderer = previewRenderer;
+        this.conversionTimeout = cwmAppProperties.getPsConversionTimeout();
+        this.queueWait = cwmAppProperties.getPsConversionQueueWait();
+        int workers = cwmAppProperties.getPsConversionWorkers();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cwmAppProperties.getPsConversionQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ps-conversion-%d".formatted(threadCount.incrementAndGet()));
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                this::waitForQueue
+        );
+        Gauge.builder("cwm_ps_conversion_queue", executor, e -> e.getQueue().size())
+                .description("The PostScript conversions waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("cwm_ps_conversion_active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("The PostScript conversions in progress")
+                .register(meterRegistry);
+        this.successTimer = conversionTimer(meterRegistry, "success");
+        this.failedTimer = conversionTimer(meterRegistry, "failed");
+        this.timeoutCounter = Counter
+                .builder("cwm_ps_conversion_timeout")
+                .description("The PostScript conversions killed for timeout")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter
+                .builder("cwm_ps_conversion_rejected")
+                .description("The PostScript conversions rejected because the queue stayed full")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Submit the rendering of the previews of a PostScript content
+     * <p>
+     * the content is copied to a temporary file before returning, so the stream can be closed by the
+     * caller. The call blocks while all the workers are busy and the queue is full, at most for the
+     * configured queue wait.
+     *
+     * @param is the PostScript content
+     * @return the future previews
+     * @throws IOException if the content cannot be copied
+     * @throws RejectedExecutionException if the queue stayed full for the whole wait or the service is shutting down
+     */
+    public CompletableFuture<PreviewRenderer.Previews> submit(InputStream is) throws IOException {
+        Path tmpPSFilePath = Files.createTempFile("psTempFile_%s".formatted(UUID.randomUUID()), ".ps");
+        CompletableFuture<PreviewRenderer.Previews> result = new CompletableFuture<>();
+        try {
+            Files.copy(is, tmpPSFilePath, StandardCopyOption.REPLACE_EXISTING);
+            executor.execute(
+                    () -> {
+                        try {
+                            result.complete(render(tmpPSFilePath));
+                        } catch (Throwable e) {
+                            result.completeExceptionally(e);
+                        } finally {
+                            deleteQuietly(tmpPSFilePath);
+                        }
+                    }
+            );
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(tmpPSFilePath);
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Convert the PostScript file and render the previews of the first page
+     *
+     * @param psFile the PostScript file
+     * @return the previews
+     */
+    private PreviewRenderer.Previews render(Path psFile) throws IOException, TimeoutException, InterruptedException {
+        Path tmpPDFFilePath = Files.createTempFile("pdfTempFile_%s".formatted(UUID.randomUUID()), ".pdf");
+        try {
+            long start = System.nanoTime();
+            try {
+                postScriptConverter.convertToPDF(psFile, tmpPDFFilePath, conversionTimeout);
+                successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                timeoutCounter.increment();
+                failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+            return previewRenderer.renderPDF(tmpPDFFilePath);
+        } finally {
+            deleteQuietly(tmpPDFFilePath);
+        }
+    }
+
+    /**
+     * Block the submitter until there is room in the queue or the queue wait expires
+     */
+    private void waitForQueue(Runnable runnable, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("The PostScript conversion service is shut down");
+        }
+        try {
+            if (!executor.getQueue().offer(runnable, queueWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejectedCounter.increment();
+                throw new RejectedExecutionException("No PostScript conversion worker available after %s".formatted(queueWait));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a PostScript conversion worker", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Cannot delete the temporary file {}", path, e);
+        }
+    }
+
+    private static Timer conversionTimer(MeterRegistry meterRegistry, String result) {
+        return Timer
+                .builder("cwm_ps_conversion")
+                .description("The duration of the PostScript conversions")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,24 @@
+package edu.stanford.slac.core_work_management.consumer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Convert a PostScript file to PDF so its first page can be rendered as preview
+ */
+@FunctionalInterface
+public interface PostScriptConverter {
+    /**
+     * Convert a PostScript file to PDF
+     *
+     * @param psFile  the PostScript file
+     * @param pdfFile the PDF file to write
+     * @param timeout the maximum duration of the conversion
+     * @throws IOException          if the conversion fails
+     * @throws TimeoutException     if the conversion does not complete in time
+     * @throws InterruptedException if the conversion is interrupted
+     */
+    void convertToPDF(Path psFile, Path pdfFile, Duration timeout) throws IOException, TimeoutException, InterruptedException;
+}
@@ -0,0 +1,177 @@
+package edu.stanford.slac.core_work_management.consumer;
+
+import lombok.extern.log4j.Log4j2;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.filters.ImageFilter;
+import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+import net.coobird.thumbnailator.util.exif.ExifFilterUtils;
+import net.coobird.thumbnailator.util.exif.ExifUtils;
+import net.coobird.thumbnailator.util.exif.Orientation;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.UUID;
+
+/**
+ * Render the preview and the mini preview of an attachment content
+ * <p>
+ * the content is never held fully in memory: a PDF is spooled to a temporary file and its first page is
+ * rendered at the resolution needed by the preview, a raster image is decoded with subsampling from an
+ * image stream cached on disk. The content is decoded once and both previews are derived from the same
+ * downscaled image.
+ */
+@Log4j2
+@Component
+public class PreviewRenderer {
+    public static final int PREVIEW_SIZE = 1024;
+    public static final int MINI_PREVIEW_SIZE = 32;
+    private static final float MAX_PDF_DPI = 300;
+    private static final float PDF_POINTS_PER_INCH = 72;
+
+    /**
+     * The rendered previews encoded as JPEG
+     *
+     * @param preview     the preview, fit in {@link #PREVIEW_SIZE} pixels
+     * @param miniPreview the mini preview, fit in {@link #MINI_PREVIEW_SIZE} pixels
+     */
+    public record Previews(byte[] preview, byte[] miniPreview) {
+    }
+
+    /**
+     * Render the previews of the first page of a PDF
+     *
+     * @param is the PDF content
+     * @return the previews
+     * @throws IOException if the PDF cannot be read or has no pages
+     */
+    public Previews renderPDF(InputStream is) throws IOException {
+        Path tmpPDFFilePath = Files.createTempFile("pdfPreview_%s".formatted(UUID.randomUUID()), ".pdf");
+        try {
+            Files.copy(is, tmpPDFFilePath, StandardCopyOption.REPLACE_EXISTING);
+            return renderPDF(tmpPDFFilePath);
+        } finally {
+            Files.deleteIfExists(tmpPDFFilePath);
+        }
+    }
+
+    /**
+     * Render the previews of the first page of a PDF file
+     *
+     * @param pdfFile the PDF file
+     * @return the previews
+     * @throws IOException if the PDF cannot be read or has no pages
+     */
+    public Previews renderPDF(Path pdfFile) throws IOException {
+        // the file is read on demand and the document streams are cached on disk
+        try (PDDocument document = Loader.loadPDF(pdfFile.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+            if (document.getNumberOfPages() == 0) {
+                throw new UnsupportedFormatException("pdf", "The document has no pages");
+            }
+            PDRectangle box = document.getPage(0).getCropBox();
+            float dpi = pdfDpi(Math.max(box.getWidth(), box.getHeight()));
+            log.debug("Render the first page of {} at {} DPI", pdfFile, dpi);
+            BufferedImage page = new PDFRenderer(document).renderImageWithDPI(0, dpi, ImageType.RGB);
+            return toPreviews(page, null);
+        }
+    }
+
+    /**
+     * Render the previews of a raster image
+     *
+     * @param is the image content
+     * @return the previews
+     * @throws IOException if the image cannot be decoded
+     */
+    public Previews renderImage(InputStream is) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(is)) {
+            if (iis == null) {
+                throw new UnsupportedFormatException(UnsupportedFormatException.UNKNOWN, "The image cannot be read");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new UnsupportedFormatException(UnsupportedFormatException.UNKNOWN, "No reader found for the image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, false);
+                int subsampling = subsampling(Math.max(reader.getWidth(0), reader.getHeight(0)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                Orientation orientation = ExifUtils.getExifOrientation(reader, 0);
+                BufferedImage image = reader.read(0, param);
+                return toPreviews(
+                        image,
+                        orientation == null ? null : ExifFilterUtils.getFilterForOrientation(orientation)
+                );
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Return the DPI that render a PDF page at the preview size
+     *
+     * @param maxSidePoints the longest side of the page in points
+     * @return the DPI
+     */
+    static float pdfDpi(float maxSidePoints) {
+        if (maxSidePoints <= 0) return MAX_PDF_DPI;
+        return Math.min(MAX_PDF_DPI, PREVIEW_SIZE * PDF_POINTS_PER_INCH / maxSidePoints);
+    }
+
+    /**
+     * Return the subsampling that decode an image at least at the preview size
+     *
+     * @param maxSidePixels the longest side of the image in pixels
+     * @return the subsampling, 1 to decode all the pixels
+     */
+    static int subsampling(int maxSidePixels) {
+        return Math.max(1, maxSidePixels / PREVIEW_SIZE);
+    }
+
+    /**
+     * Downscale the decoded image to the preview and derive the mini preview from it
+     *
+     * @param image       the decoded image
+     * @param orientation the filter that fix the orientation of the image, can be null
+     * @return the previews
+     * @throws IOException if the previews cannot be encoded
+     */
+    private static Previews toPreviews(BufferedImage image, ImageFilter orientation) throws IOException {
+        var previewBuilder = Thumbnails.of(image)
+                .size(PREVIEW_SIZE, PREVIEW_SIZE)
+                .imageType(BufferedImage.TYPE_INT_RGB);
+        if (orientation != null) previewBuilder.addFilter(orientation);
+        BufferedImage preview = previewBuilder.asBufferedImage();
+
+        ByteArrayOutputStream previewBAOS = new ByteArrayOutputStream();
+        Thumbnails.of(preview)
+                .scale(1)
+                .outputFormat("jpg")
+                .toOutputStream(previewBAOS);
+        ByteArrayOutputStream miniPreviewBAOS = new ByteArrayOutputStream();
+        Thumbnails.of(preview)
+                .size(MINI_PREVIEW_SIZE, MINI_PREVIEW_SIZE)
+                .outputFormat("jpg")
+                .toOutputStream(miniPreviewBAOS);
+        return new Previews(previewBAOS.toByteArray(), miniPreviewBAOS.toByteArray());
+    }
+}
@@ -2,37 +2,34 @@ package edu.stanford.slac.core_work_management.consumer;
 
 
 import edu.stanford.slac.core_work_management.api.v1.dto.StorageObjectDTO;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
 import edu.stanford.slac.core_work_management.model.Attachment;
+import edu.stanford.slac.core_work_management.model.PreviewRequest;
 import edu.stanford.slac.core_work_management.model.StorageObject;
 import edu.stanford.slac.core_work_management.repository.StorageRepository;
 import edu.stanford.slac.core_work_management.service.AttachmentService;
 import io.micrometer.core.instrument.Counter;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import net.coobird.thumbnailator.Thumbnails;
 import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.http.MediaType;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.util.UUID;
+import java.math.BigInteger;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 
@@ -40,147 +37,181 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 @Component
 @AllArgsConstructor
 public class ProcessingPreview {
+    // the retry policy of the preview topic, also applied to the PostScript conversions completed outside the listener
+    private static final int RETRY_ATTEMPTS = 3;
+    private static final long RETRY_DELAY = 2_000;
+    private static final long RETRY_MAX_DELAY = 10_000;
+    private static final double RETRY_MULTIPLIER = 2;
+    private static final String RETRY_TOPIC_SUFFIX = "-retry";
+    private static final String DLT_SUFFIX = "-dlt";
     final private AttachmentService attachmentService;
     final private StorageRepository storageRepository;
+    final private PreviewRenderer previewRenderer;
+    final private PostScriptConversionService postScriptConversionService;
     final private Counter previewProcessedCounter;
     final private Counter previewErrorsCounter;
     final private Counter previewRetrySubmitted;
+    final private KafkaTemplate<String, PreviewRequest> previewRequestKafkaTemplate;
+    final private CWMAppProperties cwmAppProperties;
 
     @RetryableTopic(
-            attempts = "3",
-            backoff = @Backoff(delay = 2_000, maxDelay = 10_000, multiplier = 2),
+            attempts = "" + RETRY_ATTEMPTS,
+            backoff = @Backoff(delay = RETRY_DELAY, maxDelay = RETRY_MAX_DELAY, multiplier = RETRY_MULTIPLIER),
+            retryTopicSuffix = RETRY_TOPIC_SUFFIX,
+            dltTopicSuffix = DLT_SUFFIX,
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
             autoCreateTopics = "false",
-            kafkaTemplate = "attachmentKafkaTemplate"
+            kafkaTemplate = "previewRequestKafkaTemplate"
     )
     @KafkaListener(
             topics = "${edu.stanford.slac.core-work-management.image-preview-topic}",
             containerFactory = "attachmentKafkaListenerContainerFactory"
     )
     public void processPreview(
-            Attachment attachment,
+            PreviewRequest previewRequest,
             Acknowledgment acknowledgment,
             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
             @Header(KafkaHeaders.OFFSET) long offset
     ) throws RuntimeException, IOException {
-        log.info("Process preview for attachment: {} from {} @ {}", attachment, topic, offset);
-        byte[] imageBytes = null;
+        log.info("Process preview for attachment: {} from {} @ {}", previewRequest, topic, offset);
+        // the same content could have been processed for another attachment
+        if (attachmentService.reusePreview(previewRequest.getAttachmentId())) {
+            previewProcessedCounter.increment();
+            acknowledgment.acknowledge();
+            return;
+        }
         wrapCatch(
-                () -> {attachmentService.setPreviewProcessingState(attachment.getId(), Attachment.PreviewProcessingState.Processing); return null;},
+                () -> {attachmentService.setPreviewProcessingState(previewRequest.getAttachmentId(), Attachment.PreviewProcessingState.Processing); return null;},
         -1
         );
-        StorageObjectDTO fod = attachmentService.getAttachmentContent(attachment.getId());
+        StorageObjectDTO fod = attachmentService.getAttachmentContent(previewRequest.getAttachmentId());
         if(fod == null || fod.file() == null) {
-            log.error("Error during preview generation for the attachment {} with error with message '{}' and not will be retried", attachment, "Content not found");
+            log.error("Error during preview generation for the attachment {} with error with message '{}' and not will be retried", previewRequest, "Content not found");
             previewErrorsCounter.increment();
         }
         try (var is = fod.file()) {
-
-            if (attachment.getContentType().compareToIgnoreCase("application/pdf") == 0) {
-                imageBytes = getFromPDF(is);
+            PreviewRenderer.Previews previews;
+            if (previewRequest.getContentType().compareToIgnoreCase("application/pdf") == 0) {
+                previews = previewRenderer.renderPDF(is);
             } else if (
-                    attachment.getContentType().compareToIgnoreCase("application/ps") == 0 ||
-                            attachment.getContentType().compareToIgnoreCase("application/postscript") == 0) {
-                imageBytes = getFromPS(is);
+                    previewRequest.getContentType().compareToIgnoreCase("application/ps") == 0 ||
+                            previewRequest.getContentType().compareToIgnoreCase("application/postscript") == 0) {
+                // the conversion runs on the dedicated workers, so the other previews are not stalled,
+                // a submission rejected because the workers stay busy is sent to the retry topics
+                postScriptConversionService.submit(is).whenComplete(
+                        (psPreviews, error) -> completePostScriptPreview(previewRequest, topic, psPreviews, error, acknowledgment)
+                );
+                return;
             } else {
-                imageBytes = is.readAllBytes();
+                previews = previewRenderer.renderImage(is);
             }
-            // crete preview
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            Thumbnails.of(new ByteArrayInputStream(imageBytes))
-                    .size(1024, 1024)
-                    .outputFormat("jpg")
-                    .toOutputStream(baos);
-            String previewId = storageRepository.addObject(
-                    StorageObject.builder()
-                            .file(new ByteArrayInputStream(baos.toByteArray()))
-                            .filename("preview.jpg")
-                            .contentType(MediaType.IMAGE_JPEG_VALUE)
-                            .build()
-            );
-
-            baos = new ByteArrayOutputStream();
-            Thumbnails.of(new ByteArrayInputStream(imageBytes))
-                    .size(32, 32)
-                    .outputFormat("jpg")
-                    .toOutputStream(baos);
-            attachmentService.completePreview(attachment.getId(), previewId,  baos.toByteArray());
+            storePreviews(previewRequest, previews);
             previewProcessedCounter.increment();
             acknowledgment.acknowledge();
         } catch (UnsupportedFormatException e) {
-            attachmentService.setPreviewProcessingState(attachment.getId(), Attachment.PreviewProcessingState.PreviewNotAvailable);
+            attachmentService.setPreviewProcessingState(previewRequest.getAttachmentId(), Attachment.PreviewProcessingState.PreviewNotAvailable);
             // in this case we manage this error with the state of image not available
-            log.info("Unsupported image for preview for the attachment {}", attachment);
+            log.info("Unsupported image for preview for the attachment {}", previewRequest);
             previewErrorsCounter.increment();
+            acknowledgment.acknowledge();
         } catch (Throwable e) {
-            attachmentService.setPreviewProcessingState(attachment.getId(), Attachment.PreviewProcessingState.Error);
-            log.error("Error during preview generation for the attachment {} with error with message '{}' - [{}]", attachment, e.getMessage(), e);
+            attachmentService.setPreviewProcessingState(previewRequest.getAttachmentId(), Attachment.PreviewProcessingState.Error);
+            log.error("Error during preview generation for the attachment {} with error with message '{}' - [{}]", previewRequest, e.getMessage(), e);
             previewRetrySubmitted.increment();
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Get the first page of a PS file as a JPEG image
+     * Complete the preview of a PostScript attachment when its conversion ends
+     * <p>
+     * it runs on the conversion worker, so the error cannot be returned to the listener for the retry.
+     * The transient failures, as a timeout or an I/O error of the conversion, are republished on the
+     * next retry topic, the record is then always acknowledged
      *
-     * @param is the input stream
-     * @return the JPEG image as a byte array
-     * @throws IOException if an error occurs during the conversion
-     * @throws InterruptedException if the process is interrupted
+     * @param previewRequest the preview request
+     * @param topic          the topic of the record
+     * @param previews       the rendered previews, null if the conversion failed
+     * @param error          the conversion error, null if the conversion succeeded
+     * @param acknowledgment the acknowledgment of the record
      */
-    private byte[] getFromPS(InputStream is) throws IOException, InterruptedException {
-        byte[] imageBytes = null;
-        Path tmpPSFilePath = null;
-        Path tmpPDFFilePath = null;
+    private void completePostScriptPreview(PreviewRequest previewRequest, String topic, PreviewRenderer.Previews previews, Throwable error, Acknowledgment acknowledgment) {
         try {
-            tmpPSFilePath = Files.createTempFile("psTempFile_%s".formatted(UUID.randomUUID()), ".ps");
-            tmpPDFFilePath = Files.createTempFile("pdfTempFile_%s".formatted(UUID.randomUUID()), ".pdf");
-            Files.write(tmpPSFilePath, is.readAllBytes(), StandardOpenOption.WRITE);
-            ProcessBuilder processBuilder = new ProcessBuilder(
-                    "gs",
-                    "-dNOPAUSE",
-                    "-dBATCH",
-                    "-sDEVICE=pdfwrite",
-                    "-sOutputFile=" + tmpPDFFilePath.toString(),
-                    tmpPSFilePath.toString()
-            );
-
-            Process process = processBuilder.start();
-            int exitCode = process.waitFor();
-
-            if (exitCode != 0) {
-                throw new IOException("Ghostscript failed to convert PS to PDF. Exit code: " + exitCode);
-            }
-            // get pdf file input stream
-            try (InputStream pdfInputStream = Files.newInputStream(tmpPDFFilePath)) {
-                //convert pdf to image
-                imageBytes = getFromPDF(pdfInputStream);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null) {
+                storePreviews(previewRequest, previews);
+                previewProcessedCounter.increment();
+            } else if (cause instanceof UnsupportedFormatException) {
+                attachmentService.setPreviewProcessingState(previewRequest.getAttachmentId(), Attachment.PreviewProcessingState.PreviewNotAvailable);
+                log.info("Unsupported PostScript for preview for the attachment {}", previewRequest);
+                previewErrorsCounter.increment();
+            } else if (cause instanceof TimeoutException || cause instanceof IOException) {
+                attachmentService.setPreviewProcessingState(previewRequest.getAttachmentId(), Attachment.PreviewProcessingState.Error);
+                log.error("Error during PostScript preview generation for the attachment {} with error with message '{}', will be retried - [{}]", previewRequest, cause.getMessage(), cause);
+                submitRetry(previewRequest, topic);
+            } else {
+                attachmentService.setPreviewProcessingState(previewRequest.getAttachmentId(), Attachment.PreviewProcessingState.Error);
+                log.error("Error during PostScript preview generation for the attachment {} with error with message '{}' - [{}]", previewRequest, cause.getMessage(), cause);
+                previewErrorsCounter.increment();
             }
+        } catch (Throwable e) {
+            log.error("Error completing the PostScript preview for the attachment {} with error with message '{}' - [{}]", previewRequest, e.getMessage(), e);
+            previewErrorsCounter.increment();
         } finally {
-            if (tmpPSFilePath != null) Files.delete(tmpPSFilePath);
-            if (tmpPDFFilePath != null) Files.delete(tmpPDFFilePath);
+            acknowledgment.acknowledge();
         }
-        return imageBytes;
     }
 
     /**
-     * Get the first page of a PDF as a JPEG image
+     * Publish a failed preview request on the topic that follows the one of the record
+     * <p>
+     * the retry topics are the ones created by the retry policy of the listener, so the record is
+     * consumed again after the same backoff and goes to the dead letter topic after the last attempt
      *
-     * @param is the input stream
-     * @return the JPEG image as a byte array
-     * @throws IOException if an error occurs during the conversion
+     * @param previewRequest the preview request
+     * @param topic          the topic of the failed record
      */
-    private byte[] getFromPDF(InputStream is) throws IOException {
-        byte[] imageBytes = null;
-        try (PDDocument document = Loader.loadPDF(is.readAllBytes())) {
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            if (document.getNumberOfPages()>0) {
-                // Render the page as an image at 300 DPI
-                BufferedImage bufferedImage = pdfRenderer.renderImageWithDPI(0, 300);
-                ByteArrayOutputStream jpegPreviewBAOS = new ByteArrayOutputStream();
-                ImageIO.write(bufferedImage, "JPEG", jpegPreviewBAOS);
-                imageBytes = jpegPreviewBAOS.toByteArray();
-            }
+    private void submitRetry(PreviewRequest previewRequest, String topic) {
+        String mainTopic = cwmAppProperties.getImagePreviewTopic();
+        // the main topic is the first attempt, the retry topic with index i the attempt i + 2
+        int attempt = topic.startsWith(mainTopic + RETRY_TOPIC_SUFFIX + "-")
+                ? Integer.parseInt(topic.substring((mainTopic + RETRY_TOPIC_SUFFIX + "-").length())) + 2
+                : 1;
+        ProducerRecord<String, PreviewRequest> record;
+        if (attempt >= RETRY_ATTEMPTS) {
+            record = new ProducerRecord<>(mainTopic + DLT_SUFFIX, previewRequest.getAttachmentId(), previewRequest);
+            previewErrorsCounter.increment();
+        } else {
+            long delay = (long) Math.min(RETRY_DELAY * Math.pow(RETRY_MULTIPLIER, attempt - 1), RETRY_MAX_DELAY);
+            record = new ProducerRecord<>("%s%s-%d".formatted(mainTopic, RETRY_TOPIC_SUFFIX, attempt - 1), previewRequest.getAttachmentId(), previewRequest);
+            record.headers().add(RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS, BigInteger.valueOf(attempt + 1).toByteArray());
+            record.headers().add(RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP, BigInteger.valueOf(System.currentTimeMillis() + delay).toByteArray());
+            previewRetrySubmitted.increment();
         }
-        return imageBytes;
+        previewRequestKafkaTemplate.send(record).whenComplete(
+                (result, sendError) -> {
+                    if (sendError != null) {
+                        log.error("Error submitting the retry of the PostScript preview for the attachment {}", previewRequest, sendError);
+                    }
+                }
+        );
+    }
+
+    /**
+     * Store the preview and complete the attachment with the mini preview
+     *
+     * @param previewRequest the preview request
+     * @param previews       the rendered previews
+     * @throws IOException if the preview cannot be stored
+     */
+    private void storePreviews(PreviewRequest previewRequest, PreviewRenderer.Previews previews) throws IOException {
+        String previewId = storageRepository.addObject(
+                StorageObject.builder()
+                        .file(new ByteArrayInputStream(previews.preview()))
+                        .filename("preview.jpg")
+                        .contentType(MediaType.IMAGE_JPEG_VALUE)
+                        .build()
+        );
+        attachmentService.completePreview(previewRequest.getAttachmentId(), previewId, previews.miniPreview());
     }
 }
@@ -1,84 +1,226 @@
 package edu.stanford.slac.core_work_management.consumer;
 
-import edu.stanford.slac.core_work_management.exception.WorkNotFound;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
 import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
+import edu.stanford.slac.core_work_management.model.Work;
 import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import edu.stanford.slac.core_work_management.service.DomainService;
 import edu.stanford.slac.core_work_management.service.WorkService;
-import lombok.AllArgsConstructor;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
 import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.annotation.RetryableTopic;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 
+/**
+ * Consume the workflow processing requests
+ * <p>
+ * the records of a poll are processed concurrently on virtual threads. The records with the same key
+ * (domainId/workId) are processed in order on the same lane, the parent chains touched by the batch are
+ * coalesced and every distinct ancestor is updated once, from the bottom of the tree up, after all the lanes
+ * have completed. The batch is acknowledged only when all its records have been processed.
+ */
 @Log4j2
 @Component
-@AllArgsConstructor
 public class ProcessingWorkflowUpdate {
     private final WorkRepository workRepository;
     private final WorkService workService;
+    private final DomainService domainService;
+    private final Semaphore parallelism;
+    private final RetryTemplate recordRetryTemplate = RetryTemplate.builder()
+            .maxAttempts(3)
+            .exponentialBackoff(2_000, 2, 10_000)
+            .build();
+
+    public ProcessingWorkflowUpdate(WorkRepository workRepository, WorkService workService, DomainService domainService, CWMAppProperties cwmAppProperties) {
+        this.workRepository = workRepository;
+        this.workService = workService;
+        this.domainService = domainService;
+        this.parallelism = new Semaphore(cwmAppProperties.getWorkflowProcessingParallelism());
+    }
 
-    @RetryableTopic(
-            attempts = "3",
-            backoff = @Backoff(delay = 2_000, maxDelay = 10_000, multiplier = 2),
-            kafkaTemplate = "workflowProcessingKafkaTemplate"
-    )
     @KafkaListener(
             topics = "${edu.stanford.slac.core-work-management.workflow-processing-topic}",
             containerFactory = "workflowProcessingKafkaListenerContainerFactory"
     )
     public void processWorkWorkflow(
-            ProcessWorkflowInfo processWorkflowInfo,
-            Acknowledgment acknowledgment,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header(KafkaHeaders.OFFSET) long offset
-    ) throws RuntimeException, IOException {
+            List<ConsumerRecord<String, ProcessWorkflowInfo>> records,
+            Acknowledgment acknowledgment
+    ) {
+        log.info("Start workflow processing for {} records", records.size());
+        // group the records by key keeping the offset order
+        Map<String, List<ProcessWorkflowInfo>> lanes = new LinkedHashMap<>();
+        records.forEach(
+                record -> {
+                    if (record.value() == null) return;
+                    lanes.computeIfAbsent(
+                            Objects.requireNonNullElse(record.key(), "%s/%s".formatted(record.value().getDomainId(), record.value().getWorkId())),
+                            k -> new ArrayList<>()
+                    ).add(record.value());
+                }
+        );
+
+        // the parent to update, collected by all the lanes
+        Set<ParentReference> parentsToUpdate = Collections.synchronizedSet(new LinkedHashSet<>());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture.allOf(
+                    lanes.values().stream()
+                            .map(lane -> CompletableFuture.runAsync(() -> processLane(lane, parentsToUpdate), executor))
+                            .toArray(CompletableFuture[]::new)
+            ).join();
+        }
+
+        // parent chains can be shared between lanes so they are coalesced and updated sequentially
+        parentsToUpdate.stream()
+                .collect(Collectors.groupingBy(ParentReference::domainId, LinkedHashMap::new, Collectors.mapping(ParentReference::workId, Collectors.toCollection(LinkedHashSet::new))))
+                .forEach(this::processParents);
+        acknowledgment.acknowledge();
+        log.info("Completed workflow processing for {} records on {} lanes", records.size(), lanes.size());
+    }
+
+    /**
+     * Process in order all the records of a lane
+     *
+     * @param lane            the records with the same key
+     * @param parentsToUpdate collect the parent that need to be updated
+     */
+    private void processLane(List<ProcessWorkflowInfo> lane, Set<ParentReference> parentsToUpdate) {
+        parallelism.acquireUninterruptibly();
+        try {
+            lane.forEach(
+                    processWorkflowInfo -> {
+                        try {
+                            processRecord(processWorkflowInfo, parentsToUpdate);
+                        } catch (Exception e) {
+                            log.error("Error processing workflow update for work: {}", processWorkflowInfo, e);
+                        }
+                    }
+            );
+        } finally {
+            parallelism.release();
+        }
+    }
+
+    /**
+     * Update the workflow of a single work
+     * <p>
+     * only the load, the workflow update and the save are retried, the changes of the parent children summary
+     * and of the domain statistics are applied once after the work has been saved. A retry after the save would
+     * reload the already updated work and lose the status change.
+     *
+     * @param processWorkflowInfo the work to process
+     * @param parentsToUpdate     collect the parent that need to be updated
+     */
+    private void processRecord(ProcessWorkflowInfo processWorkflowInfo, Set<ParentReference> parentsToUpdate) {
         log.info("Start workflow processing for work: {}", processWorkflowInfo);
+        StatusChange statusChange = recordRetryTemplate.execute(context -> updateWorkflow(processWorkflowInfo));
+        if (statusChange == null) return;
+        var workToProcess = statusChange.work();
+
+        try {
+            workService.updateParentChildrenSummary(workToProcess, statusChange.previousStatus());
+        } catch (Exception e) {
+            log.error("Error updating the children summary of the parent of work: {}", processWorkflowInfo, e);
+        }
+        domainService.updateDomainStatistics(
+                workToProcess.getDomainId(),
+                workToProcess.getWorkType().getId(),
+                statusChange.previousStatus(),
+                workToProcess.getCurrentStatus().getStatus()
+        );
+
+        // after this work is update we need to update all the
+        // tree up to the ancestor
+        if (workToProcess.getParentWorkId() != null) {
+            parentsToUpdate.add(new ParentReference(workToProcess.getDomainId(), workToProcess.getParentWorkId()));
+        }
+    }
+
+    /**
+     * Load a work, update its workflow and save it
+     *
+     * @param processWorkflowInfo the work to process
+     * @return the saved work with the status it had when loaded, null if the work does not exist
+     */
+    private StatusChange updateWorkflow(ProcessWorkflowInfo processWorkflowInfo) {
         // fetch the work object of the workflow updates
+        var workToProcessOptional = wrapCatch(() -> workRepository.findByDomainIdAndId(processWorkflowInfo.getDomainId(), processWorkflowInfo.getWorkId()), -1);
+        if (workToProcessOptional.isEmpty()) {
+            log.error("Work with id {} not found", processWorkflowInfo.getWorkId());
+            return null;
+        }
+        var workToProcess = workToProcessOptional.get();
+        // we can proceed with the workflow update
+        log.info("Processing workflow update for work: {}", workToProcess);
+        // lastly we need to update the workflow
+        var previousStatus = workToProcess.getCurrentStatus().getStatus();
+        workService.updateWorkWorkflow(workToProcess, null);
+
+        // save the work with all the automatic update on the workflow
+        workRepository.save(workToProcess);
+        return new StatusChange(workToProcess, previousStatus);
+    }
+
+    /**
+     * Update the workflow of the parents of a domain and of all their ancestors
+     * <p>
+     * every distinct ancestor is recalculated only once for the whole batch. If the coalesced update fails,
+     * for example because a parent has been deleted, every parent chain is updated again on its own with its
+     * own retry, so a failing parent does not prevent the update of the others. The recalculation of a
+     * parent only depends on its children, so repeating it for the chains already updated is harmless.
+     *
+     * @param domainId      the domain of the parents
+     * @param parentWorkIds the ids of the parents to update
+     */
+    private void processParents(String domainId, Set<String> parentWorkIds) {
         try {
-            var workToProcessOptional = wrapCatch(() -> workRepository.findByDomainIdAndId(processWorkflowInfo.getDomainId(), processWorkflowInfo.getWorkId()), -1);
-            if (workToProcessOptional.isEmpty()) {
-                log.error("Work with id {} not found", processWorkflowInfo.getWorkId());
-                acknowledgment.acknowledge();
-                return;
-            }
-            var workToProcess = workToProcessOptional.get();
-            // we can proceed with the workflow update
-            log.info("Processing workflow update for work: {}", workToProcess);
-            // lastly we need to update the workflow
-            workService.updateWorkWorkflow(workToProcess, null);
-
-            // save the work with all the automatic update on the workflow
-            workRepository.save(workToProcess);
-
-            // after this work is update we need to update all the
-            // tree up to the ancestor
-            if (workToProcess.getParentWorkId() != null) {
-                // find parent work
-                var parentWork = wrapCatch(
-                        () -> workRepository.findByDomainIdAndId(workToProcess.getDomainId(), workToProcess.getParentWorkId()).orElseThrow(
-                                () -> WorkNotFound
-                                        .notFoundById()
-                                        .errorCode(-1)
-                                        .workId(workToProcess.getParentWorkId())
-                                        .build()
-                        ),
-                        -7
-                );
-                // try to find parent work type
-                workService.updateParentWorkWorkflow(parentWork);
-            }
-            acknowledgment.acknowledge();
+            workService.updateParentWorkWorkflow(domainId, parentWorkIds);
+            return;
         } catch (Exception e) {
-            log.error("Error processing workflow update for work: {}", processWorkflowInfo, e);
+            log.warn("Error processing coalesced workflow update for parent works {} of domain {}, update every parent on its own", parentWorkIds, domainId, e);
         }
+        parentWorkIds.forEach(
+                parentWorkId -> {
+                    try {
+                        recordRetryTemplate.execute(
+                                context -> {
+                                    workService.updateParentWorkWorkflow(domainId, List.of(parentWorkId));
+                                    return null;
+                                }
+                        );
+                    } catch (Exception e) {
+                        log.error("Error processing workflow update for parent work {} of domain {}", parentWorkId, domainId, e);
+                    }
+                }
+        );
+    }
+
+    /**
+     * Identify a parent work that need to be updated
+     *
+     * @param domainId the domain id of the parent
+     * @param workId   the id of the parent
+     */
+    private record ParentReference(String domainId, String workId) {
+    }
+
+    /**
+     * A saved work with the status it had before its workflow has been updated
+     *
+     * @param work           the saved work
+     * @param previousStatus the status of the work when loaded
+     */
+    private record StatusChange(Work work, WorkflowState previousStatus) {
     }
 }
@@ -0,0 +1,61 @@
+package edu.stanford.slac.core_work_management.migration;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.core_work_management.model.OutboxMessage;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.time.Duration;
+
+/**
+ * Create the index used by the relay to find the pending records of the outbox
+ * and the one that removes the sent records after a day
+ */
+@AllArgsConstructor
+@ChangeUnit(id = "init-outbox-message-index", order = "10", author = "bisegni")
+public class M10_InitOutboxMessageIndex {
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        MongoDDLOps.createIndex(
+                OutboxMessage.class,
+                mongoTemplate,
+                new Index()
+                        .on(
+                                "sentDate",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "createdDate",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "_id",
+                                Sort.Direction.ASC
+                        )
+                        .named("pending-created-date-id")
+        );
+        MongoDDLOps.createIndex(
+                OutboxMessage.class,
+                mongoTemplate,
+                new Index()
+                        .on(
+                                "sentDate",
+                                Sort.Direction.ASC
+                        )
+                        .expire(Duration.ofDays(1))
+                        .named("sent-date-ttl")
+        );
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+}
@@ -0,0 +1,58 @@
+package edu.stanford.slac.core_work_management.migration;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.core_work_management.model.BucketSlot;
+import edu.stanford.slac.core_work_management.model.Work;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Create the index used by the (createdDate, id) cursor pagination
+ */
+@AllArgsConstructor
+@ChangeUnit(id = "init-keyset-pagination-index", order = "8", author = "bisegni")
+public class M8_IndexForKeysetPagination {
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        MongoDDLOps.createIndex(
+                Work.class,
+                mongoTemplate,
+                new Index()
+                        .on(
+                                "createdDate",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "_id",
+                                Sort.Direction.ASC
+                        )
+                        .named("created-date-id")
+        );
+        MongoDDLOps.createIndex(
+                BucketSlot.class,
+                mongoTemplate,
+                new Index()
+                        .on(
+                                "createdDate",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "_id",
+                                Sort.Direction.ASC
+                        )
+                        .named("created-date-id")
+        );
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+}
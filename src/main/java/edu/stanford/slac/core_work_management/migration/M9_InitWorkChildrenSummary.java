@@ -0,0 +1,47 @@
+package edu.stanford.slac.core_work_management.migration;
+
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Calculate the children summary of all the works that have children
+ */
+@Log4j2
+@AllArgsConstructor
+@ChangeUnit(id = "init-work-children-summary", order = "9", author = "bisegni")
+public class M9_InitWorkChildrenSummary {
+    private final MongoTemplate mongoTemplate;
+    private final WorkRepository workRepository;
+
+    @Execution
+    public void changeSet() {
+        mongoTemplate.findDistinct(
+                new Query(Criteria.where("parentWorkId").ne(null)),
+                "parentWorkId",
+                Work.class,
+                String.class
+        ).forEach(
+                parentWorkId -> workRepository.findById(parentWorkId).ifPresent(
+                        parentWork -> workRepository.setChildrenSummary(
+                                parentWork.getDomainId(),
+                                parentWork.getId(),
+                                workRepository.computeChildrenSummary(parentWork.getDomainId(), parentWork.getId())
+                        )
+                )
+        );
+        log.info("Children summary initialized");
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+}
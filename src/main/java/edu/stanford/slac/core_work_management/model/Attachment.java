@@ -29,6 +29,10 @@ public class Attachment {
     private String hasPreview;
     private String previewId;
     private String originalId;
+    /**
+     * The SHA-256 of the content, the id of the shared {@link StorageBlob}
+     */
+    private String contentHash;
     private byte[] miniPreview;
     @Builder.Default
     private Boolean inUse = false;
@@ -0,0 +1,41 @@
+package edu.stanford.slac.core_work_management.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The bucket slots claimed by a single processing run
+ * <p>
+ * the processing id is the token written on the claimed bucket slots, only the run that owns it
+ * can complete them, so a run whose claim has been taken over after the timeout cannot complete
+ * the bucket slots of another run
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BucketSlotClaim {
+    /**
+     * The token written on the claimed bucket slots
+     */
+    private String processingId;
+    /**
+     * The ids of the claimed bucket slots
+     */
+    @Builder.Default
+    private List<String> bucketSlotIds = Collections.emptyList();
+
+    /**
+     * Return true if no bucket slot has been claimed
+     *
+     * @return true if the claim is empty
+     */
+    public boolean isEmpty() {
+        return bucketSlotIds == null || bucketSlotIds.isEmpty();
+    }
+}
@@ -0,0 +1,67 @@
+package edu.stanford.slac.core_work_management.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A kafka record waiting to be published
+ * <p>
+ * the record is written in the same transaction of the business change that generates it
+ * and is published by the relay only after the transaction has been committed
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "payload")
+@Document()
+public class OutboxMessage {
+    @Id
+    private String id;
+    /**
+     * The topic where the record is published
+     */
+    private String topic;
+    /**
+     * The key of the record, can be null
+     */
+    private String key;
+    /**
+     * The serialized value of the record
+     */
+    private byte[] payload;
+    /**
+     * The headers of the record
+     */
+    private Map<String, String> headers;
+    /**
+     * The date when the record has been enqueued
+     */
+    private LocalDateTime createdDate;
+    /**
+     * The claim token of the relay that is publishing the record
+     */
+    private String processingId;
+    /**
+     * The date when the record has been claimed
+     */
+    private LocalDateTime processingTimestamp;
+    /**
+     * The date when the broker has acknowledged the record, null if it is pending
+     */
+    private LocalDateTime sentDate;
+    /**
+     * The failed publishing attempts
+     */
+    @Builder.Default
+    private Integer attempts = 0;
+    /**
+     * The error of the last failed attempt
+     */
+    private String lastError;
+}
@@ -0,0 +1,20 @@
+package edu.stanford.slac.core_work_management.model;
+
+import lombok.*;
+
+/**
+ * The request to create the preview of an attachment
+ * <p>
+ * it holds only the id of the attachment and the content type used to choose the renderer,
+ * the attachment is read by the consumer
+ */
+@Data
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class PreviewRequest {
+    String attachmentId;
+    String contentType;
+}
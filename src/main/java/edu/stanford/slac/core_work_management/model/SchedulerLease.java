@@ -0,0 +1,40 @@
+package edu.stanford.slac.core_work_management.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * The lease that elects the node that runs a scheduled job
+ * <p>
+ * the node that holds the lease renews it periodically, when it stops renewing
+ * the lease expires and another node can acquire it
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Document()
+public class SchedulerLease {
+    /**
+     * The name of the scheduled job
+     */
+    @Id
+    private String id;
+    /**
+     * The id of the node that holds the lease
+     */
+    private String ownerId;
+    /**
+     * The instant when the lease expires if not renewed
+     */
+    private Instant expiresAt;
+    /**
+     * The instant of the last renewal
+     */
+    private Instant renewedAt;
+}
@@ -0,0 +1,45 @@
+package edu.stanford.slac.core_work_management.model;
+
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored content shared by all the attachments with the same content
+ * <p>
+ * the id is the SHA-256 of the content, so the same content is stored only once
+ * and linked by every attachment that upload it
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Document()
+public class StorageBlob {
+    /**
+     * The hex encoded SHA-256 of the content
+     */
+    @Id
+    private String id;
+    /**
+     * The id of the stored object that holds the content
+     */
+    private String storageId;
+    /**
+     * The number of attachments that link the content
+     */
+    private Long referenceCount;
+    /**
+     * The preview generated for the content, shared by all the attachments
+     */
+    private String previewId;
+    private byte[] miniPreview;
+    private Attachment.PreviewProcessingState previewState;
+    @CreatedDate
+    private LocalDateTime createdDate;
+}
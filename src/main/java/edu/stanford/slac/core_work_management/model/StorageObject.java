@@ -6,14 +6,25 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import java.io.InputStream;
+import java.time.Instant;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @EqualsAndHashCode
 public class StorageObject implements AutoCloseable {
+    String id;
     String filename;
     String contentType;
+    /**
+     * The full length of the stored object
+     */
+    Long length;
+    Instant lastModified;
+    /**
+     * The entity tag of the stored object, the stored objects are immutable
+     */
+    String etag;
     InputStream file;
 
     @Override
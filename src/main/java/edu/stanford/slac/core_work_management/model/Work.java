@@ -90,6 +90,12 @@ public class Work {
     @Builder.Default
     private WorkStatusLog currentStatus = WorkStatusLog.builder().status(WorkflowState.Created).build();
 
+    /**
+     * The summary of the status of the children works.
+     * This field is maintained atomically when a child changes its status and is used by the parent workflow.
+     */
+    private WorkChildrenSummary childrenSummary;
+
     /**
      * The list of the notifications associated with the work.
      */
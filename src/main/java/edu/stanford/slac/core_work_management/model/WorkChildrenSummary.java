@@ -0,0 +1,85 @@
+package edu.stanford.slac.core_work_management.model;
+
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Summary of the status of the children of a work
+ * <p>
+ * it is kept on the parent work and updated atomically every time a child changes its status,
+ * so the parent workflow can be decided without reading all the children
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class WorkChildrenSummary {
+    /**
+     * The number of children for each workflow state
+     */
+    @Builder.Default
+    private Map<WorkflowState, Long> countByStatus = new HashMap<>();
+    /**
+     * The total number of children
+     */
+    @Builder.Default
+    private Long total = 0L;
+    /**
+     * The number of children not closed
+     */
+    @Builder.Default
+    private Long open = 0L;
+    /**
+     * The number of closed children
+     */
+    @Builder.Default
+    private Long closed = 0L;
+
+    /**
+     * Return the number of children in the state
+     *
+     * @param status the state
+     * @return the number of children
+     */
+    public long count(WorkflowState status) {
+        if (countByStatus == null) return 0;
+        return countByStatus.getOrDefault(status, 0L);
+    }
+
+    /**
+     * Check if at least one child is in any of the states
+     *
+     * @param statuses the states to check
+     * @return true if at least one child is in one of the states
+     */
+    public boolean anyIn(WorkflowState... statuses) {
+        return Arrays.stream(statuses).anyMatch(status -> count(status) > 0);
+    }
+
+    /**
+     * Check if there are children
+     *
+     * @return true if the work has no children
+     */
+    public boolean isEmpty() {
+        return total == null || total <= 0;
+    }
+
+    /**
+     * Check if all the children are closed
+     *
+     * @return true if there are children and all of them are closed
+     */
+    public boolean allClosed() {
+        return !isEmpty() && (open == null || open <= 0);
+    }
+}
@@ -18,6 +18,7 @@
 package edu.stanford.slac.core_work_management.repository;
 
 import edu.stanford.slac.core_work_management.model.BucketSlot;
+import edu.stanford.slac.core_work_management.model.BucketSlotClaim;
 import edu.stanford.slac.core_work_management.model.BucketSlotQueryParameter;
 import org.springframework.data.repository.query.Param;
 
@@ -43,34 +44,60 @@ public interface BucketRepositoryCustom {
     List<BucketSlot> findAllThatContainsDate(LocalDateTime from);
 
     /**
-     * Find the next bucket that need to manage to be started up
+     * Claim up to batch size buckets that need to manage to be started up
      *
      * @param currentDate the current date
      * @param timeoutDate the date when the bucket need to be reprocessed due a timeout
-     * @return the bucket to startup
+     * @param batchSize   the max number of bucket to claim
+     * @return the claim with the ids of the claimed buckets
      */
-    BucketSlot findNextBucketToStart(LocalDateTime currentDate, LocalDateTime timeoutDate);
+    BucketSlotClaim claimNextBucketIdsToStart(LocalDateTime currentDate, LocalDateTime timeoutDate, int batchSize);
 
     /**
-     * Find the next bucket that need to manage to be stopped
+     * Claim up to batch size buckets that need to manage to be stopped
      *
      * @param currentDate the current date
      * @param timeoutDate the date when the bucket need to be reprocessed due a timeout
-     * @return the bucket to stop
+     * @param batchSize   the max number of bucket to claim
+     * @return the claim with the ids of the claimed buckets
      */
-    BucketSlot findNextBucketToStop(LocalDateTime currentDate, LocalDateTime timeoutDate);
+    BucketSlotClaim claimNextBucketIdsToStop(LocalDateTime currentDate, LocalDateTime timeoutDate, int batchSize);
 
     /**
-     * Set the bucket as completed as for start event
+     * Set all the buckets of a claim as completed as for start event
+     * <p>
+     * only the buckets still owned by the claim are completed
      *
-     * @param bucketSlotId the bucket slot id
+     * @param claim the claim returned by claimNextBucketIdsToStart
+     * @return the number of completed buckets
      */
-    void completeStartEventProcessing(String bucketSlotId);
+    long completeStartEventProcessing(BucketSlotClaim claim);
 
     /**
-     * Set the bucket as completed as for stop event
+     * Set all the buckets of a claim as completed as for stop event
+     * <p>
+     * only the buckets still owned by the claim are completed
      *
-     * @param bucketSlotId the bucket slot id
+     * @param claim the claim returned by claimNextBucketIdsToStop
+     * @return the number of completed buckets
      */
-    void completeStopEventProcessing(String bucketSlotId);
+    long completeStopEventProcessing(BucketSlotClaim claim);
+
+    /**
+     * Find the start dates of the buckets not yet started in a time window
+     *
+     * @param after the exclusive start of the window
+     * @param until the inclusive end of the window
+     * @return the start dates
+     */
+    List<LocalDateTime> findStartDatesBetween(LocalDateTime after, LocalDateTime until);
+
+    /**
+     * Find the stop dates of the buckets not yet stopped in a time window
+     *
+     * @param after the exclusive start of the window
+     * @param until the inclusive end of the window
+     * @return the stop dates
+     */
+    List<LocalDateTime> findStopDatesBetween(LocalDateTime after, LocalDateTime until);
 }
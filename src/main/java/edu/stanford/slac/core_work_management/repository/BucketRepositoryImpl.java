@@ -20,10 +20,11 @@ package edu.stanford.slac.core_work_management.repository;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.core_work_management.api.v1.dto.LOVElementDTO;
 import edu.stanford.slac.core_work_management.model.BucketSlot;
+import edu.stanford.slac.core_work_management.model.BucketSlotClaim;
 import edu.stanford.slac.core_work_management.model.BucketSlotQueryParameter;
+import edu.stanford.slac.core_work_management.utility.PageCursor;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.*;
 import org.springframework.stereotype.Repository;
@@ -59,11 +60,9 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
                     .build();
         }
 
-        // all the criteria
-        List<Criteria> allCriteria = new ArrayList<>();
-        LocalDateTime anchorCreatedDate = queryParameter.getAnchorID() != null ? getAnchorCreatedDate(queryParameter.getAnchorID()) : null;
-        List<BucketSlot> elementsBeforeAnchor = contextSearch(queryParameter, anchorCreatedDate, allCriteria);
-        List<BucketSlot> elementsAfterAnchor = limitSearch(queryParameter, anchorCreatedDate, allCriteria);
+        PageCursor anchor = queryParameter.getAnchorID() != null ? getAnchorCursor(queryParameter.getAnchorID()) : null;
+        List<BucketSlot> elementsBeforeAnchor = contextSearch(queryParameter, anchor);
+        List<BucketSlot> elementsAfterAnchor = limitSearch(queryParameter, anchor);
         elementsBeforeAnchor.addAll(elementsAfterAnchor);
         return elementsBeforeAnchor;
     }
@@ -79,9 +78,68 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
     }
 
     @Override
-    public BucketSlot findNextBucketToStart(LocalDateTime currentDate, LocalDateTime timeoutDate) {
-        // Build the criteria
-        Criteria criteria = new Criteria().andOperator(
+    public BucketSlotClaim claimNextBucketIdsToStart(LocalDateTime currentDate, LocalDateTime timeoutDate, int batchSize) {
+        return claimNextBucketIds(getStartCriteria(currentDate, timeoutDate), currentDate, batchSize);
+    }
+
+    @Override
+    public BucketSlotClaim claimNextBucketIdsToStop(LocalDateTime currentDate, LocalDateTime timeoutDate, int batchSize) {
+        return claimNextBucketIds(getStopCriteria(currentDate, timeoutDate), currentDate, batchSize);
+    }
+
+    @Override
+    public long completeStartEventProcessing(BucketSlotClaim claim) {
+        if (claim == null || claim.isEmpty()) return 0;
+        Update update = new Update()
+                .unset("processingId")
+                .unset("processingTimestamp")
+                .set("startEventManaged", true);
+        return mongoTemplate.updateMulti(getClaimQuery(claim), update, BucketSlot.class).getModifiedCount();
+    }
+
+    @Override
+    public long completeStopEventProcessing(BucketSlotClaim claim) {
+        if (claim == null || claim.isEmpty()) return 0;
+        Update update = new Update()
+                .unset("processingId")
+                .unset("processingTimestamp")
+                .set("stopEventManaged", true);
+        return mongoTemplate.updateMulti(getClaimQuery(claim), update, BucketSlot.class).getModifiedCount();
+    }
+
+    @Override
+    public List<LocalDateTime> findStartDatesBetween(LocalDateTime after, LocalDateTime until) {
+        Query query = new Query(
+                new Criteria().andOperator(
+                        Criteria.where("from").gt(after).lte(until),
+                        Criteria.where("startEventManaged").is(false)
+                )
+        );
+        query.fields().include("from");
+        return mongoTemplate.find(query, BucketSlot.class).stream().map(BucketSlot::getFrom).distinct().toList();
+    }
+
+    @Override
+    public List<LocalDateTime> findStopDatesBetween(LocalDateTime after, LocalDateTime until) {
+        Query query = new Query(
+                new Criteria().andOperator(
+                        Criteria.where("to").gt(after).lte(until),
+                        Criteria.where("stopEventManaged").is(false)
+                )
+        );
+        query.fields().include("to");
+        return mongoTemplate.find(query, BucketSlot.class).stream().map(BucketSlot::getTo).distinct().toList();
+    }
+
+    /**
+     * Return the criteria that select the buckets that need to be started up
+     *
+     * @param currentDate the current date
+     * @param timeoutDate the date when the bucket need to be reprocessed due a timeout
+     * @return the criteria
+     */
+    private static Criteria getStartCriteria(LocalDateTime currentDate, LocalDateTime timeoutDate) {
+        return new Criteria().andOperator(
                 Criteria.where("from").lte(currentDate),
                 Criteria.where("startEventManaged").is(false),
                 new Criteria().orOperator(
@@ -89,27 +147,17 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
                         Criteria.where("processingTimestamp").lt(timeoutDate)
                 )
         );
-
-        Query query = new Query(criteria);
-        query.limit(1); // Limit to one document
-
-        // Update to set the processingId and processingTimestamp
-        Update update = new Update()
-                .set("processingId", UUID.randomUUID().toString())
-                .set("processingTimestamp", timeoutDate);
-
-        // Options to return the new document after update
-        FindAndModifyOptions options = new FindAndModifyOptions()
-                .returnNew(true)
-                .upsert(false);
-
-        return mongoTemplate.findAndModify(query, update, options, BucketSlot.class);
     }
 
-    @Override
-    public BucketSlot findNextBucketToStop(LocalDateTime currentDate, LocalDateTime timeoutDate) {
-        // Build the criteria
-        Criteria criteria = new Criteria().andOperator(
+    /**
+     * Return the criteria that select the buckets that need to be stopped
+     *
+     * @param currentDate the current date
+     * @param timeoutDate the date when the bucket need to be reprocessed due a timeout
+     * @return the criteria
+     */
+    private static Criteria getStopCriteria(LocalDateTime currentDate, LocalDateTime timeoutDate) {
+        return new Criteria().andOperator(
                 Criteria.where("to").lte(currentDate),
                 Criteria.where("stopEventManaged").is(false),
                 new Criteria().orOperator(
@@ -117,61 +165,90 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
                         Criteria.where("processingTimestamp").lt(timeoutDate)
                 )
         );
-
-        Query query = new Query(criteria);
-        query.limit(1); // Limit to one document
-
-        // Update to set the processingId and processingTimestamp
-        Update update = new Update()
-                .set("processingId", UUID.randomUUID().toString())
-                .set("processingTimestamp", timeoutDate);
-
-        // Options to return the new document after update
-        FindAndModifyOptions options = new FindAndModifyOptions()
-                .returnNew(true)
-                .upsert(false);
-
-        return mongoTemplate.findAndModify(query, update, options, BucketSlot.class);
     }
 
-    @Override
-    public void completeStartEventProcessing(String bucketSlotId) {
-        Criteria criteria = new Criteria().andOperator(
-                Criteria.where("id").is(bucketSlotId)
+    /**
+     * Claim up to batch size buckets that match the criteria
+     * <p>
+     * the candidates are tagged with the same processing id in one update, the criteria is applied
+     * again on the update so the buckets claimed in the meanwhile by another instance are skipped.
+     * Only the buckets effectively tagged are returned.
+     *
+     * @param criteria    the criteria that select the buckets to claim
+     * @param currentDate the date of the claim
+     * @param batchSize   the max number of bucket to claim
+     * @return the claim with the ids of the claimed buckets
+     */
+    private BucketSlotClaim claimNextBucketIds(Criteria criteria, LocalDateTime currentDate, int batchSize) {
+        Query candidateQuery = new Query(criteria).limit(batchSize);
+        candidateQuery.fields().include("id");
+        List<String> candidateIds = mongoTemplate.find(candidateQuery, BucketSlot.class)
+                .stream()
+                .map(BucketSlot::getId)
+                .toList();
+        if (candidateIds.isEmpty()) return BucketSlotClaim.builder().build();
+
+        String processingId = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                new Query(
+                        new Criteria().andOperator(
+                                Criteria.where("id").in(candidateIds),
+                                criteria
+                        )
+                ),
+                new Update()
+                        .set("processingId", processingId)
+                        .set("processingTimestamp", currentDate),
+                BucketSlot.class
         );
-        // Update to set the processingId and processingTimestamp
-        Update update = new Update()
-                .unset("processingId")
-                .unset("processingTimestamp")
-                .set("startEventManaged", true);
-        mongoTemplate.updateFirst(new Query(criteria), update, BucketSlot.class);
+
+        Query claimedQuery = new Query(Criteria.where("processingId").is(processingId));
+        claimedQuery.fields().include("id");
+        return BucketSlotClaim.builder()
+                .processingId(processingId)
+                .bucketSlotIds(
+                        mongoTemplate.find(claimedQuery, BucketSlot.class)
+                                .stream()
+                                .map(BucketSlot::getId)
+                                .toList()
+                )
+                .build();
     }
 
-    @Override
-    public void completeStopEventProcessing(String bucketSlotId) {
-        Criteria criteria = new Criteria().andOperator(
-                Criteria.where("id").is(bucketSlotId)
+    /**
+     * Return the query that select the bucket slots still owned by a claim
+     *
+     * @param claim the claim
+     * @return the query
+     */
+    private static Query getClaimQuery(BucketSlotClaim claim) {
+        return new Query(
+                new Criteria().andOperator(
+                        Criteria.where("id").in(claim.getBucketSlotIds()),
+                        Criteria.where("processingId").is(claim.getProcessingId())
+                )
         );
-        // Update to set the processingId and processingTimestamp
-        Update update = new Update()
-                .unset("processingId")
-                .unset("processingTimestamp")
-                .set("stopEventManaged", true);
-        mongoTemplate.updateFirst(new Query(criteria), update, BucketSlot.class);
     }
 
     /**
-     * Get the query to search the work
+     * Return the cursor for the anchor
+     * <p>
+     * the anchor is the opaque cursor returned with the found bucket slots, a plain
+     * bucket slot id is still accepted for backward compatibility but costs a lookup
      *
-     * @param anchorId the query parameter
-     * @return the query
+     * @param anchorId the cursor or the id of the anchor bucket slot
+     * @return the cursor or null if the anchor bucket slot is not found
      */
-    private LocalDateTime getAnchorCreatedDate(String anchorId) {
-        Query q = new Query();
-        q.addCriteria(Criteria.where("id").is(anchorId));
-        q.fields().include("createdDate");
-        var slotFound = mongoTemplate.findOne(q, BucketSlot.class);
-        return (slotFound != null) ? slotFound.getCreatedDate() : null;
+    private PageCursor getAnchorCursor(String anchorId) {
+        return PageCursor.decode(anchorId).orElseGet(
+                () -> {
+                    Query q = new Query();
+                    q.addCriteria(Criteria.where("id").is(anchorId));
+                    q.fields().include("createdDate");
+                    var slotFound = mongoTemplate.findOne(q, BucketSlot.class);
+                    return (slotFound != null && slotFound.getCreatedDate() != null) ? new PageCursor(slotFound.getCreatedDate(), slotFound.getId()) : null;
+                }
+        );
     }
 
     /**
@@ -192,32 +269,41 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
         return query;
     }
 
+    /**
+     * Return the criteria shared by the limit and context search
+     *
+     * @param queryParameter the query parameter
+     * @return the list of criteria
+     */
+    private static List<Criteria> getFilterCriteria(BucketSlotQueryParameter queryParameter) {
+        List<Criteria> allCriteria = new ArrayList<>();
+        if (queryParameter.getFrom() != null) {
+            allCriteria.add(
+                    Criteria.where("from").gte(queryParameter.getFrom())
+            );
+        }
+        if (queryParameter.getDomainId() != null && !queryParameter.getDomainId().isEmpty()) {
+            allCriteria.add(
+                    Criteria.where("domainIds").in(queryParameter.getDomainId())
+            );
+        }
+        return allCriteria;
+    }
+
     /**
      * Limit the search
      *
-     * @param queryParameter    the query parameter
-     * @param anchorCreatedDate the anchor created date
-     * @param allCriteria       the criteria
+     * @param queryParameter the query parameter
+     * @param anchor         the anchor cursor
      * @return the list of work
      */
-    private List<BucketSlot> limitSearch(BucketSlotQueryParameter queryParameter, LocalDateTime anchorCreatedDate, List<Criteria> allCriteria) {
+    private List<BucketSlot> limitSearch(BucketSlotQueryParameter queryParameter, PageCursor anchor) {
         List<BucketSlot> elementsAfterAnchor = new ArrayList<>();
         if (queryParameter.getLimit() != null && queryParameter.getLimit() > 0) {
             Query query = getQuery(queryParameter);
-            if (anchorCreatedDate != null) {
-                allCriteria.add(
-                        Criteria.where("createdDate").gt(anchorCreatedDate)
-                );
-            }
-            if (queryParameter.getFrom() != null) {
-                allCriteria.add(
-                        Criteria.where("from").gte(queryParameter.getFrom())
-                );
-            }
-            if(queryParameter.getDomainId() != null && !queryParameter.getDomainId().isEmpty()) {
-                allCriteria.add(
-                        Criteria.where("domainIds").in(queryParameter.getDomainId())
-                );
+            List<Criteria> allCriteria = getFilterCriteria(queryParameter);
+            if (anchor != null) {
+                allCriteria.add(anchor.after());
             }
             if (!allCriteria.isEmpty()) {
                 query.addCriteria(
@@ -230,7 +316,7 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
             query
                     .with(
                             Sort.by(
-                                    Sort.Direction.ASC, "from")
+                                    Sort.Direction.ASC, "createdDate", "id")
                     )
                     .limit(queryParameter.getLimit());
             elementsAfterAnchor.addAll(
@@ -245,44 +331,32 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
 
     /**
      * Search the context
+     * <p>
+     * the context is made by the bucket slots that precede the anchor, the anchor is not included
      *
-     * @param queryParameter    the query parameter
-     * @param anchorCreatedDate the anchor created date
-     * @param allCriteria       the criteria
+     * @param queryParameter the query parameter
+     * @param anchor         the anchor cursor
      * @return the list of work
      */
-    private List<BucketSlot> contextSearch(BucketSlotQueryParameter queryParameter, LocalDateTime anchorCreatedDate, List<Criteria> allCriteria) {
+    private List<BucketSlot> contextSearch(BucketSlotQueryParameter queryParameter, PageCursor anchor) {
         List<BucketSlot> elementsBeforeAnchor = new ArrayList<>();
         if (
                 queryParameter.getContextSize() != null
                         && queryParameter.getContextSize() > 0
-                        && anchorCreatedDate != null
+                        && anchor != null
         ) {
-            allCriteria.add(
-                    Criteria.where("createdDate").lte(anchorCreatedDate)
-            );
-            if (queryParameter.getFrom() != null) {
-                allCriteria.add(
-                        Criteria.where("from").gte(queryParameter.getFrom())
-                );
-            }
-            if(queryParameter.getDomainId() != null && !queryParameter.getDomainId().isEmpty()) {
-                allCriteria.add(
-                        Criteria.where("domainIds").in(queryParameter.getDomainId())
-                );
-            }
+            List<Criteria> allCriteria = getFilterCriteria(queryParameter);
+            allCriteria.add(anchor.before(false));
             // at this point the anchor id is not null
             Query query = getQuery(queryParameter);
-            if (!allCriteria.isEmpty()) {
-                query.addCriteria(
-                        new Criteria().andOperator(
-                                allCriteria
-                        )
-                );
-            }
+            query.addCriteria(
+                    new Criteria().andOperator(
+                            allCriteria
+                    )
+            );
             query.with(
                     Sort.by(
-                            Sort.Direction.ASC, "from")
+                            Sort.Direction.DESC, "createdDate", "id")
             ).limit(queryParameter.getContextSize());
             elementsBeforeAnchor.addAll(
                     mongoTemplate.find(
@@ -291,7 +365,7 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
                     )
             );
             // reverse the order
-            //Collections.reverse(elementsBeforeAnchor);
+            Collections.reverse(elementsBeforeAnchor);
         }
         return elementsBeforeAnchor;
     }
@@ -7,7 +7,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
 
-public interface DomainRepository  extends MongoRepository<Domain, String> {
+public interface DomainRepository  extends MongoRepository<Domain, String>, DomainRepositoryCustom {
     @Override
     @Cacheable("domains")
     Optional<Domain> findById(String id);
@@ -0,0 +1,40 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.WorkStatusCountStatistics;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+
+import java.util.List;
+import java.util.Map;
+
+public interface DomainRepositoryCustom {
+    /**
+     * Atomically apply a delta to the counter of the works in a specific status
+     * for a work type of the domain
+     * <p>
+     * the counter is created if it doesn't exist and the delta is positive
+     *
+     * @param domainId   the domain id
+     * @param workTypeId the work type id
+     * @param status     the status of the work
+     * @param delta      the value to add to the counter (can be negative)
+     */
+    void incrementWorkStatusStatistic(String domainId, String workTypeId, WorkflowState status, int delta);
+
+    /**
+     * Replace all the work status statistics of the domain
+     *
+     * @param domainId   the domain id
+     * @param statistics the statistics by work type id
+     */
+    void setWorkStatusStatistics(String domainId, Map<String, List<WorkStatusCountStatistics>> statistics);
+
+    /**
+     * Return the work status statistics of the domain reading them from the database
+     * <p>
+     * the statistics change with every work status update so they are never served by the domain cache
+     *
+     * @param domainId the domain id
+     * @return the statistics by work type id, empty if the domain doesn't exist
+     */
+    Map<String, List<WorkStatusCountStatistics>> findWorkStatusStatisticsById(String domainId);
+}
@@ -0,0 +1,78 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.Domain;
+import edu.stanford.slac.core_work_management.model.WorkStatusCountStatistics;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@AllArgsConstructor
+public class DomainRepositoryImpl implements DomainRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void incrementWorkStatusStatistic(String domainId, String workTypeId, WorkflowState status, int delta) {
+        String statisticPath = "workTypeStatusStatistics.%s".formatted(workTypeId);
+        // two attempt are enough, the second one is needed only when
+        // a concurrent update has created the counter between the increment and the push
+        for (int attempt = 0; attempt < 2; attempt++) {
+            // increment the counter if it exists
+            var incrementResult = mongoTemplate.updateFirst(
+                    new Query(
+                            Criteria.where("id").is(domainId)
+                                    .and("%s.status".formatted(statisticPath)).is(status.name())
+                    ),
+                    new Update()
+                            .inc("%s.$[counter].count".formatted(statisticPath), delta)
+                            .filterArray(Criteria.where("counter.status").is(status.name())),
+                    Domain.class
+            );
+            if (incrementResult.getMatchedCount() > 0) return;
+            // a missing counter is never created with a zero or negative count, the
+            // drift is fixed by the reconciliation
+            if (delta <= 0) return;
+
+            // the counter doesn't exist so push it only if no one else has created it
+            var pushResult = mongoTemplate.updateFirst(
+                    new Query(
+                            Criteria.where("id").is(domainId)
+                                    .and("%s.status".formatted(statisticPath)).ne(status.name())
+                    ),
+                    new Update()
+                            .push(statisticPath, new Document("status", status.name()).append("count", delta)),
+                    Domain.class
+            );
+            if (pushResult.getMatchedCount() > 0) return;
+            // domain not found
+            if (!mongoTemplate.exists(new Query(Criteria.where("id").is(domainId)), Domain.class)) return;
+        }
+    }
+
+    @Override
+    public void setWorkStatusStatistics(String domainId, Map<String, List<WorkStatusCountStatistics>> statistics) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(domainId)),
+                new Update().set("workTypeStatusStatistics", statistics),
+                Domain.class
+        );
+    }
+
+    @Override
+    public Map<String, List<WorkStatusCountStatistics>> findWorkStatusStatisticsById(String domainId) {
+        Query query = new Query(Criteria.where("id").is(domainId));
+        query.fields().include("workTypeStatusStatistics");
+        Domain domain = mongoTemplate.findOne(query, Domain.class);
+        if (domain == null || domain.getWorkTypeStatusStatistics() == null) return Collections.emptyMap();
+        return domain.getWorkTypeStatusStatistics();
+    }
+}
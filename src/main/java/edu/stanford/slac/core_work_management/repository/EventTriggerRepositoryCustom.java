@@ -3,23 +3,43 @@ package edu.stanford.slac.core_work_management.repository;
 import edu.stanford.slac.core_work_management.model.EventTrigger;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface EventTriggerRepositoryCustom {
     void updateFireTimestampByReferenceId(String referenceId, String eventType, LocalDateTime newEventFireTimestamp);
 
     /**
-     * Find the next event trigger to process
-     * @param typeName the event type name
+     * Claim up to batch size event triggers to process
+     * <p>
+     * the claimed event triggers are tagged with the same processing id, that is the claim token
+     *
+     * @param typeName    the event type name
      * @param currentDate the current date
-     * @param timeoutDate the date when the bucket need to be reprocessed due a timeout
-     * @return the event trigger to process
+     * @param timeoutDate the date before which a claim is considered abandoned
+     * @param batchSize   the max number of event trigger to claim
+     * @return the claimed event triggers
+     */
+    List<EventTrigger> claimNextToProcess(String typeName, LocalDateTime currentDate, LocalDateTime timeoutDate, int batchSize);
+
+    /**
+     * Set all the claimed event triggers as completed with a single bulk write
+     * <p>
+     * an event trigger is completed only if it still has the claim token and the fire timestamp
+     * it had when was claimed, so an event trigger rescheduled in the meanwhile is not lost
+     *
+     * @param typeName        the event type name
+     * @param claimedTriggers the claimed event triggers
+     * @return the number of completed event triggers
      */
-    EventTrigger findNextToProcess(String typeName, LocalDateTime currentDate, LocalDateTime timeoutDate);
+    int completeProcessing(String typeName, Collection<EventTrigger> claimedTriggers);
 
     /**
-     * Set the bucket as completed as for start event
+     * Find the fire timestamps of the event triggers not yet fired in a time window
      *
-     * @param id the event trigger id
+     * @param after the exclusive start of the window
+     * @param until the inclusive end of the window
+     * @return the fire timestamps
      */
-    void completeProcessing(String typeName, String id);
+    List<LocalDateTime> findFireTimestampsBetween(LocalDateTime after, LocalDateTime until);
 }
@@ -3,7 +3,8 @@ package edu.stanford.slac.core_work_management.repository;
 import edu.stanford.slac.core_work_management.model.BucketSlot;
 import edu.stanford.slac.core_work_management.model.EventTrigger;
 import lombok.AllArgsConstructor;
-import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -11,6 +12,9 @@ import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -27,13 +31,15 @@ public class EventTriggerRepositoryImpl implements EventTriggerRepositoryCustom
         Update update = new Update();
         update
                 .set("eventFireTimestamp", newEventFireTimestamp)
-                .set("fired", false);
+                .set("fired", false)
+                // a claim in progress must not complete the rescheduled event
+                .unset("processingId")
+                .unset("processingTimestamp");
         mongoTemplate.updateFirst(new Query(criteria), update, EventTrigger.class);
     }
 
     @Override
-    public EventTrigger findNextToProcess(String typeName, LocalDateTime currentDate, LocalDateTime timeoutDate) {
-        // Build the criteria
+    public List<EventTrigger> claimNextToProcess(String typeName, LocalDateTime currentDate, LocalDateTime timeoutDate, int batchSize) {
         Criteria criteria = new Criteria().andOperator(
                 Criteria.where("typeName").is(typeName),
                 Criteria.where("eventFireTimestamp").lte(currentDate),
@@ -43,33 +49,65 @@ public class EventTriggerRepositoryImpl implements EventTriggerRepositoryCustom
                         Criteria.where("processingTimestamp").lt(timeoutDate)
                 )
         );
+        Query candidateQuery = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "eventFireTimestamp"))
+                .limit(batchSize);
+        candidateQuery.fields().include("id");
+        List<String> candidateIds = mongoTemplate.find(candidateQuery, EventTrigger.class)
+                .stream()
+                .map(EventTrigger::getId)
+                .toList();
+        if (candidateIds.isEmpty()) return Collections.emptyList();
 
-        Query query = new Query(criteria);
-        query.limit(1); // Limit to one document
-
-        // Update to set the processingId and processingTimestamp
-        Update update = new Update()
-                .set("processingId", UUID.randomUUID().toString())
-                .set("processingTimestamp", timeoutDate);
+        // the criteria is applied again so the event triggers claimed in the meanwhile are skipped
+        String processingId = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                new Query(
+                        new Criteria().andOperator(
+                                Criteria.where("id").in(candidateIds),
+                                criteria
+                        )
+                ),
+                new Update()
+                        .set("processingId", processingId)
+                        .set("processingTimestamp", currentDate),
+                EventTrigger.class
+        );
+        return mongoTemplate.find(new Query(Criteria.where("processingId").is(processingId)), EventTrigger.class);
+    }
 
-        // Options to return the new document after update
-        FindAndModifyOptions options = new FindAndModifyOptions()
-                .returnNew(true)
-                .upsert(false);
-        return mongoTemplate.findAndModify(query, update, options, EventTrigger.class);
+    @Override
+    public int completeProcessing(String eventTypeName, Collection<EventTrigger> claimedTriggers) {
+        if (claimedTriggers == null || claimedTriggers.isEmpty()) return 0;
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EventTrigger.class);
+        claimedTriggers.forEach(
+                eventTrigger -> bulkOperations.updateOne(
+                        new Query(
+                                new Criteria().andOperator(
+                                        Criteria.where("id").is(eventTrigger.getId()),
+                                        Criteria.where("typeName").is(eventTypeName),
+                                        Criteria.where("processingId").is(eventTrigger.getProcessingId()),
+                                        Criteria.where("eventFireTimestamp").is(eventTrigger.getEventFireTimestamp())
+                                )
+                        ),
+                        new Update()
+                                .unset("processingId")
+                                .unset("processingTimestamp")
+                                .set("fired", true)
+                )
+        );
+        return bulkOperations.execute().getModifiedCount();
     }
 
     @Override
-    public void completeProcessing(String eventTypeName, String id) {
-        Criteria criteria = new Criteria().andOperator(
-                Criteria.where("id").is(id),
-                Criteria.where("typeName").is(eventTypeName)
+    public List<LocalDateTime> findFireTimestampsBetween(LocalDateTime after, LocalDateTime until) {
+        Query query = new Query(
+                new Criteria().andOperator(
+                        Criteria.where("eventFireTimestamp").gt(after).lte(until),
+                        Criteria.where("fired").is(false)
+                )
         );
-        // Update to set the processingId and processingTimestamp
-        Update update = new Update()
-                .unset("processingId")
-                .unset("processingTimestamp")
-                .set("fired", true);
-        mongoTemplate.updateFirst(new Query(criteria), update, EventTrigger.class);
+        query.fields().include("eventFireTimestamp");
+        return mongoTemplate.find(query, EventTrigger.class).stream().map(EventTrigger::getEventFireTimestamp).distinct().toList();
     }
 }
@@ -0,0 +1,45 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.OutboxMessage;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface OutboxMessageRepositoryCustom {
+    /**
+     * Claim up to batch size pending messages in the order they have been enqueued
+     * <p>
+     * the claimed messages are tagged with the same processing id, that is the claim token
+     *
+     * @param currentDate the current date
+     * @param timeoutDate the date before which a claim is considered abandoned
+     * @param batchSize   the max number of message to claim
+     * @return the claimed messages
+     */
+    List<OutboxMessage> claimNextToSend(LocalDateTime currentDate, LocalDateTime timeoutDate, int batchSize);
+
+    /**
+     * Set the messages as sent
+     *
+     * @param ids      the ids of the messages acknowledged by the broker
+     * @param sentDate the date of the acknowledge
+     * @return the number of updated messages
+     */
+    long completeSending(Collection<String> ids, LocalDateTime sentDate);
+
+    /**
+     * Release the claim of the messages that have not been sent, so they are retried
+     *
+     * @param errorsById the error of each message by its id
+     */
+    void releaseFailed(Map<String, String> errorsById);
+
+    /**
+     * Count the messages not yet sent
+     *
+     * @return the number of pending messages
+     */
+    long countPending();
+}
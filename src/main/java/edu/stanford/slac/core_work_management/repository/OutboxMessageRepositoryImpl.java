@@ -0,0 +1,95 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.OutboxMessage;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Repository
+@AllArgsConstructor
+public class OutboxMessageRepositoryImpl implements OutboxMessageRepositoryCustom {
+    final private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<OutboxMessage> claimNextToSend(LocalDateTime currentDate, LocalDateTime timeoutDate, int batchSize) {
+        Criteria criteria = new Criteria().andOperator(
+                Criteria.where("sentDate").is(null),
+                new Criteria().orOperator(
+                        Criteria.where("processingId").is(null),
+                        Criteria.where("processingTimestamp").lt(timeoutDate)
+                )
+        );
+        Query candidateQuery = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "createdDate", "id"))
+                .limit(batchSize);
+        candidateQuery.fields().include("id");
+        List<String> candidateIds = mongoTemplate.find(candidateQuery, OutboxMessage.class)
+                .stream()
+                .map(OutboxMessage::getId)
+                .toList();
+        if (candidateIds.isEmpty()) return Collections.emptyList();
+
+        // the criteria is applied again so the messages claimed in the meanwhile are skipped
+        String processingId = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                new Query(
+                        new Criteria().andOperator(
+                                Criteria.where("id").in(candidateIds),
+                                criteria
+                        )
+                ),
+                new Update()
+                        .set("processingId", processingId)
+                        .set("processingTimestamp", currentDate),
+                OutboxMessage.class
+        );
+        return mongoTemplate.find(
+                new Query(Criteria.where("processingId").is(processingId))
+                        .with(Sort.by(Sort.Direction.ASC, "createdDate", "id")),
+                OutboxMessage.class
+        );
+    }
+
+    @Override
+    public long completeSending(Collection<String> ids, LocalDateTime sentDate) {
+        if (ids == null || ids.isEmpty()) return 0;
+        return mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(ids)),
+                new Update()
+                        .unset("processingId")
+                        .unset("processingTimestamp")
+                        .set("sentDate", sentDate),
+                OutboxMessage.class
+        ).getModifiedCount();
+    }
+
+    @Override
+    public void releaseFailed(Map<String, String> errorsById) {
+        if (errorsById == null || errorsById.isEmpty()) return;
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxMessage.class);
+        errorsById.forEach(
+                (id, error) -> bulkOperations.updateOne(
+                        new Query(Criteria.where("id").is(id)),
+                        new Update()
+                                .unset("processingId")
+                                .unset("processingTimestamp")
+                                .inc("attempts", 1)
+                                .set("lastError", error)
+                )
+        );
+        bulkOperations.execute();
+    }
+
+    @Override
+    public long countPending() {
+        return mongoTemplate.count(new Query(Criteria.where("sentDate").is(null)), OutboxMessage.class);
+    }
+}
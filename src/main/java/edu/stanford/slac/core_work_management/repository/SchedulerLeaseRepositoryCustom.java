@@ -0,0 +1,26 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import java.time.Instant;
+
+public interface SchedulerLeaseRepositoryCustom {
+    /**
+     * Acquire or renew the lease of a job
+     * <p>
+     * the lease is given if it does not exist, if it is already held by the owner or if it is expired
+     *
+     * @param jobName   the name of the job
+     * @param ownerId   the id of the node that want the lease
+     * @param now       the current instant
+     * @param expiresAt the instant when the lease will expire
+     * @return true if the node holds the lease
+     */
+    boolean tryAcquire(String jobName, String ownerId, Instant now, Instant expiresAt);
+
+    /**
+     * Release the lease of a job if it is held by the owner
+     *
+     * @param jobName the name of the job
+     * @param ownerId the id of the node that holds the lease
+     */
+    void release(String jobName, String ownerId);
+}
@@ -0,0 +1,56 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.SchedulerLease;
+import lombok.AllArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+@AllArgsConstructor
+public class SchedulerLeaseRepositoryImpl implements SchedulerLeaseRepositoryCustom {
+    final private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean tryAcquire(String jobName, String ownerId, Instant now, Instant expiresAt) {
+        Query q = new Query(
+                new Criteria().andOperator(
+                        Criteria.where("id").is(jobName),
+                        new Criteria().orOperator(
+                                Criteria.where("ownerId").is(ownerId),
+                                Criteria.where("expiresAt").lte(now)
+                        )
+                )
+        );
+        Update u = new Update()
+                .set("ownerId", ownerId)
+                .set("expiresAt", expiresAt)
+                .set("renewedAt", now);
+        try {
+            return mongoTemplate.findAndModify(
+                    q,
+                    u,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    SchedulerLease.class
+            ) != null;
+        } catch (DuplicateKeyException e) {
+            // the lease exists and is held by another node
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String jobName, String ownerId) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(jobName).and("ownerId").is(ownerId)),
+                new Update().set("expiresAt", Instant.EPOCH),
+                SchedulerLease.class
+        );
+    }
+}
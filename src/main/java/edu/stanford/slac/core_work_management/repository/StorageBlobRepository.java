@@ -0,0 +1,7 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.StorageBlob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface StorageBlobRepository extends MongoRepository<StorageBlob, String>, StorageBlobRepositoryCustom {
+}
@@ -0,0 +1,48 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.Attachment;
+import edu.stanford.slac.core_work_management.model.StorageBlob;
+
+public interface StorageBlobRepositoryCustom {
+    /**
+     * Link a content to the blob with the same hash
+     * <p>
+     * if the blob does not exist it is created with the given storage id, in all cases the
+     * reference count is incremented atomically
+     *
+     * @param hash      the hash of the content
+     * @param storageId the id of the just stored object with the content
+     * @return the blob, its storage id differs from the given one if the content was already stored
+     */
+    StorageBlob link(String hash, String storageId);
+
+    /**
+     * Replace the stored object of a blob whose content has been lost
+     * <p>
+     * the preview of the blob is reset because it must be generated again
+     *
+     * @param hash              the hash of the content
+     * @param expectedStorageId the id of the lost stored object
+     * @param storageId         the id of the new stored object with the content
+     * @return the updated blob or null if the blob has already been replaced by someone else
+     */
+    StorageBlob replaceStorage(String hash, String expectedStorageId, String storageId);
+
+    /**
+     * Remove a link to the blob
+     *
+     * @param hash the hash of the content
+     * @return the blob with the decremented reference count
+     */
+    StorageBlob unlink(String hash);
+
+    /**
+     * Set the preview of the blob
+     *
+     * @param hash         the hash of the content
+     * @param previewId    the id of the stored preview
+     * @param miniPreview  the mini preview
+     * @param previewState the state of the preview
+     */
+    void setPreview(String hash, String previewId, byte[] miniPreview, Attachment.PreviewProcessingState previewState);
+}
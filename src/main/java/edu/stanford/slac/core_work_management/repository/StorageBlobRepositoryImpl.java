@@ -0,0 +1,88 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import edu.stanford.slac.core_work_management.model.Attachment;
+import edu.stanford.slac.core_work_management.model.StorageBlob;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Log4j2
+@Repository
+@AllArgsConstructor
+public class StorageBlobRepositoryImpl implements StorageBlobRepositoryCustom {
+    final private MongoTemplate mongoTemplate;
+
+    @Override
+    public StorageBlob link(String hash, String storageId) {
+        Query q = new Query(Criteria.where("id").is(hash));
+        Update u = new Update()
+                .setOnInsert("storageId", storageId)
+                .setOnInsert("previewState", Attachment.PreviewProcessingState.Waiting)
+                .setOnInsert("createdDate", LocalDateTime.now())
+                .inc("referenceCount", 1);
+        try {
+            return mongoTemplate.findAndModify(
+                    q,
+                    u,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    StorageBlob.class
+            );
+        } catch (DuplicateKeyException e) {
+            // the same content has been inserted concurrently, now the blob exists and is updated
+            return mongoTemplate.findAndModify(
+                    q,
+                    u,
+                    FindAndModifyOptions.options().returnNew(true),
+                    StorageBlob.class
+            );
+        }
+    }
+
+    @Override
+    public StorageBlob replaceStorage(String hash, String expectedStorageId, String storageId) {
+        Query q = new Query(Criteria.where("id").is(hash).and("storageId").is(expectedStorageId));
+        Update u = new Update()
+                .set("storageId", storageId)
+                .set("previewState", Attachment.PreviewProcessingState.Waiting)
+                .unset("previewId")
+                .unset("miniPreview");
+        return mongoTemplate.findAndModify(
+                q,
+                u,
+                FindAndModifyOptions.options().returnNew(true),
+                StorageBlob.class
+        );
+    }
+
+    @Override
+    public StorageBlob unlink(String hash) {
+        Query q = new Query(Criteria.where("id").is(hash).and("referenceCount").gt(0));
+        Update u = new Update().inc("referenceCount", -1);
+        return mongoTemplate.findAndModify(
+                q,
+                u,
+                FindAndModifyOptions.options().returnNew(true),
+                StorageBlob.class
+        );
+    }
+
+    @Override
+    public void setPreview(String hash, String previewId, byte[] miniPreview, Attachment.PreviewProcessingState previewState) {
+        Query q = new Query(Criteria.where("id").is(hash));
+        Update u = new Update()
+                .set("previewState", previewState);
+        if (previewId != null) u.set("previewId", previewId);
+        if (miniPreview != null) u.set("miniPreview", miniPreview);
+        UpdateResult ur = mongoTemplate.updateFirst(q, u, StorageBlob.class);
+        log.debug("Set blob preview update operation {}", ur.getModifiedCount() == 1);
+    }
+}
@@ -1,5 +1,6 @@
 package edu.stanford.slac.core_work_management.repository;
 
+import com.google.common.io.ByteStreams;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 import com.mongodb.client.gridfs.model.GridFSFile;
@@ -15,7 +16,11 @@ import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
@@ -72,6 +77,54 @@ public class StorageRepository {
         return id.toString();
     }
 
+    /**
+     * Add an object storage computing the SHA-256 of the content while it is stored
+     *
+     * @param storageObject The storage object
+     * @return The id of the stored object and the hash of its content
+     * @throws IOException If the content cannot be read
+     */
+    public HashedObject addObjectAndHash(StorageObject storageObject) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (DigestInputStream hashingStream = new DigestInputStream(storageObject.getFile(), digest)) {
+            String id = addObject(storageObject.toBuilder().file(hashingStream).build());
+            return new HashedObject(id, HexFormat.of().formatHex(digest.digest()));
+        }
+    }
+
+    /**
+     * Check if a stored object exists
+     *
+     * @param id The id of the object
+     * @return true if the object exists
+     */
+    public boolean existsObject(String id) {
+        return gridFsTemplate.findOne(new Query(Criteria.where("_id").is(id))) != null;
+    }
+
+    /**
+     * Delete a stored object
+     *
+     * @param id The id of the object
+     */
+    public void deleteObject(String id) {
+        gridFsTemplate.delete(new Query(Criteria.where("_id").is(id)));
+    }
+
+    /**
+     * The id of a stored object and the hash of its content
+     *
+     * @param id   the id of the stored object
+     * @param hash the hex encoded SHA-256 of the content
+     */
+    public record HashedObject(String id, String hash) {
+    }
+
     /**
      * Get the attachment by id
      *
@@ -79,6 +132,56 @@ public class StorageRepository {
      * @return The attachment
      */
     public StorageObject getObject(String id) throws IllegalStateException, IOException {
+        GridFSFile file = findFile(id);
+        var resFile = operations.getResource(file);
+        return toStorageObject(file)
+                .contentType(resFile.getContentType())
+                .file(resFile.getInputStream())
+                .build();
+    }
+
+    /**
+     * Get the description of an object without reading its content
+     *
+     * @param id The id of the object
+     * @return The object without the input stream
+     */
+    public StorageObject getObjectDescription(String id) {
+        GridFSFile file = findFile(id);
+        return toStorageObject(file)
+                .contentType(operations.getResource(file).getContentType())
+                .build();
+    }
+
+    /**
+     * Get a range of the object content
+     * <p>
+     * the stream is positioned skipping directly to the GridFS chunk that contains the
+     * first byte, so the preceding chunks are never read
+     *
+     * @param id     The id of the object
+     * @param offset The position of the first byte
+     * @param length The number of bytes to read
+     * @return The object with the input stream limited to the range
+     */
+    public StorageObject getObjectRange(String id, long offset, long length) throws IOException {
+        GridFSFile file = findFile(id);
+        var resFile = operations.getResource(file);
+        InputStream content = resFile.getInputStream();
+        try {
+            // the GridFS download stream skip by chunk without fetching the skipped data
+            content.skipNBytes(offset);
+        } catch (IOException e) {
+            content.close();
+            throw e;
+        }
+        return toStorageObject(file)
+                .contentType(resFile.getContentType())
+                .file(ByteStreams.limit(content, length))
+                .build();
+    }
+
+    private GridFSFile findFile(String id) {
         GridFSFile file = gridFsTemplate.findOne(new Query(Criteria.where("_id").is(id)));
         assertion(
                 AttachmentNotFound
@@ -89,12 +192,18 @@ public class StorageRepository {
                         .build(),
                 () -> file != null
         );
-        var resFile = operations.getResource(file);
+        return file;
+    }
+
+    private static StorageObject.StorageObjectBuilder toStorageObject(GridFSFile file) {
+        String id = file.getObjectId().toString();
         return StorageObject.builder()
-                .filename(resFile.getFilename())
-                .contentType(resFile.getContentType())
-                .file(resFile.getInputStream())
-                .build();
+                .id(id)
+                .filename(file.getFilename())
+                .length(file.getLength())
+                .lastModified(file.getUploadDate() != null ? file.getUploadDate().toInstant() : null)
+                // the GridFS files are never modified so the id and the length identify the content
+                .etag("\"%s-%d\"".formatted(id, file.getLength()));
     }
 
     /**
@@ -18,11 +18,15 @@
 package edu.stanford.slac.core_work_management.repository;
 
 import edu.stanford.slac.core_work_management.model.WATypeCustomField;
+import edu.stanford.slac.core_work_management.model.WorkChildrenSummary;
 import edu.stanford.slac.core_work_management.model.Work;
 import edu.stanford.slac.core_work_management.model.WorkQueryParameter;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface WorkRepositoryCustom {
 
@@ -35,10 +39,60 @@ public interface WorkRepositoryCustom {
     List<Work> searchAll(WorkQueryParameter queryParameter);
 
     /**
-     * Return the next work id
+     * Search all the work loading only the fields needed by the work summary
+     * <p>
+     * the returned works miss all the history, custom fields and attachments
      *
-     * @return the next work id
+     * @param queryParameter the query parameter
+     * @return the list of partially loaded work
+     */
+    List<Work> searchAllSummary(WorkQueryParameter queryParameter);
+
+    /**
+     * Stream the works associated to the buckets
+     * <p>
+     * only the id and the domain id of the works are loaded, the stream need to be closed
+     *
+     * @param bucketIds the bucket ids
+     * @return the stream of partially loaded work
+     */
+    Stream<Work> streamDomainAndIdByBucketIds(Collection<String> bucketIds);
+
+    /**
+     * Reserve a block of consecutive work ids
+     *
+     * @param size the number of ids to reserve
+     * @return the first id of the reserved block
+     */
+    Long getNextWorkIdBlock(int size);
+
+    /**
+     * Update atomically the children summary of a parent work with the status change of a child
+     * <p>
+     * the version of the parent is incremented, so stale copies of the parent cannot overwrite the summary
+     *
+     * @param domainId       the domain id
+     * @param parentWorkId   the id of the parent work
+     * @param previousStatus the previous status of the child, null for a new child
+     * @param newStatus      the new status of the child, null for a removed child
+     */
+    void updateChildrenSummary(String domainId, String parentWorkId, WorkflowState previousStatus, WorkflowState newStatus);
+
+    /**
+     * Calculate the children summary of a parent work from its children
+     *
+     * @param domainId     the domain id
+     * @param parentWorkId the id of the parent work
+     * @return the summary
      */
-    Long getNextWorkId();
+    WorkChildrenSummary computeChildrenSummary(String domainId, String parentWorkId);
 
+    /**
+     * Set the children summary of a parent work
+     *
+     * @param domainId        the domain id
+     * @param parentWorkId    the id of the parent work
+     * @param childrenSummary the summary
+     */
+    void setChildrenSummary(String domainId, String parentWorkId, WorkChildrenSummary childrenSummary);
 }
@@ -20,29 +20,61 @@ package edu.stanford.slac.core_work_management.repository;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.core_work_management.model.Counter;
 import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkChildrenSummary;
 import edu.stanford.slac.core_work_management.model.WorkQueryParameter;
+import edu.stanford.slac.core_work_management.model.WorkStatusCountStatistics;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import edu.stanford.slac.core_work_management.utility.PageCursor;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.MongoTransactionException;
 import org.springframework.data.mongodb.UncategorizedMongoDbException;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.query.*;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 @AllArgsConstructor
 public class WorkRepositoryImpl implements WorkRepositoryCustom {
+    /**
+     * The fields needed to create the work summary, the unbounded
+     * histories, custom fields and attachments are left out
+     */
+    static final String[] SUMMARY_FIELDS = {
+            "id",
+            "parentWorkId",
+            "domainId",
+            "workNumber",
+            "relatedToWorkIds",
+            "workType",
+            "title",
+            "description",
+            "location",
+            "shopGroup",
+            "currentStatus",
+            "currentBucketAssociation",
+            "hasLog",
+            "createdDate",
+            "createdBy",
+            "lastModifiedDate",
+            "lastModifiedBy",
+            "version"
+    };
     private final MongoTemplate mongoTemplate;
     /**
      * Search all the work
@@ -51,6 +83,26 @@ public class WorkRepositoryImpl implements WorkRepositoryCustom {
      */
     @Override
     public List<Work> searchAll(WorkQueryParameter queryParameter) {
+        return searchAll(queryParameter, false);
+    }
+
+    /**
+     * Search all the work projecting only the summary fields
+     * @param queryParameter the query parameter
+     * @return the list of partially loaded work
+     */
+    @Override
+    public List<Work> searchAllSummary(WorkQueryParameter queryParameter) {
+        return searchAll(queryParameter, true);
+    }
+
+    /**
+     * Search all the work
+     * @param queryParameter the query parameter
+     * @param summary true if only the summary fields need to be loaded
+     * @return the list of work
+     */
+    private List<Work> searchAll(WorkQueryParameter queryParameter, boolean summary) {
         if (
                 queryParameter.getContextSize() != null &&
                         queryParameter.getContextSize() >0 &&
@@ -64,53 +116,126 @@ public class WorkRepositoryImpl implements WorkRepositoryCustom {
                     .build();
         }
 
-        // all the criteria
-        List<Criteria> allCriteria = new ArrayList<>();
-        LocalDateTime anchorCreatedDate = queryParameter.getAnchorID() != null?getAnchorCreatedDate(queryParameter.getAnchorID()):null;
-        List<Work> elementsBeforeAnchor = contextSearch(queryParameter, anchorCreatedDate, allCriteria);
-        List<Work> elementsAfterAnchor =  limitSearch(queryParameter, anchorCreatedDate, allCriteria);
+        PageCursor anchor = queryParameter.getAnchorID() != null ? getAnchorCursor(queryParameter.getAnchorID()) : null;
+        List<Work> elementsBeforeAnchor = contextSearch(queryParameter, anchor, summary);
+        List<Work> elementsAfterAnchor = limitSearch(queryParameter, anchor, summary);
         elementsBeforeAnchor.addAll(elementsAfterAnchor);
         return elementsBeforeAnchor;
     }
 
+    @Override
+    public Stream<Work> streamDomainAndIdByBucketIds(Collection<String> bucketIds) {
+        Query query = new Query(Criteria.where("currentBucketAssociation.bucketId").in(bucketIds));
+        query.fields().include("id", "domainId");
+        return mongoTemplate.stream(query, Work.class);
+    }
+
     @Override
     @Retryable(
             value = {MongoTransactionException.class, UncategorizedMongoDbException.class},
             maxAttempts = 5,
             backoff = @Backoff(delay = 100, multiplier = 2)
     )
-    public Long getNextWorkId() {
-        // Define the query to find the counter document based on its id (sequenceName)
+    public Long getNextWorkIdBlock(int size) {
         Query query = new Query(Criteria.where("id").is(Work.class.getSimpleName()));
-        // Define the update operation to increment the counter
-        Update update = new Update().inc("sequence", 1);
-        // Ensure the option to return the new incremented value and to upsert
+        // reserve all the block with one increment
+        Update update = new Update().inc("sequence", size);
         FindAndModifyOptions options = new FindAndModifyOptions().returnNew(true).upsert(true);
-        // Execute the findAndModify operation, which will atomically increment the counter and create it if it doesn't exist
         Counter counter = mongoTemplate.findAndModify(query, update, options, Counter.class);
-        // Return the next sequence number
-        return Objects.requireNonNull(counter).getSequence();
+        // the returned sequence is the last of the block
+        return Objects.requireNonNull(counter).getSequence() - size + 1;
+    }
+
+    @Override
+    public void updateChildrenSummary(String domainId, String parentWorkId, WorkflowState previousStatus, WorkflowState newStatus) {
+        if (parentWorkId == null || previousStatus == newStatus) return;
+        // the same field can be touched by both states so the deltas are merged before the update
+        Map<String, Long> deltas = new HashMap<>();
+        if (previousStatus != null) {
+            deltas.merge("childrenSummary.countByStatus.%s".formatted(previousStatus.name()), -1L, Long::sum);
+            deltas.merge(previousStatus == WorkflowState.Closed ? "childrenSummary.closed" : "childrenSummary.open", -1L, Long::sum);
+        } else {
+            deltas.merge("childrenSummary.total", 1L, Long::sum);
+        }
+        if (newStatus != null) {
+            deltas.merge("childrenSummary.countByStatus.%s".formatted(newStatus.name()), 1L, Long::sum);
+            deltas.merge(newStatus == WorkflowState.Closed ? "childrenSummary.closed" : "childrenSummary.open", 1L, Long::sum);
+        } else {
+            deltas.merge("childrenSummary.total", -1L, Long::sum);
+        }
+        Update update = new Update().inc("version", 1L);
+        deltas.forEach((field, delta) -> {
+            if (delta != 0) update.inc(field, delta);
+        });
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("domainId").is(domainId).and("id").is(parentWorkId)),
+                update,
+                Work.class
+        );
+    }
+
+    @Override
+    public WorkChildrenSummary computeChildrenSummary(String domainId, String parentWorkId) {
+        var aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("domainId").is(domainId).and("parentWorkId").is(parentWorkId)),
+                Aggregation.group("currentStatus.status").count().as("count"),
+                Aggregation.project("count").and("_id").as("status").andExclude("_id")
+        );
+        WorkChildrenSummary summary = WorkChildrenSummary.builder().build();
+        mongoTemplate.aggregate(aggregation, Work.class, WorkStatusCountStatistics.class)
+                .getMappedResults()
+                .forEach(
+                        statistic -> {
+                            if (statistic.getStatus() == null) return;
+                            long count = statistic.getCount();
+                            summary.getCountByStatus().put(statistic.getStatus(), count);
+                            summary.setTotal(summary.getTotal() + count);
+                            if (statistic.getStatus() == WorkflowState.Closed) {
+                                summary.setClosed(summary.getClosed() + count);
+                            } else {
+                                summary.setOpen(summary.getOpen() + count);
+                            }
+                        }
+                );
+        return summary;
+    }
+
+    @Override
+    public void setChildrenSummary(String domainId, String parentWorkId, WorkChildrenSummary childrenSummary) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("domainId").is(domainId).and("id").is(parentWorkId)),
+                new Update().set("childrenSummary", childrenSummary).inc("version", 1L),
+                Work.class
+        );
     }
 
     /**
-     * Get the query to search the work
-     * @param anchorId the query parameter
-     * @return the query
+     * Return the cursor for the anchor
+     * <p>
+     * the anchor is the opaque cursor returned with the found works, a plain work id
+     * is still accepted for backward compatibility but costs a lookup of the work
+     * @param anchorId the cursor or the id of the anchor work
+     * @return the cursor or null if the anchor work is not found
      */
-    private LocalDateTime getAnchorCreatedDate(String anchorId) {
-        Query q = new Query();
-        q.addCriteria(Criteria.where("id").is(anchorId));
-        q.fields().include("createdDate");
-        var inventoryElementFound =  mongoTemplate.findOne(q, Work.class);
-        return (inventoryElementFound!=null)?inventoryElementFound.getCreatedDate():null;
+    private PageCursor getAnchorCursor(String anchorId) {
+        return PageCursor.decode(anchorId).orElseGet(
+                () -> {
+                    Query q = new Query();
+                    q.addCriteria(Criteria.where("id").is(anchorId));
+                    q.fields().include("createdDate");
+                    var workFound = mongoTemplate.findOne(q, Work.class);
+                    return (workFound != null && workFound.getCreatedDate() != null) ? new PageCursor(workFound.getCreatedDate(), workFound.getId()) : null;
+                }
+        );
     }
 
     /**
      * Get the default query
      * @param queryParameter is the query parameter class
+     * @param summary true if only the summary fields need to be loaded
      * @return return the mongodb query
      */
-    private static Query getQuery(WorkQueryParameter queryParameter) {
+    private static Query getQuery(WorkQueryParameter queryParameter, boolean summary) {
         Query query;
         if (queryParameter.getSearch() != null && !queryParameter.getSearch().isEmpty()) {
             query = TextQuery.queryText(TextCriteria.forDefaultLanguage()
@@ -167,37 +292,30 @@ public class WorkRepositoryImpl implements WorkRepositoryCustom {
             );
         }
 
+        if (summary) {
+            query.fields().include(SUMMARY_FIELDS);
+        }
         return query;
     }
 
     /**
      * Limit the search
      * @param queryParameter the query parameter
-     * @param anchorCreatedDate the anchor created date
-     * @param allCriteria the criteria
+     * @param anchor the anchor cursor
+     * @param summary true if only the summary fields need to be loaded
      * @return the list of work
      */
-    private List<Work> limitSearch(WorkQueryParameter queryParameter, LocalDateTime anchorCreatedDate, List<Criteria> allCriteria) {
+    private List<Work> limitSearch(WorkQueryParameter queryParameter, PageCursor anchor, boolean summary) {
         List<Work> elementsAfterAnchor = new ArrayList<>();
         if (queryParameter.getLimit() != null && queryParameter.getLimit() > 0) {
-            Query query = getQuery(queryParameter);
-            if (anchorCreatedDate != null) {
-                allCriteria.add(
-                        Criteria.where("createdDate").gt(anchorCreatedDate)
-                );
-            }
-
-            if(!allCriteria.isEmpty()) {
-                query.addCriteria(
-                        new Criteria().andOperator(
-                                allCriteria
-                        )
-                );
+            Query query = getQuery(queryParameter, summary);
+            if (anchor != null) {
+                query.addCriteria(anchor.after());
             }
 
             query.with(
                     Sort.by(
-                            Sort.Direction.ASC, "createdDate")
+                            Sort.Direction.ASC, "createdDate", "id")
             ).limit(queryParameter.getLimit());
             elementsAfterAnchor.addAll(
                     mongoTemplate.find(
@@ -212,34 +330,23 @@ public class WorkRepositoryImpl implements WorkRepositoryCustom {
     /**
      * Search the context
      * @param queryParameter the query parameter
-     * @param anchorCreatedDate the anchor created date
-     * @param allCriteria the criteria
+     * @param anchor the anchor cursor
+     * @param summary true if only the summary fields need to be loaded
      * @return the list of work
      */
-    private List<Work> contextSearch(WorkQueryParameter queryParameter, LocalDateTime anchorCreatedDate, List<Criteria> allCriteria) {
+    private List<Work> contextSearch(WorkQueryParameter queryParameter, PageCursor anchor, boolean summary) {
         List<Work> elementsBeforeAnchor = new ArrayList<>();
         if (
                 queryParameter.getContextSize() != null
                         && queryParameter.getContextSize() > 0
-                        && anchorCreatedDate != null
+                        && anchor != null
         ) {
-            allCriteria.add(
-                    Criteria.where("createdDate").lte(anchorCreatedDate)
-            );
-
-
             // at this point the anchor id is not null
-            Query query = getQuery(queryParameter);
-            if(!allCriteria.isEmpty()) {
-                query.addCriteria(
-                        new Criteria().andOperator(
-                                allCriteria
-                        )
-                );
-            }
+            Query query = getQuery(queryParameter, summary);
+            query.addCriteria(anchor.before(true));
             query.with(
                     Sort.by(
-                            Sort.Direction.DESC, "createdDate")
+                            Sort.Direction.DESC, "createdDate", "id")
             ).limit(queryParameter.getContextSize());
             elementsBeforeAnchor.addAll(
                     mongoTemplate.find(
@@ -1,12 +1,22 @@
 package edu.stanford.slac.core_work_management.repository;
 
 import edu.stanford.slac.core_work_management.model.WorkType;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface WorkTypeRepository extends MongoRepository<WorkType, String>, WorkTypeRepositoryCustom {
+    @Override
+    @Cacheable(value = "work-types", unless = "#result == null")
+    Optional<WorkType> findById(String id);
+
+    @Override
+    @CacheEvict(value = "work-types", key = "#p0.id", condition = "#p0.id != null")
+    <S extends WorkType> S save(S entity);
+
     /**
      * Find all the work types by domain id.
      *
@@ -7,18 +7,25 @@ import edu.stanford.slac.core_work_management.config.CWMAppProperties;
 import edu.stanford.slac.core_work_management.exception.AttachmentNotFound;
 import edu.stanford.slac.core_work_management.model.Attachment;
 import edu.stanford.slac.core_work_management.model.FileObjectDescription;
+import edu.stanford.slac.core_work_management.model.PreviewRequest;
+import edu.stanford.slac.core_work_management.model.StorageBlob;
 import edu.stanford.slac.core_work_management.model.StorageObject;
 import edu.stanford.slac.core_work_management.repository.AttachmentRepository;
+import edu.stanford.slac.core_work_management.repository.StorageBlobRepository;
 import edu.stanford.slac.core_work_management.repository.StorageRepository;
 import io.micrometer.core.instrument.Counter;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.http.MediaType;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayInputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 
@@ -31,12 +38,15 @@ public class AttachmentService {
     final private CWMAppProperties cwmAppProperties;
     final private StorageRepository storageRepository;
     final private AttachmentRepository attachmentRepository;
-    final private KafkaTemplate<String, Attachment> attachmentKafkaTemplate;
+    final private StorageBlobRepository storageBlobRepository;
+    final private OutboxService outboxService;
     final private Counter previewSubmittedCounter;
 
     /**
      * Create a new attachment
-     * the input stream is closed directly in this method
+     * the input stream is closed directly in this method. The content is hashed while it is stored and, if
+     * the same content was already stored, the attachment is linked to the existing one and the new copy
+     * is dropped; in this case the already generated preview is reused.
      * @param attachment the new attachment content
      * @return the id of the new created attachment
      */
@@ -45,29 +55,70 @@ public class AttachmentService {
         String resultId = null;
         try (StorageObject toSave = attachmentMapper.toModel(attachment)) {
             // store the object into storage
-            String storedObjectId = wrapCatch(
-                    () -> storageRepository.addObject(
+            StorageRepository.HashedObject storedObject = wrapCatch(
+                    () -> storageRepository.addObjectAndHash(
                             toSave
                     ),
                     -1,
                     "AttachmentService::createAttachment"
             );
+            // link the content to the blob with the same hash
+            StorageBlob blob = wrapCatch(
+                    () -> storageBlobRepository.link(storedObject.hash(), storedObject.id()),
+                    -1,
+                    "AttachmentService::createAttachment"
+            );
+            if (!blob.getStorageId().equals(storedObject.id()) && !storageRepository.existsObject(blob.getStorageId())) {
+                // the stored content of the blob has been lost, the new copy takes its place
+                log.warn("Stored object {} of content {} not found, replaced by {}", blob.getStorageId(), blob.getId(), storedObject.id());
+                blob = Objects.requireNonNullElseGet(
+                        storageBlobRepository.replaceStorage(blob.getId(), blob.getStorageId(), storedObject.id()),
+                        () -> wrapCatch(() -> storageBlobRepository.findById(storedObject.hash()), -1).orElseThrow()
+                );
+            }
+            boolean alreadyStored = !blob.getStorageId().equals(storedObject.id());
+            if (alreadyStored) {
+                // the same content is already stored, so the new copy is not needed
+                log.info("Content {} already stored as {}, dropping the new copy", blob.getId(), blob.getStorageId());
+                wrapCatch(
+                        () -> {
+                            storageRepository.deleteObject(storedObject.id());
+                            return null;
+                        },
+                        -1,
+                        "AttachmentService::createAttachment"
+                );
+            }
+            boolean previewAvailable = alreadyStored && isPreviewDone(blob.getPreviewState());
             // create the attachment
+            Attachment.AttachmentBuilder newAttachment = Attachment
+                    .builder()
+                    .fileName(toSave.getFilename())
+                    .contentType(toSave.getContentType())
+                    .originalId(blob.getStorageId())
+                    .contentHash(blob.getId());
+            if (previewAvailable) {
+                newAttachment
+                        .previewId(blob.getPreviewId())
+                        .miniPreview(blob.getMiniPreview())
+                        .previewState(blob.getPreviewState());
+            }
             Attachment newAttachmentCreated =
                     wrapCatch(
-                            () -> attachmentRepository.insert(
-                                    Attachment
-                                            .builder()
-                                            .fileName(toSave.getFilename())
-                                            .contentType(toSave.getContentType())
-                                            .originalId(storedObjectId)
-                                            .build()
-                            ),
+                            () -> attachmentRepository.insert(newAttachment.build()),
                             0,
                             "AttachmentService::createAttachment");
 
-            if (createPreview) {
-                attachmentKafkaTemplate.send(cwmAppProperties.getImagePreviewTopic(), newAttachmentCreated);
+            if (createPreview && !previewAvailable) {
+                // the preview is requested only if the attachment is committed
+                outboxService.enqueue(
+                        cwmAppProperties.getImagePreviewTopic(),
+                        newAttachmentCreated.getId(),
+                        PreviewRequest.builder()
+                                .attachmentId(newAttachmentCreated.getId())
+                                .contentType(newAttachmentCreated.getContentType())
+                                .build()
+                );
                 previewSubmittedCounter.increment();
             }
             resultId = newAttachmentCreated.getId();
@@ -93,6 +144,22 @@ public class AttachmentService {
                 "AttachmentService::exists");
     }
 
+    /**
+     * Return which of the attachments exist
+     * @param ids the unique ids of the attachments
+     * @return the ids of the existing attachments
+     */
+    public Set<String> findExistingIds(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) return Collections.emptySet();
+        return wrapCatch(
+                () -> attachmentRepository.findAllById(ids)
+                        .stream()
+                        .map(Attachment::getId)
+                        .collect(Collectors.toSet()),
+                0,
+                "AttachmentService::findExistingIds");
+    }
+
     /**
      * Return the attachment raw content file
      *
@@ -143,6 +210,84 @@ public class AttachmentService {
         );
     }
 
+    /**
+     * Return the description of the attachment raw content without reading it
+     *
+     * @param id the unique id of the attachment
+     * @return the content description, without the input stream
+     */
+    public StorageObjectDTO getAttachmentContentDescription(String id) {
+        Attachment foundAttachment = findAttachment(id, "AttachmentService::getAttachmentContentDescription");
+        return wrapCatch(
+                () -> attachmentMapper.toDTO(storageRepository.getObjectDescription(foundAttachment.getOriginalId())),
+                -1,
+                "AttachmentService::getAttachmentContentDescription"
+        );
+    }
+
+    /**
+     * Return a range of the attachment raw content
+     *
+     * @param id     the unique id of the attachment
+     * @param offset the position of the first byte
+     * @param length the number of bytes
+     * @return the content with the input stream limited to the range
+     */
+    public StorageObjectDTO getAttachmentContent(String id, long offset, long length) {
+        Attachment foundAttachment = findAttachment(id, "AttachmentService::getAttachmentContent");
+        return wrapCatch(
+                () -> attachmentMapper.toDTO(storageRepository.getObjectRange(foundAttachment.getOriginalId(), offset, length)),
+                -1,
+                "AttachmentService::getAttachmentContent"
+        );
+    }
+
+    /**
+     * Return the description of the preview content without reading it
+     *
+     * @param id the unique id of the attachment
+     * @return the preview description, without the input stream
+     */
+    public StorageObjectDTO getPreviewContentDescription(String id) {
+        Attachment foundAttachment = findAttachment(id, "AttachmentService::getPreviewContentDescription");
+        return wrapCatch(
+                () -> attachmentMapper.toDTO(storageRepository.getObjectDescription(foundAttachment.getPreviewId())),
+                -1,
+                "AttachmentService::getPreviewContentDescription"
+        );
+    }
+
+    /**
+     * Return a range of the preview content
+     *
+     * @param id     the unique id of the attachment
+     * @param offset the position of the first byte
+     * @param length the number of bytes
+     * @return the preview with the input stream limited to the range
+     */
+    public StorageObjectDTO getPreviewContent(String id, long offset, long length) {
+        Attachment foundAttachment = findAttachment(id, "AttachmentService::getPreviewContent");
+        return wrapCatch(
+                () -> attachmentMapper.toDTO(storageRepository.getObjectRange(foundAttachment.getPreviewId(), offset, length)),
+                -1,
+                "AttachmentService::getPreviewContent"
+        );
+    }
+
+    private Attachment findAttachment(String id, String errorDomain) {
+        return wrapCatch(
+                () -> attachmentRepository.findById(id),
+                -1,
+                errorDomain
+        ).orElseThrow(
+                () -> AttachmentNotFound.attachmentNotFoundBuilder()
+                        .errorCode(-2)
+                        .attachmentID(id)
+                        .errorDomain(errorDomain)
+                        .build()
+        );
+    }
+
     /**
      * Return the mini preview object description
      *
@@ -223,9 +368,45 @@ public class AttachmentService {
                 -3,
                 "AttachmentService::setPreviewProcessingState"
         );
+        // share the preview with all the attachments with the same content
+        if (foundAttachment.getContentHash() != null) {
+            storageBlobRepository.setPreview(foundAttachment.getContentHash(), previewID, miniPreview, Attachment.PreviewProcessingState.Completed);
+        }
         log.info("Set the preview id to {} for the attachment {}", previewID, foundAttachment.getId());
     }
 
+    /**
+     * Reuse the preview already generated for the same content
+     *
+     * @param id the unique identifier of the attachment
+     * @return true if the preview of the content was available and has been assigned to the attachment
+     */
+    public boolean reusePreview(String id) {
+        Attachment foundAttachment = findAttachment(id, "AttachmentService::reusePreview");
+        if (foundAttachment.getContentHash() == null) return false;
+        StorageBlob blob = wrapCatch(
+                () -> storageBlobRepository.findById(foundAttachment.getContentHash()),
+                -1,
+                "AttachmentService::reusePreview"
+        ).orElse(null);
+        if (blob == null || !isPreviewDone(blob.getPreviewState())) return false;
+        foundAttachment.setPreviewId(blob.getPreviewId());
+        foundAttachment.setMiniPreview(blob.getMiniPreview());
+        foundAttachment.setPreviewState(blob.getPreviewState());
+        wrapCatch(
+                () -> attachmentRepository.save(foundAttachment),
+                -2,
+                "AttachmentService::reusePreview"
+        );
+        log.info("Reused the preview of content {} for the attachment {}", blob.getId(), id);
+        return true;
+    }
+
+    private static boolean isPreviewDone(Attachment.PreviewProcessingState previewState) {
+        return previewState == Attachment.PreviewProcessingState.Completed
+                || previewState == Attachment.PreviewProcessingState.PreviewNotAvailable;
+    }
+
     /**
      * Update the processing state of the attachment
      *
@@ -252,6 +433,10 @@ public class AttachmentService {
                 -3,
                 "AttachmentService::setPreviewProcessingState"
         );
+        // a content without preview is not processed again for the other attachments
+        if (processingState == Attachment.PreviewProcessingState.PreviewNotAvailable && foundAttachment.getContentHash() != null) {
+            storageBlobRepository.setPreview(foundAttachment.getContentHash(), null, null, processingState);
+        }
         log.info("Update the preview processing state to {} for the attachment {}", processingState, foundAttachment.getId());
     }
 
@@ -9,6 +9,7 @@ import edu.stanford.slac.core_work_management.exception.DomainNotFound;
 import edu.stanford.slac.core_work_management.exception.WorkTypeNotFound;
 import edu.stanford.slac.core_work_management.model.BucketSlot;
 import edu.stanford.slac.core_work_management.model.BucketSlotActivityStatus;
+import edu.stanford.slac.core_work_management.model.BucketSlotClaim;
 import edu.stanford.slac.core_work_management.repository.BucketRepository;
 import edu.stanford.slac.core_work_management.repository.WorkRepository;
 import edu.stanford.slac.core_work_management.service.validation.BucketValidationService;
@@ -20,6 +21,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
@@ -172,6 +175,22 @@ public class BucketService {
         );
     }
 
+    /**
+     * This method is used to find all the bucket slots with the given ids
+     * <p>
+     * the bucket slots not found are not included in the result
+     *
+     * @param ids the ids of the bucket slots
+     * @return the list of the found bucket slot DTOs
+     */
+    public List<BucketSlotDTO> findAllByIds(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) return Collections.emptyList();
+        return wrapCatch(
+                () -> bucketSlotRepository.findAllById(ids),
+                -1
+        ).stream().map(bucketSlotMapper::toDTO).toList();
+    }
+
     /**
      * This method is used to update a bucket slot
      *
@@ -240,67 +259,61 @@ public class BucketService {
     }
 
     /**
-     * This method is used to find the next bucket slot that need to manage to be started up
+     * This method is used to claim up to batch size bucket slots that need to be started
      *
      * @param currentDate the current date
      * @param timeoutDate the date when the bucket need to be considered as timeout for processing
-     * @return the bucket slot DTO to startup
+     * @param batchSize   the max number of bucket slots to claim
+     * @return the claim with the ids of the claimed bucket slots
      */
-    public BucketSlotDTO findNextBucketToStart(LocalDateTime currentDate, LocalDateTime timeoutDate) {
-        return bucketSlotMapper.toDTO(
-                wrapCatch(
-                        ()->bucketSlotRepository
-                                .findNextBucketToStart(currentDate, timeoutDate),
-                        -1
-                )
+    public BucketSlotClaim claimNextBucketIdsToStart(LocalDateTime currentDate, LocalDateTime timeoutDate, int batchSize) {
+        return wrapCatch(
+                ()->bucketSlotRepository
+                        .claimNextBucketIdsToStart(currentDate, timeoutDate, batchSize),
+                -1
         );
     }
 
     /**
-     * This method is used to find the next bucket slot that need to manage to be stopped
+     * This method is used to claim up to batch size bucket slots that need to be stopped
      *
      * @param currentDate the current date
      * @param timeoutDate the date when the bucket need to be considered as timeout for processing
-     * @return the bucket slot DTO to stop
+     * @param batchSize   the max number of bucket slots to claim
+     * @return the claim with the ids of the claimed bucket slots
      */
-    public BucketSlotDTO findNextBucketToStop(LocalDateTime currentDate, LocalDateTime timeoutDate) {
-        return bucketSlotMapper.toDTO(
-                wrapCatch(
-                        ()->bucketSlotRepository
-                                .findNextBucketToStop(currentDate, timeoutDate),
-                        -1
-                )
+    public BucketSlotClaim claimNextBucketIdsToStop(LocalDateTime currentDate, LocalDateTime timeoutDate, int batchSize) {
+        return wrapCatch(
+                ()->bucketSlotRepository
+                        .claimNextBucketIdsToStop(currentDate, timeoutDate, batchSize),
+                -1
         );
     }
 
     /**
-     * This method is used to complete the start event processing
+     * This method is used to complete the start event processing of the bucket slots of a claim
      *
-     * @param id the id of the bucket slot
+     * @param claim the claim of the bucket slots
+     * @return the number of bucket slots completed, the ones claimed in the meanwhile by another run are skipped
      */
-    public void completeStartEventProcessing(String id) {
-        wrapCatch(
-                ()->{
-                    bucketSlotRepository
-                            .completeStartEventProcessing(id);
-                    return null;
-                },
+    public long completeStartEventProcessing(BucketSlotClaim claim) {
+        return wrapCatch(
+                ()->bucketSlotRepository
+                        .completeStartEventProcessing(claim),
                 -1
         );
     }
 
     /**
-     * This method is used to complete the stop event processing
+     * This method is used to complete the stop event processing of the bucket slots of a claim
      *
-     * @param id the id of the bucket slot
+     * @param claim the claim of the bucket slots
+     * @return the number of bucket slots completed, the ones claimed in the meanwhile by another run are skipped
      */
-    public void completeStopEventProcessing(String id) {
-        wrapCatch(
-                ()->{
-                    bucketSlotRepository
-                            .completeStopEventProcessing(id);
-                    return null;
-                },
+    public long completeStopEventProcessing(BucketSlotClaim claim) {
+        return wrapCatch(
+                ()->bucketSlotRepository
+                        .completeStopEventProcessing(claim),
                 -1
         );
     }
@@ -9,21 +9,24 @@ import edu.stanford.slac.core_work_management.exception.WorkTypeNotFound;
 import edu.stanford.slac.core_work_management.exception.WorkflowNotFound;
 import edu.stanford.slac.core_work_management.model.Domain;
 import edu.stanford.slac.core_work_management.model.WorkStatusCountStatistics;
-import edu.stanford.slac.core_work_management.model.WorkType;
-import edu.stanford.slac.core_work_management.model.WorkTypeStatusStatistics;
 import edu.stanford.slac.core_work_management.model.value.ValueType;
 import edu.stanford.slac.core_work_management.repository.DomainRepository;
 import edu.stanford.slac.core_work_management.repository.WorkRepository;
 import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
 import edu.stanford.slac.core_work_management.service.workflow.BaseWorkflow;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.ApplicationContext;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.validation.annotation.Validated;
 
 import java.util.*;
@@ -37,7 +40,7 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 @Log4j2
 @Service
 @Validated
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class DomainService {
     private final ApplicationContext applicationContext;
 
@@ -50,6 +53,13 @@ public class DomainService {
 
     private final ConcurrentHashMap<String, Lock> locks = new ConcurrentHashMap<>();
 
+    /**
+     * The proxy of this service, used to call the cached methods from inside the service
+     */
+    @Lazy
+    @Autowired
+    private DomainService self;
+
     /**
      * Create a new domain
      *
@@ -77,6 +87,8 @@ public class DomainService {
 
     /**
      * Find a domain by its id
+     * <p>
+     * the domain is served by the cache, the statistics are always read from the database
      *
      * @param id the id of the domain
      * @return the domain
@@ -84,12 +96,33 @@ public class DomainService {
     public DomainDTO findById(String id) {
         return wrapCatch(
                 () -> domainRepository.findById(id)
-                        .map(domainMapper::toDTO)
+                        .map(
+                                domain -> domainMapper.toDTO(domain)
+                                        .toBuilder()
+                                        .workTypeStatusStatistics(domainMapper.map(domainRepository.findWorkStatusStatisticsById(id)))
+                                        .build()
+                        )
                         .orElseThrow(() -> DomainNotFound.notFoundById().errorCode(-1).id(id).build()),
                 -2
         );
     }
 
+    /**
+     * Find all the domains with the given ids
+     * <p>
+     * the domains not found are not included in the result
+     *
+     * @param ids the ids of the domains
+     * @return the list of the found domains
+     */
+    public List<DomainDTO> findAllByIds(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) return Collections.emptyList();
+        return wrapCatch(
+                () -> domainRepository.findAllById(ids),
+                -1
+        ).stream().map(domainMapper::toDTO).toList();
+    }
+
     /**
      * Find all domains
      *
@@ -313,12 +346,27 @@ public class DomainService {
      * @param domainId   the id of the domain
      * @param workTypeId the id work type
      */
-//    @Cacheable(value = "workflow", key = "#domainId + #workTypeId")
     public BaseWorkflow getWorkflowInstanceByDomainIdAndWorkTypeId(String domainId, String workTypeId) {
+        // the binding is resolved through the proxy so it is served by the cache
+        return (BaseWorkflow) applicationContext.getBean(self.getWorkflowImplementationByDomainIdAndWorkTypeId(domainId, workTypeId));
+    }
+
+    /**
+     * Return the name of the workflow implementation bound to the work type
+     * <p>
+     * the binding is cached cluster-wide, the bean instance is not serializable so it is
+     * resolved locally from its name
+     *
+     * @param domainId   the id of the domain
+     * @param workTypeId the id work type
+     * @return the bean name of the workflow implementation
+     */
+    @Cacheable(value = "workflow", key = "#domainId + '/' + #workTypeId")
+    public String getWorkflowImplementationByDomainIdAndWorkTypeId(String domainId, String workTypeId) {
         var domain = findById(domainId);
         var workType = findWorkTypeById(domainId, workTypeId);
 
-        var workflow = domain.workflows()
+        return domain.workflows()
                 .stream()
                 .filter(w -> w.id().compareTo(workType.workflow().id()) == 0)
                 .findFirst()
@@ -328,24 +376,72 @@ public class DomainService {
                                 .errorCode(-1)
                                 .workflowId(workType.workflow().id())
                                 .build()
-                );
-        return (BaseWorkflow) applicationContext.getBean(workflow.implementation());
+                )
+                .implementation();
+    }
+
+    /**
+     * Update the domain statistics with a work status change
+     * <p>
+     * the counter of the previous status is decremented and the one of the new status incremented
+     * using atomic operation. When a transaction is active the update is applied only after the commit
+     * so rolled back changes don't alter the statistics.
+     *
+     * @param domainId       the id of the domain
+     * @param workTypeId     the id of the work type
+     * @param previousStatus the previous status of the work, null for a new work
+     * @param newStatus      the current status of the work
+     */
+    public void updateDomainStatistics(String domainId, String workTypeId, WorkflowState previousStatus, WorkflowState newStatus) {
+        if (domainId == null || workTypeId == null || previousStatus == newStatus) return;
+        Runnable applyDelta = () -> {
+            try {
+                if (previousStatus != null) {
+                    domainRepository.incrementWorkStatusStatistic(domainId, workTypeId, previousStatus, -1);
+                }
+                if (newStatus != null) {
+                    domainRepository.incrementWorkStatusStatistic(domainId, workTypeId, newStatus, 1);
+                }
+                log.debug("[statistic domainId {}] Work type {} moved from {} to {}", domainId, workTypeId, previousStatus, newStatus);
+            } catch (Throwable e) {
+                // the drift will be fixed by the reconciliation
+                log.error("[statistic domainId {}] Error updating domain statistics: {}", domainId, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            applyDelta.run();
+                        }
+                    }
+            );
+        } else {
+            applyDelta.run();
+        }
+    }
+
+    /**
+     * Reconcile the statistics of all the domains
+     */
+    public void reconcileDomainStatistics() {
+        domainRepository.findAll().forEach(domain -> reconcileDomainStatistics(domain.getId()));
     }
 
     /**
-     * Update the domain statistics
+     * Recalculate the domain statistics from the works
+     * <p>
+     * it is used to fix any drift of the incremental statistics
      *
      * @param domainId the id of the domain
      */
-    @Async("taskExecutor")
-    public void updateDomainStatistics(@NotEmpty String domainId) {
-        log.info("[statistic domainId {}] Updating domain statistics", domainId);
-        Optional<Domain> domain = domainRepository.findById(domainId);
-        if (domain.isEmpty()) {
+    public void reconcileDomainStatistics(@NotEmpty String domainId) {
+        log.info("[statistic domainId {}] Reconcile domain statistics", domainId);
+        if (!domainRepository.existsById(domainId)) {
             log.error("[statistic domainId {}] Domain with id not found", domainId);
             return;
         }
-        log.info("[statistic domainId {}] Acquiring lock for domain", domainId);
         Lock lock = locks.computeIfAbsent(domainId, k -> new ReentrantLock());
         lock.lock();
         try {
@@ -355,33 +451,51 @@ public class DomainService {
                     -1
             );
 
-            log.info("[statistic domainId {}] Fetch work types", domainId);
-            List<String> workTypeIds = workTypeRepository.findAll().stream().map(WorkType::getId).toList();
-
-
-            // Check if the statistics are correct for each work type ID
             Map<String, List<WorkStatusCountStatistics>> statMap = new ConcurrentHashMap<>();
-            log.info("[statistic domainId {}] Updating statistics for domain", domainId);
-            for (String workTypeId : workTypeIds) {
-                WorkTypeStatusStatistics stats = workStatistics.stream()
-                        .filter(stat -> stat.getWorkTypeId().equals(workTypeId))
-                        .findFirst()
-                        .orElse(null);
-                if (stats == null) {
-                    continue;
-                }
-
-                statMap.put(workTypeId, stats.getStatus());
+            workStatistics.forEach(stat -> statMap.put(stat.getWorkTypeId(), stat.getStatus()));
+            // the cached domain can hold outdated statistics so the stored ones are read from the database
+            var storedStatistics = domainRepository.findWorkStatusStatisticsById(domainId);
+            if (toComparableStatistics(statMap).equals(toComparableStatistics(storedStatistics))) {
+                log.info("[statistic domainId {}] Domain statistics are aligned", domainId);
+                return;
             }
-            domain.get().setWorkTypeStatusStatistics(statMap);
-            log.info("[statistic domainId {}] Saving domain statistics", domainId);
-            domainRepository.save(domain.get());
+            log.info("[statistic domainId {}] Saving reconciled domain statistics", domainId);
+            wrapCatch(
+                    () -> {
+                        domainRepository.setWorkStatusStatistics(domainId, statMap);
+                        return null;
+                    },
+                    -2
+            );
         } catch (Throwable e) {
-            log.error("[statistic domainId {}] Error updating domain statistics for domain {}", domainId, e.getMessage());
+            log.error("[statistic domainId {}] Error reconciling domain statistics for domain {}", domainId, e.getMessage());
         } finally {
             lock.unlock();
             locks.remove(domainId);
         }
-        log.info("[statistic domainId {}] Domain statistics updated", domainId);
+    }
+
+    /**
+     * Return the statistics in a form that can be compared
+     * <p>
+     * the order of the status counters is not relevant and a zero count is the same as a missing one
+     *
+     * @param statistics the statistics by work type id
+     * @return the not zero count by status for each work type id
+     */
+    private static Map<String, Map<WorkflowState, Integer>> toComparableStatistics(Map<String, List<WorkStatusCountStatistics>> statistics) {
+        Map<String, Map<WorkflowState, Integer>> result = new HashMap<>();
+        if (statistics == null) return result;
+        statistics.forEach(
+                (workTypeId, counters) -> {
+                    if (counters == null) return;
+                    Map<WorkflowState, Integer> countByStatus = new HashMap<>();
+                    counters.stream()
+                            .filter(counter -> counter.getCount() != null && counter.getCount() != 0)
+                            .forEach(counter -> countByStatus.merge(counter.getStatus(), counter.getCount(), Integer::sum));
+                    if (!countByStatus.isEmpty()) result.put(workTypeId, countByStatus);
+                }
+        );
+        return result;
     }
 }
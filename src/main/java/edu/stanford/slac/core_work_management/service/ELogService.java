@@ -2,8 +2,6 @@ package edu.stanford.slac.core_work_management.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
-import edu.stanford.slac.ad.eed.baselib.auth.JWTHelper;
-import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.core_work_management.api.v1.dto.NewLogEntry;
 import edu.stanford.slac.core_work_management.api.v1.mapper.LogEntryMapper;
@@ -16,18 +14,14 @@ import edu.stanford.slac.core_work_management.repository.LogEntryRepository;
 import edu.stanford.slac.core_work_management.repository.WorkRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 import static edu.stanford.slac.core_work_management.config.AuthorizationStringConfig.WORK_AUTHORIZATION_TEMPLATE;
@@ -43,8 +37,7 @@ public class ELogService implements LogService{
     private final ShopGroupService shopGroupService;
     private final LogEntryRepository logEntryRepository;
     private final StorageRepository attachmentRepository;
-    private final KafkaTemplate<String, ImportEntryDTO> importEntryDTOKafkaTemplate;
-    private final JWTHelper jwtHelper;
+    private final OutboxService outboxService;
     private final ObjectMapper objectMapper;
     @Value("${edu.stanford.slac.core-work-management.elog-import-topic}")
     private String importEntryTopic;
@@ -95,9 +88,8 @@ public class ELogService implements LogService{
         List<String> userIdForAuthorization = allWorkAuthorization.stream().map(
                 auth -> {
                     if (auth.owner().endsWith("@shopgroup.cws.slac.stanford.edu")) {
-                        log.info("[logging work number {}] Fetching all user for shop group: {}", foundWork.getWorkNumber(), auth.owner());
-                        var shopGroup = shopGroupService.findByDomainIdAndId(domainId, auth.owner().split("@")[0]);
-                        return shopGroup.users().stream().map(member -> member.user().mail()).toList();
+                        log.info("[logging work number {}] Expanding all user for shop group: {}", foundWork.getWorkNumber(), auth.owner());
+                        return List.copyOf(shopGroupService.findUserEmailsByDomainIdAndId(domainId, auth.owner().split("@")[0]));
                     }
                     return List.of(auth.owner());
                 }
@@ -117,37 +109,14 @@ public class ELogService implements LogService{
 
                         )
                 .readerUserIds(userIdForAuthorization);
-        //create kafka record
-        log.info("[logging work number {}] Sending log to elog system", foundWork.getWorkNumber());
-        ProducerRecord<String, ImportEntryDTO> message = new ProducerRecord<>(
+        // enqueue the record with the log entry, it is sent to the elog system only if the transaction is committed,
+        // the authorization is added by the outbox relay when the record is published so no token is stored
+        log.info("[logging work number {}] Enqueue log for elog system", foundWork.getWorkNumber());
+        outboxService.enqueue(
                 importEntryTopic,
+                null,
                 dto
         );
-        message.headers().add("Authorization", jwtHelper.generateServiceToken().getBytes());
-        // submit log to kafka topic to send to elog system
-        CompletableFuture<SendResult<String, ImportEntryDTO>> future = importEntryDTOKafkaTemplate.send(message);
-        future.thenAccept(result -> {
-            // Success handling
-            log.info(
-                    "Log sent to elog system using topic {} at partition {} with offset {}",
-                    result.getRecordMetadata().topic(),
-                    result.getRecordMetadata().partition(),
-                    result.getRecordMetadata().offset()
-            );
-        }).handle((result, throwable) -> {
-            if (throwable != null) {
-                final String errorMessage = "Failed to send message to topic %s : %s".formatted(importEntryTopic, throwable.getMessage());
-                // Log the exception
-                log.error(errorMessage);
-                throw ControllerLogicException
-                        .builder()
-                        .errorCode(-2)
-                        .errorMessage(errorMessage)
-                        .errorDomain("LogService::createNewLogEntry")
-                        .build();
-            }
-            return result;
-        });
 
         // set work has log
         foundWork.setHasLog(true);
@@ -158,7 +127,7 @@ public class ELogService implements LogService{
                 -3
         );
 
-        log.info("[logging work number {}] Log entry stored and sent to elog system", foundWork.getWorkNumber());
+        log.info("[logging work number {}] Log entry stored and enqueued for elog system", foundWork.getWorkNumber());
         return savedLogEntry.getId();
     }
 }
@@ -50,19 +50,21 @@ public class LOVService {
     private final LOVMapper lovMapper;
     private final WorkTypeRepository workTypeRepository;
     private final LOVElementRepository lovElementRepository;
-
+    private final LOVSnapshotService lovSnapshotService;
 
     public List<String> createNew(
             @NotEmpty String groupName,
             @Valid List<NewLOVElementDTO> lovElementDTOs
     ) {
-        return lovElementDTOs.stream()
+        List<String> ids = lovElementDTOs.stream()
                 .map(e -> lovMapper.toModelByGroupName(groupName, e))
                 .map(newElement -> wrapCatch(
                         () -> lovElementRepository.save(newElement),
                         -1
                 ).getId())
                 .collect(Collectors.toList());
+        lovSnapshotService.publish();
+        return ids;
     }
 
     /**
@@ -104,14 +106,9 @@ public class LOVService {
                 LOVFieldReferenceNotFound.byFieldName().errorCode(-1).fieldName(fieldName).build(),
                 () -> fieldReferences.containsKey(fieldName)
         );
-        return wrapCatch(
-                () -> lovElementRepository.findByFieldReferenceContains(
-                                fieldReferences.get(fieldName)
-                        )
-                        .stream()
-                        .map(lovMapper::toDTO).toList(),
-                -1
-        );
+        return lovSnapshotService.findByFieldReference(fieldReferences.get(fieldName))
+                .stream()
+                .map(lovMapper::toDTO).toList();
     }
 
     /**
@@ -122,12 +119,9 @@ public class LOVService {
      * @return the list of LOV elements
      */
     public List<LOVElementDTO> findAllByFieldReference(String fieldReference) {
-        return wrapCatch(
-                () -> lovElementRepository.findByFieldReferenceContains(fieldReference)
-                        .stream()
-                        .map(lovMapper::toDTO).toList(),
-                -1
-        );
+        return lovSnapshotService.findByFieldReference(fieldReference)
+                .stream()
+                .map(lovMapper::toDTO).toList();
     }
 
     /**
@@ -137,14 +131,9 @@ public class LOVService {
      * @return the list of LOV elements
      */
     public List<LOVElementDTO> findAllByGroupName(String groupName) {
-        return wrapCatch(
-                () -> lovElementRepository.findByGroupNameIs(
-                                groupName
-                        )
-                        .stream()
-                        .map(lovMapper::toDTO).toList(),
-                -1
-        );
+        return lovSnapshotService.findByGroupName(groupName)
+                .stream()
+                .map(lovMapper::toDTO).toList();
     }
 
     /**
@@ -163,6 +152,7 @@ public class LOVService {
                             );
                         }
                 );
+        lovSnapshotService.publish();
     }
 
     /**
@@ -181,6 +171,7 @@ public class LOVService {
                             );
                         }
                 );
+        lovSnapshotService.publish();
     }
 
     /**
@@ -190,19 +181,15 @@ public class LOVService {
      * @return the list of LOV elements
      */
     public String findLovValueById(String id) {
-        return wrapCatch(
-                () -> lovElementRepository.
-                        findById(id)
-                        .map(LOVElement::getValue)
-                        .orElseThrow(
-                                () -> LOVValueNotFound
-                                        .byId()
-                                        .errorCode(-1)
-                                        .id(id)
-                                        .build()
-                        ),
-                -1
-        );
+        return lovSnapshotService.findById(id)
+                .map(LOVElement::getValue)
+                .orElseThrow(
+                        () -> LOVValueNotFound
+                                .byId()
+                                .errorCode(-1)
+                                .id(id)
+                                .build()
+                );
     }
 
     /**
@@ -212,10 +199,20 @@ public class LOVService {
      * @return the list of LOV elements
      */
     public Optional<LOVElementDTO> findLovValueByIdNoException(String id) {
-        return wrapCatch(
-                () -> lovElementRepository.findById(id),
-                -1
-        ).map(lovMapper::toDTO);
+        return lovSnapshotService.findById(id).map(lovMapper::toDTO);
+    }
+
+    /**
+     * Find all the LOV elements with the given ids
+     * <p>
+     * the LOV elements not found are not included in the result
+     *
+     * @param ids the ids of the LOV elements
+     * @return the list of the found LOV elements
+     */
+    public List<LOVElementDTO> findAllLovValueByIds(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) return Collections.emptyList();
+        return lovSnapshotService.findAllById(ids).stream().map(lovMapper::toDTO).toList();
     }
 
     /**
@@ -228,7 +225,7 @@ public class LOVService {
         var allFieldReference = getLOVFieldReference(lovDomainTypeDTO, domainId, subtypeId);
         // check if field reference is attached to some lov
         var onlyLOVMap = allFieldReference.entrySet().stream()
-                .filter(entry -> lovElementRepository.existsByFieldReferenceContains(entry.getValue()))
+                .filter(entry -> !lovSnapshotService.findByFieldReference(entry.getValue()).isEmpty())
                 .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
 
         return onlyLOVMap.keySet().stream().toList();
@@ -241,10 +238,7 @@ public class LOVService {
      * @return true if the field reference is in use, false otherwise
      */
     public boolean checkIfFieldReferenceIsInUse(String fieldReference) {
-        return wrapCatch(
-                () -> lovElementRepository.existsByFieldReferenceContains(fieldReference),
-                -1
-        );
+        return !lovSnapshotService.findByFieldReference(fieldReference).isEmpty();
     }
 
     /**
@@ -315,9 +309,6 @@ public class LOVService {
      * @return true if the group name exists, false otherwise
      */
     public Boolean existsByGroupName(String groupName) {
-        return wrapCatch(
-                () -> lovElementRepository.existsByGroupNameIs(groupName),
-                -1
-        );
+        return !lovSnapshotService.findByGroupName(groupName).isEmpty();
     }
 }
@@ -0,0 +1,245 @@
+package edu.stanford.slac.core_work_management.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import edu.stanford.slac.core_work_management.model.LOVElement;
+import edu.stanford.slac.core_work_management.repository.LOVElementRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+import static java.util.Collections.emptyList;
+
+/**
+ * Keep an immutable in memory snapshot of all the LOV elements
+ * <p>
+ * the LOV elements change rarely, so all the reads are served by the snapshot. Every LOV write publishes
+ * a new version of the snapshot, replaced atomically, and notify the other nodes through a hazelcast topic
+ * so they reload their snapshot. A lookup not satisfied by the snapshot is read from the database, to cover
+ * the time between the write on another node and the notification; the lookups not found in the database are
+ * remembered until the next snapshot, so an unknown key doesn't query the database every time. The snapshot
+ * is also reloaded periodically, so a lost notification doesn't leave it stale.
+ */
+@Log4j2
+@Service
+public class LOVSnapshotService {
+    private static final String LOV_CHANGES_TOPIC = "cwm-lov-changes";
+    private final LOVElementRepository lovElementRepository;
+    private final ObjectProvider<HazelcastInstance> hazelcastInstance;
+    private final AtomicReference<LOVSnapshot> snapshot = new AtomicReference<>();
+    private ITopic<Long> lovChangesTopic;
+
+    public LOVSnapshotService(LOVElementRepository lovElementRepository, ObjectProvider<HazelcastInstance> hazelcastInstance) {
+        this.lovElementRepository = lovElementRepository;
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        hazelcastInstance.ifAvailable(
+                hz -> {
+                    lovChangesTopic = hz.getTopic(LOV_CHANGES_TOPIC);
+                    lovChangesTopic.addMessageListener(
+                            message -> {
+                                // the local changes have already been loaded
+                                if (message.getPublishingMember() != null && message.getPublishingMember().localMember()) return;
+                                log.debug("LOV changed on another node, reloading the snapshot");
+                                reload();
+                            }
+                    );
+                }
+        );
+    }
+
+    /**
+     * Find a LOV element by id
+     *
+     * @param id the id of the LOV element
+     * @return the LOV element
+     */
+    public Optional<LOVElement> findById(String id) {
+        if (id == null) return Optional.empty();
+        LOVSnapshot current = getSnapshot();
+        LOVElement element = current.byId().get(id);
+        if (element != null) return Optional.of(element);
+        String missKey = "id/%s".formatted(id);
+        if (current.misses().contains(missKey)) return Optional.empty();
+        // the element could have been created on another node and not yet notified
+        Optional<LOVElement> found = wrapCatch(() -> lovElementRepository.findById(id), -1);
+        if (found.isPresent()) {
+            reload();
+        } else {
+            current.misses().add(missKey);
+        }
+        return found;
+    }
+
+    /**
+     * Find all the LOV elements with the given ids
+     *
+     * @param ids the ids of the LOV elements
+     * @return the found LOV elements
+     */
+    public List<LOVElement> findAllById(Collection<String> ids) {
+        return ids.stream().map(this::findById).flatMap(Optional::stream).toList();
+    }
+
+    /**
+     * Find all the LOV elements of a group
+     *
+     * @param groupName the group name
+     * @return the LOV elements
+     */
+    public List<LOVElement> findByGroupName(String groupName) {
+        if (groupName == null) return emptyList();
+        LOVSnapshot current = getSnapshot();
+        List<LOVElement> elements = current.byGroupName().get(groupName);
+        if (elements != null) return elements;
+        String missKey = "group/%s".formatted(groupName);
+        if (current.misses().contains(missKey)) return emptyList();
+        // the group could have been created on another node and not yet notified
+        List<LOVElement> found = wrapCatch(() -> lovElementRepository.findByGroupNameIs(groupName), -1);
+        if (found.isEmpty()) {
+            current.misses().add(missKey);
+        } else {
+            reload();
+        }
+        return found;
+    }
+
+    /**
+     * Find all the LOV elements usable by a field
+     *
+     * @param fieldReference the field reference
+     * @return the LOV elements
+     */
+    public List<LOVElement> findByFieldReference(String fieldReference) {
+        if (fieldReference == null) return emptyList();
+        LOVSnapshot current = getSnapshot();
+        List<LOVElement> elements = current.byFieldReference().get(fieldReference);
+        if (elements != null) return elements;
+        String missKey = "field/%s".formatted(fieldReference);
+        if (current.misses().contains(missKey)) return emptyList();
+        // the association could have been created on another node and not yet notified
+        List<LOVElement> found = wrapCatch(() -> lovElementRepository.findByFieldReferenceContains(fieldReference), -1);
+        if (found.isEmpty()) {
+            current.misses().add(missKey);
+        } else {
+            reload();
+        }
+        return found;
+    }
+
+    /**
+     * Check if a LOV element can be used by a field
+     *
+     * @param id             the id of the LOV element
+     * @param fieldReference the field reference
+     * @return true if the LOV element exists and is associated to the field reference
+     */
+    public boolean existsByIdAndFieldReference(String id, String fieldReference) {
+        if (id == null) return false;
+        LOVSnapshot current = getSnapshot();
+        LOVElement element = current.byId().get(id);
+        if (element != null && element.getFieldReference() != null && element.getFieldReference().contains(fieldReference)) {
+            return true;
+        }
+        String missKey = "id-field/%s/%s".formatted(id, fieldReference);
+        if (current.misses().contains(missKey)) return false;
+        // the association could have been changed on another node and not yet notified
+        boolean exists = wrapCatch(() -> lovElementRepository.existsByIdAndFieldReferenceContains(id, fieldReference), -1);
+        if (exists) {
+            reload();
+        } else {
+            current.misses().add(missKey);
+        }
+        return exists;
+    }
+
+    /**
+     * Return the version of the current snapshot
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return getSnapshot().version();
+    }
+
+    /**
+     * Publish a new version of the snapshot after a LOV write
+     * <p>
+     * the snapshot is reloaded locally and the other nodes are notified
+     */
+    public void publish() {
+        long version = reload().version();
+        if (lovChangesTopic != null) {
+            lovChangesTopic.publish(version);
+        }
+    }
+
+    /**
+     * Reload the snapshot from the database
+     *
+     * @return the new snapshot
+     */
+    public synchronized LOVSnapshot reload() {
+        LOVSnapshot current = snapshot.get();
+        LOVSnapshot newSnapshot = LOVSnapshot.of(
+                current == null ? 1 : current.version() + 1,
+                wrapCatch(lovElementRepository::findAll, -1)
+        );
+        snapshot.set(newSnapshot);
+        log.debug("LOV snapshot version {} loaded with {} elements", newSnapshot.version(), newSnapshot.byId().size());
+        return newSnapshot;
+    }
+
+    private LOVSnapshot getSnapshot() {
+        LOVSnapshot current = snapshot.get();
+        return current != null ? current : reload();
+    }
+
+    /**
+     * Immutable snapshot of the LOV elements
+     *
+     * @param version          the version of the snapshot
+     * @param byId             the elements by id
+     * @param byGroupName      the elements by group name
+     * @param byFieldReference the elements by field reference
+     * @param misses           the lookups not found in the database since the snapshot has been loaded
+     */
+    public record LOVSnapshot(
+            long version,
+            Map<String, LOVElement> byId,
+            Map<String, List<LOVElement>> byGroupName,
+            Map<String, List<LOVElement>> byFieldReference,
+            Set<String> misses
+    ) {
+        static LOVSnapshot of(long version, List<LOVElement> elements) {
+            Map<String, LOVElement> byId = new HashMap<>();
+            Map<String, List<LOVElement>> byGroupName = new HashMap<>();
+            Map<String, List<LOVElement>> byFieldReference = new HashMap<>();
+            elements.forEach(
+                    element -> {
+                        byId.put(element.getId(), element);
+                        if (element.getGroupName() != null) {
+                            byGroupName.computeIfAbsent(element.getGroupName(), k -> new ArrayList<>()).add(element);
+                        }
+                        if (element.getFieldReference() != null) {
+                            element.getFieldReference().forEach(
+                                    fieldReference -> byFieldReference.computeIfAbsent(fieldReference, k -> new ArrayList<>()).add(element)
+                            );
+                        }
+                    }
+            );
+            byGroupName.replaceAll((k, v) -> List.copyOf(v));
+            byFieldReference.replaceAll((k, v) -> List.copyOf(v));
+            return new LOVSnapshot(version, Map.copyOf(byId), Map.copyOf(byGroupName), Map.copyOf(byFieldReference), ConcurrentHashMap.newKeySet());
+        }
+    }
+}
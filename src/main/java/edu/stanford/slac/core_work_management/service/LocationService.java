@@ -18,7 +18,6 @@
 package edu.stanford.slac.core_work_management.service;
 
 import edu.stanford.slac.ad.eed.baselib.exception.PersonNotFound;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.core_work_management.api.v1.dto.LocationDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.LocationFilterDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.NewLocationDTO;
@@ -51,7 +50,7 @@ public class LocationService {
     private final DomainService domainService;
     private final LocationMapper locationMapper;
     private final LocationRepository locationRepository;
-    private final PeopleGroupService peopleGroupService;
+    private final PersonResolverService personResolverService;
     private final ExternalLocationRepository externalLocationRepository;
 
     /**
@@ -178,7 +177,7 @@ public class LocationService {
 
         // check if are manager exists
         assertion(
-                () -> peopleGroupService.findPersonByEMail(location.getLocationManagerUserId()) != null,
+                () -> personResolverService.findPersonByEMail(location.getLocationManagerUserId()) != null,
                 PersonNotFound
                         .personNotFoundBuilder()
                         .errorCode(-2)
@@ -0,0 +1,194 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.model.OutboxMessage;
+import edu.stanford.slac.core_work_management.model.PreviewRequest;
+import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
+import edu.stanford.slac.core_work_management.repository.OutboxMessageRepository;
+import edu.stanford.slac.core_work_management.task.OutboxRelay;
+import edu.stanford.slac.core_work_management.utility.PreviewRequestSerde;
+import edu.stanford.slac.core_work_management.utility.ProcessWorkflowInfoSerde;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Enqueue the kafka records into the outbox
+ * <p>
+ * the records are written with the current transaction, so they are published by the {@link OutboxRelay}
+ * only if the business change that generates them is committed and they are never lost if the broker
+ * is not reachable. The caller never waits for the broker acknowledge.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    private static final int INSERT_CHUNK_SIZE = 500;
+    private final Clock clock;
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxRelay outboxRelay;
+    private final CWMAppProperties cwmAppProperties;
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private final Map<Class<?>, Serializer<?>> compactSerializers = Map.of(
+            ProcessWorkflowInfo.class, new ProcessWorkflowInfoSerde(true),
+            PreviewRequest.class, new PreviewRequestSerde(true)
+    );
+    private final Map<Class<?>, Serializer<?>> legacySerializers = Map.of(
+            ProcessWorkflowInfo.class, new ProcessWorkflowInfoSerde(false),
+            PreviewRequest.class, new PreviewRequestSerde(false)
+    );
+
+    /**
+     * Enqueue a record
+     *
+     * @param topic   the topic of the record
+     * @param key     the key of the record, can be null
+     * @param payload the value of the record
+     */
+    public void enqueue(String topic, String key, Object payload) {
+        enqueue(topic, key, payload, null);
+    }
+
+    /**
+     * Enqueue a record with headers
+     *
+     * @param topic   the topic of the record
+     * @param key     the key of the record, can be null
+     * @param payload the value of the record
+     * @param headers the headers of the record
+     */
+    public void enqueue(String topic, String key, Object payload, Map<String, String> headers) {
+        OutboxMessage message = toMessage(topic, key, payload, headers);
+        wrapCatch(
+                () -> outboxMessageRepository.insert(message),
+                -1,
+                "OutboxService::enqueue"
+        );
+        wakeupRelayAfterCommit();
+    }
+
+    /**
+     * Enqueue all the records of a stream keeping their order
+     * <p>
+     * the records are inserted in chunks so the stream is never fully loaded in memory
+     *
+     * @param topic     the topic of the records
+     * @param payloads  the values of the records
+     * @param keyMapper return the key of a record
+     * @param <T>       the type of the values
+     * @return the number of enqueued records
+     */
+    public <T> long enqueueAll(String topic, Stream<T> payloads, Function<T, String> keyMapper) {
+        List<OutboxMessage> chunk = new ArrayList<>(INSERT_CHUNK_SIZE);
+        long[] enqueued = {0};
+        payloads.forEach(
+                payload -> {
+                    chunk.add(toMessage(topic, keyMapper.apply(payload), payload, null));
+                    if (chunk.size() == INSERT_CHUNK_SIZE) {
+                        enqueued[0] += insertChunk(chunk);
+                    }
+                }
+        );
+        enqueued[0] += insertChunk(chunk);
+        if (enqueued[0] > 0) wakeupRelayAfterCommit();
+        return enqueued[0];
+    }
+
+    private int insertChunk(List<OutboxMessage> chunk) {
+        if (chunk.isEmpty()) return 0;
+        int size = chunk.size();
+        wrapCatch(
+                () -> outboxMessageRepository.insert(chunk),
+                -2,
+                "OutboxService::enqueueAll"
+        );
+        chunk.clear();
+        return size;
+    }
+
+    private OutboxMessage toMessage(String topic, String key, Object payload, Map<String, String> headers) {
+        RecordHeaders serializerHeaders = new RecordHeaders();
+        byte[] serializedPayload = serialize(topic, serializerHeaders, payload);
+        return OutboxMessage.builder()
+                .topic(topic)
+                .key(key)
+                .payload(serializedPayload)
+                .headers(mergeHeaders(headers, serializerHeaders))
+                .createdDate(LocalDateTime.now(clock))
+                .build();
+    }
+
+    /**
+     * Merge the headers given by the caller with the ones added by the serializer
+     * <p>
+     * the JSON serializer adds the type header, as the kafka template did when the records
+     * were sent directly, so the consumers of the external topics receive the same record
+     *
+     * @param headers           the headers given by the caller, can be null
+     * @param serializerHeaders the headers added by the serializer
+     * @return the headers of the record, null if there are none
+     */
+    private static Map<String, String> mergeHeaders(Map<String, String> headers, RecordHeaders serializerHeaders) {
+        if (!serializerHeaders.iterator().hasNext()) return headers;
+        Map<String, String> merged = new LinkedHashMap<>();
+        serializerHeaders.forEach(header -> merged.put(header.key(), new String(header.value(), StandardCharsets.UTF_8)));
+        if (headers != null) merged.putAll(headers);
+        return merged;
+    }
+
+    /**
+     * Serialize the value of a record
+     * <p>
+     * the internal messages use their compact format when it is enabled and their legacy JSON otherwise,
+     * see {@link edu.stanford.slac.core_work_management.utility.CompactMessageSerde} for the deploy order.
+     * The others, as the ones for external systems, are written as JSON
+     *
+     * @param topic   the topic of the record
+     * @param headers collect the headers added by the serializer
+     * @param payload the value of the record
+     * @return the serialized value
+     */
+    @SuppressWarnings("unchecked")
+    private byte[] serialize(String topic, Headers headers, Object payload) {
+        var serializers = Boolean.TRUE.equals(cwmAppProperties.getCompactMessageFormat()) ? compactSerializers : legacySerializers;
+        Serializer<Object> serializer = (Serializer<Object>) serializers.get(payload.getClass());
+        return Objects.requireNonNullElse(serializer, jsonSerializer).serialize(topic, headers, payload);
+    }
+
+    /**
+     * Wake up the relay when the current transaction is committed, or immediately without transaction
+     */
+    private void wakeupRelayAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            outboxRelay.wakeup();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        outboxRelay.wakeup();
+                    }
+                }
+        );
+    }
+}
@@ -0,0 +1,259 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
+import edu.stanford.slac.ad.eed.baselib.exception.PersonNotFound;
+import edu.stanford.slac.ad.eed.baselib.repository.PersonAttributesMapper;
+import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
+import edu.stanford.slac.core_work_management.api.v1.mapper.PersonMapper;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.filter.EqualsFilter;
+import org.springframework.ldap.filter.OrFilter;
+import org.springframework.ldap.query.LdapQueryBuilder;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Resolve the persons by email caching the result of the LDAP lookups
+ * <p>
+ * the found persons are kept for a time to live, and the unknown emails are kept for a shorter one, so
+ * a wrong email does not cause an LDAP round trip every time it is used. Many emails can be resolved
+ * with a single LDAP query. When the cache is full the entries that expire first are evicted.
+ */
+@Log4j2
+@Service
+public class PersonResolverService {
+    private static final int MAX_EMAILS_PER_QUERY = 50;
+    private final PeopleGroupService peopleGroupService;
+    private final LdapTemplate ldapTemplate;
+    private final PersonMapper personMapper;
+    private final PersonAttributesMapper personAttributesMapper = new PersonAttributesMapper();
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final int maxSize;
+    private final Map<String, CachedPerson> cache = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter negativeHitCounter;
+    private final Counter missCounter;
+    private final Timer singleLookupTimer;
+    private final Timer batchLookupTimer;
+
+    public PersonResolverService(PeopleGroupService peopleGroupService, LdapTemplate ldapTemplate, PersonMapper personMapper, CWMAppProperties cwmAppProperties, MeterRegistry meterRegistry) {
+        this.peopleGroupService = peopleGroupService;
+        this.ldapTemplate = ldapTemplate;
+        this.personMapper = personMapper;
+        this.ttlMillis = cwmAppProperties.getPersonCacheTtl().toMillis();
+        this.negativeTtlMillis = cwmAppProperties.getPersonNegativeCacheTtl().toMillis();
+        this.maxSize = cwmAppProperties.getPersonCacheMaxSize();
+        this.hitCounter = lookupCounter(meterRegistry, "hit");
+        this.negativeHitCounter = lookupCounter(meterRegistry, "negative-hit");
+        this.missCounter = lookupCounter(meterRegistry, "miss");
+        this.singleLookupTimer = lookupTimer(meterRegistry, "single");
+        this.batchLookupTimer = lookupTimer(meterRegistry, "batch");
+    }
+
+    /**
+     * Find a person by email
+     *
+     * @param email the email of the person
+     * @return the person
+     * @throws PersonNotFound if the person does not exist
+     */
+    public PersonDTO findPersonByEMail(String email) {
+        CachedPerson cached = getCached(email);
+        if (cached != null) {
+            if (cached.person() != null) {
+                hitCounter.increment();
+                return cached.person();
+            }
+            negativeHitCounter.increment();
+            // a new exception each time, a shared instance would grow its suppressed list
+            throw personNotFound(email);
+        }
+        missCounter.increment();
+        try {
+            PersonDTO person = singleLookupTimer.record(() -> peopleGroupService.findPersonByEMail(email));
+            put(email, CachedPerson.found(person, ttlMillis));
+            return person;
+        } catch (PersonNotFound e) {
+            put(email, CachedPerson.notFound(negativeTtlMillis));
+            throw e;
+        }
+    }
+
+    /**
+     * Find all the persons with the given emails
+     * <p>
+     * the emails not in cache are resolved with a single LDAP query, the unknown emails
+     * are not included in the result
+     *
+     * @param emails the emails of the persons
+     * @return the found persons by email
+     */
+    public Map<String, PersonDTO> findPersonsByEMails(Collection<String> emails) {
+        Map<String, PersonDTO> result = new HashMap<>();
+        if (emails == null || emails.isEmpty()) return result;
+        Set<String> toLoad = new HashSet<>();
+        emails.stream().filter(Objects::nonNull).distinct().forEach(
+                email -> {
+                    CachedPerson cached = getCached(email);
+                    if (cached == null) {
+                        missCounter.increment();
+                        toLoad.add(email);
+                    } else if (cached.person() != null) {
+                        hitCounter.increment();
+                        result.put(email, cached.person());
+                    } else {
+                        negativeHitCounter.increment();
+                    }
+                }
+        );
+        if (toLoad.isEmpty()) return result;
+
+        List<String> emailToLoad = new ArrayList<>(toLoad);
+        for (int i = 0; i < emailToLoad.size(); i += MAX_EMAILS_PER_QUERY) {
+            List<String> chunk = emailToLoad.subList(i, Math.min(i + MAX_EMAILS_PER_QUERY, emailToLoad.size()));
+            List<PersonDTO> found = batchLookupTimer.record(() -> searchByEmails(chunk));
+            found.forEach(
+                    person -> {
+                        // match the requested email case insensitively, as ldap does
+                        chunk.stream()
+                                .filter(email -> email.equalsIgnoreCase(person.mail()))
+                                .forEach(email -> {
+                                    put(email, CachedPerson.found(person, ttlMillis));
+                                    result.put(email, person);
+                                });
+                    }
+            );
+            chunk.stream()
+                    .filter(email -> !result.containsKey(email))
+                    .forEach(
+                            email -> put(email, CachedPerson.notFound(negativeTtlMillis))
+                    );
+        }
+        return result;
+    }
+
+    /**
+     * Check that all the emails belong to a person
+     *
+     * @param emails the emails to check
+     * @throws PersonNotFound for the first email that does not belong to a person
+     */
+    public void checkPersonsExist(Collection<String> emails) {
+        if (emails == null || emails.isEmpty()) return;
+        Map<String, PersonDTO> found = findPersonsByEMails(emails);
+        emails.stream()
+                .filter(email -> !found.containsKey(email))
+                .forEach(this::findPersonByEMail);
+    }
+
+    /**
+     * Remove a person from the cache
+     *
+     * @param email the email of the person
+     */
+    public void evict(String email) {
+        cache.remove(email);
+    }
+
+    /**
+     * Remove all the persons from the cache
+     */
+    public void evictAll() {
+        cache.clear();
+    }
+
+    /**
+     * Search all the persons with one of the emails using an OR filter
+     * <p>
+     * the entries are read with the attribute mapper of the base library, so the persons are the
+     * same returned by the {@link PeopleGroupService} single lookup
+     *
+     * @param emails the emails to search
+     * @return the found persons
+     */
+    private List<PersonDTO> searchByEmails(List<String> emails) {
+        OrFilter mailFilter = new OrFilter();
+        emails.forEach(email -> mailFilter.or(new EqualsFilter("mail", email)));
+        return wrapCatch(
+                () -> ldapTemplate.search(LdapQueryBuilder.query().filter(mailFilter), personAttributesMapper)
+                        .stream()
+                        .map(personMapper::toDTO)
+                        .toList(),
+                -1
+        );
+    }
+
+    private static PersonNotFound personNotFound(String email) {
+        return PersonNotFound.personNotFoundBuilder()
+                .errorCode(-1)
+                .email(email)
+                .build();
+    }
+
+    private CachedPerson getCached(String email) {
+        CachedPerson cached = cache.get(email);
+        if (cached == null) return null;
+        if (cached.isExpired()) {
+            cache.remove(email, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    private void put(String email, CachedPerson cachedPerson) {
+        if (!cache.containsKey(email) && cache.size() >= maxSize) {
+            // drop the expired entries and, if still full, the one that expires first
+            cache.values().removeIf(CachedPerson::isExpired);
+            while (cache.size() >= maxSize) {
+                var eldest = cache.entrySet().stream().min(Comparator.comparingLong(entry -> entry.getValue().expiresAt()));
+                if (eldest.isEmpty()) break;
+                log.debug("Person cache full, evicting {}", eldest.get().getKey());
+                cache.remove(eldest.get().getKey(), eldest.get().getValue());
+            }
+        }
+        cache.put(email, cachedPerson);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter
+                .builder("cwm_person_cache")
+                .description("The person lookups by email served or not by the cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Timer lookupTimer(MeterRegistry meterRegistry, String type) {
+        return Timer
+                .builder("cwm_person_ldap_lookup")
+                .description("The latency of the LDAP lookups of the persons")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A cached lookup result, the person is null if the email is unknown
+     */
+    private record CachedPerson(PersonDTO person, long expiresAt) {
+        static CachedPerson found(PersonDTO person, long ttlMillis) {
+            return new CachedPerson(person, System.currentTimeMillis() + ttlMillis);
+        }
+
+        static CachedPerson notFound(long ttlMillis) {
+            return new CachedPerson(null, System.currentTimeMillis() + ttlMillis);
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.repository.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Elect, for every scheduled job, the single node that runs it
+ * <p>
+ * the election is based on a lease stored on MongoDB: the node that holds the lease of a job renews it
+ * every third of its time to live, the other nodes try to acquire it at the same rate and succeed only
+ * when it is expired. A node that stops renewing loses the job in at most the time to live plus a renewal
+ * interval. A node considers itself the leader only until the lease it got expires, so two nodes never
+ * run the same job while their clocks are aligned.
+ */
+@Log4j2
+@Service
+public class SchedulerLeaderElection {
+    private final SchedulerLeaseRepository schedulerLeaseRepository;
+    private final Clock clock;
+    private final Duration leaseTtl;
+    private final Duration renewInterval;
+    private final String ownerId;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final Map<String, List<Runnable>> leadershipListeners = new ConcurrentHashMap<>();
+    private ScheduledExecutorService renewer;
+
+    @Autowired
+    public SchedulerLeaderElection(SchedulerLeaseRepository schedulerLeaseRepository, Clock clock, CWMAppProperties cwmAppProperties, MeterRegistry meterRegistry) {
+        this(schedulerLeaseRepository, clock, cwmAppProperties.getSchedulerLeaseTtl(), nodeId(), meterRegistry);
+    }
+
+    public SchedulerLeaderElection(SchedulerLeaseRepository schedulerLeaseRepository, Clock clock, Duration leaseTtl, String ownerId, MeterRegistry meterRegistry) {
+        this.schedulerLeaseRepository = schedulerLeaseRepository;
+        this.clock = clock;
+        this.leaseTtl = leaseTtl;
+        this.renewInterval = leaseTtl.dividedBy(3);
+        this.ownerId = ownerId;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Check if this node is the leader of a job
+     * <p>
+     * the first call for a job takes part in its election and starts the periodic renewal
+     *
+     * @param jobName the name of the job
+     * @return true if this node must run the job
+     */
+    public boolean isLeader(String jobName) {
+        Lease lease = leases.get(jobName);
+        if (lease == null) {
+            lease = register(jobName);
+        }
+        return lease.isValid(clock.instant());
+    }
+
+    /**
+     * Register an action executed every time this node becomes the leader of a job
+     * <p>
+     * the action runs on the renewal thread, it is used to catch up the work left by the previous leader
+     *
+     * @param jobName  the name of the job
+     * @param listener the action to execute
+     */
+    public void addLeadershipListener(String jobName, Runnable listener) {
+        leadershipListeners.computeIfAbsent(jobName, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Return the id of this node
+     *
+     * @return the id of the node
+     */
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Acquire or renew all the leases of the registered jobs
+     */
+    public void renewAll() {
+        leases.values().forEach(this::renew);
+    }
+
+    /**
+     * Stop the renewal and release all the held leases, so another node takes over immediately
+     */
+    @PreDestroy
+    public void shutdown() {
+        suspend();
+        leases.values().stream()
+                .filter(lease -> lease.isValid(clock.instant()))
+                .forEach(
+                        lease -> {
+                            try {
+                                schedulerLeaseRepository.release(lease.jobName, ownerId);
+                            } catch (RuntimeException e) {
+                                log.warn("Cannot release the lease of the job {}", lease.jobName, e);
+                            }
+                            lease.validUntil = Instant.EPOCH;
+                        }
+                );
+    }
+
+    /**
+     * Stop the renewal without releasing the leases, as a node that crashes
+     */
+    synchronized void suspend() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+            renewer = null;
+        }
+    }
+
+    private synchronized Lease register(String jobName) {
+        Lease lease = leases.get(jobName);
+        if (lease != null) return lease;
+        Lease newLease = new Lease(jobName);
+        Gauge.builder("cwm_scheduler_leader", newLease, l -> l.isValid(clock.instant()) ? 1 : 0)
+                .description("1 if this node is the leader of the scheduled job")
+                .tag("job", jobName)
+                .register(meterRegistry);
+        leases.put(jobName, newLease);
+        renew(newLease);
+        if (renewer == null) {
+            renewer = Executors.newSingleThreadScheduledExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "scheduler-lease-renewer");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+            );
+            renewer.scheduleAtFixedRate(this::renewAll, renewInterval.toMillis(), renewInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return newLease;
+    }
+
+    private void renew(Lease lease) {
+        boolean wasLeader = lease.isValid(clock.instant());
+        Instant now = clock.instant();
+        boolean acquired;
+        long start = System.nanoTime();
+        try {
+            acquired = schedulerLeaseRepository.tryAcquire(lease.jobName, ownerId, now, now.plus(leaseTtl));
+        } catch (RuntimeException e) {
+            // the lease can still be valid, it is kept until it expires
+            log.warn("Cannot renew the lease of the job {}", lease.jobName, e);
+            return;
+        } finally {
+            lease.renewalTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (acquired) {
+            lease.validUntil = now.plus(leaseTtl);
+        } else {
+            lease.validUntil = Instant.EPOCH;
+        }
+
+        if (acquired && !wasLeader) {
+            log.info("Node {} is now the leader of the job {}", ownerId, lease.jobName);
+            lease.acquiredCounter.increment();
+            leadershipListeners.getOrDefault(lease.jobName, List.of()).forEach(
+                    listener -> {
+                        try {
+                            listener.run();
+                        } catch (RuntimeException e) {
+                            log.error("Error executing the leadership listener of the job {}", lease.jobName, e);
+                        }
+                    }
+            );
+        } else if (!acquired && wasLeader) {
+            log.warn("Node {} lost the leadership of the job {}", ownerId, lease.jobName);
+            lease.lostCounter.increment();
+        }
+    }
+
+    private static String nodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return "%s-%s".formatted(host, UUID.randomUUID());
+    }
+
+    /**
+     * The state of the lease of a job on this node
+     */
+    private class Lease {
+        private final String jobName;
+        private final Timer renewalTimer;
+        private final Counter acquiredCounter;
+        private final Counter lostCounter;
+        private volatile Instant validUntil = Instant.EPOCH;
+
+        Lease(String jobName) {
+            this.jobName = jobName;
+            this.renewalTimer = Timer
+                    .builder("cwm_scheduler_lease_renewal")
+                    .description("The latency of the acquisition and renewal of the lease")
+                    .tag("job", jobName)
+                    .register(meterRegistry);
+            this.acquiredCounter = leadershipCounter(jobName, "acquired");
+            this.lostCounter = leadershipCounter(jobName, "lost");
+        }
+
+        boolean isValid(Instant now) {
+            return now.isBefore(validUntil);
+        }
+
+        private Counter leadershipCounter(String jobName, String change) {
+            return Counter
+                    .builder("cwm_scheduler_leadership_change")
+                    .description("The times this node acquired or lost the leadership of the job")
+                    .tag("job", jobName)
+                    .tag("change", change)
+                    .register(meterRegistry);
+        }
+    }
+}
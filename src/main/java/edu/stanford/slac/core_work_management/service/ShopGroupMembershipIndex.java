@@ -0,0 +1,233 @@
+package edu.stanford.slac.core_work_management.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
+import edu.stanford.slac.core_work_management.model.ShopGroup;
+import edu.stanford.slac.core_work_management.model.ShopGroupUser;
+import edu.stanford.slac.core_work_management.repository.ShopGroupRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Keep in memory the membership of the users to the shop groups
+ * <p>
+ * the index is loaded on first use and updated one shop group at time when a shop group is created or
+ * updated, so the membership checks and the expansion of a shop group in its users do not access the
+ * database. The other nodes are notified of the changed shop group through a hazelcast topic. A shop group
+ * not found in the index is read from the database, to cover the time between the write on another node and
+ * the notification, and the whole index is periodically reloaded in case a notification has been lost.
+ */
+@Log4j2
+@Service
+public class ShopGroupMembershipIndex {
+    private static final String SHOP_GROUP_CHANGES_TOPIC = "cwm-shop-group-changes";
+    private final ShopGroupRepository shopGroupRepository;
+    private final ObjectProvider<HazelcastInstance> hazelcastInstance;
+    private volatile Membership membership;
+    private ITopic<String> shopGroupChangesTopic;
+
+    public ShopGroupMembershipIndex(ShopGroupRepository shopGroupRepository, ObjectProvider<HazelcastInstance> hazelcastInstance) {
+        this.shopGroupRepository = shopGroupRepository;
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        hazelcastInstance.ifAvailable(
+                hz -> {
+                    shopGroupChangesTopic = hz.getTopic(SHOP_GROUP_CHANGES_TOPIC);
+                    shopGroupChangesTopic.addMessageListener(
+                            message -> {
+                                // the local changes have already been indexed
+                                if (message.getPublishingMember() != null && message.getPublishingMember().localMember()) return;
+                                log.debug("Shop group {} changed on another node, updating the index", message.getMessageObject());
+                                wrapCatch(() -> shopGroupRepository.findById(message.getMessageObject()), -1)
+                                        .ifPresent(this::index);
+                            }
+                    );
+                }
+        );
+    }
+
+    /**
+     * Check if a user is member of a shop group
+     *
+     * @param domainId    the id of the domain
+     * @param shopGroupId the id of the shop group
+     * @param userEmail   the email of the user
+     * @return true if the shop group exists in the domain and contains the user
+     */
+    public boolean contains(String domainId, String shopGroupId, String userEmail) {
+        if (shopGroupId == null || userEmail == null) return false;
+        Members members = getMembers(shopGroupId);
+        return members != null
+                && members.domainId().equals(domainId)
+                && members.userEmails().contains(userEmail.toLowerCase());
+    }
+
+    /**
+     * Return the emails of the users of a shop group
+     *
+     * @param domainId    the id of the domain
+     * @param shopGroupId the id of the shop group
+     * @return the emails of the users, empty if the shop group does not exist in the domain
+     */
+    public Optional<Set<String>> findUserEmails(String domainId, String shopGroupId) {
+        if (shopGroupId == null) return Optional.empty();
+        Members members = getMembers(shopGroupId);
+        if (members == null || !members.domainId().equals(domainId)) return Optional.empty();
+        return Optional.of(members.userEmails());
+    }
+
+    /**
+     * Return the ids of the shop groups where a user is member
+     *
+     * @param userEmail the email of the user
+     * @return the ids of the shop groups
+     */
+    public Set<String> findShopGroupIds(String userEmail) {
+        if (userEmail == null) return Collections.emptySet();
+        return getMembership().byUser().getOrDefault(userEmail.toLowerCase(), Collections.emptySet());
+    }
+
+    /**
+     * Update the index after a shop group has been saved and notify the other nodes
+     *
+     * @param shopGroup the saved shop group
+     */
+    public void update(ShopGroup shopGroup) {
+        index(shopGroup);
+        if (shopGroupChangesTopic != null) {
+            shopGroupChangesTopic.publish(shopGroup.getId());
+        }
+    }
+
+    /**
+     * Rebuild the whole index from the database
+     */
+    public synchronized void reload() {
+        Map<String, Members> byShopGroup = new HashMap<>();
+        wrapCatch(shopGroupRepository::findAll, -1).forEach(
+                shopGroup -> byShopGroup.put(shopGroup.getId(), Members.of(shopGroup))
+        );
+        membership = Membership.of(byShopGroup);
+        log.debug("Shop group membership index loaded with {} shop groups", byShopGroup.size());
+    }
+
+    /**
+     * Return the members of a shop group
+     * <p>
+     * the shop group could have been created on another node and not yet notified,
+     * so when it is not indexed it is read from the database and indexed
+     *
+     * @param shopGroupId the id of the shop group
+     * @return the members or null if the shop group does not exist
+     */
+    private Members getMembers(String shopGroupId) {
+        Members members = getMembership().byShopGroup().get(shopGroupId);
+        if (members != null) return members;
+        return wrapCatch(() -> shopGroupRepository.findById(shopGroupId), -1)
+                .map(
+                        shopGroup -> {
+                            index(shopGroup);
+                            return getMembership().byShopGroup().get(shopGroupId);
+                        }
+                )
+                .orElse(null);
+    }
+
+    /**
+     * Replace the members of a single shop group in the index
+     *
+     * @param shopGroup the shop group
+     */
+    private synchronized void index(ShopGroup shopGroup) {
+        Membership current = getMembership();
+        Members previous = current.byShopGroup().get(shopGroup.getId());
+        Members updated = Members.of(shopGroup);
+
+        Map<String, Members> byShopGroup = new HashMap<>(current.byShopGroup());
+        byShopGroup.put(shopGroup.getId(), updated);
+
+        // only the users that entered or left the shop group change their entry
+        Map<String, Set<String>> byUser = new HashMap<>(current.byUser());
+        if (previous != null) {
+            previous.userEmails().stream()
+                    .filter(email -> !updated.userEmails().contains(email))
+                    .forEach(email -> byUser.computeIfPresent(email, (k, ids) -> without(ids, shopGroup.getId())));
+        }
+        updated.userEmails().stream()
+                .filter(email -> previous == null || !previous.userEmails().contains(email))
+                .forEach(email -> byUser.put(email, with(byUser.get(email), shopGroup.getId())));
+
+        membership = new Membership(Map.copyOf(byShopGroup), Map.copyOf(byUser));
+    }
+
+    private Membership getMembership() {
+        if (membership == null) {
+            synchronized (this) {
+                if (membership == null) reload();
+            }
+        }
+        return membership;
+    }
+
+    private static Set<String> with(Set<String> ids, String shopGroupId) {
+        Set<String> result = ids == null ? new HashSet<>() : new HashSet<>(ids);
+        result.add(shopGroupId);
+        return Set.copyOf(result);
+    }
+
+    private static Set<String> without(Set<String> ids, String shopGroupId) {
+        Set<String> result = new HashSet<>(ids);
+        result.remove(shopGroupId);
+        // returning null remove the user from the index
+        return result.isEmpty() ? null : Set.copyOf(result);
+    }
+
+    /**
+     * The users of a shop group
+     *
+     * @param domainId   the domain of the shop group
+     * @param userEmails the emails of the users in lower case
+     */
+    private record Members(String domainId, Set<String> userEmails) {
+        static Members of(ShopGroup shopGroup) {
+            Set<String> emails = shopGroup.getUsers() == null ? Collections.emptySet() : shopGroup.getUsers().stream()
+                    .map(ShopGroupUser::getUser)
+                    .filter(Objects::nonNull)
+                    .map(PersonDTO::mail)
+                    .filter(Objects::nonNull)
+                    .map(String::toLowerCase)
+                    .collect(Collectors.toUnmodifiableSet());
+            return new Members(shopGroup.getDomainId(), emails);
+        }
+    }
+
+    /**
+     * Immutable view of the membership, replaced at every change
+     *
+     * @param byShopGroup the users by shop group id
+     * @param byUser      the shop group ids by user email
+     */
+    private record Membership(Map<String, Members> byShopGroup, Map<String, Set<String>> byUser) {
+        static Membership of(Map<String, Members> byShopGroup) {
+            Map<String, Set<String>> byUser = new HashMap<>();
+            byShopGroup.forEach(
+                    (shopGroupId, members) -> members.userEmails().forEach(
+                            email -> byUser.computeIfAbsent(email, k -> new HashSet<>()).add(shopGroupId)
+                    )
+            );
+            byUser.replaceAll((k, v) -> Set.copyOf(v));
+            return new Membership(Map.copyOf(byShopGroup), Map.copyOf(byUser));
+        }
+    }
+}
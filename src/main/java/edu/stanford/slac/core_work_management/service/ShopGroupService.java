@@ -4,7 +4,6 @@ import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.NewAuthorizationDTO;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.core_work_management.api.v1.dto.NewShopGroupDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.ShopGroupDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.ShopGroupUserInputDTO;
@@ -18,6 +17,8 @@ import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.validation.annotation.Validated;
 
 import java.util.List;
@@ -32,8 +33,9 @@ import static edu.stanford.slac.core_work_management.config.AuthorizationStringC
 public class ShopGroupService {
     AuthService authService;
     ShopGroupMapper shopGroupMapper;
-    PeopleGroupService peopleGroupService;
+    PersonResolverService personResolverService;
     ShopGroupRepository shopGroupRepository;
+    ShopGroupMembershipIndex shopGroupMembershipIndex;
 
     /**
      * Create a new shop group
@@ -49,6 +51,7 @@ public class ShopGroupService {
                 () -> shopGroupRepository.save(shopGroupMapper.toModel(domainId, newShopGroupDTO)),
                 -1
         );
+        updateMembershipIndex(savedShopGroup);
 
         // generate authorization for admin user
         updateShopGroupAuthorization(savedShopGroup.getId(), newShopGroupDTO.users());
@@ -71,15 +74,39 @@ public class ShopGroupService {
                         .shopGroupId(shopGroupId)
                         .build()
         );
-        wrapCatch(
+        var updatedShopGroup = wrapCatch(
                 () -> shopGroupRepository.save(shopGroupMapper.updateModel(updateShopGroupDTO, storedShopGroup)),
                 -3
         );
+        updateMembershipIndex(updatedShopGroup);
 
         // update authorization for the shop-group
         updateShopGroupAuthorization(shopGroupId, updateShopGroupDTO.users());
     }
 
+    /**
+     * Update the membership index with a saved shop group
+     * <p>
+     * within a transaction the index is updated, and the other nodes notified, only when it is
+     * committed, so a rolled back shop group is never indexed
+     *
+     * @param shopGroup the saved shop group
+     */
+    private void updateMembershipIndex(ShopGroup shopGroup) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            shopGroupMembershipIndex.update(shopGroup);
+                        }
+                    }
+            );
+        } else {
+            shopGroupMembershipIndex.update(shopGroup);
+        }
+    }
+
     /**
      * Delete a shop group
      *
@@ -96,7 +123,7 @@ public class ShopGroupService {
                 (shopGroupUserDTO) -> {
                     if (shopGroupUserDTO.isLeader()) {
                         // check if the person exists
-                        peopleGroupService.findPersonByEMail(shopGroupUserDTO.userId());
+                        personResolverService.findPersonByEMail(shopGroupUserDTO.userId());
 
                         authService.addNewAuthorization(
                                 NewAuthorizationDTO.builder()
@@ -166,10 +193,34 @@ public class ShopGroupService {
      * @return true if the shop group exists
      */
     public Boolean checkContainsAUserEmail(String domainId, String shopGroupId, String userEmail) {
-        return wrapCatch(
-                () -> shopGroupRepository.existsByDomainIdAndIdAndUsers_User_mail_ContainingIgnoreCase(domainId, shopGroupId, userEmail),
-                -1
-        );
+        return shopGroupMembershipIndex.contains(domainId, shopGroupId, userEmail);
+    }
+
+    /**
+     * Return the emails of all the users of a shop group
+     *
+     * @param domainId    the id of the domain
+     * @param shopGroupId the id of the shop group
+     * @return the emails of the users
+     */
+    public Set<String> findUserEmailsByDomainIdAndId(@NotEmpty String domainId, @NotEmpty String shopGroupId) {
+        return shopGroupMembershipIndex.findUserEmails(domainId, shopGroupId)
+                .orElseThrow(
+                        () -> ShopGroupNotFound.notFoundById()
+                                .errorCode(-2)
+                                .shopGroupId(shopGroupId)
+                                .build()
+                );
+    }
+
+    /**
+     * Return the ids of all the shop groups where a user is member
+     *
+     * @param userEmail the email of the user
+     * @return the ids of the shop groups
+     */
+    public Set<String> findShopGroupIdsByUserEmail(@NotEmpty String userEmail) {
+        return shopGroupMembershipIndex.findShopGroupIds(userEmail);
     }
 
 }
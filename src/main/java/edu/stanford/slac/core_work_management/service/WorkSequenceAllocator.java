@@ -0,0 +1,119 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Allocate the work sequence numbers
+ * <p>
+ * the sequence numbers are reserved on the database in blocks, one increment of the counter for each block,
+ * and handed out from memory. The numbers of a block not used when the node stops are lost, so the work
+ * numbers remain unique and increasing per node but can have gaps; the lost numbers are logged and counted.
+ */
+@Log4j2
+@Service
+public class WorkSequenceAllocator {
+    private final WorkRepository workRepository;
+    private final int blockSize;
+    private final Counter gapCounter;
+    private volatile SequenceBlock currentBlock = new SequenceBlock(0, -1);
+
+    public WorkSequenceAllocator(WorkRepository workRepository, CWMAppProperties cwmAppProperties, MeterRegistry meterRegistry) {
+        this.workRepository = workRepository;
+        this.blockSize = Math.max(1, cwmAppProperties.getWorkSequenceBlockSize());
+        this.gapCounter = Counter
+                .builder("cwm_work_sequence_gap")
+                .description("The number of work sequence numbers reserved and never used")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Return the next work sequence number
+     *
+     * @return the sequence number
+     */
+    public Long next() {
+        while (true) {
+            SequenceBlock block = currentBlock;
+            long sequence = block.next.getAndIncrement();
+            if (sequence <= block.last) return sequence;
+            synchronized (this) {
+                // only one thread reserve the new block
+                if (currentBlock == block) {
+                    currentBlock = reserveBlock(blockSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserve a dedicated block of consecutive sequence numbers
+     *
+     * @param size the number of sequence numbers
+     * @return the first sequence number of the block
+     */
+    public Long nextBlock(int size) {
+        return reserveBlock(size).next.get();
+    }
+
+    /**
+     * Return how many sequence numbers of the current block are still available
+     *
+     * @return the number of sequence available without accessing the database
+     */
+    public long available() {
+        SequenceBlock block = currentBlock;
+        return Math.max(0, block.last - block.next.get() + 1);
+    }
+
+    /**
+     * Report the sequence numbers that will never be used
+     */
+    @PreDestroy
+    public void releaseCurrentBlock() {
+        SequenceBlock block = currentBlock;
+        // consume the rest of the block so nobody can use it anymore
+        long first = block.next.getAndAdd(blockSize + 1L);
+        if (first > block.last) return;
+        long gap = block.last - first + 1;
+        gapCounter.increment(gap);
+        log.warn("Work sequence numbers from {} to {} have been reserved and not used", first, block.last);
+    }
+
+    /**
+     * Reserve a block of sequence on the database
+     *
+     * @param size the block size
+     * @return the reserved block
+     */
+    private SequenceBlock reserveBlock(int size) {
+        long first = wrapCatch(
+                () -> workRepository.getNextWorkIdBlock(size),
+                -1
+        );
+        log.debug("Reserved work sequence block from {} to {}", first, first + size - 1);
+        return new SequenceBlock(first, first + size - 1);
+    }
+
+    /**
+     * A block of reserved sequence numbers
+     */
+    private static final class SequenceBlock {
+        private final AtomicLong next;
+        private final long last;
+
+        private SequenceBlock(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
@@ -6,12 +6,12 @@ import edu.stanford.slac.ad.eed.baselib.api.v1.dto.NewAuthorizationDTO;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.ad.eed.baselib.service.ModelHistoryService;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.core_work_management.api.v1.dto.*;
 import edu.stanford.slac.core_work_management.api.v1.mapper.*;
 import edu.stanford.slac.core_work_management.exception.*;
 import edu.stanford.slac.core_work_management.model.*;
 import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidation;
+import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidationRegistry;
 import edu.stanford.slac.core_work_management.service.workflow.*;
 import edu.stanford.slac.core_work_management.repository.WorkRepository;
 import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
@@ -22,16 +22,18 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.ApplicationContext;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO.User;
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Admin;
@@ -51,12 +53,11 @@ public class WorkService {
     private final ShopGroupMapper shopGroupMapper;
 
     private final AuthService authService;
-    private final ScriptService scriptService;
     private final DomainService domainService;
     private final BucketService bucketService;
     private final CommentService commentService;
     private final AttachmentService attachmentService;
-    private final PeopleGroupService peopleGroupService;
+    private final PersonResolverService personResolverService;
 
     private final WorkRepository workRepository;
     private final WorkTypeRepository workTypeRepository;
@@ -64,8 +65,12 @@ public class WorkService {
     private final LocationService locationService;
     private final ShopGroupService shopGroupService;
     private final ModelFieldValidationService modelFieldValidationService;
+    private final WorkTypeValidationRegistry workTypeValidationRegistry;
     private final ModelHistoryService modelHistoryService;
     private final ApplicationContext applicationContext;
+    private final WorkSequenceAllocator workSequenceAllocator;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, BaseWorkflow> workflowInstances = new ConcurrentHashMap<>();
 
     /**
      * Create a new work automatically creating the sequence
@@ -76,7 +81,7 @@ public class WorkService {
     public String createNew(@Valid String domainId, @Valid NewWorkDTO newWorkDTO) {
         // contain the set of all user that will become admin for this new work
         Long newWorkSequenceId = wrapCatch(
-                workRepository::getNextWorkId,
+                workSequenceAllocator::next,
                 -1
         );
         WorkService self = applicationContext.getBean(WorkService.class);
@@ -92,7 +97,7 @@ public class WorkService {
     public String createNew(String domainId, @Valid NewWorkDTO newWorkDTO, Optional<Boolean> logIf) {
         // contain the set of all user that will become admin for this new work
         Long newWorkSequenceId = wrapCatch(
-                workRepository::getNextWorkId,
+                workSequenceAllocator::next,
                 -1
         );
         WorkService self = applicationContext.getBean(WorkService.class);
@@ -125,7 +130,9 @@ public class WorkService {
         // about the custom fields
         WorkType workType = wrapCatch(
                 () -> workTypeRepository
-                        .findByDomainIdAndId(domainId, newWorkDTO.workTypeId())
+                        .findById(newWorkDTO.workTypeId())
+                        // the work type is served by the cache, so the domain is checked here
+                        .filter(wt -> domainId.equals(wt.getDomainId()))
                         .orElseThrow(
                                 () -> WorkTypeNotFound
                                         .notFoundById()
@@ -156,9 +163,7 @@ public class WorkService {
 
         // check watch list
         if(newWorkDTO.userWatchlist()!=null){
-            newWorkDTO.userWatchlist().forEach(
-                    peopleGroupService::findPersonByEMail
-            );
+            personResolverService.checkPersonsExist(newWorkDTO.userWatchlist());
         }
 
         // check if the parent id exists, in case new work is a sub work
@@ -204,16 +209,35 @@ public class WorkService {
                 -5
         );
 
-        updateWorkAuthorization(savedWork);
+        // the work is new so there are no stored authorization to compare
+        grantWorkAuthorization(savedWork, locationId -> locationService.findById(savedWork.getDomainId(), locationId));
 
         // after this work is update we need to update all the
         // tree up to the ancestor
         if (parentWork != null) {
-            updateParentWorkWorkflow(parentWork);
+            updateParentChildrenSummary(savedWork, null);
+            // reload the parent to get the updated children summary
+            updateParentWorkWorkflow(
+                    wrapCatch(
+                            () -> workRepository.findByDomainIdAndId(domainId, parentWork.getId()).orElseThrow(
+                                    () -> WorkNotFound
+                                            .notFoundById()
+                                            .errorCode(-6)
+                                            .workId(parentWork.getId())
+                                            .build()
+                            ),
+                            -6
+                    )
+            );
         }
 
-//        log.info("Update domain statistic");
-        domainService.updateDomainStatistics(savedWork.getDomainId());
+        // count the new work in the domain statistics
+        domainService.updateDomainStatistics(
+                savedWork.getDomainId(),
+                savedWork.getWorkType().getId(),
+                null,
+                savedWork.getCurrentStatus().getStatus()
+        );
 
         // log the creation of the work
         if (logIf.isPresent() && logIf.get()) {
@@ -233,6 +257,200 @@ public class WorkService {
         return savedWork.getId();
     }
 
+    /**
+     * Create many works with a single bulk write
+     * <p>
+     * all the sequence numbers are reserved with one increment, the referenced work types, attachments,
+     * users, locations and shop groups are resolved once for the whole list. Each work is validated
+     * on its own, the valid ones are inserted together with their authorizations in a single transaction
+     * and the result of each work is returned in the same order of the input. The domain statistics are
+     * updated once at the end.
+     *
+     * @param domainId    the id of the domain
+     * @param newWorkDTOs the list of the works to create
+     * @return the result of the creation of each work
+     */
+    public List<NewWorkBulkResultDTO> createMany(String domainId, List<NewWorkDTO> newWorkDTOs) {
+        //check if the domain exists
+        assertion(
+                DomainNotFound
+                        .notFoundById()
+                        .errorCode(-1)
+                        .id(domainId)
+                        .build(),
+                () -> domainService.existsById(domainId)
+        );
+        if (newWorkDTOs == null || newWorkDTOs.isEmpty()) return emptyList();
+
+        // reserve all the sequence numbers
+        Long firstWorkSequence = wrapCatch(
+                () -> workSequenceAllocator.nextBlock(newWorkDTOs.size()),
+                -2
+        );
+        log.debug("[work-creation-{}] Creating {} new works for domain '{}'", firstWorkSequence, newWorkDTOs.size(), domainId);
+
+        // resolve once all the referenced entities
+        Map<String, WorkType> workTypes = new HashMap<>();
+        wrapCatch(
+                () -> workTypeRepository.findAllById(
+                        newWorkDTOs.stream().map(NewWorkDTO::workTypeId).filter(Objects::nonNull).collect(Collectors.toSet())
+                ),
+                -3
+        ).forEach(
+                workType -> {
+                    if (domainId.equals(workType.getDomainId())) workTypes.put(workType.getId(), workType);
+                }
+        );
+        Set<String> existingAttachments = attachmentService.findExistingIds(
+                newWorkDTOs.stream()
+                        .map(NewWorkDTO::attachments)
+                        .filter(Objects::nonNull)
+                        .flatMap(Collection::stream)
+                        .collect(Collectors.toSet())
+        );
+        Set<String> verifiedUsers = new HashSet<>();
+        Map<String, LocationDTO> locations = new HashMap<>();
+        Map<String, ShopGroupDTO> shopGroups = new HashMap<>();
+
+        NewWorkBulkResultDTO[] results = new NewWorkBulkResultDTO[newWorkDTOs.size()];
+        List<Work> worksToInsert = new ArrayList<>();
+        List<Integer> worksToInsertIndex = new ArrayList<>();
+        Map<String, Work> parentWorks = new LinkedHashMap<>();
+        for (int idx = 0; idx < newWorkDTOs.size(); idx++) {
+            NewWorkDTO newWorkDTO = newWorkDTOs.get(idx);
+            try {
+                WorkType workType = workTypes.get(newWorkDTO.workTypeId());
+                assertion(
+                        WorkTypeNotFound
+                                .notFoundById()
+                                .errorCode(-4)
+                                .workId(newWorkDTO.workTypeId())
+                                .build(),
+                        () -> workType != null
+                );
+                if (newWorkDTO.attachments() != null) {
+                    newWorkDTO.attachments().forEach(
+                            (attachmentId) -> assertion(
+                                    AttachmentNotFound
+                                            .attachmentNotFoundBuilder()
+                                            .errorCode(-5)
+                                            .attachmentID(attachmentId)
+                                            .errorDomain("WorkService::createMany")
+                                            .build(),
+                                    () -> existingAttachments.contains(attachmentId)
+                            )
+                    );
+                }
+                if (newWorkDTO.userWatchlist() != null) {
+                    newWorkDTO.userWatchlist().stream()
+                            .filter(email -> !verifiedUsers.contains(email))
+                            .forEach(
+                                    email -> {
+                                        personResolverService.findPersonByEMail(email);
+                                        verifiedUsers.add(email);
+                                    }
+                            );
+                }
+                // check if the parent permit to have children
+                Work parentWork = checkParentWorkflowForChild(domainId, newWorkDTO);
+
+                Work workToSave = workMapper.toModel(
+                        domainId,
+                        firstWorkSequence + idx,
+                        domainMapper.toEmbeddable(workType),
+                        newWorkDTO
+                );
+                // validate lov
+                modelFieldValidationService.verify(
+                        workToSave,
+                        Objects.requireNonNullElse(workType.getCustomFields(), emptyList())
+                );
+                // validate location and group shop against the domain
+                if (newWorkDTO.locationId() != null) {
+                    workToSave.setLocation(
+                            locationMapper.toEmbeddable(
+                                    locations.computeIfAbsent(newWorkDTO.locationId(), locationId -> locationService.findById(domainId, locationId))
+                            )
+                    );
+                }
+                if (newWorkDTO.shopGroupId() != null) {
+                    workToSave.setShopGroup(
+                            shopGroupMapper.toEmbeddable(
+                                    shopGroups.computeIfAbsent(newWorkDTO.shopGroupId(), shopGroupId -> shopGroupService.findByDomainIdAndId(domainId, shopGroupId))
+                            )
+                    );
+                }
+                // check if is valid
+                isValidForWorkflow(domainId, NewWorkValidation.builder().work(workToSave).build());
+                // update workflow
+                updateWorkWorkflow(workToSave, domainMapper.toModel(newWorkDTO.workflowStateUpdate()));
+
+                worksToInsert.add(workToSave);
+                worksToInsertIndex.add(idx);
+                if (parentWork != null) parentWorks.putIfAbsent(parentWork.getId(), parentWork);
+            } catch (ControllerLogicException e) {
+                results[idx] = NewWorkBulkResultDTO.builder().index(idx).errorCode(e.getErrorCode()).errorMessage(e.getErrorMessage()).build();
+            } catch (Exception e) {
+                results[idx] = NewWorkBulkResultDTO.builder().index(idx).errorCode(-1).errorMessage(e.getMessage()).build();
+            }
+        }
+
+        // insert all the valid works together with their authorizations in one transaction, so the
+        // result of each work reports exactly what has been committed
+        List<Work> savedWorks = emptyList();
+        if (!worksToInsert.isEmpty()) {
+            try {
+                savedWorks = Objects.requireNonNull(
+                        transactionTemplate.execute(
+                                status -> {
+                                    List<Work> inserted = wrapCatch(
+                                            () -> workRepository.insert(worksToInsert),
+                                            -6
+                                    );
+                                    // the works are new so there are no old authorizations to delete
+                                    inserted.forEach(
+                                            savedWork -> grantWorkAuthorization(
+                                                    savedWork,
+                                                    locationId -> locations.computeIfAbsent(locationId, id -> locationService.findById(domainId, id))
+                                            )
+                                    );
+                                    return inserted;
+                                }
+                        )
+                );
+            } catch (Exception e) {
+                log.error("[work-creation-{}] Error inserting {} new works, none has been created", firstWorkSequence, worksToInsert.size(), e);
+                int errorCode = e instanceof ControllerLogicException cle ? cle.getErrorCode() : -6;
+                String errorMessage = e instanceof ControllerLogicException cle ? cle.getErrorMessage() : e.getMessage();
+                worksToInsertIndex.forEach(
+                        idx -> results[idx] = NewWorkBulkResultDTO.builder().index(idx).errorCode(errorCode).errorMessage(errorMessage).build()
+                );
+                return Arrays.asList(results);
+            }
+        }
+        for (int i = 0; i < savedWorks.size(); i++) {
+            Work savedWork = savedWorks.get(i);
+            int idx = worksToInsertIndex.get(i);
+            results[idx] = NewWorkBulkResultDTO.builder().index(idx).id(savedWork.getId()).workNumber(savedWork.getWorkNumber()).errorCode(0).build();
+        }
+
+        // the works are committed, the derived data is recalculated from them so an error is only logged
+        try {
+            // update the parents once, after all the children have been created
+            parentWorks.keySet().forEach(parentWorkId -> reconcileChildrenSummary(domainId, parentWorkId));
+            updateParentWorkWorkflow(domainId, parentWorks.keySet());
+
+            // update the domain statistics once for all the works
+            if (!savedWorks.isEmpty()) {
+                domainService.reconcileDomainStatistics(domainId);
+            }
+        } catch (Exception e) {
+            log.error("[work-creation-{}] Error updating the parents and the statistics of the new works", firstWorkSequence, e);
+        }
+        log.info("[work-creation-{}] {} of {} new works have been created", firstWorkSequence, savedWorks.size(), newWorkDTOs.size());
+        return Arrays.asList(results);
+    }
+
     /**
      * Update a work
      *
@@ -253,6 +471,11 @@ public class WorkService {
                 ),
                 -2
         );
+        // keep track of the status before the update for the statistics
+        WorkflowState previousStatus = foundWork.getCurrentStatus().getStatus();
+
+        // keep track of the fields that drive the authorization
+        AuthorizationFields previousAuthorizationFields = AuthorizationFields.of(foundWork);
 
         // update the model
         workMapper.updateModel(updateWorkDTO, foundWork);
@@ -277,9 +500,7 @@ public class WorkService {
 
         // check watch list
         if(updateWorkDTO.userWatchlist()!=null){
-            updateWorkDTO.userWatchlist().forEach(
-                    peopleGroupService::findPersonByEMail
-            );
+            personResolverService.checkPersonsExist(updateWorkDTO.userWatchlist());
         }
 
         // validate location and group shop against the domain
@@ -319,6 +540,7 @@ public class WorkService {
         // after this work is update we need to update all the
         // tree up to the ancestor
         if (foundWork.getParentWorkId() != null) {
+            updateParentChildrenSummary(updatedWork, previousStatus);
             // find parent work
             var parentWork = wrapCatch(
                     () -> workRepository.findByDomainIdAndId(domainId, foundWork.getParentWorkId()).orElseThrow(
@@ -334,11 +556,18 @@ public class WorkService {
             updateParentWorkWorkflow(parentWork);
         }
 
-        // update all authorization
-        updateWorkAuthorization(updatedWork);
+        // update the authorization only when something relevant has changed
+        if (isAuthorizationChanged(previousAuthorizationFields, updatedWork)) {
+            updateWorkAuthorization(updatedWork);
+        }
 
         //update domain statistic
-        domainService.updateDomainStatistics(updatedWork.getDomainId());
+        domainService.updateDomainStatistics(
+                updatedWork.getDomainId(),
+                updatedWork.getWorkType().getId(),
+                previousStatus,
+                updatedWork.getCurrentStatus().getStatus()
+        );
         log.info("Work '{}' has been updated by '{}'", updatedWork.getId(), updatedWork.getLastModifiedBy());
     }
 
@@ -371,10 +600,7 @@ public class WorkService {
      */
     public void isValidForWorkflow(String domainId, NewWorkValidation newWorkValidation) {
         Set<ConstraintViolation<WorkflowValidation<NewWorkValidation>>> violations = null;
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                newWorkValidation.getWork().getWorkType().getValidatorName(),
-                WorkTypeValidation.class
-        );
+        WorkTypeValidation wtv = workTypeValidationRegistry.get(newWorkValidation.getWork().getWorkType().getValidatorName());
         wtv.checkValid(newWorkValidation);
     }
 
@@ -387,12 +613,9 @@ public class WorkService {
      * @param foundWork     the work to update
      */
     public void isValidForWorkflow(UpdateWorkDTO updateWorkDTO, Work foundWork) {
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                foundWork.getWorkType().getValidatorName(),
-                WorkTypeValidation.class
-        );
+        WorkTypeValidation wtv = workTypeValidationRegistry.get(foundWork.getWorkType().getValidatorName());
         // fetch the workflow
-        var wInstance = (BaseWorkflow) applicationContext.getBean(foundWork.getWorkType().getWorkflow().getImplementation());
+        var wInstance = getWorkflowInstance(foundWork);
         wtv.checkValid(
                 UpdateWorkValidation
                         .builder()
@@ -414,12 +637,9 @@ public class WorkService {
         if (work == null) {
             return;
         }
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                work.getWorkType().getValidatorName(),
-                WorkTypeValidation.class
-        );
+        WorkTypeValidation wtv = workTypeValidationRegistry.get(work.getWorkType().getValidatorName());
         // fetch the workflow
-        var wInstance = (BaseWorkflow) applicationContext.getBean(work.getWorkType().getWorkflow().getImplementation());
+        var wInstance = getWorkflowInstance(work);
         wtv.updateWorkflow(WorkflowWorkUpdate.builder().work(work).workflow(wInstance).updateWorkflowState(updateState).build());
     }
 
@@ -432,38 +652,197 @@ public class WorkService {
         if (parentWWork == null) {
             return;
         }
-        // get validator for the work type
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                parentWWork.getWorkType().getValidatorName(),
-                WorkTypeValidation.class
+        updateParentWorkWorkflow(parentWWork.getDomainId(), List.of(parentWWork));
+    }
+
+    /**
+     * Update the workflow of many parent works and of all their ancestors
+     * <p>
+     * the parents are coalesced so every distinct ancestor is recalculated only once,
+     * from the bottom of the tree to the root
+     *
+     * @param domainId      the domain id of the works
+     * @param parentWorkIds the ids of the parent works to update
+     */
+    public void updateParentWorkWorkflow(String domainId, Collection<String> parentWorkIds) {
+        if (parentWorkIds == null || parentWorkIds.isEmpty()) {
+            return;
+        }
+        updateParentWorkWorkflow(
+                domainId,
+                parentWorkIds.stream().distinct().map(workId -> getWorkForWorkflowUpdate(domainId, workId)).toList()
         );
+    }
+
+    /**
+     * Update the workflow of many parent works and of all their ancestors
+     *
+     * @param domainId    the domain id of the works
+     * @param parentWorks the parent works to update
+     */
+    private void updateParentWorkWorkflow(String domainId, Collection<Work> parentWorks) {
+        Map<String, Work> works = new HashMap<>();
+        Map<String, Integer> depths = new HashMap<>();
+        parentWorks.forEach(work -> works.putIfAbsent(work.getId(), work));
+        // collect all the ancestors with their depth in the tree
+        new ArrayList<>(works.values()).forEach(work -> getWorkDepth(domainId, work, works, depths));
+
+        // the works with a child that has changed status need to be reloaded
+        Set<String> staleWorkIds = new HashSet<>();
+        works.keySet().stream()
+                .sorted(Comparator.comparing(depths::get, Comparator.reverseOrder()))
+                .toList()
+                .forEach(
+                        workId -> {
+                            Work work = staleWorkIds.contains(workId) ? getWorkForWorkflowUpdate(domainId, workId) : works.get(workId);
+                            if (recalculateParentWorkWorkflow(work) && work.getParentWorkId() != null) {
+                                staleWorkIds.add(work.getParentWorkId());
+                            }
+                        }
+                );
+        log.debug("[domain {}] Updated the workflow of {} parent works", domainId, works.size());
+    }
+
+    /**
+     * Recalculate the workflow of a parent work
+     * <p>
+     * the work is saved only when its status changes
+     *
+     * @param parentWork the parent work
+     * @return true if the status of the work has changed
+     */
+    private boolean recalculateParentWorkWorkflow(Work parentWork) {
+        // get validator for the work type
+        WorkTypeValidation wtv = workTypeValidationRegistry.get(parentWork.getWorkType().getValidatorName());
         // retrieve workflow instance
-        var wInstance = (BaseWorkflow) applicationContext.getBean(parentWWork.getWorkType().getWorkflow().getImplementation());
+        var wInstance = getWorkflowInstance(parentWork);
+        WorkflowState previousStatus = parentWork.getCurrentStatus().getStatus();
 
         // update workflow with the script associated to the work type
-        wtv.updateWorkflow(WorkflowWorkUpdate.builder().work(parentWWork).workflow(wInstance).build());
+        wtv.updateWorkflow(WorkflowWorkUpdate.builder().work(parentWork).workflow(wInstance).build());
+        if (previousStatus == parentWork.getCurrentStatus().getStatus()) {
+            return false;
+        }
 
         // save parent work with updated workflow
         wrapCatch(
-                () -> workRepository.save(parentWWork),
+                () -> workRepository.save(parentWork),
                 -2
         );
-        if (parentWWork.getParentWorkId() != null) {
-            // try to find the parent work
-            var parentWork = wrapCatch(
-                    () -> workRepository.findByDomainIdAndId(parentWWork.getDomainId(), parentWWork.getParentWorkId()).orElseThrow(
-                            () -> WorkNotFound
-                                    .notFoundById()
-                                    .errorCode(-1)
-                                    .workId(parentWWork.getParentWorkId())
-                                    .build()
-                    ),
-                    -3
-            );
+        domainService.updateDomainStatistics(
+                parentWork.getDomainId(),
+                parentWork.getWorkType().getId(),
+                previousStatus,
+                parentWork.getCurrentStatus().getStatus()
+        );
+        updateParentChildrenSummary(parentWork, previousStatus);
+        return true;
+    }
 
-            // find work type of the parent and if found update the parent workflow
-            updateParentWorkWorkflow(parentWork);
+    /**
+     * Return the depth of the work in the tree loading all its ancestors
+     *
+     * @param domainId the domain id
+     * @param work     the work
+     * @param works    the loaded works by id
+     * @param depths   the depth of the works by id
+     * @return the depth, zero for a root work
+     */
+    private int getWorkDepth(String domainId, Work work, Map<String, Work> works, Map<String, Integer> depths) {
+        Integer depth = depths.get(work.getId());
+        if (depth != null) {
+            return depth;
+        }
+        depth = 0;
+        if (work.getParentWorkId() != null) {
+            Work parentWork = works.get(work.getParentWorkId());
+            if (parentWork == null) {
+                parentWork = getWorkForWorkflowUpdate(domainId, work.getParentWorkId());
+                works.put(parentWork.getId(), parentWork);
+            }
+            depth = getWorkDepth(domainId, parentWork, works, depths) + 1;
         }
+        depths.put(work.getId(), depth);
+        return depth;
+    }
+
+    /**
+     * Load a work for the workflow update
+     *
+     * @param domainId the domain id
+     * @param workId   the work id
+     * @return the work
+     */
+    private Work getWorkForWorkflowUpdate(String domainId, String workId) {
+        return wrapCatch(
+                () -> workRepository.findByDomainIdAndId(domainId, workId).orElseThrow(
+                        () -> WorkNotFound
+                                .notFoundById()
+                                .errorCode(-1)
+                                .workId(workId)
+                                .build()
+                ),
+                -3
+        );
+    }
+
+    /**
+     * Return the workflow instance of the work type of a work
+     * <p>
+     * the instances are singleton beans so they are resolved once by implementation name
+     *
+     * @param work the work
+     * @return the workflow instance
+     */
+    private BaseWorkflow getWorkflowInstance(Work work) {
+        return workflowInstances.computeIfAbsent(
+                work.getWorkType().getWorkflow().getImplementation(),
+                implementation -> (BaseWorkflow) applicationContext.getBean(implementation)
+        );
+    }
+
+    /**
+     * Update the children summary of the parent with the status change of a work
+     *
+     * @param work           the work that has changed status
+     * @param previousStatus the status before the change, null for a new work
+     */
+    public void updateParentChildrenSummary(Work work, WorkflowState previousStatus) {
+        if (work.getParentWorkId() == null) return;
+        wrapCatch(
+                () -> {
+                    workRepository.updateChildrenSummary(
+                            work.getDomainId(),
+                            work.getParentWorkId(),
+                            previousStatus,
+                            work.getCurrentStatus().getStatus()
+                    );
+                    return null;
+                },
+                -1
+        );
+    }
+
+    /**
+     * Recalculate the children summary of a work from its children
+     * <p>
+     * it is used to fix any drift of the incremental summary
+     *
+     * @param domainId the domain id
+     * @param workId   the id of the parent work
+     */
+    public void reconcileChildrenSummary(String domainId, String workId) {
+        wrapCatch(
+                () -> {
+                    workRepository.setChildrenSummary(
+                            domainId,
+                            workId,
+                            workRepository.computeChildrenSummary(domainId, workId)
+                    );
+                    return null;
+                },
+                -1
+        );
     }
 
     /**
@@ -486,12 +865,9 @@ public class WorkService {
                 ),
                 -1
         );
-        var wInstance = (BaseWorkflow) applicationContext.getBean(foundWork.getWorkType().getWorkflow().getImplementation());
+        var wInstance = getWorkflowInstance(foundWork);
         // get validator for the work type
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                foundWork.getWorkType().getValidatorName(),
-                WorkTypeValidation.class
-        );
+        WorkTypeValidation wtv = workTypeValidationRegistry.get(foundWork.getWorkType().getValidatorName());
         return wtv.isUserAuthorizedToUpdate(userId, UpdateWorkValidation.builder().existingWork(foundWork).workflow(wInstance).updateWorkDTO(updateWorkDTO).build());
     }
 
@@ -508,10 +884,7 @@ public class WorkService {
             return emptyList();
         }
         // get validator for the work type
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                workDTO.workType().validatorName(),
-                WorkTypeValidation.class
-        );
+        WorkTypeValidation wtv = workTypeValidationRegistry.get(workDTO.workType().validatorName());
         return wtv.getUserAuthorizationOnWork(userId, workDTO);
     }
 
@@ -528,10 +901,7 @@ public class WorkService {
             return emptyList();
         }
         // get validator for the work type
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                workDTO.workType().validatorName(),
-                WorkTypeValidation.class
-        );
+        WorkTypeValidation wtv = workTypeValidationRegistry.get(workDTO.workType().validatorName());
         return wtv.getUserAuthorizationOnWork(userId, workDTO);
     }
 
@@ -572,11 +942,8 @@ public class WorkService {
                 )
         );
         // fetch the workflow
-        var wInstance = (BaseWorkflow) applicationContext.getBean(foundParentWork.getWorkType().getWorkflow().getImplementation());
-        var validationInstance = scriptService.getInterfaceImplementationFromFile(
-                foundParentWork.getWorkType().getValidatorName(),
-                WorkTypeValidation.class
-        );
+        var wInstance = getWorkflowInstance(foundParentWork);
+        var validationInstance = workTypeValidationRegistry.get(foundParentWork.getWorkType().getValidatorName());
         // validate the child admission
         validationInstance.admitChildren(AdmitChildrenValidation.builder().work(foundParentWork).workflow(wInstance).build());
         return foundParentWork;
@@ -584,26 +951,66 @@ public class WorkService {
 
     /**
      * Update the work authorization
+     * <p>
+     * the desired authorization are compared with the stored one, only the missing
+     * are added and only the ones not anymore needed are removed
      *
      * @param work the work to update
      */
     private void updateWorkAuthorization(Work work) {
+        String resource = WORK_AUTHORIZATION_TEMPLATE.formatted(work.getId());
+        // this will fire exception in case the location has not been found
+        Map<String, AuthorizationTypeDTO> toInsert = getWorkAuthorizations(
+                work,
+                locationId -> locationService.findById(work.getDomainId(), locationId)
+        );
+        Map<String, AuthorizationTypeDTO> desired = Map.copyOf(toInsert);
+        List<String> toDelete = new ArrayList<>();
+        authService.findByResourceIs(resource).forEach(
+                authorization -> {
+                    // an authorization already stored does not need to be inserted again
+                    if (authorization.authorizationType() == desired.get(authorization.owner()) &&
+                            toInsert.remove(authorization.owner()) != null) return;
+                    toDelete.add(authorization.id());
+                }
+        );
+        toDelete.forEach(authService::deleteAuthorizationById);
+        addWorkAuthorizations(work, toInsert);
+    }
+
+    /**
+     * Grant the authorization on a new work
+     *
+     * @param work             the work
+     * @param locationResolver resolve the location by id
+     */
+    private void grantWorkAuthorization(Work work, Function<String, LocationDTO> locationResolver) {
+        addWorkAuthorizations(work, getWorkAuthorizations(work, locationResolver));
+    }
+
+    /**
+     * Return the authorization that need to be granted on the work
+     *
+     * @param work             the work
+     * @param locationResolver resolve the location by id, used only when the embedded location has no manager
+     * @return the authorization type by user
+     */
+    private Map<String, AuthorizationTypeDTO> getWorkAuthorizations(Work work, Function<String, LocationDTO> locationResolver) {
         Set<String> adminUserList = new HashSet<>();
         Set<String> writerUserList = new HashSet<>();
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-        // delete old authorization
-        authService.deleteAuthorizationForResourcePrefix(WORK_AUTHORIZATION_TEMPLATE.formatted(work.getId()));
         if (work.getCreatedBy() != null) {
             // the creator is a writer
             writerUserList.add(work.getCreatedBy());
         }
 
         if (work.getLocation() != null) {
-            // this will fire exception in case the location has not been found
-            LocationDTO locationDTO = locationService.findById(work.getDomainId(), work.getLocation().getId());
             // authorize location manager as admin
-            adminUserList.add(locationDTO.locationManagerUserId());
+            String locationManager = work.getLocation().getLocationManagerUserId();
+            if (locationManager == null) {
+                locationManager = locationResolver.apply(work.getLocation().getId()).locationManagerUserId();
+            }
+            adminUserList.add(locationManager);
         }
 
         if (work.getShopGroup() != null) {
@@ -615,45 +1022,68 @@ public class WorkService {
             }
         }
 
-
         // some user for various reason could be either admin and read
         // so removing the common from the reader list we are going
         // to give to the user only the higher permission
         // so remove all the admin that are also reader
         writerUserList.removeAll(adminUserList);
 
-        // add admin authorization
-        adminUserList.forEach(
-                (user) -> {
-                    authService.addNewAuthorization(
-                            NewAuthorizationDTO.builder()
-                                    .authorizationType(Admin)
-                                    .owner(user)
-                                    .ownerType(User)
-                                    .resource(WORK_AUTHORIZATION_TEMPLATE.formatted(work.getId()))
-                                    .build()
-                    );
-                }
-        );
-        // add user authorization
-        writerUserList.forEach(
-                (user) -> {
-                    authService.addNewAuthorization(
-                            NewAuthorizationDTO.builder()
-                                    .authorizationType(Write)
-                                    .owner(user)
-                                    .ownerType(User)
-                                    .resource(WORK_AUTHORIZATION_TEMPLATE.formatted(work.getId()))
-                                    .build()
-                    );
-                }
-        );
-        log.info(
-                "Users '{}' has been granted as admin for work {}[{}]",
-                String.join(",", adminUserList),
-                work.getTitle(),
-                work.getId()
+        Map<String, AuthorizationTypeDTO> authorizations = new HashMap<>();
+        writerUserList.forEach(user -> authorizations.put(user, Write));
+        adminUserList.forEach(user -> authorizations.put(user, Admin));
+        return authorizations;
+    }
+
+    /**
+     * Add the authorization on the work
+     *
+     * @param work           the work
+     * @param authorizations the authorization type by user
+     */
+    private void addWorkAuthorizations(Work work, Map<String, AuthorizationTypeDTO> authorizations) {
+        authorizations.forEach(
+                (user, authorizationType) -> authService.addNewAuthorization(
+                        NewAuthorizationDTO.builder()
+                                .authorizationType(authorizationType)
+                                .owner(user)
+                                .ownerType(User)
+                                .resource(WORK_AUTHORIZATION_TEMPLATE.formatted(work.getId()))
+                                .build()
+                )
         );
+        if (!authorizations.isEmpty()) {
+            log.info(
+                    "Users '{}' has been granted on work {}[{}]",
+                    String.join(",", authorizations.keySet()),
+                    work.getTitle(),
+                    work.getId()
+            );
+        }
+    }
+
+    /**
+     * Return true if the fields that drive the work authorization are different
+     *
+     * @param before the fields before the update
+     * @param after  the updated work
+     * @return true if the authorization need to be updated
+     */
+    private static boolean isAuthorizationChanged(AuthorizationFields before, Work after) {
+        return !before.equals(AuthorizationFields.of(after));
+    }
+
+    /**
+     * The work fields that drive the work authorization
+     */
+    private record AuthorizationFields(String createdBy, String locationId, String shopGroupId, Set<String> assignedTo) {
+        static AuthorizationFields of(Work work) {
+            return new AuthorizationFields(
+                    work.getCreatedBy(),
+                    work.getLocation() != null ? work.getLocation().getId() : null,
+                    work.getShopGroup() != null ? work.getShopGroup().getId() : null,
+                    work.getAssignedTo() != null ? Set.copyOf(work.getAssignedTo()) : Set.of()
+            );
+        }
     }
 
     /**
@@ -753,6 +1183,7 @@ public class WorkService {
         );
 
         // lastly we need to update the workflow
+        WorkflowState previousStatus = foundWork.getCurrentStatus().getStatus();
         updateWorkWorkflow(
                 foundWork,
                 null);
@@ -762,6 +1193,13 @@ public class WorkService {
                 () -> workRepository.save(foundWork),
                 -6
         );
+        updateParentChildrenSummary(foundWork, previousStatus);
+        domainService.updateDomainStatistics(
+                foundWork.getDomainId(),
+                foundWork.getWorkType().getId(),
+                previousStatus,
+                foundWork.getCurrentStatus().getStatus()
+        );
     }
 
     /**
@@ -841,10 +1279,7 @@ public class WorkService {
      */
     public List<WorkDTO> findWorkChildrenById(@NotNull String domainId, @NotNull String workId, @Valid WorkDetailsOptionDTO workDetailsOptionDTO) {
         return wrapCatch(
-                () -> workRepository.findByDomainIdAndParentWorkId(domainId, workId)
-                        .stream()
-                        .map(w -> workMapper.toDTO(w, workDetailsOptionDTO))
-                        .toList(),
+                () -> workMapper.toDTO(workRepository.findByDomainIdAndParentWorkId(domainId, workId), workDetailsOptionDTO),
                 -1
         );
     }
@@ -857,10 +1292,7 @@ public class WorkService {
      */
     public List<WorkDTO> findWorkHistoryById(@NotNull String domainId, @NotNull String id) {
         return wrapCatch(
-                () -> modelHistoryService.findModelChangesByModelId(Work.class, id)
-                        .stream()
-                        .map(w -> workMapper.toDTO(w, WorkDetailsOptionDTO.builder().build()))
-                        .toList(),
+                () -> workMapper.toDTO(modelHistoryService.findModelChangesByModelId(Work.class, id), WorkDetailsOptionDTO.builder().build()),
                 -1
         );
     }
@@ -892,12 +1324,11 @@ public class WorkService {
      */
     public List<WorkSummaryDTO> searchAllWork(WorkQueryParameterDTO workQueryParameterDTO) {
         var workList = wrapCatch(
-                () -> workRepository.searchAll(workMapper.toModel(workQueryParameterDTO)),
+                () -> workRepository.searchAllSummary(workMapper.toModel(workQueryParameterDTO)),
                 -1
         );
-        return workList.stream()
-                .map(w -> workMapper.toSummaryDTO(w, WorkDetailsOptionDTO.builder().build()))
-                .toList();
+        // all the referenced entities are resolved once for the whole page
+        return workMapper.toSummaryDTO(workList, WorkDetailsOptionDTO.builder().build());
     }
 
     /**
@@ -908,14 +1339,26 @@ public class WorkService {
      */
     public List<WorkDTO> findAllByBucketId(String id) {
         return wrapCatch(
-                () -> workRepository.findAllByCurrentBucketAssociationBucketIdIs(id)
-                        .stream()
-                        .map(w -> workMapper.toDTO(w, WorkDetailsOptionDTO.builder().build()))
-                        .toList(),
+                () -> workMapper.toDTO(workRepository.findAllByCurrentBucketAssociationBucketIdIs(id), WorkDetailsOptionDTO.builder().build()),
                 -1
         );
     }
 
+    /**
+     * Stream the workflow processing information of all the works that belong to the buckets
+     * <p>
+     * only the domain id and the id of the works are read, the stream need to be closed
+     *
+     * @param bucketIds the ids of the buckets
+     * @return the stream of the workflow processing information
+     */
+    public Stream<ProcessWorkflowInfo> streamProcessWorkflowInfoByBucketIds(Collection<String> bucketIds) {
+        return wrapCatch(
+                () -> workRepository.streamDomainAndIdByBucketIds(bucketIds),
+                -1
+        ).map(work -> ProcessWorkflowInfo.builder().domainId(work.getDomainId()).workId(work.getId()).build());
+    }
+
     /**
      * Check if a work is associated to a bucket slot
      *
@@ -55,6 +55,18 @@ public class WorkAuthorizationService {
         return true;
     }
 
+    /**
+     * Check if the user can create all the new works
+     *
+     * @param authentication the authentication object
+     * @param domainId       the domain id
+     * @param newWorkDTOs    the new works dto
+     * @return true if the user can create all the new works, false otherwise
+     */
+    public boolean checkCanCreate(Authentication authentication, String domainId, List<NewWorkDTO> newWorkDTOs) {
+        return newWorkDTOs != null && newWorkDTOs.stream().allMatch(newWorkDTO -> checkCanCreate(authentication, domainId, newWorkDTO));
+    }
+
     /**
      * Check if the user can create a comment the work
      *
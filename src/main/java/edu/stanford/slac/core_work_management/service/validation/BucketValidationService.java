@@ -2,7 +2,7 @@ package edu.stanford.slac.core_work_management.service.validation;
 
 import edu.stanford.slac.core_work_management.model.BucketSlot;
 import edu.stanford.slac.core_work_management.model.value.LOVField;
-import edu.stanford.slac.core_work_management.repository.LOVElementRepository;
+import edu.stanford.slac.core_work_management.service.LOVSnapshotService;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -16,7 +16,7 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 @Validated
 @AllArgsConstructor
 public class BucketValidationService {
-    LOVElementRepository lovElementRepository;
+    LOVSnapshotService lovSnapshotService;
     public boolean verify(@NotNull BucketSlot source) {
         for (Field field : source.getClass().getDeclaredFields()) {
             LOVField annotation = field.getAnnotation(LOVField.class);
@@ -38,7 +38,7 @@ public class BucketValidationService {
                     value != null
                             // check if the value can be accepted
                             && !wrapCatch(
-                            () -> lovElementRepository.existsByIdAndFieldReferenceContains
+                            () -> lovSnapshotService.existsByIdAndFieldReference
                                     (
                                             value.toString(),
                                             annotationConstraint.fieldReference()
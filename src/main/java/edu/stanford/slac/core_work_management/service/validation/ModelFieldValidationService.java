@@ -76,7 +76,7 @@ import edu.stanford.slac.core_work_management.model.WATypeCustomField;
 import edu.stanford.slac.core_work_management.model.Work;
 import edu.stanford.slac.core_work_management.model.value.*;
 import edu.stanford.slac.core_work_management.repository.AttachmentRepository;
-import edu.stanford.slac.core_work_management.repository.LOVElementRepository;
+import edu.stanford.slac.core_work_management.service.LOVSnapshotService;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -100,7 +100,7 @@ import static java.util.Collections.emptyList;
 @AllArgsConstructor
 public class ModelFieldValidationService {
     AttachmentRepository attachmentsRepository;
-    LOVElementRepository lovElementRepository;
+    LOVSnapshotService lovSnapshotService;
 
     /**
      * Verify the custom field
@@ -171,7 +171,7 @@ public class ModelFieldValidationService {
                                             .errorCode(-2)
                                             .id(lovValueId)
                                             .build(),
-                                    ()->lovElementRepository.existsByIdAndFieldReferenceContains
+                                    ()->lovSnapshotService.existsByIdAndFieldReference
                                             (
                                                     lovValueId,
                                                     waTypeCustomField.get().getLovFieldReference()
@@ -320,7 +320,7 @@ public class ModelFieldValidationService {
                     value != null
                             // check if the value can be accepted
                             && !wrapCatch(
-                            () -> lovElementRepository.existsByIdAndFieldReferenceContains
+                            () -> lovSnapshotService.existsByIdAndFieldReference
                                     (
                                             value.toString(),
                                             annotationConstraint.fieldReference()
@@ -2,8 +2,6 @@ package edu.stanford.slac.core_work_management.service.validation;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationResourceDTO;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
-import edu.stanford.slac.ad.eed.baselib.exception.PersonNotFound;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.core_work_management.api.v1.dto.UpdateWorkDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.WorkDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.WorkSummaryDTO;
@@ -11,8 +9,10 @@ import edu.stanford.slac.core_work_management.api.v1.dto.WriteCustomFieldDTO;
 import edu.stanford.slac.core_work_management.model.CustomField;
 import edu.stanford.slac.core_work_management.model.WATypeCustomField;
 import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkChildrenSummary;
 import edu.stanford.slac.core_work_management.model.value.AttachmentsValue;
 import edu.stanford.slac.core_work_management.service.AttachmentService;
+import edu.stanford.slac.core_work_management.service.PersonResolverService;
 import edu.stanford.slac.core_work_management.service.workflow.*;
 
 import java.util.ArrayList;
@@ -103,6 +103,21 @@ public abstract class WorkTypeValidation {
         return workflow.isCompleted(work);
     }
 
+    /**
+     * Return the summary of the status of the work children
+     * <p>
+     * the summary is maintained on the work so the children don't need to be read
+     *
+     * @param work the parent work
+     * @return the summary, empty if the work has no children
+     */
+    protected WorkChildrenSummary getChildrenSummary(Work work) {
+        if (work == null || work.getChildrenSummary() == null) {
+            return WorkChildrenSummary.builder().build();
+        }
+        return work.getChildrenSummary();
+    }
+
     /**
      * Return all the authorization on work filed for the current input user
      *
@@ -242,22 +257,17 @@ public abstract class WorkTypeValidation {
      * @param work the work to check
      * @throws ControllerLogicException if the field is null or empty or with unalloyed user
      */
-    protected void checkAssignedTo(PeopleGroupService peopleGroupService, Work work, ArrayList<ValidationResult<String>> validationResults) {
+    protected void checkAssignedTo(PersonResolverService personResolverService, Work work, ArrayList<ValidationResult<String>> validationResults) {
         List<String> assignedUsers = work.getAssignedTo() != null ? work.getAssignedTo() : emptyList();
         if (assignedUsers.isEmpty()) {
             validationResults.add(ValidationResult.failure("The work must be assigned to someone"));
             return;
         }
         // the assignedTo can be null or empty only if we are in created state
-        assignedUsers.forEach(
-                user -> {
-                    try {
-                        peopleGroupService.findPersonByEMail(user);
-                    } catch (PersonNotFound e) {
-                        validationResults.add(ValidationResult.failure("The user '%s' does not exist".formatted(user)));
-                    }
-                }
-        );
+        var foundUsers = personResolverService.findPersonsByEMails(assignedUsers);
+        assignedUsers.stream()
+                .filter(user -> !foundUsers.containsKey(user))
+                .forEach(user -> validationResults.add(ValidationResult.failure("The user '%s' does not exist".formatted(user))));
     }
 
     /**
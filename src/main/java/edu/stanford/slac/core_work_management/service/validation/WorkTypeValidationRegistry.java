@@ -0,0 +1,110 @@
+package edu.stanford.slac.core_work_management.service.validation;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.core_work_management.service.ScriptService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the compiled {@link WorkTypeValidation} implementation
+ * <p>
+ * each validator script is compiled and instantiated only once, keyed by the
+ * validator name stored on the work type. The validator implementations
+ * are stateless (all their state is injected spring beans) so the same
+ * instance is shared across all the callers.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class WorkTypeValidationRegistry {
+    static final String VALIDATOR_LOCATION_PATTERN = "classpath*:validation/*.groovy";
+    private final ScriptService scriptService;
+    private final Map<String, WorkTypeValidation> validators = new ConcurrentHashMap<>();
+
+    /**
+     * Preload all the validator found on the classpath
+     * <p>
+     * it runs when the application is ready so all the beans
+     * needed by the validators are available
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(VALIDATOR_LOCATION_PATTERN);
+            for (Resource resource : resources) {
+                String validatorName = "validation/%s".formatted(resource.getFilename());
+                try {
+                    get(validatorName);
+                } catch (ControllerLogicException e) {
+                    log.error("Error preloading validator '{}': {}", validatorName, e.getErrorMessage());
+                }
+            }
+            log.info("Preloaded {} work type validators", validators.size());
+        } catch (IOException e) {
+            log.error("Error scanning for validator scripts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Return the validator for the validator name
+     * <p>
+     * if the validator is not yet loaded it is compiled and instantiated
+     *
+     * @param validatorName the name of the validator (the script path on the classpath)
+     * @return the validator implementation
+     */
+    public WorkTypeValidation get(String validatorName) {
+        return validators.computeIfAbsent(
+                validatorName,
+                name -> scriptService.getInterfaceImplementationFromFile(name, WorkTypeValidation.class)
+        );
+    }
+
+    /**
+     * Reload the validator from the classpath
+     * <p>
+     * the new instance is created before to be swapped so the callers
+     * will always get a valid validator
+     *
+     * @param validatorName the name of the validator
+     */
+    public void reload(String validatorName) {
+        WorkTypeValidation newInstance = scriptService.getInterfaceImplementationFromFile(validatorName, WorkTypeValidation.class);
+        validators.put(validatorName, newInstance);
+        log.info("Validator '{}' has been reloaded from classpath", validatorName);
+    }
+
+    /**
+     * Reload the validator using a new script content
+     * <p>
+     * the new instance is created before to be swapped so the callers
+     * will always get a valid validator
+     *
+     * @param validatorName the name of the validator
+     * @param scriptContent the new content of the script
+     */
+    public void reload(String validatorName, String scriptContent) {
+        WorkTypeValidation newInstance = scriptService.getInterfaceImplementation(scriptContent, WorkTypeValidation.class);
+        validators.put(validatorName, newInstance);
+        log.info("Validator '{}' has been reloaded from content", validatorName);
+    }
+
+    /**
+     * Return the name of all the loaded validators
+     *
+     * @return the set of validator names
+     */
+    public Set<String> getLoadedValidatorNames() {
+        return Set.copyOf(validators.keySet());
+    }
+}
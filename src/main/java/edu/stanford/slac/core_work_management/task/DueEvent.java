@@ -0,0 +1,27 @@
+package edu.stanford.slac.core_work_management.task;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * An instant when a time driven event become due
+ *
+ * @param type the type of the event
+ * @param at   the instant when the event is due
+ */
+public record DueEvent(Type type, LocalDateTime at) implements Serializable {
+    public enum Type {
+        /**
+         * A bucket slot starts
+         */
+        BucketStart,
+        /**
+         * A bucket slot stops
+         */
+        BucketStop,
+        /**
+         * An event trigger fires
+         */
+        EventTrigger
+    }
+}
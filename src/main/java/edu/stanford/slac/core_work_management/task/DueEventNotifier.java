@@ -0,0 +1,73 @@
+package edu.stanford.slac.core_work_management.task;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import edu.stanford.slac.core_work_management.model.BucketSlot;
+import edu.stanford.slac.core_work_management.model.EventTrigger;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+import static java.lang.Boolean.TRUE;
+
+/**
+ * Notify the due event schedulers when a bucket slot or an event trigger is saved
+ * <p>
+ * the saves can happen on any node, also on the nodes that do not run the scheduled tasks, so the
+ * due instants are published on a hazelcast topic listened by all the schedulers. Without hazelcast
+ * the local scheduler, if any, is notified directly.
+ */
+@Log4j2
+@Component
+public class DueEventNotifier extends AbstractMongoEventListener<Object> {
+    public static final String DUE_EVENTS_TOPIC = "cwm-due-events";
+    private final ObjectProvider<HazelcastInstance> hazelcastInstance;
+    private final ObjectProvider<DueEventScheduler> dueEventScheduler;
+    private ITopic<DueEvent> dueEventsTopic;
+
+    public DueEventNotifier(ObjectProvider<HazelcastInstance> hazelcastInstance, ObjectProvider<DueEventScheduler> dueEventScheduler) {
+        this.hazelcastInstance = hazelcastInstance;
+        this.dueEventScheduler = dueEventScheduler;
+    }
+
+    @PostConstruct
+    public void init() {
+        hazelcastInstance.ifAvailable(hz -> dueEventsTopic = hz.getTopic(DUE_EVENTS_TOPIC));
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (event.getSource() instanceof BucketSlot bucketSlot) {
+            if (!TRUE.equals(bucketSlot.getStartEventManaged())) notify(DueEvent.Type.BucketStart, bucketSlot.getFrom());
+            if (!TRUE.equals(bucketSlot.getStopEventManaged())) notify(DueEvent.Type.BucketStop, bucketSlot.getTo());
+        } else if (event.getSource() instanceof EventTrigger eventTrigger) {
+            if (!TRUE.equals(eventTrigger.getFired())) notify(DueEvent.Type.EventTrigger, eventTrigger.getEventFireTimestamp());
+        }
+    }
+
+    /**
+     * Notify all the schedulers of a due instant
+     *
+     * @param type the type of the event
+     * @param at   the instant when the event is due
+     */
+    public void notify(DueEvent.Type type, LocalDateTime at) {
+        if (at == null) return;
+        DueEvent dueEvent = new DueEvent(type, at);
+        if (dueEventsTopic != null) {
+            try {
+                dueEventsTopic.publish(dueEvent);
+                return;
+            } catch (RuntimeException e) {
+                // the sweep of the schedulers will find the event anyway
+                log.warn("Cannot publish the due event {}", dueEvent, e);
+            }
+        }
+        dueEventScheduler.ifAvailable(scheduler -> scheduler.schedule(dueEvent));
+    }
+}
@@ -0,0 +1,227 @@
+package edu.stanford.slac.core_work_management.task;
+
+import com.hazelcast.core.HazelcastInstance;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.repository.BucketRepository;
+import edu.stanford.slac.core_work_management.repository.EventTriggerRepository;
+import edu.stanford.slac.core_work_management.service.SchedulerLeaderElection;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Fire the bucket start and stop and the event triggers at their due instant
+ * <p>
+ * the upcoming due instants are kept in a time ordered set and a single timer is armed on the earliest
+ * one; when it expires all the due instants are removed and the processing of their type is executed.
+ * The set is fed by the {@link DueEventNotifier} when a bucket or an event trigger is saved on any node
+ * and by a periodic sweep, that also executes all the processing as safety net and loads the instants
+ * that enter its horizon. Only the instants within the horizon are kept in memory.
+ * <p>
+ * all the nodes keep the instants, but only the leader of a job, elected by {@link SchedulerLeaderElection},
+ * executes its processing.
+ */
+@Log4j2
+@Component
+@Profile("async-ops")
+public class DueEventScheduler {
+    public static final String BUCKET_JOB = "bucket-start-stop";
+    public static final String EVENT_TRIGGER_JOB = "event-trigger";
+    private static final Set<DueEvent.Type> BUCKET_TYPES = EnumSet.of(DueEvent.Type.BucketStart, DueEvent.Type.BucketStop);
+    private final Clock clock;
+    private final ManageBucketWorkflowUpdate manageBucketWorkflowUpdate;
+    private final ManageWorkflowUpdateByEventTrigger manageWorkflowUpdateByEventTrigger;
+    private final BucketRepository bucketRepository;
+    private final EventTriggerRepository eventTriggerRepository;
+    private final ObjectProvider<HazelcastInstance> hazelcastInstance;
+    private final SchedulerLeaderElection schedulerLeaderElection;
+    private final Duration sweepDelay;
+    private final Duration horizon;
+    private final TreeSet<DueEvent> upcoming = new TreeSet<>(
+            Comparator.comparing(DueEvent::at).thenComparing(DueEvent::type)
+    );
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "due-event-timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+    private ScheduledFuture<?> wakeup;
+    private LocalDateTime wakeupAt;
+
+    public DueEventScheduler(
+            Clock clock,
+            ManageBucketWorkflowUpdate manageBucketWorkflowUpdate,
+            ManageWorkflowUpdateByEventTrigger manageWorkflowUpdateByEventTrigger,
+            BucketRepository bucketRepository,
+            EventTriggerRepository eventTriggerRepository,
+            ObjectProvider<HazelcastInstance> hazelcastInstance,
+            SchedulerLeaderElection schedulerLeaderElection,
+            CWMAppProperties cwmAppProperties
+    ) {
+        this.clock = clock;
+        this.manageBucketWorkflowUpdate = manageBucketWorkflowUpdate;
+        this.manageWorkflowUpdateByEventTrigger = manageWorkflowUpdateByEventTrigger;
+        this.bucketRepository = bucketRepository;
+        this.eventTriggerRepository = eventTriggerRepository;
+        this.hazelcastInstance = hazelcastInstance;
+        this.schedulerLeaderElection = schedulerLeaderElection;
+        this.sweepDelay = Duration.ofMillis(cwmAppProperties.getDueEventSweepDelay());
+        // the instants are loaded a sweep ahead so none is missed between two sweeps
+        this.horizon = sweepDelay.multipliedBy(2);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        // a new leader catches up the events left by the previous one
+        schedulerLeaderElection.addLeadershipListener(BUCKET_JOB, () -> timer.execute(() -> process(BUCKET_TYPES)));
+        schedulerLeaderElection.addLeadershipListener(EVENT_TRIGGER_JOB, () -> timer.execute(() -> process(EnumSet.of(DueEvent.Type.EventTrigger))));
+        hazelcastInstance.ifAvailable(
+                hz -> hz.<DueEvent>getTopic(DueEventNotifier.DUE_EVENTS_TOPIC).addMessageListener(
+                        message -> schedule(message.getMessageObject())
+                )
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Load the upcoming instants when the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loadUpcoming();
+    }
+
+    /**
+     * Safety net that processes whatever is due and reload the upcoming instants
+     */
+    @Scheduled(
+            initialDelayString = "${edu.stanford.slac.core-work-management.due-event-sweep-delay:600000}",
+            fixedDelayString = "${edu.stanford.slac.core-work-management.due-event-sweep-delay:600000}"
+    )
+    public void sweep() {
+        log.debug("Sweep the due events");
+        process(EnumSet.allOf(DueEvent.Type.class));
+        loadUpcoming();
+    }
+
+    /**
+     * Add a due instant to the timer
+     * <p>
+     * the instants older than a sweep are left to the sweep, the ones beyond the horizon are
+     * loaded by a later sweep
+     *
+     * @param dueEvent the due event
+     */
+    public synchronized void schedule(DueEvent dueEvent) {
+        if (dueEvent == null || dueEvent.at() == null) return;
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (dueEvent.at().isBefore(now.minus(sweepDelay)) || dueEvent.at().isAfter(now.plus(horizon))) return;
+        if (!upcoming.add(dueEvent)) return;
+        log.debug("Scheduled {}", dueEvent);
+        if (wakeupAt == null || dueEvent.at().isBefore(wakeupAt)) {
+            arm(now);
+        }
+    }
+
+    /**
+     * Return the number of instants waiting to fire
+     *
+     * @return the number of instants
+     */
+    public synchronized int getUpcomingCount() {
+        return upcoming.size();
+    }
+
+    /**
+     * Load from the database the instants within the horizon
+     */
+    private void loadUpcoming() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime until = now.plus(horizon);
+        wrapCatch(() -> bucketRepository.findStartDatesBetween(now, until), -1)
+                .forEach(at -> schedule(new DueEvent(DueEvent.Type.BucketStart, at)));
+        wrapCatch(() -> bucketRepository.findStopDatesBetween(now, until), -2)
+                .forEach(at -> schedule(new DueEvent(DueEvent.Type.BucketStop, at)));
+        wrapCatch(() -> eventTriggerRepository.findFireTimestampsBetween(now, until), -3)
+                .forEach(at -> schedule(new DueEvent(DueEvent.Type.EventTrigger, at)));
+    }
+
+    /**
+     * Arm the timer on the earliest instant
+     *
+     * @param now the current date
+     */
+    private void arm(LocalDateTime now) {
+        if (wakeup != null) wakeup.cancel(false);
+        if (upcoming.isEmpty()) {
+            wakeup = null;
+            wakeupAt = null;
+            return;
+        }
+        wakeupAt = upcoming.first().at();
+        long delay = Math.max(0, Duration.between(now, wakeupAt).toMillis() + 1);
+        wakeup = timer.schedule(this::fire, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Remove all the due instants and execute the processing of their types
+     */
+    private void fire() {
+        Set<DueEvent.Type> dueTypes = EnumSet.noneOf(DueEvent.Type.class);
+        synchronized (this) {
+            LocalDateTime now = LocalDateTime.now(clock);
+            while (!upcoming.isEmpty() && !upcoming.first().at().isAfter(now)) {
+                dueTypes.add(upcoming.pollFirst().type());
+            }
+            wakeupAt = null;
+        }
+        process(dueTypes);
+        synchronized (this) {
+            if (wakeupAt == null) arm(LocalDateTime.now(clock));
+        }
+    }
+
+    /**
+     * Execute the processing of the types, only the leader of a job executes it
+     *
+     * @param types the types of the due events
+     */
+    private void process(Set<DueEvent.Type> types) {
+        try {
+            if (types.stream().anyMatch(BUCKET_TYPES::contains) && schedulerLeaderElection.isLeader(BUCKET_JOB)) {
+                manageBucketWorkflowUpdate.processStartAndStop();
+            }
+            if (types.contains(DueEvent.Type.EventTrigger) && schedulerLeaderElection.isLeader(EVENT_TRIGGER_JOB)) {
+                manageWorkflowUpdateByEventTrigger.processTriggeredEvent();
+            }
+        } catch (RuntimeException e) {
+            log.error("Error processing the due events {}", types, e);
+        }
+    }
+}
@@ -1,19 +1,20 @@
 package edu.stanford.slac.core_work_management.task;
 
-import edu.stanford.slac.core_work_management.api.v1.dto.BucketSlotDTO;
 import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.model.BucketSlotClaim;
 import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
 import edu.stanford.slac.core_work_management.service.BucketService;
+import edu.stanford.slac.core_work_management.service.OutboxService;
 import edu.stanford.slac.core_work_management.service.WorkService;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Log4j2
 @Component
@@ -25,39 +26,41 @@ public class ManageBucketWorkflowUpdate {
     private final BucketService bucketService;
 
     private final TransactionTemplate transactionTemplate;
-    private final KafkaTemplate<String, ProcessWorkflowInfo> processWorkflowInfoKafkaTemplate;
+    private final OutboxService outboxService;
 
-    @Scheduled(fixedDelay = 60000)
+    /**
+     * Process the start and the stop of the due buckets
+     * <p>
+     * it is fired by the {@link DueEventScheduler} when a bucket become due
+     */
     public void processStartAndStop() {
         // Start work associated to started bucket
-        transactionTemplate.execute(status -> {
-            processBucketStartEvent();
-            return null;
-        });
-
-        // Stop transaction
-        transactionTemplate.execute(status -> {
-            processBucketStopEvent();
-            return null;
-        });
+        processBucketStartEvent();
+        // Stop work associated to stopped bucket
+        processBucketStopEvent();
     }
 
     /**
      * This method is used to process the bucket start event
      * find all bucket that are started(date from) when this method is executed
      * but never processed and find all the work associated to each one to
-     * update the workflow status
+     * update the workflow status. The buckets are claimed and processed in batch,
+     * every batch is committed in its own transaction
      */
-
     public void processBucketStartEvent() {
         log.debug("Check which bucket need to be started");
-        BucketSlotDTO selectedBucket = null;
+        BucketSlotClaim claim;
         var now = LocalDateTime.now(clock);
-        // use the bucket service to find the next bucket to start
-        while ((selectedBucket = bucketService.findNextBucketToStart(now, now.minusSeconds(30))) != null) {
-            processBucket(selectedBucket);
-            // set the bucket as completed
-            bucketService.completeStartEventProcessing(selectedBucket.id());
+        // use the bucket service to claim the next buckets to start
+        while (!(claim = bucketService.claimNextBucketIdsToStart(now, now.minusSeconds(30), cwmAppProperties.getBucketProcessingBatchSize())).isEmpty()) {
+            BucketSlotClaim batch = claim;
+            transactionTemplate.executeWithoutResult(
+                    status -> {
+                        processBuckets(batch.getBucketSlotIds());
+                        // set the buckets as completed
+                        bucketService.completeStartEventProcessing(batch);
+                    }
+            );
         }
         log.debug("Startup bucket completed");
     }
@@ -66,46 +69,49 @@ public class ManageBucketWorkflowUpdate {
      * This method is used to process the bucket stop event
      * find all bucket that are stopped(date to) when this method is executed
      * but never processed and find all the work associated to each one to
-     * update the workflow status
+     * update the workflow status. The buckets are claimed and processed in batch,
+     * every batch is committed in its own transaction
      */
     public void processBucketStopEvent() {
         log.debug("Check which bucket need to be stopped");
-        BucketSlotDTO selectedBucket = null;
+        BucketSlotClaim claim;
         var now = LocalDateTime.now(clock);
-        // use the bucket service to find the next bucket to start
-        while ((selectedBucket = bucketService.findNextBucketToStop(now, now.minusSeconds(30))) != null) {
-            processBucket(selectedBucket);
-            bucketService.completeStopEventProcessing(selectedBucket.id());
+        // use the bucket service to claim the next buckets to stop
+        while (!(claim = bucketService.claimNextBucketIdsToStop(now, now.minusSeconds(30), cwmAppProperties.getBucketProcessingBatchSize())).isEmpty()) {
+            BucketSlotClaim batch = claim;
+            transactionTemplate.executeWithoutResult(
+                    status -> {
+                        processBuckets(batch.getBucketSlotIds());
+                        bucketService.completeStopEventProcessing(batch);
+                    }
+            );
         }
         log.debug("Stop bucket completed");
     }
 
     /**
-     * This method is used to process the bucket
-     * find all the work associated to the bucket and send to kafka
-     * the workflow update
+     * This method is used to process a batch of buckets
+     * find all the work associated to the buckets and enqueue into the outbox
+     * the workflow update, in the same transaction that complete the buckets.
+     * The records are published by the outbox relay once the transaction is committed
      *
-     * @param selectedBucket the bucket to process
+     * @param bucketIds the ids of the buckets to process
      */
-    private void processBucket(BucketSlotDTO selectedBucket) {
-        log.info("Processing bucket {}", selectedBucket);
-        // find work that belong to the bucket
-        var allWorkToProcess = workService.findAllByBucketId(selectedBucket.id());
-        log.info("Found {} work to process", allWorkToProcess.size());
-        // to process send to kafka the bucket to start
-        allWorkToProcess.forEach(
-                work -> {
-                    log.info("Processing work with id:{} and did:{}", work.domain().id(), work.id());
-                    processWorkflowInfoKafkaTemplate.send(
-                            // topic
-                            cwmAppProperties.getWorkflowProcessingTopic(),
-                            // key
-                            "%s/%s".formatted(work.domain().id(), work.id()),
-                            // value
-                            ProcessWorkflowInfo.builder().domainId(work.domain().id()).workId(work.id()).build()
-                    );
-                }
-        );
+    private void processBuckets(List<String> bucketIds) {
+        log.info("Processing buckets {}", bucketIds);
+        long enqueued;
+        // stream only the domain and id of the work that belong to the buckets
+        try (Stream<ProcessWorkflowInfo> allWorkToProcess = workService.streamProcessWorkflowInfoByBucketIds(bucketIds)) {
+            enqueued = outboxService.enqueueAll(
+                    // topic
+                    cwmAppProperties.getWorkflowProcessingTopic(),
+                    // value
+                    allWorkToProcess.peek(processWorkflowInfo -> log.debug("Processing work with id:{} and did:{}", processWorkflowInfo.getDomainId(), processWorkflowInfo.getWorkId())),
+                    // key
+                    processWorkflowInfo -> "%s/%s".formatted(processWorkflowInfo.getDomainId(), processWorkflowInfo.getWorkId())
+            );
+        }
+        log.info("Enqueued {} work to process for {} buckets", enqueued, bucketIds.size());
     }
 
 }
@@ -4,58 +4,83 @@ import edu.stanford.slac.core_work_management.config.CWMAppProperties;
 import edu.stanford.slac.core_work_management.model.EventTrigger;
 import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
 import edu.stanford.slac.core_work_management.repository.EventTriggerRepository;
+import edu.stanford.slac.core_work_management.service.OutboxService;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 
 @Log4j2
 @Component
 @AllArgsConstructor
 public class ManageWorkflowUpdateByEventTrigger {
+    public static final String WORK_PLANNED_START = "workPlannedStart";
     private final Clock clock;
     private final EventTriggerRepository eventTriggerRepository;
     private final CWMAppProperties cwmAppProperties;
-    private final KafkaTemplate<String, ProcessWorkflowInfo> processWorkflowInfoKafkaTemplate;
-    @Transactional
-    @Scheduled(fixedDelay = 60000)
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+
+    /**
+     * Process the due event triggers
+     * <p>
+     * it is fired by the {@link DueEventScheduler} when an event trigger become due. The event triggers
+     * are claimed in batch, the workflow updates of a batch are enqueued into the outbox in the same
+     * transaction that set the event triggers as fired
+     */
     public void processTriggeredEvent() {
-        log.debug("Check which bucket need to be started");
-        EventTrigger selectedEvent = null;
+        log.debug("Check which event trigger need to be fired");
+        List<EventTrigger> claimedTriggers;
+        int fired = 0;
+        long start = System.nanoTime();
         var now = LocalDateTime.now(clock);
-        // use the bucket service to find the next bucket to start
-        while ((selectedEvent = eventTriggerRepository.findNextToProcess("workPlannedStart", now, now.minusSeconds(30))) != null) {
-            if(selectedEvent.getPayload() == null || !selectedEvent.getPayload().getClass().isAssignableFrom(ProcessWorkflowInfo.class)){
-                log.error("Invalid payload for event trigger: {}", selectedEvent);
-                // set the bucket as completed
-                eventTriggerRepository.completeProcessing("workPlannedStart", selectedEvent.getId());
-                continue;
-            }
-            // process the bucket
-            ProcessWorkflowInfo processWorkflowInfo = (ProcessWorkflowInfo) selectedEvent.getPayload();
-            processWorkflowInfoKafkaTemplate.send(
-                    // topic
-                    cwmAppProperties.getWorkflowProcessingTopic(),
-                    // key
-                    "%s/%s".formatted(processWorkflowInfo.getDomainId(), processWorkflowInfo.getWorkId()),
-                    // value
-                    ProcessWorkflowInfo.builder().domainId(processWorkflowInfo.getDomainId()).workId(processWorkflowInfo.getWorkId()).build()
-            ).thenAccept(result -> {
-                // Handle successful send
-                System.out.println("Message sent successfully: " + result.getRecordMetadata());
-            }).exceptionally(ex -> {
-                // Handle exception in sending
-                System.err.println("Message send failed: " + ex.getMessage());
-                return null; // Exceptionally requires a return value, hence null
-            });;
-            // set the bucket as completed
-            eventTriggerRepository.completeProcessing("work", selectedEvent.getId());
+        while (!(claimedTriggers = wrapCatch(
+                () -> eventTriggerRepository.claimNextToProcess(WORK_PLANNED_START, now, now.minusSeconds(30), cwmAppProperties.getEventTriggerProcessingBatchSize()),
+                -1
+        )).isEmpty()) {
+            List<EventTrigger> batch = claimedTriggers;
+            fired += Objects.requireNonNullElse(transactionTemplate.execute(status -> dispatch(batch)), 0);
+        }
+        if (fired > 0) {
+            log.info("Fired {} event triggers in {} ms", fired, (System.nanoTime() - start) / 1_000_000);
         }
-        log.debug("Startup bucket completed");
+    }
+
+    /**
+     * Enqueue the workflow update of a batch of event triggers and set them as fired
+     *
+     * @param claimedTriggers the claimed event triggers
+     * @return the number of event triggers set as fired
+     */
+    private int dispatch(List<EventTrigger> claimedTriggers) {
+        List<ProcessWorkflowInfo> workToProcess = new ArrayList<>();
+        claimedTriggers.forEach(
+                eventTrigger -> {
+                    if (!(eventTrigger.getPayload() instanceof ProcessWorkflowInfo processWorkflowInfo)) {
+                        // an invalid event trigger is set as fired and never retried
+                        log.error("Invalid payload for event trigger: {}", eventTrigger);
+                        return;
+                    }
+                    workToProcess.add(ProcessWorkflowInfo.builder().domainId(processWorkflowInfo.getDomainId()).workId(processWorkflowInfo.getWorkId()).build());
+                }
+        );
+        outboxService.enqueueAll(
+                // topic
+                cwmAppProperties.getWorkflowProcessingTopic(),
+                // value
+                workToProcess.stream(),
+                // key
+                processWorkflowInfo -> "%s/%s".formatted(processWorkflowInfo.getDomainId(), processWorkflowInfo.getWorkId())
+        );
+        // set the event triggers as fired
+        return wrapCatch(() -> eventTriggerRepository.completeProcessing(WORK_PLANNED_START, claimedTriggers), -2);
     }
 }
@@ -0,0 +1,225 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.ad.eed.baselib.auth.JWTHelper;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.model.OutboxMessage;
+import edu.stanford.slac.core_work_management.repository.OutboxMessageRepository;
+import edu.stanford.slac.core_work_management.service.SchedulerLeaderElection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Publish the records of the outbox
+ * <p>
+ * only the leader of the job, elected by {@link SchedulerLeaderElection}, publishes so the records are
+ * sent in the order they have been enqueued. The pending records are claimed in batch and all sent
+ * without waiting each single acknowledge, the acknowledged records are then set as sent with one update.
+ * The records that fail are released and retried at the next round. The relay polls the outbox and is
+ * woken up as soon as a transaction that enqueued records is committed on this node. No credential is stored
+ * in the outbox, the authorization required by the elog import is added when the record is published.
+ */
+@Log4j2
+@Component
+public class OutboxRelay {
+    public static final String OUTBOX_RELAY_JOB = "outbox-relay";
+    private final Clock clock;
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+    private final SchedulerLeaderElection schedulerLeaderElection;
+    private final JWTHelper jwtHelper;
+    private final String importEntryTopic;
+    private final Duration pollDelay;
+    private final int batchSize;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+    private final AtomicBoolean wakeupPending = new AtomicBoolean(false);
+    private final ScheduledExecutorService relayThread = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "outbox-relay");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+
+    public OutboxRelay(
+            Clock clock,
+            OutboxMessageRepository outboxMessageRepository,
+            KafkaTemplate<String, byte[]> outboxKafkaTemplate,
+            SchedulerLeaderElection schedulerLeaderElection,
+            JWTHelper jwtHelper,
+            @Value("${edu.stanford.slac.core-work-management.elog-import-topic}") String importEntryTopic,
+            CWMAppProperties cwmAppProperties,
+            MeterRegistry meterRegistry
+    ) {
+        this.clock = clock;
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.outboxKafkaTemplate = outboxKafkaTemplate;
+        this.schedulerLeaderElection = schedulerLeaderElection;
+        this.jwtHelper = jwtHelper;
+        this.importEntryTopic = importEntryTopic;
+        this.pollDelay = cwmAppProperties.getOutboxRelayDelay();
+        this.batchSize = cwmAppProperties.getOutboxRelayBatchSize();
+        this.sentCounter = Counter
+                .builder("cwm_outbox_sent")
+                .description("The records of the outbox acknowledged by the broker")
+                .register(meterRegistry);
+        this.failedCounter = Counter
+                .builder("cwm_outbox_failed")
+                .description("The failed publishing of records of the outbox")
+                .register(meterRegistry);
+        this.batchTimer = Timer
+                .builder("cwm_outbox_relay_batch")
+                .description("The time to publish a batch of records of the outbox")
+                .register(meterRegistry);
+        Gauge.builder("cwm_outbox_pending", outboxMessageRepository, OutboxMessageRepository::countPending)
+                .description("The records of the outbox not yet sent")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        // a new leader publishes what the previous one left
+        schedulerLeaderElection.addLeadershipListener(OUTBOX_RELAY_JOB, this::wakeup);
+    }
+
+    /**
+     * Start polling the outbox when the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        relayThread.scheduleWithFixedDelay(this::relay, 0, pollDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayThread.shutdownNow();
+    }
+
+    /**
+     * Ask the relay to publish the pending records as soon as possible
+     * <p>
+     * the requests that arrive while one is waiting are coalesced
+     */
+    public void wakeup() {
+        if (!wakeupPending.compareAndSet(false, true)) return;
+        try {
+            relayThread.execute(
+                    () -> {
+                        wakeupPending.set(false);
+                        relay();
+                    }
+            );
+        } catch (RuntimeException e) {
+            // the relay has been shut down
+            wakeupPending.set(false);
+        }
+    }
+
+    /**
+     * Publish all the pending records, only the leader of the job publishes
+     */
+    void relay() {
+        try {
+            if (!schedulerLeaderElection.isLeader(OUTBOX_RELAY_JOB)) return;
+            List<OutboxMessage> claimed;
+            var now = LocalDateTime.now(clock);
+            while (!(claimed = wrapCatch(() -> outboxMessageRepository.claimNextToSend(now, now.minusSeconds(30), batchSize), -1)).isEmpty()) {
+                long start = System.nanoTime();
+                boolean published = publish(claimed);
+                batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (!published) {
+                    // the broker is failing, the next round retries
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Error relaying the outbox", e);
+        }
+    }
+
+    /**
+     * Send a batch of records and wait for the broker acknowledge
+     *
+     * @param batch the claimed records
+     * @return true if all the records have been acknowledged
+     */
+    private boolean publish(List<OutboxMessage> batch) {
+        Map<String, CompletableFuture<SendResult<String, byte[]>>> sentRecords = new LinkedHashMap<>();
+        batch.forEach(message -> sentRecords.put(message.getId(), send(message)));
+        // push out the pending batch and wait for the broker acknowledge
+        outboxKafkaTemplate.flush();
+
+        List<String> sentIds = new ArrayList<>();
+        Map<String, String> errorsById = new HashMap<>();
+        sentRecords.forEach(
+                (id, sentRecord) -> {
+                    try {
+                        sentRecord.join();
+                        sentIds.add(id);
+                    } catch (RuntimeException e) {
+                        errorsById.put(id, Objects.requireNonNullElse(e.getCause(), e).toString());
+                    }
+                }
+        );
+        wrapCatch(() -> outboxMessageRepository.completeSending(sentIds, LocalDateTime.now(clock)), -2);
+        sentCounter.increment(sentIds.size());
+        if (!errorsById.isEmpty()) {
+            log.error("Failed to send {} of {} records of the outbox: {}", errorsById.size(), batch.size(), errorsById.values().iterator().next());
+            wrapCatch(
+                    () -> {
+                        outboxMessageRepository.releaseFailed(errorsById);
+                        return null;
+                    },
+                    -3
+            );
+            failedCounter.increment(errorsById.size());
+        }
+        log.debug("Sent {} records of the outbox", sentIds.size());
+        return errorsById.isEmpty();
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(OutboxMessage message) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(message.getTopic(), message.getKey(), message.getPayload());
+        if (message.getHeaders() != null) {
+            message.getHeaders().forEach(
+                    (name, value) -> record.headers().add(new RecordHeader(name, value.getBytes(StandardCharsets.UTF_8)))
+            );
+        }
+        try {
+            if (importEntryTopic.equals(message.getTopic())) {
+                // the token is generated at publishing time so it is never stored and never expired
+                record.headers().add(new RecordHeader("Authorization", jwtHelper.generateServiceToken().getBytes(StandardCharsets.UTF_8)));
+            }
+            return outboxKafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
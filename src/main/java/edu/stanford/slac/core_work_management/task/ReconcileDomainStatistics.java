@@ -0,0 +1,33 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.core_work_management.service.DomainService;
+import edu.stanford.slac.core_work_management.service.SchedulerLeaderElection;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically realign the incremental domain statistics
+ * with the real count of the works, only on the node
+ * that leads the job
+ */
+@Log4j2
+@Component
+@AllArgsConstructor
+public class ReconcileDomainStatistics {
+    public static final String RECONCILE_JOB = "domain-statistics-reconcile";
+    private final DomainService domainService;
+    private final SchedulerLeaderElection schedulerLeaderElection;
+
+    @Scheduled(
+            initialDelayString = "${edu.stanford.slac.core-work-management.statistic-reconcile-delay:3600000}",
+            fixedDelayString = "${edu.stanford.slac.core-work-management.statistic-reconcile-delay:3600000}"
+    )
+    public void reconcile() {
+        if (!schedulerLeaderElection.isLeader(RECONCILE_JOB)) return;
+        log.debug("Start domain statistics reconciliation");
+        domainService.reconcileDomainStatistics();
+        log.debug("Domain statistics reconciliation completed");
+    }
+}
@@ -0,0 +1,66 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.core_work_management.service.LOVSnapshotService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically reload the LOV snapshot on every node,
+ * so a lost change notification does not leave the
+ * snapshot stale until the restart
+ * <p>
+ * the snapshot is read by the api nodes too, so the reload runs on its own
+ * thread and does not depend on the scheduling enabled by the async-ops profile
+ */
+@Log4j2
+@Component
+public class ReloadLOVSnapshot {
+    private final LOVSnapshotService lovSnapshotService;
+    private final long reloadDelay;
+    private final ScheduledExecutorService reloadThread = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "lov-snapshot-reload");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+
+    public ReloadLOVSnapshot(
+            LOVSnapshotService lovSnapshotService,
+            @Value("${edu.stanford.slac.core-work-management.lov-snapshot-reload-delay:300000}") long reloadDelay
+    ) {
+        this.lovSnapshotService = lovSnapshotService;
+        this.reloadDelay = reloadDelay;
+    }
+
+    /**
+     * Start the periodic reload when the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reloadThread.scheduleWithFixedDelay(this::reload, reloadDelay, reloadDelay, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloadThread.shutdownNow();
+    }
+
+    void reload() {
+        try {
+            log.debug("Reload the LOV snapshot");
+            lovSnapshotService.reload();
+        } catch (RuntimeException e) {
+            // a failed reload must not stop the next ones
+            log.error("Error reloading the LOV snapshot", e);
+        }
+    }
+}
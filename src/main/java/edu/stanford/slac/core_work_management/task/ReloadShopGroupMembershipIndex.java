@@ -0,0 +1,66 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.core_work_management.service.ShopGroupMembershipIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically reload the shop group membership index
+ * on every node, so a lost change notification does not
+ * leave the index stale until the restart
+ * <p>
+ * the membership checks are done by the api nodes too, so the reload runs on its
+ * own thread and does not depend on the scheduling enabled by the async-ops profile
+ */
+@Log4j2
+@Component
+public class ReloadShopGroupMembershipIndex {
+    private final ShopGroupMembershipIndex shopGroupMembershipIndex;
+    private final long reloadDelay;
+    private final ScheduledExecutorService reloadThread = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "shop-group-index-reload");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+
+    public ReloadShopGroupMembershipIndex(
+            ShopGroupMembershipIndex shopGroupMembershipIndex,
+            @Value("${edu.stanford.slac.core-work-management.shop-group-index-reload-delay:300000}") long reloadDelay
+    ) {
+        this.shopGroupMembershipIndex = shopGroupMembershipIndex;
+        this.reloadDelay = reloadDelay;
+    }
+
+    /**
+     * Start the periodic reload when the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reloadThread.scheduleWithFixedDelay(this::reload, reloadDelay, reloadDelay, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloadThread.shutdownNow();
+    }
+
+    void reload() {
+        try {
+            log.debug("Reload the shop group membership index");
+            shopGroupMembershipIndex.reload();
+        } catch (RuntimeException e) {
+            // a failed reload must not stop the next ones
+            log.error("Error reloading the shop group membership index", e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package edu.stanford.slac.core_work_management.utility;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Compact and versioned binary format for the kafka messages
+ * <p>
+ * a message is a marker byte, the version of its schema and then its fields in order, every string is
+ * written as its UTF-8 length plus one as varint (zero is null) followed by its bytes. A new version can
+ * only append fields, so a reader always reads the fields it knows and the missing ones are null.
+ * The records without the marker were written as JSON before this format and are still decoded.
+ * <p>
+ * the compatibility holds in one direction only, the consumers released before this format cannot
+ * decode it. So the producers keep writing the legacy JSON until the compact format is enabled, and it
+ * must be enabled only after all the consumers have been upgraded:
+ * <ol>
+ *     <li>deploy this version with {@code compact-message-format} disabled, the consumers now decode both formats</li>
+ *     <li>when no instance of the previous version is running, enable {@code compact-message-format}</li>
+ * </ol>
+ * to roll back after the second step, disable the compact format first and wait for the records already
+ * written to be consumed.
+ *
+ * @param <T> the type of the message
+ */
+public abstract class CompactMessageSerde<T> implements Serializer<T>, Deserializer<T> {
+    // a JSON document never starts with zero
+    private static final byte MARKER = 0x00;
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper();
+    private final byte version;
+    private final boolean compact;
+
+    /**
+     * @param version the version of the schema written by this serde
+     * @param compact true to write the compact format, false to write the legacy JSON
+     */
+    protected CompactMessageSerde(int version, boolean compact) {
+        this.version = (byte) version;
+        this.compact = compact;
+    }
+
+    @Override
+    public byte[] serialize(String topic, T message) {
+        if (message == null) return null;
+        if (!compact) {
+            ObjectNode json = LEGACY_MAPPER.createObjectNode();
+            writeLegacy(message, json);
+            try {
+                return LEGACY_MAPPER.writeValueAsBytes(json);
+            } catch (IOException e) {
+                throw new SerializationException("Error writing the message on topic %s".formatted(topic), e);
+            }
+        }
+        Writer writer = new Writer();
+        writer.buffer.write(MARKER);
+        writer.buffer.write(version);
+        write(message, writer);
+        return writer.buffer.toByteArray();
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) return null;
+        if (data.length > 0 && data[0] == MARKER) {
+            if (data.length < 2) throw new SerializationException("Truncated message on topic %s".formatted(topic));
+            return read(data[1], new Reader(data, 2));
+        }
+        try {
+            return readLegacy(LEGACY_MAPPER.readTree(data));
+        } catch (IOException e) {
+            throw new SerializationException("Unknown message format on topic %s".formatted(topic), e);
+        }
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Write the fields of the message with the current version
+     *
+     * @param message the message
+     * @param writer  the writer of the fields
+     */
+    protected abstract void write(T message, Writer writer);
+
+    /**
+     * Read the fields of a message
+     *
+     * @param version the version used to write the message
+     * @param reader  the reader of the fields
+     * @return the message
+     */
+    protected abstract T read(int version, Reader reader);
+
+    /**
+     * Read a message written as JSON
+     *
+     * @param json the JSON document
+     * @return the message
+     */
+    protected abstract T readLegacy(JsonNode json);
+
+    /**
+     * Write a message as the JSON read by the consumers released before the compact format
+     *
+     * @param message the message
+     * @param json    the JSON document to fill
+     */
+    protected abstract void writeLegacy(T message, ObjectNode json);
+
+    /**
+     * Write the fields of a message
+     */
+    protected static final class Writer {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+
+        public Writer string(String value) {
+            if (value == null) {
+                varint(0);
+                return this;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1);
+            buffer.writeBytes(bytes);
+            return this;
+        }
+
+        private void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                buffer.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer.write(value);
+        }
+    }
+
+    /**
+     * Read the fields of a message
+     */
+    protected static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        public String string() {
+            // a field appended by a later version is missing in the older messages
+            if (position >= data.length) return null;
+            int length = varint();
+            if (length == 0) return null;
+            if (position + length - 1 > data.length) throw new SerializationException("Truncated message");
+            String value = new String(data, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+
+        private int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (position >= data.length) throw new SerializationException("Truncated message");
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new SerializationException("Malformed varint");
+        }
+    }
+}
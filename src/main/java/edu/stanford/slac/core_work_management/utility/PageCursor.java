@@ -0,0 +1,95 @@
+package edu.stanford.slac.core_work_management.utility;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Keyset pagination cursor
+ * <p>
+ * identify the position of an element in a list ordered by (createdDate, id), the id
+ * break the tie between elements created in the same millisecond. The cursor is exchanged
+ * with the client as an opaque url safe token.
+ *
+ * @param createdDate the created date of the element
+ * @param id          the id of the element
+ */
+public record PageCursor(LocalDateTime createdDate, String id) {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Encode the cursor of an element
+     *
+     * @param createdDate the created date of the element
+     * @param id          the id of the element
+     * @return the opaque token or null if the element has no created date or id
+     */
+    public static String encode(LocalDateTime createdDate, String id) {
+        if (createdDate == null || id == null) return null;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((createdDate + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode an opaque token
+     *
+     * @param token the token to decode
+     * @return the cursor or empty if the token is not a valid cursor (for example a plain element id)
+     */
+    public static Optional<PageCursor> decode(String token) {
+        if (token == null || token.isEmpty()) return Optional.empty();
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.indexOf(SEPARATOR);
+            if (separatorIndex <= 0 || separatorIndex == decoded.length() - 1) return Optional.empty();
+            return Optional.of(
+                    new PageCursor(
+                            LocalDateTime.parse(decoded.substring(0, separatorIndex)),
+                            decoded.substring(separatorIndex + 1)
+                    )
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Return the criteria that select the elements that follow the cursor
+     *
+     * @return the criteria
+     */
+    public Criteria after() {
+        return new Criteria().orOperator(
+                Criteria.where("createdDate").gt(createdDate),
+                Criteria.where("createdDate").is(createdDate).and("id").gt(id)
+        );
+    }
+
+    /**
+     * Return the criteria that select the elements that precede the cursor
+     *
+     * @param inclusive true if the element of the cursor need to be selected
+     * @return the criteria
+     */
+    public Criteria before(boolean inclusive) {
+        Criteria sameDate = Criteria.where("createdDate").is(createdDate).and("id");
+        return new Criteria().orOperator(
+                Criteria.where("createdDate").lt(createdDate),
+                inclusive ? sameDate.lte(id) : sameDate.lt(id)
+        );
+    }
+
+    /**
+     * Return the opaque token for this cursor
+     *
+     * @return the token
+     */
+    public String encode() {
+        return encode(createdDate, id);
+    }
+}
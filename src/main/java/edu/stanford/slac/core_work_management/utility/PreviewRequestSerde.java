@@ -0,0 +1,55 @@
+package edu.stanford.slac.core_work_management.utility;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.stanford.slac.core_work_management.model.PreviewRequest;
+
+/**
+ * Compact format of the preview request message
+ * <p>
+ * version 1: attachment id, content type. The legacy records are the whole attachment as JSON
+ */
+public class PreviewRequestSerde extends CompactMessageSerde<PreviewRequest> {
+    public static final int VERSION = 1;
+
+    public PreviewRequestSerde() {
+        this(true);
+    }
+
+    /**
+     * @param compact true to write the compact format, false to write the legacy JSON
+     */
+    public PreviewRequestSerde(boolean compact) {
+        super(VERSION, compact);
+    }
+
+    @Override
+    protected void write(PreviewRequest message, Writer writer) {
+        writer
+                .string(message.getAttachmentId())
+                .string(message.getContentType());
+    }
+
+    @Override
+    protected PreviewRequest read(int version, Reader reader) {
+        return PreviewRequest.builder()
+                .attachmentId(reader.string())
+                .contentType(reader.string())
+                .build();
+    }
+
+    @Override
+    protected PreviewRequest readLegacy(JsonNode json) {
+        return PreviewRequest.builder()
+                .attachmentId(json.path("id").asText(null))
+                .contentType(json.path("contentType").asText(null))
+                .build();
+    }
+
+    @Override
+    protected void writeLegacy(PreviewRequest message, ObjectNode json) {
+        // the legacy consumers read the attachment, only the fields used by the preview are written
+        json.put("id", message.getAttachmentId());
+        json.put("contentType", message.getContentType());
+    }
+}
@@ -0,0 +1,54 @@
+package edu.stanford.slac.core_work_management.utility;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
+
+/**
+ * Compact format of the workflow update message
+ * <p>
+ * version 1: domain id, work id
+ */
+public class ProcessWorkflowInfoSerde extends CompactMessageSerde<ProcessWorkflowInfo> {
+    public static final int VERSION = 1;
+
+    public ProcessWorkflowInfoSerde() {
+        this(true);
+    }
+
+    /**
+     * @param compact true to write the compact format, false to write the legacy JSON
+     */
+    public ProcessWorkflowInfoSerde(boolean compact) {
+        super(VERSION, compact);
+    }
+
+    @Override
+    protected void write(ProcessWorkflowInfo message, Writer writer) {
+        writer
+                .string(message.getDomainId())
+                .string(message.getWorkId());
+    }
+
+    @Override
+    protected ProcessWorkflowInfo read(int version, Reader reader) {
+        return ProcessWorkflowInfo.builder()
+                .domainId(reader.string())
+                .workId(reader.string())
+                .build();
+    }
+
+    @Override
+    protected ProcessWorkflowInfo readLegacy(JsonNode json) {
+        return ProcessWorkflowInfo.builder()
+                .domainId(json.path("domainId").asText(null))
+                .workId(json.path("workId").asText(null))
+                .build();
+    }
+
+    @Override
+    protected void writeLegacy(ProcessWorkflowInfo message, ObjectNode json) {
+        json.put("domainId", message.getDomainId());
+        json.put("workId", message.getWorkId());
+    }
+}
@@ -8,6 +8,7 @@ import edu.stanford.slac.core_work_management.api.v1.mapper.DomainMapper
 import edu.stanford.slac.core_work_management.exception.WorkflowDeniedAction
 import edu.stanford.slac.core_work_management.model.UpdateWorkflowState
 import edu.stanford.slac.core_work_management.model.Work
+import edu.stanford.slac.core_work_management.model.WorkChildrenSummary
 import edu.stanford.slac.core_work_management.repository.WorkRepository
 import edu.stanford.slac.core_work_management.service.ShopGroupService
 import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidation
@@ -72,9 +73,9 @@ class TECHardwareReportValidation extends WorkTypeValidation {
 
 
     private void manageReviewToCodeState(BaseWorkflow workflowInstance, Work work, UpdateWorkflowState updateWorkflowState) {
-        List<Work> children = workRepository.findByDomainIdAndParentWorkId(work.getDomainId(), work.getId());
-        boolean childrenInReadyForWork = children.stream().anyMatch(w -> w.getCurrentStatus().getStatus() == WorkflowState.ReadyForWork);
-        boolean childrenInProgress = children.stream().anyMatch(w -> EnumSet.of(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose).contains(w.getCurrentStatus().getStatus()));
+        WorkChildrenSummary children = getChildrenSummary(work)
+        boolean childrenInReadyForWork = children.anyIn(WorkflowState.ReadyForWork)
+        boolean childrenInProgress = children.anyIn(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose)
         if (childrenInProgress) {
             workflowInstance.moveToState(work, UpdateWorkflowState.builder().newState(WorkflowState.InProgress).build());
         } else if (childrenInReadyForWork) {
@@ -85,9 +86,9 @@ class TECHardwareReportValidation extends WorkTypeValidation {
     }
 
     private void manageInProgressState(BaseWorkflow workflowInstance, Work work) {
-        List<Work> children = workRepository.findByDomainIdAndParentWorkId(work.getDomainId(), work.getId());
-        boolean childrenInReadyForWork = children.stream().anyMatch(w -> w.getCurrentStatus().getStatus() == WorkflowState.ReadyForWork);
-        boolean childrenInProgress = children.stream().anyMatch(w -> EnumSet.of(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose).contains(w.getCurrentStatus().getStatus()));
+        WorkChildrenSummary children = getChildrenSummary(work)
+        boolean childrenInReadyForWork = children.anyIn(WorkflowState.ReadyForWork)
+        boolean childrenInProgress = children.anyIn(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose)
          if (!childrenInProgress && !childrenInReadyForWork) {
             workflowInstance.moveToState(work, UpdateWorkflowState.builder().newState(WorkflowState.ReviewToClose).build());
         } else if (!childrenInProgress && childrenInReadyForWork) {
@@ -96,9 +97,9 @@ class TECHardwareReportValidation extends WorkTypeValidation {
     }
 
     private void manageScheduledState(BaseWorkflow workflowInstance, Work work) {
-        List<Work> children = workRepository.findByDomainIdAndParentWorkId(work.getDomainId(), work.getId());
-        boolean childrenInReadyForWork = children.stream().anyMatch(w -> w.getCurrentStatus().getStatus() == WorkflowState.ReadyForWork);
-        boolean childrenInProgress = children.stream().anyMatch(w -> EnumSet.of(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose).contains(w.getCurrentStatus().getStatus()));
+        WorkChildrenSummary children = getChildrenSummary(work)
+        boolean childrenInReadyForWork = children.anyIn(WorkflowState.ReadyForWork)
+        boolean childrenInProgress = children.anyIn(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose)
         if (!childrenInProgress && !childrenInReadyForWork) {
             workflowInstance.moveToState(work, UpdateWorkflowState.builder().newState(WorkflowState.ReviewToClose).build());
         } else if (childrenInProgress) {
@@ -107,9 +108,9 @@ class TECHardwareReportValidation extends WorkTypeValidation {
     }
 
     private void manageInCreateState(BaseWorkflow workflowInstance, Work work) {
-        List<Work> children = workRepository.findByDomainIdAndParentWorkId(work.getDomainId(), work.getId());
-        boolean childrenInReadyForWork = children.stream().anyMatch(w -> w.getCurrentStatus().getStatus() == WorkflowState.ReadyForWork);
-        boolean childrenInProgress = children.stream().anyMatch(w -> EnumSet.of(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose).contains(w.getCurrentStatus().getStatus()));
+        WorkChildrenSummary children = getChildrenSummary(work)
+        boolean childrenInReadyForWork = children.anyIn(WorkflowState.ReadyForWork)
+        boolean childrenInProgress = children.anyIn(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose)
         if (childrenInProgress) {
             workflowInstance.moveToState(work, UpdateWorkflowState.builder().newState(WorkflowState.InProgress).build());
         } else if (childrenInReadyForWork) {
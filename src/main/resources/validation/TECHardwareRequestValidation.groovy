@@ -3,7 +3,6 @@ package validation
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException
 import edu.stanford.slac.ad.eed.baselib.exception.PersonNotFound
 import edu.stanford.slac.ad.eed.baselib.service.AuthService
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService
 import edu.stanford.slac.core_work_management.api.v1.dto.BucketSlotDTO
 import edu.stanford.slac.core_work_management.api.v1.dto.UpdateWorkDTO
 import edu.stanford.slac.core_work_management.api.v1.dto.WorkDTO
@@ -21,6 +20,7 @@ import edu.stanford.slac.core_work_management.repository.EventTriggerRepository
 import edu.stanford.slac.core_work_management.repository.WorkRepository
 import edu.stanford.slac.core_work_management.service.AttachmentService
 import edu.stanford.slac.core_work_management.service.BucketService
+import edu.stanford.slac.core_work_management.service.PersonResolverService
 import edu.stanford.slac.core_work_management.service.validation.ValidationResult
 import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidation
 import edu.stanford.slac.core_work_management.service.workflow.*
@@ -40,17 +40,17 @@ class TECHardwareRequestValidation extends WorkTypeValidation {
     private final WorkRepository workRepository;
     private final BucketService bucketService;
     private final AttachmentService attachmentService;
-    private final PeopleGroupService peopleGroupService;
+    private final PersonResolverService personResolverService;
     private final EventTriggerRepository eventTriggerRepository;
 
-    TECHardwareRequestValidation(Clock clock, AuthService authService, DomainMapper domainMapper, WorkRepository workRepository, BucketService bucketService, AttachmentService attachmentService, PeopleGroupService peopleGroupService, EventTriggerRepository eventTriggerRepository) {
+    TECHardwareRequestValidation(Clock clock, AuthService authService, DomainMapper domainMapper, WorkRepository workRepository, BucketService bucketService, AttachmentService attachmentService, PersonResolverService personResolverService, EventTriggerRepository eventTriggerRepository) {
         this.clock = clock
         this.authService = authService
         this.domainMapper = domainMapper
         this.workRepository = workRepository
         this.bucketService = bucketService
         this.attachmentService = attachmentService
-        this.peopleGroupService = peopleGroupService
+        this.personResolverService = personResolverService
         this.eventTriggerRepository = eventTriggerRepository
     }
 
@@ -331,7 +331,7 @@ class TECHardwareRequestValidation extends WorkTypeValidation {
         }
 
         // check if the work has been assigned to someone
-        checkAssignedTo(peopleGroupService, work, validationResults);
+        checkAssignedTo(personResolverService, work, validationResults);
 
         // check if we have some errors
         checkAndFireError(validationResults)
@@ -0,0 +1,99 @@
+package edu.stanford.slac.core_work_management.configuration;
+
+import edu.stanford.slac.core_work_management.model.Attachment;
+import edu.stanford.slac.core_work_management.model.PreviewRequest;
+import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
+import edu.stanford.slac.core_work_management.utility.PreviewRequestSerde;
+import edu.stanford.slac.core_work_management.utility.ProcessWorkflowInfoSerde;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CompactMessageSerdeTest {
+    private static final String TOPIC = "test-topic";
+    private final ProcessWorkflowInfoSerde processWorkflowInfoSerde = new ProcessWorkflowInfoSerde();
+    private final PreviewRequestSerde previewRequestSerde = new PreviewRequestSerde();
+
+    @Test
+    public void roundTripProcessWorkflowInfo() {
+        var message = ProcessWorkflowInfo.builder().domainId("domain-id").workId("work-id").build();
+        byte[] encoded = processWorkflowInfoSerde.serialize(TOPIC, message);
+        assertThat(processWorkflowInfoSerde.deserialize(TOPIC, encoded)).isEqualTo(message);
+
+        // the compact message is smaller than the JSON one
+        try (var jsonSerializer = new JsonSerializer<ProcessWorkflowInfo>()) {
+            assertThat(encoded.length).isLessThan(jsonSerializer.serialize(TOPIC, message).length);
+        }
+    }
+
+    @Test
+    public void roundTripPreviewRequestWithNullField() {
+        var message = PreviewRequest.builder().attachmentId("attachment-id").build();
+        var decoded = previewRequestSerde.deserialize(TOPIC, previewRequestSerde.serialize(TOPIC, message));
+        assertThat(decoded.getAttachmentId()).isEqualTo("attachment-id");
+        assertThat(decoded.getContentType()).isNull();
+    }
+
+    @Test
+    public void decodeLegacyAttachmentJson() {
+        // the records written before the compact format hold the whole attachment
+        String legacy = """
+                {"id":"attachment-id","fileName":"file.ps","contentType":"application/postscript","previewID":null,"miniPreview":null,"inUse":false}
+                """;
+        var decoded = previewRequestSerde.deserialize(TOPIC, legacy.getBytes(StandardCharsets.UTF_8));
+        assertThat(decoded.getAttachmentId()).isEqualTo("attachment-id");
+        assertThat(decoded.getContentType()).isEqualTo("application/postscript");
+    }
+
+    @Test
+    public void legacyFormatIsReadByThePreviousConsumers() {
+        // until the compact format is enabled the producers write the JSON of the previous release
+        var legacyProcessWorkflowInfoSerde = new ProcessWorkflowInfoSerde(false);
+        var workflowMessage = ProcessWorkflowInfo.builder().domainId("domain-id").workId("work-id").build();
+        byte[] workflowEncoded = legacyProcessWorkflowInfoSerde.serialize(TOPIC, workflowMessage);
+        try (var previousDeserializer = new JsonDeserializer<>(ProcessWorkflowInfo.class, false)) {
+            assertThat(previousDeserializer.deserialize(TOPIC, workflowEncoded)).isEqualTo(workflowMessage);
+        }
+        assertThat(processWorkflowInfoSerde.deserialize(TOPIC, workflowEncoded)).isEqualTo(workflowMessage);
+
+        var legacyPreviewRequestSerde = new PreviewRequestSerde(false);
+        var previewMessage = PreviewRequest.builder().attachmentId("attachment-id").contentType("image/png").build();
+        byte[] previewEncoded = legacyPreviewRequestSerde.serialize(TOPIC, previewMessage);
+        try (var previousDeserializer = new JsonDeserializer<>(Attachment.class, false)) {
+            var attachment = previousDeserializer.deserialize(TOPIC, previewEncoded);
+            assertThat(attachment.getId()).isEqualTo("attachment-id");
+            assertThat(attachment.getContentType()).isEqualTo("image/png");
+        }
+        assertThat(previewRequestSerde.deserialize(TOPIC, previewEncoded)).isEqualTo(previewMessage);
+    }
+
+    @Test
+    public void decodeMessageWithAppendedField() {
+        // a later version can append fields that an older reader ignores
+        byte[] encoded = previewRequestSerde.serialize(TOPIC, PreviewRequest.builder().attachmentId("id").contentType("image/png").build());
+        byte[] appended = Arrays.copyOf(encoded, encoded.length + 4);
+        appended[1] = PreviewRequestSerde.VERSION + 1;
+        appended[encoded.length] = 4;
+        appended[encoded.length + 1] = 'n';
+        appended[encoded.length + 2] = 'e';
+        appended[encoded.length + 3] = 'w';
+        var decoded = previewRequestSerde.deserialize(TOPIC, appended);
+        assertThat(decoded.getAttachmentId()).isEqualTo("id");
+        assertThat(decoded.getContentType()).isEqualTo("image/png");
+    }
+
+    @Test
+    public void truncatedMessageFails() {
+        byte[] encoded = previewRequestSerde.serialize(TOPIC, PreviewRequest.builder().attachmentId("attachment-id").build());
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 3);
+        assertThrows(SerializationException.class, () -> previewRequestSerde.deserialize(TOPIC, truncated));
+        assertThrows(SerializationException.class, () -> previewRequestSerde.deserialize(TOPIC, new byte[]{0}));
+    }
+}
@@ -0,0 +1,160 @@
+package edu.stanford.slac.core_work_management.consumer;
+
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test the PostScript conversion pool with a local fake converter, so ghostscript is not needed
+ */
+public class PostScriptConversionServiceTest {
+    private static final byte[] PS_CONTENT = "%!PS\nshowpage\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void renderWithFakeConverter() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PostScriptConversionService service = createService(PostScriptConversionServiceTest::writeBlankPDF, 1, 1, meterRegistry);
+        try {
+            var previews = assertDoesNotThrow(
+                    () -> service.submit(new ByteArrayInputStream(PS_CONTENT)).get(30, SECONDS)
+            );
+            assertThat(previews.preview().length).isGreaterThan(0);
+            assertThat(previews.miniPreview().length).isGreaterThan(0);
+            assertThat(meterRegistry.get("cwm_ps_conversion").tag("result", "success").timer().count()).isEqualTo(1L);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void timeoutIsReported() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PostScriptConversionService service = createService(
+                (psFile, pdfFile, timeout) -> {
+                    throw new TimeoutException("fake timeout");
+                },
+                1,
+                1,
+                meterRegistry
+        );
+        try {
+            var future = assertDoesNotThrow(() -> service.submit(new ByteArrayInputStream(PS_CONTENT)));
+            var error = assertThrows(ExecutionException.class, () -> future.get(30, SECONDS));
+            assertThat(error.getCause()).isInstanceOf(TimeoutException.class);
+            assertThat(meterRegistry.get("cwm_ps_conversion_timeout").counter().count()).isEqualTo(1.0);
+            assertThat(meterRegistry.get("cwm_ps_conversion").tag("result", "failed").timer().count()).isEqualTo(1L);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void submitBlocksWhenQueueIsFull() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        PostScriptConversionService service = createService(
+                (psFile, pdfFile, timeout) -> {
+                    release.await();
+                    writeBlankPDF(psFile, pdfFile, timeout);
+                },
+                1,
+                1,
+                meterRegistry
+        );
+        try {
+            // one conversion in progress and one in the queue
+            var running = assertDoesNotThrow(() -> service.submit(new ByteArrayInputStream(PS_CONTENT)));
+            var queued = assertDoesNotThrow(() -> service.submit(new ByteArrayInputStream(PS_CONTENT)));
+            await().atMost(5, SECONDS).until(() -> meterRegistry.get("cwm_ps_conversion_queue").gauge().value() == 1.0);
+
+            // the third submission waits for a free slot
+            CompletableFuture<CompletableFuture<PreviewRenderer.Previews>> blocked = CompletableFuture.supplyAsync(
+                    () -> assertDoesNotThrow(() -> service.submit(new ByteArrayInputStream(PS_CONTENT)))
+            );
+            assertThrows(TimeoutException.class, () -> blocked.get(500, MILLISECONDS));
+
+            release.countDown();
+            assertDoesNotThrow(() -> running.get(30, SECONDS));
+            assertDoesNotThrow(() -> queued.get(30, SECONDS));
+            assertDoesNotThrow(() -> blocked.get(30, SECONDS).get(30, SECONDS));
+            assertThat(meterRegistry.get("cwm_ps_conversion").tag("result", "success").timer().count()).isEqualTo(3L);
+        } finally {
+            release.countDown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void submitIsRejectedWhenQueueStaysFull() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        PostScriptConversionService service = createService(
+                (psFile, pdfFile, timeout) -> {
+                    release.await();
+                    writeBlankPDF(psFile, pdfFile, timeout);
+                },
+                1,
+                1,
+                Duration.ofMillis(200),
+                meterRegistry
+        );
+        try {
+            // one conversion in progress and one in the queue
+            var running = assertDoesNotThrow(() -> service.submit(new ByteArrayInputStream(PS_CONTENT)));
+            var queued = assertDoesNotThrow(() -> service.submit(new ByteArrayInputStream(PS_CONTENT)));
+            await().atMost(5, SECONDS).until(() -> meterRegistry.get("cwm_ps_conversion_queue").gauge().value() == 1.0);
+
+            // the third submission gives up after the queue wait, so the record can be retried
+            assertThrows(RejectedExecutionException.class, () -> service.submit(new ByteArrayInputStream(PS_CONTENT)));
+            assertThat(meterRegistry.get("cwm_ps_conversion_rejected").counter().count()).isEqualTo(1.0);
+
+            release.countDown();
+            assertDoesNotThrow(() -> running.get(30, SECONDS));
+            assertDoesNotThrow(() -> queued.get(30, SECONDS));
+        } finally {
+            release.countDown();
+            service.shutdown();
+        }
+    }
+
+    private static PostScriptConversionService createService(PostScriptConverter converter, int workers, int queueCapacity, MeterRegistry meterRegistry) {
+        return createService(converter, workers, queueCapacity, Duration.ofSeconds(30), meterRegistry);
+    }
+
+    private static PostScriptConversionService createService(PostScriptConverter converter, int workers, int queueCapacity, Duration queueWait, MeterRegistry meterRegistry) {
+        CWMAppProperties cwmAppProperties = new CWMAppProperties();
+        cwmAppProperties.setPsConversionWorkers(workers);
+        cwmAppProperties.setPsConversionQueueCapacity(queueCapacity);
+        cwmAppProperties.setPsConversionTimeout(Duration.ofSeconds(5));
+        cwmAppProperties.setPsConversionQueueWait(queueWait);
+        return new PostScriptConversionService(converter, new PreviewRenderer(), cwmAppProperties, meterRegistry);
+    }
+
+    /**
+     * Fake conversion that write a blank letter page
+     */
+    private static void writeBlankPDF(Path psFile, Path pdfFile, Duration timeout) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage(PDRectangle.LETTER));
+            document.save(pdfFile.toFile());
+        }
+    }
+}
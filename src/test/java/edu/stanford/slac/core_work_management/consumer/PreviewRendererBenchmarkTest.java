@@ -0,0 +1,165 @@
+package edu.stanford.slac.core_work_management.consumer;
+
+import net.coobird.thumbnailator.Thumbnails;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+/**
+ * Compare the memory allocated by the preview rendering pipeline with the previous implementation,
+ * that loaded the whole content in memory, rendered the PDF at 300 DPI and decoded the image once
+ * for every preview size.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class PreviewRendererBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(PreviewRendererBenchmarkTest.class);
+    private static final int ITERATIONS = 3;
+    private final PreviewRenderer previewRenderer = new PreviewRenderer();
+    private final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private Path jpegFile;
+    private Path pngFile;
+    private Path pdfFile;
+
+    @BeforeAll
+    public void createContent() throws IOException {
+        BufferedImage image = new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.BLUE, 4000, 3000, Color.ORANGE));
+        g.fillRect(0, 0, 4000, 3000);
+        g.dispose();
+        jpegFile = Files.createTempFile("benchmark", ".jpg");
+        ImageIO.write(image, "jpg", jpegFile.toFile());
+        pngFile = Files.createTempFile("benchmark", ".png");
+        ImageIO.write(image, "png", pngFile.toFile());
+
+        pdfFile = Files.createTempFile("benchmark", ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            document.addPage(page);
+            try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                contents.beginText();
+                contents.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 14);
+                contents.newLineAtOffset(100, 700);
+                for (int i = 0; i < 40; i++) {
+                    contents.showText("preview rendering benchmark line %d".formatted(i));
+                    contents.newLineAtOffset(0, -15);
+                }
+                contents.endText();
+            }
+            document.save(pdfFile.toFile());
+        }
+    }
+
+    @AfterAll
+    public void deleteContent() throws IOException {
+        Files.deleteIfExists(jpegFile);
+        Files.deleteIfExists(pngFile);
+        Files.deleteIfExists(pdfFile);
+    }
+
+    @Test
+    public void benchmarkJpeg() {
+        long pipeline = measure("jpeg", "pipeline", jpegFile, is -> checkPreviews(previewRenderer.renderImage(is)));
+        long legacy = measure("jpeg", "legacy", jpegFile, PreviewRendererBenchmarkTest::legacyImage);
+        assertThat(pipeline).isLessThan(legacy);
+    }
+
+    @Test
+    public void benchmarkPng() {
+        long pipeline = measure("png", "pipeline", pngFile, is -> checkPreviews(previewRenderer.renderImage(is)));
+        long legacy = measure("png", "legacy", pngFile, PreviewRendererBenchmarkTest::legacyImage);
+        assertThat(pipeline).isLessThan(legacy);
+    }
+
+    @Test
+    public void benchmarkPdf() {
+        long pipeline = measure("pdf", "pipeline", pdfFile, is -> checkPreviews(previewRenderer.renderPDF(is)));
+        long legacy = measure("pdf", "legacy", pdfFile, PreviewRendererBenchmarkTest::legacyPDF);
+        assertThat(pipeline).isLessThan(legacy);
+    }
+
+    /**
+     * Run the rendering some times and report the peak of the memory allocated by a single run
+     *
+     * @return the peak of the allocated bytes
+     */
+    private long measure(String format, String implementation, Path content, Render render) {
+        // warm up the readers and the renderers
+        assertDoesNotThrow(() -> runOnce(content, render));
+        long peak = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = threadMXBean.getCurrentThreadAllocatedBytes();
+            assertDoesNotThrow(() -> runOnce(content, render));
+            peak = Math.max(peak, threadMXBean.getCurrentThreadAllocatedBytes() - start);
+        }
+        log.info("Preview of {} with the {} implementation allocated at most {} KB per run", format, implementation, peak / 1024);
+        return peak;
+    }
+
+    private static void runOnce(Path content, Render render) throws IOException {
+        try (InputStream is = Files.newInputStream(content)) {
+            render.run(is);
+        }
+    }
+
+    private static void checkPreviews(PreviewRenderer.Previews previews) throws IOException {
+        BufferedImage preview = ImageIO.read(new ByteArrayInputStream(previews.preview()));
+        assertThat(Math.max(preview.getWidth(), preview.getHeight())).isEqualTo(PreviewRenderer.PREVIEW_SIZE);
+        BufferedImage miniPreview = ImageIO.read(new ByteArrayInputStream(previews.miniPreview()));
+        assertThat(Math.max(miniPreview.getWidth(), miniPreview.getHeight())).isEqualTo(PreviewRenderer.MINI_PREVIEW_SIZE);
+    }
+
+    private static void legacyImage(InputStream is) throws IOException {
+        legacyThumbnails(is.readAllBytes());
+    }
+
+    private static void legacyPDF(InputStream is) throws IOException {
+        try (PDDocument document = Loader.loadPDF(is.readAllBytes())) {
+            BufferedImage bufferedImage = new PDFRenderer(document).renderImageWithDPI(0, 300);
+            ByteArrayOutputStream jpegBAOS = new ByteArrayOutputStream();
+            ImageIO.write(bufferedImage, "JPEG", jpegBAOS);
+            legacyThumbnails(jpegBAOS.toByteArray());
+        }
+    }
+
+    private static void legacyThumbnails(byte[] imageBytes) throws IOException {
+        Thumbnails.of(new ByteArrayInputStream(imageBytes))
+                .size(1024, 1024)
+                .outputFormat("jpg")
+                .toOutputStream(new ByteArrayOutputStream());
+        Thumbnails.of(new ByteArrayInputStream(imageBytes))
+                .size(32, 32)
+                .outputFormat("jpg")
+                .toOutputStream(new ByteArrayOutputStream());
+    }
+
+    @FunctionalInterface
+    private interface Render {
+        void run(InputStream is) throws IOException;
+    }
+}
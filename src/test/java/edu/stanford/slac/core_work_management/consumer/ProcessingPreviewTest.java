@@ -0,0 +1,107 @@
+package edu.stanford.slac.core_work_management.consumer;
+
+import edu.stanford.slac.core_work_management.api.v1.dto.StorageObjectDTO;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.model.Attachment;
+import edu.stanford.slac.core_work_management.model.PreviewRequest;
+import edu.stanford.slac.core_work_management.repository.StorageRepository;
+import edu.stanford.slac.core_work_management.service.AttachmentService;
+import io.micrometer.core.instrument.Counter;
+import net.coobird.thumbnailator.tasks.UnsupportedFormatException;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test the completion of the PostScript previews with mocked services, so no broker is needed
+ */
+public class ProcessingPreviewTest {
+    private static final String PREVIEW_TOPIC = "preview";
+    private AttachmentService attachmentService;
+    private PostScriptConversionService postScriptConversionService;
+    private KafkaTemplate<String, PreviewRequest> previewRequestKafkaTemplate;
+    private ProcessingPreview processingPreview;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void prepare() {
+        attachmentService = mock(AttachmentService.class);
+        postScriptConversionService = mock(PostScriptConversionService.class);
+        previewRequestKafkaTemplate = mock(KafkaTemplate.class);
+        when(previewRequestKafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+        when(attachmentService.getAttachmentContent("attachment-id")).thenAnswer(
+                invocation -> StorageObjectDTO.builder().file(new ByteArrayInputStream(new byte[]{1})).build()
+        );
+        CWMAppProperties cwmAppProperties = new CWMAppProperties();
+        cwmAppProperties.setImagePreviewTopic(PREVIEW_TOPIC);
+        processingPreview = new ProcessingPreview(
+                attachmentService,
+                mock(StorageRepository.class),
+                mock(PreviewRenderer.class),
+                postScriptConversionService,
+                mock(Counter.class),
+                mock(Counter.class),
+                mock(Counter.class),
+                previewRequestKafkaTemplate,
+                cwmAppProperties
+        );
+    }
+
+    @Test
+    public void conversionTimeoutIsSentToTheRetryTopic() throws Exception {
+        var record = processFailedConversion(PREVIEW_TOPIC, new TimeoutException("conversion timeout"));
+        assertThat(record.topic()).isEqualTo("preview-retry-0");
+        assertThat(record.key()).isEqualTo("attachment-id");
+        assertThat(record.headers().lastHeader(RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP)).isNotNull();
+        verify(attachmentService).setPreviewProcessingState("attachment-id", Attachment.PreviewProcessingState.Error);
+    }
+
+    @Test
+    public void lastRetryIsSentToTheDeadLetterTopic() throws Exception {
+        var record = processFailedConversion("preview-retry-1", new IOException("gs exit code 1"));
+        assertThat(record.topic()).isEqualTo("preview-dlt");
+    }
+
+    @Test
+    public void unsupportedPostScriptIsNotRetried() throws Exception {
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        when(postScriptConversionService.submit(any()))
+                .thenReturn(CompletableFuture.failedFuture(new UnsupportedFormatException("not a PostScript")));
+        processingPreview.processPreview(previewRequest(), acknowledgment, PREVIEW_TOPIC, 0);
+
+        verify(previewRequestKafkaTemplate, never()).send(any(ProducerRecord.class));
+        verify(attachmentService).setPreviewProcessingState("attachment-id", Attachment.PreviewProcessingState.PreviewNotAvailable);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, PreviewRequest> processFailedConversion(String topic, Throwable error) throws Exception {
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        when(postScriptConversionService.submit(any()))
+                .thenReturn(CompletableFuture.failedFuture(error));
+        processingPreview.processPreview(previewRequest(), acknowledgment, topic, 0);
+
+        ArgumentCaptor<ProducerRecord<String, PreviewRequest>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(previewRequestKafkaTemplate).send(sent.capture());
+        verify(acknowledgment).acknowledge();
+        assertThat(sent.getValue().value()).isEqualTo(previewRequest());
+        return sent.getValue();
+    }
+
+    private static PreviewRequest previewRequest() {
+        return PreviewRequest.builder().attachmentId("attachment-id").contentType("application/postscript").build();
+    }
+}
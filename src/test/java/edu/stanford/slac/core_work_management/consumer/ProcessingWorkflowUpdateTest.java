@@ -0,0 +1,103 @@
+package edu.stanford.slac.core_work_management.consumer;
+
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.exception.WorkNotFound;
+import edu.stanford.slac.core_work_management.model.EmbeddableWorkType;
+import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkStatusLog;
+import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import edu.stanford.slac.core_work_management.service.DomainService;
+import edu.stanford.slac.core_work_management.service.WorkService;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test the workflow consumer with mocked services, so no broker is needed
+ */
+public class ProcessingWorkflowUpdateTest {
+    private static final String DOMAIN_ID = "domain-id";
+
+    @Test
+    public void missingParentDoesNotSkipTheOtherParents() {
+        WorkRepository workRepository = mock(WorkRepository.class);
+        WorkService workService = mock(WorkService.class);
+        DomainService domainService = mock(DomainService.class);
+        List.of("child-1", "child-2", "child-3").forEach(
+                childId -> when(workRepository.findByDomainIdAndId(DOMAIN_ID, childId)).thenReturn(Optional.of(childWork(childId)))
+        );
+        // the parent of the second child has been deleted
+        doThrow(WorkNotFound.notFoundById().errorCode(-1).workId("parent-child-2").build())
+                .when(workService)
+                .updateParentWorkWorkflow(eq(DOMAIN_ID), argThat((Collection<String> ids) -> ids.contains("parent-child-2")));
+
+        ProcessingWorkflowUpdate processingWorkflowUpdate = new ProcessingWorkflowUpdate(workRepository, workService, domainService, new CWMAppProperties());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        processingWorkflowUpdate.processWorkWorkflow(
+                List.of(record("child-1", 0), record("child-2", 1), record("child-3", 2)),
+                acknowledgment
+        );
+
+        // the other parents are still recalculated and the batch is acknowledged
+        verify(workService).updateParentWorkWorkflow(DOMAIN_ID, List.of("parent-child-1"));
+        verify(workService).updateParentWorkWorkflow(DOMAIN_ID, List.of("parent-child-3"));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void failingSummaryUpdateDoesNotRetryTheSavedWork() {
+        WorkRepository workRepository = mock(WorkRepository.class);
+        WorkService workService = mock(WorkService.class);
+        DomainService domainService = mock(DomainService.class);
+        Work work = childWork("child-1");
+        when(workRepository.findByDomainIdAndId(DOMAIN_ID, "child-1")).thenReturn(Optional.of(work));
+        // the workflow move the work to a new status
+        doAnswer(
+                invocation -> {
+                    work.setCurrentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build());
+                    return null;
+                }
+        ).when(workService).updateWorkWorkflow(any(), any());
+        doThrow(new RuntimeException("summary update failed"))
+                .when(workService)
+                .updateParentChildrenSummary(any(), any());
+
+        ProcessingWorkflowUpdate processingWorkflowUpdate = new ProcessingWorkflowUpdate(workRepository, workService, domainService, new CWMAppProperties());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        processingWorkflowUpdate.processWorkWorkflow(List.of(record("child-1", 0)), acknowledgment);
+
+        // the work is saved once and the status change is applied once from the status before the update
+        verify(workRepository, times(1)).save(work);
+        verify(workService, times(1)).updateParentChildrenSummary(work, WorkflowState.Created);
+        verify(domainService, times(1)).updateDomainStatistics(DOMAIN_ID, "work-type-id", WorkflowState.Created, WorkflowState.InProgress);
+        verify(acknowledgment).acknowledge();
+    }
+
+    private static ConsumerRecord<String, ProcessWorkflowInfo> record(String workId, long offset) {
+        return new ConsumerRecord<>(
+                "workflow-processing",
+                0,
+                offset,
+                "%s/%s".formatted(DOMAIN_ID, workId),
+                ProcessWorkflowInfo.builder().domainId(DOMAIN_ID).workId(workId).build()
+        );
+    }
+
+    private static Work childWork(String workId) {
+        return Work.builder()
+                .id(workId)
+                .domainId(DOMAIN_ID)
+                .parentWorkId("parent-%s".formatted(workId))
+                .workType(EmbeddableWorkType.builder().id("work-type-id").build())
+                .build();
+    }
+}
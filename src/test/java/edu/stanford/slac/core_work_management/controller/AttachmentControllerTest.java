@@ -1,11 +1,13 @@
 package edu.stanford.slac.core_work_management.controller;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ApiResultResponse;
+import edu.stanford.slac.ad.eed.baselib.auth.JWTHelper;
 import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
 import edu.stanford.slac.ad.eed.baselib.model.Authorization;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.core_work_management.config.CWMAppProperties;
 import edu.stanford.slac.core_work_management.model.Attachment;
+import edu.stanford.slac.core_work_management.model.StorageBlob;
 import edu.stanford.slac.core_work_management.service.AttachmentService;
 import edu.stanford.slac.core_work_management.service.DocumentGenerationService;
 import org.apache.kafka.clients.admin.AdminClient;
@@ -22,12 +24,14 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
@@ -35,6 +39,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -62,10 +68,13 @@ public class AttachmentControllerTest {
     private CWMAppProperties cwmAppProperties;
     @Autowired
     private KafkaAdmin kafkaAdmin;
+    @Autowired
+    private JWTHelper jwtHelper;
 
     @BeforeEach
     public void preTest() {
         mongoTemplate.remove(new Query(), Attachment.class);
+        mongoTemplate.remove(new Query(), StorageBlob.class);
         mongoTemplate.remove(new Query(), Authorization.class);
         mongoTemplate.getCollection("fs.files").deleteMany(new Document());
         mongoTemplate.getCollection("fs.chunks").deleteMany(new Document());
@@ -120,4 +129,73 @@ public class AttachmentControllerTest {
 
         AssertionsForClassTypes.assertThat(retrivedAttachment).isNotNull();
     }
+
+    @Test
+    public void downloadAttachmentRange() throws Exception {
+        ApiResultResponse<String> newAttachmentID = testControllerHelperService.attachmentControllerCreateNew(
+                mockMvc,
+                status().isCreated(),
+                Optional.of(
+                        "user1@slac.stanford.edu"
+                ),
+                new MockMultipartFile(
+                        "uploadFile",
+                        "data.txt",
+                        MediaType.TEXT_PLAIN_VALUE,
+                        "0123456789".getBytes(StandardCharsets.UTF_8)
+                )
+        );
+        String jwt = jwtHelper.generateJwt("user1@slac.stanford.edu");
+
+        // the full content with the validators
+        MvcResult fullResult = mockMvc.perform(
+                        get("/v1/attachment/{id}/download", newAttachmentID.getPayload())
+                                .header(appProperties.getUserHeaderName(), jwt)
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andReturn();
+        String etag = fullResult.getResponse().getHeader(HttpHeaders.ETAG);
+        AssertionsForClassTypes.assertThat(etag).isNotNull();
+        AssertionsForClassTypes.assertThat(fullResult.getResponse().getContentAsString()).isEqualTo("0123456789");
+
+        // a single range
+        MvcResult rangeResult = mockMvc.perform(
+                        get("/v1/attachment/{id}/download", newAttachmentID.getPayload())
+                                .header(appProperties.getUserHeaderName(), jwt)
+                                .header(HttpHeaders.RANGE, "bytes=2-5")
+                                .header(HttpHeaders.IF_RANGE, etag)
+                )
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andReturn();
+        AssertionsForClassTypes.assertThat(rangeResult.getResponse().getContentAsString()).isEqualTo("2345");
+
+        // the range is ignored if the content has changed
+        mockMvc.perform(
+                        get("/v1/attachment/{id}/download", newAttachmentID.getPayload())
+                                .header(appProperties.getUserHeaderName(), jwt)
+                                .header(HttpHeaders.RANGE, "bytes=2-5")
+                                .header(HttpHeaders.IF_RANGE, "\"another-etag\"")
+                )
+                .andExpect(status().isOk());
+
+        // a range after the end of the content
+        mockMvc.perform(
+                        get("/v1/attachment/{id}/download", newAttachmentID.getPayload())
+                                .header(appProperties.getUserHeaderName(), jwt)
+                                .header(HttpHeaders.RANGE, "bytes=20-")
+                )
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+
+        // not modified
+        mockMvc.perform(
+                        get("/v1/attachment/{id}/download", newAttachmentID.getPayload())
+                                .header(appProperties.getUserHeaderName(), jwt)
+                                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                )
+                .andExpect(status().isNotModified());
+    }
 }
@@ -611,6 +611,37 @@ public class TestControllerHelperService {
         );
     }
 
+    /**
+     * Create many works with a single request
+     * @param mockMvc
+     * @param resultMatcher
+     * @param userInfo
+     * @param domainId
+     * @param newWorkDTOs
+     * @return
+     * @throws Exception
+     */
+    public ApiResultResponse<List<NewWorkBulkResultDTO>> workControllerCreateNewBulk(
+            MockMvc mockMvc,
+            ResultMatcher resultMatcher,
+            Optional<String> userInfo,
+            String domainId,
+            List<NewWorkDTO> newWorkDTOs
+    ) throws Exception {
+        var requestBuilder = post("/v1/domain/{domainId}/work/bulk", domainId)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newWorkDTOs));
+        return executeHttpRequest(
+                new TypeReference<>() {
+                },
+                mockMvc,
+                resultMatcher,
+                userInfo,
+                requestBuilder
+        );
+    }
+
     /**
      * Create new work
      *
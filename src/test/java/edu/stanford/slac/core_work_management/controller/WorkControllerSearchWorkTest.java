@@ -404,6 +404,75 @@ public class WorkControllerSearchWorkTest {
         }
     }
 
+    @Test
+    public void testSearchForwardUsingCursor() {
+        List<String> workIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // create new work
+            int finalI = i;
+            var newWorkIdResult =
+                    assertDoesNotThrow(
+                            () -> testControllerHelperService.workControllerCreateNew(
+                                    mockMvc,
+                                    status().isCreated(),
+                                    Optional.of("user1@slac.stanford.edu"),
+                                    domainDTO.id(),
+                                    NewWorkDTO.builder()
+                                            .locationId(testLocationIds.get(0))
+                                            .workTypeId(testWorkTypeIds.get(0))
+                                            .shopGroupId(testShopGroupIds.get(0))
+                                            .title("work %s".formatted(finalI))
+                                            .description("work %s description".formatted(finalI))
+                                            .build()
+                            )
+                    );
+            assertThat(newWorkIdResult.getErrorCode()).isEqualTo(0);
+            assertThat(newWorkIdResult.getPayload()).isNotNull();
+            workIds.add(newWorkIdResult.getPayload());
+        }
+
+        Optional<String> cursorOptional = Optional.empty();
+        // find all going forward using the cursor of the last element
+        for (int i = 0; i < 10; i++) {
+            Optional<String> finalCursorOptional = cursorOptional;
+            var searchResult =
+                    assertDoesNotThrow(
+                            () -> testControllerHelperService.workControllerSearchAllWork(
+                                    mockMvc,
+                                    status().isOk(),
+                                    Optional.of("user1@slac.stanford.edu"),
+                                    finalCursorOptional,
+                                    Optional.empty(),
+                                    Optional.of(10),
+                                    Optional.empty()
+                            )
+                    );
+            assertThat(searchResult.getErrorCode()).isEqualTo(0);
+            assertThat(searchResult.getPayload()).hasSize(10);
+            for (int i1 = 0; i1 < 10; i1++) {
+                assertThat(searchResult.getPayload().get(i1).id()).isEqualTo(workIds.get(i1 + i * 10));
+                assertThat(searchResult.getPayload().get(i1).cursor()).isNotNull();
+            }
+            cursorOptional = Optional.of(searchResult.getPayload().get(9).cursor());
+        }
+
+        // the cursor of the last element return an empty page
+        Optional<String> lastCursor = cursorOptional;
+        var emptyResult =
+                assertDoesNotThrow(
+                        () -> testControllerHelperService.workControllerSearchAllWork(
+                                mockMvc,
+                                status().isOk(),
+                                Optional.of("user1@slac.stanford.edu"),
+                                lastCursor,
+                                Optional.empty(),
+                                Optional.of(10),
+                                Optional.empty()
+                        )
+                );
+        assertThat(emptyResult.getPayload()).isEmpty();
+    }
+
     @Test
     public void testSearchBackward() {
         List<String> workIds = new ArrayList<>();
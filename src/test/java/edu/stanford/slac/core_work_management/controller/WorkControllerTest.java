@@ -28,6 +28,7 @@ import edu.stanford.slac.core_work_management.api.v1.dto.*;
 import edu.stanford.slac.core_work_management.exception.AttachmentNotFound;
 import edu.stanford.slac.core_work_management.model.*;
 import edu.stanford.slac.core_work_management.service.*;
+import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -318,6 +319,40 @@ public class WorkControllerTest {
                 .contains(testWorkTypeIds.toArray(new String[0]));
     }
 
+    @Test
+    public void testCreateNewWorksInBulkRejectInvalidItem() {
+        long worksBefore = mongoTemplate.count(new Query(), Work.class);
+        // the second work miss the mandatory work type
+        var failure = assertThrows(
+                ConstraintViolationException.class,
+                () -> testControllerHelperService.workControllerCreateNewBulk(
+                        mockMvc,
+                        status().isBadRequest(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        domainDTO.id(),
+                        List.of(
+                                NewWorkDTO.builder()
+                                        .locationId(testLocationIds.get(0))
+                                        .workTypeId(testWorkTypeIds.get(0))
+                                        .shopGroupId(testShopGroupIds.get(0))
+                                        .title("work 1")
+                                        .description("work 1 description")
+                                        .build(),
+                                NewWorkDTO.builder()
+                                        .locationId(testLocationIds.get(0))
+                                        .shopGroupId(testShopGroupIds.get(0))
+                                        .title("work 2")
+                                        .description("work 2 description")
+                                        .build()
+                        )
+                )
+        );
+        assertThat(failure.getConstraintViolations())
+                .anyMatch(violation -> violation.getPropertyPath().toString().contains("workTypeId"));
+        // no work of the request has been created
+        assertThat(mongoTemplate.count(new Query(), Work.class)).isEqualTo(worksBefore);
+    }
+
     @Test
     public void testCreateNewWork() {
         // create new work
@@ -10,6 +10,12 @@ import edu.stanford.slac.core_work_management.model.Attachment;
 import edu.stanford.slac.core_work_management.model.BucketSlot;
 import edu.stanford.slac.core_work_management.model.EventTrigger;
 import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkChildrenSummary;
+import edu.stanford.slac.core_work_management.model.WorkStatusLog;
+import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidationRegistry;
+import edu.stanford.slac.core_work_management.service.workflow.ReportWorkflow;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowWorkUpdate;
 import edu.stanford.slac.core_work_management.task.ManageBucketWorkflowUpdate;
 import edu.stanford.slac.core_work_management.task.ManageWorkflowUpdateByEventTrigger;
 import org.apache.kafka.clients.admin.AdminClient;
@@ -34,7 +40,9 @@ import java.time.Clock;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -71,6 +79,10 @@ public class TecHardwareReportTest {
     private CWMAppProperties cwmAppProperties;
     @Autowired
     private KafkaAdmin kafkaAdmin;
+    @Autowired
+    private WorkTypeValidationRegistry workTypeValidationRegistry;
+    @Autowired
+    private ReportWorkflow reportWorkflow;
     // test tec domain data
     private DomainTestInfo domainTestInfo = null;
 
@@ -122,6 +134,61 @@ public class TecHardwareReportTest {
     }
 
 
+    @Test
+    public void parentStateIsDecidedByTheChildrenSummary() {
+        var validation = workTypeValidationRegistry.get("validation/TECHardwareReportValidation.groovy");
+        // the children are not stored, the decision can only come from the summary
+        Work inProgressChildren = Work.builder()
+                .id("report-1")
+                .currentStatus(WorkStatusLog.builder().status(WorkflowState.Created).build())
+                .childrenSummary(
+                        WorkChildrenSummary.builder()
+                                .countByStatus(new HashMap<>(Map.of(WorkflowState.InProgress, 1L, WorkflowState.ReadyForWork, 1L)))
+                                .total(2L)
+                                .open(2L)
+                                .build()
+                )
+                .build();
+        assertDoesNotThrow(
+                () -> validation.updateWorkflow(WorkflowWorkUpdate.builder().work(inProgressChildren).workflow(reportWorkflow).build())
+        );
+        assertThat(inProgressChildren.getCurrentStatus().getStatus()).isEqualTo(WorkflowState.InProgress);
+
+        Work readyForWorkChildren = Work.builder()
+                .id("report-2")
+                .currentStatus(WorkStatusLog.builder().status(WorkflowState.Created).build())
+                .childrenSummary(
+                        WorkChildrenSummary.builder()
+                                .countByStatus(new HashMap<>(Map.of(WorkflowState.ReadyForWork, 1L, WorkflowState.Closed, 1L)))
+                                .total(2L)
+                                .open(1L)
+                                .closed(1L)
+                                .build()
+                )
+                .build();
+        assertDoesNotThrow(
+                () -> validation.updateWorkflow(WorkflowWorkUpdate.builder().work(readyForWorkChildren).workflow(reportWorkflow).build())
+        );
+        assertThat(readyForWorkChildren.getCurrentStatus().getStatus()).isEqualTo(WorkflowState.Scheduled);
+
+        // an in progress report with all the children closed goes to review
+        Work closedChildren = Work.builder()
+                .id("report-3")
+                .currentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build())
+                .childrenSummary(
+                        WorkChildrenSummary.builder()
+                                .countByStatus(new HashMap<>(Map.of(WorkflowState.Closed, 2L)))
+                                .total(2L)
+                                .closed(2L)
+                                .build()
+                )
+                .build();
+        assertDoesNotThrow(
+                () -> validation.updateWorkflow(WorkflowWorkUpdate.builder().work(closedChildren).workflow(reportWorkflow).build())
+        );
+        assertThat(closedChildren.getCurrentStatus().getStatus()).isEqualTo(WorkflowState.ReviewToClose);
+    }
+
     @Test
     public void failingNoMandatoryField() {
         // create a new work
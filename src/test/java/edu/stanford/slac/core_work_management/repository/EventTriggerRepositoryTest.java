@@ -15,9 +15,9 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 
 @AutoConfigureMockMvc
 @SpringBootTest()
@@ -64,32 +64,29 @@ public class EventTriggerRepositoryTest {
         LocalDateTime currentDate = LocalDateTime.of(2021, 1, 1, 11, 0);
 
         // Step 3: Invoke the function under test
-        EventTrigger eventToProcess = eventTriggerRepository.findNextToProcess("type-a",currentDate, currentDate.plusSeconds(processingTimeoutSeconds));
+        List<EventTrigger> eventsToProcess = eventTriggerRepository.claimNextToProcess("type-a", currentDate, currentDate.minusSeconds(processingTimeoutSeconds), 10);
 
         // Step 4: Assert the results
-        assertThat(eventToProcess).isNotNull();
-        assertThat(eventToProcess.getId()).isEqualTo(evtTypeA1.getId());
+        assertThat(eventsToProcess).extracting(EventTrigger::getId).containsExactly(evtTypeA1.getId());
 
-        // get with the same date should return false
-        eventToProcess = eventTriggerRepository.findNextToProcess("type-a",currentDate, currentDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(eventToProcess).isNull();
+        // claim with the same date should return nothing
+        assertThat(eventTriggerRepository.claimNextToProcess("type-a", currentDate, currentDate.minusSeconds(processingTimeoutSeconds), 10)).isEmpty();
 
-        /// advance to a date that is after the bucket expired for processing
-        var currentCheckDate = currentDate.plusSeconds(processingTimeoutSeconds);
-        EventTrigger bucketToStartAgain = eventTriggerRepository.findNextToProcess("type-a",currentCheckDate, currentCheckDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStartAgain).isNotNull();
+        /// advance to a date that is after the claim expired for processing
+        var currentCheckDate = currentDate.plusSeconds(processingTimeoutSeconds + 1);
+        List<EventTrigger> eventsToProcessAgain = eventTriggerRepository.claimNextToProcess("type-a", currentCheckDate, currentCheckDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(eventsToProcessAgain).extracting(EventTrigger::getId).containsExactly(evtTypeA1.getId());
 
-        // now tag as completed
-        assertDoesNotThrow(()->eventTriggerRepository.completeProcessing("type-a", evtTypeA1.getId()));
+        // the expired claim cannot complete the event taken over, only the last one can
+        assertThat(eventTriggerRepository.completeProcessing("type-a", eventsToProcess)).isZero();
+        assertThat(eventTriggerRepository.completeProcessing("type-a", eventsToProcessAgain)).isEqualTo(1);
 
         // now it doesn't need to be selected again
-        bucketToStartAgain = eventTriggerRepository.findNextToProcess("type-a", currentDate, currentCheckDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStartAgain).isNull();
+        assertThat(eventTriggerRepository.claimNextToProcess("type-a", currentCheckDate, currentCheckDate.plusSeconds(processingTimeoutSeconds), 10)).isEmpty();
 
-        // going to the next date and use a different event type shouldn't return anything
-        LocalDateTime secondEvenTriggerDate = LocalDateTime.of(2021, 1, 1, 14, 0);
-        var notFoundEvent = eventTriggerRepository.findNextToProcess("type-b", currentDate, currentCheckDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(notFoundEvent).isNull();
+        // use a different event type shouldn't return anything
+        var notFoundEvent = eventTriggerRepository.claimNextToProcess("type-b", currentCheckDate, currentCheckDate.plusSeconds(processingTimeoutSeconds), 10);
+        assertThat(notFoundEvent).isEmpty();
     }
 
     @Test
@@ -128,37 +125,76 @@ public class EventTriggerRepositoryTest {
         LocalDateTime currentDate = LocalDateTime.of(2021, 1, 1, 11, 0);
 
         // Step 3: Invoke the function under test
-        EventTrigger eventToProcess = eventTriggerRepository.findNextToProcess("type-a",currentDate, currentDate.plusSeconds(processingTimeoutSeconds));
+        List<EventTrigger> eventsToProcess = eventTriggerRepository.claimNextToProcess("type-a", currentDate, currentDate.minusSeconds(processingTimeoutSeconds), 10);
 
         // Step 4: Assert the results
-        assertThat(eventToProcess).isNotNull();
-        assertThat(eventToProcess.getId()).isEqualTo(evtTypeA1.getId());
+        assertThat(eventsToProcess).extracting(EventTrigger::getId).containsExactly(evtTypeA1.getId());
 
-        // get with the same date should return false
-        eventToProcess = eventTriggerRepository.findNextToProcess("type-a",currentDate, currentDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(eventToProcess).isNull();
+        // claim with the same date should return nothing
+        assertThat(eventTriggerRepository.claimNextToProcess("type-a", currentDate, currentDate.minusSeconds(processingTimeoutSeconds), 10)).isEmpty();
 
         // now tag as completed
-        assertDoesNotThrow(()->eventTriggerRepository.completeProcessing("type-a", evtTypeA1.getId()));
+        assertThat(eventTriggerRepository.completeProcessing("type-a", eventsToProcess)).isEqualTo(1);
 
         // now it doesn't need to be selected again
         /// advance to a date that could fire both A2 and B1
         var nextEventDate = LocalDateTime.of(2021, 1, 1, 14, 0);
-        var eventA2Triggered = eventTriggerRepository.findNextToProcess("type-a", nextEventDate, nextEventDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(eventA2Triggered).isNotNull();
-        assertThat(eventA2Triggered.getId()).isEqualTo(evtTypeA2.getId());
+        var eventA2Triggered = eventTriggerRepository.claimNextToProcess("type-a", nextEventDate, nextEventDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(eventA2Triggered).extracting(EventTrigger::getId).containsExactly(evtTypeA2.getId());
 
         // now tag as completed
-        assertDoesNotThrow(()->eventTriggerRepository.completeProcessing("type-a", evtTypeA2.getId()));
+        assertThat(eventTriggerRepository.completeProcessing("type-a", eventA2Triggered)).isEqualTo(1);
 
-        // going to the next date and use a different event type shouldn't return anything
+        // going to the next date shouldn't return anything of type-a
         var farCheckDate = LocalDateTime.of(2021, 1, 2, 14, 0);
-        var notFoundEvent = eventTriggerRepository.findNextToProcess("type-a", farCheckDate, farCheckDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(notFoundEvent).isNull();
+        var notFoundEvent = eventTriggerRepository.claimNextToProcess("type-a", farCheckDate, farCheckDate.plusSeconds(processingTimeoutSeconds), 10);
+        assertThat(notFoundEvent).isEmpty();
 
         // check that all event of type-a have been processed
         var allEvent = eventTriggerRepository.findAll();
         assertThat(allEvent).hasSize(3);
         assertThat(allEvent).filteredOn(EventTrigger::getFired).allMatch(a->a.getTypeName().equals("type-a"));
     }
+
+    @Test
+    public void testClaimAndCompleteInBatch() {
+        LocalDateTime fireDate = LocalDateTime.of(2021, 1, 1, 8, 0);
+        for (int i = 0; i < 5; i++) {
+            eventTriggerRepository.save(
+                    EventTrigger.builder()
+                            .typeName("type-a")
+                            .referenceId("ref-%d".formatted(i))
+                            .eventFireTimestamp(fireDate.plusMinutes(i))
+                            .build()
+            );
+        }
+        LocalDateTime currentDate = LocalDateTime.of(2021, 1, 1, 11, 0);
+
+        // the oldest are claimed first with the same claim token
+        var firstBatch = eventTriggerRepository.claimNextToProcess("type-a", currentDate, currentDate.minusSeconds(30), 3);
+        assertThat(firstBatch).hasSize(3);
+        assertThat(firstBatch).extracting(EventTrigger::getReferenceId).containsExactly("ref-0", "ref-1", "ref-2");
+        assertThat(firstBatch).extracting(EventTrigger::getProcessingId).containsOnly(firstBatch.getFirst().getProcessingId());
+
+        // the claimed one are skipped
+        var secondBatch = eventTriggerRepository.claimNextToProcess("type-a", currentDate, currentDate.minusSeconds(30), 3);
+        assertThat(secondBatch).extracting(EventTrigger::getReferenceId).containsExactly("ref-3", "ref-4");
+        assertThat(eventTriggerRepository.claimNextToProcess("type-a", currentDate, currentDate.minusSeconds(30), 3)).isEmpty();
+
+        // an event rescheduled while claimed is not completed
+        eventTriggerRepository.updateFireTimestampByReferenceId("ref-1", "type-a", currentDate.plusDays(1));
+        assertThat(eventTriggerRepository.completeProcessing("type-a", firstBatch)).isEqualTo(2);
+        assertThat(eventTriggerRepository.completeProcessing("type-a", secondBatch)).isEqualTo(2);
+
+        var allEvent = eventTriggerRepository.findAll();
+        assertThat(allEvent).filteredOn(EventTrigger::getFired).hasSize(4);
+        assertThat(allEvent).filteredOn(e -> !e.getFired()).extracting(EventTrigger::getReferenceId).containsExactly("ref-1");
+
+        // an abandoned claim is taken again after the timeout
+        var abandoned = eventTriggerRepository.claimNextToProcess("type-a", currentDate.plusDays(1), currentDate.plusDays(1).minusSeconds(30), 3);
+        assertThat(abandoned).extracting(EventTrigger::getReferenceId).containsExactly("ref-1");
+        var afterTimeout = currentDate.plusDays(1).plusMinutes(1);
+        assertThat(eventTriggerRepository.claimNextToProcess("type-a", afterTimeout, afterTimeout.minusSeconds(30), 3))
+                .extracting(EventTrigger::getReferenceId).containsExactly("ref-1");
+    }
 }
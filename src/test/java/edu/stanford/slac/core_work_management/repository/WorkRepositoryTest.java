@@ -17,7 +17,19 @@
 
 package edu.stanford.slac.core_work_management.repository;
 
+import edu.stanford.slac.core_work_management.model.CustomField;
+import edu.stanford.slac.core_work_management.model.EmbeddableLocation;
+import edu.stanford.slac.core_work_management.model.EmbeddableShopGroup;
+import edu.stanford.slac.core_work_management.model.EmbeddableWorkType;
 import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkBucketAssociation;
+import edu.stanford.slac.core_work_management.model.WorkChildrenSummary;
+import edu.stanford.slac.core_work_management.model.WorkQueryParameter;
+import edu.stanford.slac.core_work_management.model.WorkStatusLog;
+import edu.stanford.slac.core_work_management.model.value.StringValue;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import edu.stanford.slac.core_work_management.utility.PageCursor;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -27,10 +39,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
 @AutoConfigureMockMvc
 @SpringBootTest()
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -130,4 +152,149 @@ public class WorkRepositoryTest {
 //            assertThat(statusCounts.getOrDefault(WorkStatus.ScheduledJob, 0)).isEqualTo(workRepository.countByWorkTypeIdAndCurrentStatus_StatusIs(workTypeId, WorkStatus.ScheduledJob));
 //        }
     }
+
+    @Test
+    public void childStatusChangeMoveTheParentSummaryCounters() {
+        Work parent = workRepository.save(Work.builder().domainId("dom1").title("parent").build());
+
+        // a new child is counted in its status and in the totals
+        workRepository.updateChildrenSummary("dom1", parent.getId(), null, WorkflowState.Created);
+        var summary = childrenSummary(parent.getId());
+        assertThat(summary.getTotal()).isEqualTo(1L);
+        assertThat(summary.getOpen()).isEqualTo(1L);
+        assertThat(summary.count(WorkflowState.Created)).isEqualTo(1L);
+
+        // a status change move the counter from the old status to the new one
+        workRepository.updateChildrenSummary("dom1", parent.getId(), WorkflowState.Created, WorkflowState.InProgress);
+        summary = childrenSummary(parent.getId());
+        assertThat(summary.getTotal()).isEqualTo(1L);
+        assertThat(summary.getOpen()).isEqualTo(1L);
+        assertThat(summary.count(WorkflowState.Created)).isEqualTo(0L);
+        assertThat(summary.count(WorkflowState.InProgress)).isEqualTo(1L);
+
+        // closing the child move it from the open to the closed total
+        workRepository.updateChildrenSummary("dom1", parent.getId(), WorkflowState.InProgress, WorkflowState.Closed);
+        summary = childrenSummary(parent.getId());
+        assertThat(summary.getTotal()).isEqualTo(1L);
+        assertThat(summary.getOpen()).isEqualTo(0L);
+        assertThat(summary.getClosed()).isEqualTo(1L);
+        assertThat(summary.count(WorkflowState.InProgress)).isEqualTo(0L);
+        assertThat(summary.count(WorkflowState.Closed)).isEqualTo(1L);
+        assertThat(summary.allClosed()).isTrue();
+    }
+
+    @Test
+    public void summarySearchKeepTheFieldsOfTheSearchResponse() {
+        Work saved = workRepository.save(
+                Work.builder()
+                        .domainId("dom1")
+                        .parentWorkId("parent-id")
+                        .workNumber(1L)
+                        .relatedToWorkIds(List.of("related-id"))
+                        .workType(EmbeddableWorkType.builder().id("work-type-id").title("work type").build())
+                        .title("full work")
+                        .description("full work description")
+                        .location(EmbeddableLocation.builder().id(new ObjectId().toString()).name("location").build())
+                        .shopGroup(EmbeddableShopGroup.builder().id("shop-group-id").domainId("dom1").name("shop group").build())
+                        .assignedTo(List.of("user1@slac.stanford.edu"))
+                        .customFields(List.of(CustomField.builder().id("field-id").value(StringValue.builder().value("value").build()).build()))
+                        .attachments(List.of("attachment-id"))
+                        .currentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build())
+                        .statusHistory(new ArrayList<>(List.of(WorkStatusLog.builder().status(WorkflowState.Created).build())))
+                        .currentBucketAssociation(WorkBucketAssociation.builder().bucketId("bucket-id").rolled(false).build())
+                        .bucketAssociationsHistory(new ArrayList<>(List.of(WorkBucketAssociation.builder().bucketId("old-bucket-id").rolled(true).build())))
+                        .userWatchlist(Set.of("user2@slac.stanford.edu"))
+                        .hasLog(true)
+                        .build()
+        );
+        // compare with the stored work, the dates are truncated by the database
+        Work full = workRepository.findById(saved.getId()).orElseThrow();
+
+        var found = workRepository.searchAllSummary(WorkQueryParameter.builder().domainIds(List.of("dom1")).limit(10).build());
+        assertThat(found).hasSize(1);
+        Work summary = found.getFirst();
+        // all the fields used by the search response are loaded
+        assertThat(summary.getId()).isEqualTo(full.getId());
+        assertThat(summary.getParentWorkId()).isEqualTo(full.getParentWorkId());
+        assertThat(summary.getDomainId()).isEqualTo(full.getDomainId());
+        assertThat(summary.getWorkNumber()).isEqualTo(full.getWorkNumber());
+        assertThat(summary.getRelatedToWorkIds()).isEqualTo(full.getRelatedToWorkIds());
+        assertThat(summary.getWorkType()).isEqualTo(full.getWorkType());
+        assertThat(summary.getTitle()).isEqualTo(full.getTitle());
+        assertThat(summary.getDescription()).isEqualTo(full.getDescription());
+        assertThat(summary.getLocation()).isEqualTo(full.getLocation());
+        assertThat(summary.getShopGroup()).isEqualTo(full.getShopGroup());
+        assertThat(summary.getCurrentStatus()).isEqualTo(full.getCurrentStatus());
+        assertThat(summary.getCurrentBucketAssociation()).isEqualTo(full.getCurrentBucketAssociation());
+        assertThat(summary.getHasLog()).isEqualTo(full.getHasLog());
+        assertThat(summary.getCreatedDate()).isEqualTo(full.getCreatedDate());
+        assertThat(summary.getCreatedBy()).isEqualTo(full.getCreatedBy());
+        assertThat(summary.getLastModifiedDate()).isEqualTo(full.getLastModifiedDate());
+        assertThat(summary.getLastModifiedBy()).isEqualTo(full.getLastModifiedBy());
+        assertThat(summary.getVersion()).isEqualTo(full.getVersion());
+        // the unbounded fields are left out
+        assertThat(summary.getCustomFields()).isNullOrEmpty();
+        assertThat(summary.getAttachments()).isNullOrEmpty();
+        assertThat(summary.getStatusHistory()).isNullOrEmpty();
+        assertThat(summary.getBucketAssociationsHistory()).isNullOrEmpty();
+        assertThat(summary.getUserWatchlist()).isNullOrEmpty();
+
+        // the full search still load everything
+        var fullFound = workRepository.searchAll(WorkQueryParameter.builder().domainIds(List.of("dom1")).limit(10).build());
+        assertThat(fullFound).hasSize(1);
+        assertThat(fullFound.getFirst().getStatusHistory()).hasSize(1);
+        assertThat(fullFound.getFirst().getCustomFields()).hasSize(1);
+    }
+
+    @Test
+    public void keysetPaginationOnSameCreatedDateNeitherSkipNorRepeat() {
+        for (int i = 0; i < 10; i++) {
+            workRepository.save(Work.builder().domainId("dom1").title("work-%d".formatted(i)).build());
+        }
+        // all the works share the same created date so only the id can order them
+        LocalDateTime createdDate = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("domainId").is("dom1")),
+                new Update().set("createdDate", createdDate),
+                Work.class
+        );
+        List<String> allIds = workRepository.searchAll(WorkQueryParameter.builder().domainIds(List.of("dom1")).limit(20).build())
+                .stream().map(Work::getId).toList();
+        assertThat(allIds).hasSize(10).doesNotHaveDuplicates();
+
+        // page forward using the last work id as anchor
+        List<String> pagedById = new ArrayList<>();
+        String anchorId = null;
+        for (int page = 0; page < 4; page++) {
+            var found = workRepository.searchAll(WorkQueryParameter.builder().domainIds(List.of("dom1")).anchorID(anchorId).limit(3).build());
+            found.forEach(w -> pagedById.add(w.getId()));
+            if (found.isEmpty()) break;
+            anchorId = found.getLast().getId();
+        }
+        assertThat(pagedById).containsExactlyElementsOf(allIds);
+
+        // page forward using the opaque cursor as anchor
+        List<String> pagedByCursor = new ArrayList<>();
+        String cursor = null;
+        for (int page = 0; page < 4; page++) {
+            var found = workRepository.searchAll(WorkQueryParameter.builder().domainIds(List.of("dom1")).anchorID(cursor).limit(3).build());
+            found.forEach(w -> pagedByCursor.add(w.getId()));
+            if (found.isEmpty()) break;
+            cursor = PageCursor.encode(found.getLast().getCreatedDate(), found.getLast().getId());
+        }
+        assertThat(pagedByCursor).containsExactlyElementsOf(allIds);
+
+        // the context ends with the anchor and the page starts right after it
+        var withContext = workRepository.searchAll(
+                WorkQueryParameter.builder().domainIds(List.of("dom1")).anchorID(allIds.get(5)).contextSize(3).limit(3).build()
+        );
+        assertThat(withContext.stream().map(Work::getId).toList()).containsExactlyElementsOf(allIds.subList(3, 9));
+    }
+
+    private WorkChildrenSummary childrenSummary(String workId) {
+        Work work = mongoTemplate.findById(workId, Work.class);
+        assertThat(work).isNotNull();
+        assertThat(work.getChildrenSummary()).isNotNull();
+        return work.getChildrenSummary();
+    }
 }
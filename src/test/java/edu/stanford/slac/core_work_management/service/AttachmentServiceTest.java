@@ -5,6 +5,7 @@ import edu.stanford.slac.core_work_management.api.v1.dto.AttachmentDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.StorageObjectDTO;
 import edu.stanford.slac.core_work_management.config.CWMAppProperties;
 import edu.stanford.slac.core_work_management.model.Attachment;
+import edu.stanford.slac.core_work_management.model.StorageBlob;
 import edu.stanford.slac.core_work_management.repository.AttachmentRepository;
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -63,6 +64,7 @@ public class AttachmentServiceTest {
     @BeforeEach
     public void preTest() {
         mongoTemplate.remove(Attachment.class).all();
+        mongoTemplate.remove(StorageBlob.class).all();
         mongoTemplate.getCollection("fs.files").deleteMany(new Document());
         mongoTemplate.getCollection("fs.chunks").deleteMany(new Document());
         try (AdminClient adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
@@ -128,6 +130,65 @@ public class AttachmentServiceTest {
         }
     }
 
+    @Test
+    public void testSameContentIsStoredOnce() throws IOException {
+        byte[] content;
+        try (InputStream is = assertDoesNotThrow(
+                () -> documentGenerationService.getTestJpeg()
+        )) {
+            content = is.readAllBytes();
+        }
+        String firstAttachmentID = assertDoesNotThrow(
+                () -> attachmentService.createAttachment(
+                        StorageObjectDTO
+                                .builder()
+                                .filename("first.jpg")
+                                .contentType(MediaType.IMAGE_JPEG_VALUE)
+                                .file(new ByteArrayInputStream(content))
+                                .build(),
+                        true
+                )
+        );
+        await()
+                .atMost(30, SECONDS)
+                .pollInterval(1, SECONDS)
+                .until(
+                        () -> attachmentService.getPreviewProcessingState(firstAttachmentID)
+                                .compareTo(Attachment.PreviewProcessingState.Completed.name()) == 0
+                );
+
+        // the same content uploaded again
+        String secondAttachmentID = assertDoesNotThrow(
+                () -> attachmentService.createAttachment(
+                        StorageObjectDTO
+                                .builder()
+                                .filename("second.jpg")
+                                .contentType(MediaType.IMAGE_JPEG_VALUE)
+                                .file(new ByteArrayInputStream(content))
+                                .build(),
+                        true
+                )
+        );
+        var firstAttachment = attachmentRepository.findById(firstAttachmentID).orElseThrow();
+        var secondAttachment = attachmentRepository.findById(secondAttachmentID).orElseThrow();
+        AssertionsForClassTypes.assertThat(secondAttachment.getFileName()).isEqualTo("second.jpg");
+        AssertionsForClassTypes.assertThat(secondAttachment.getOriginalId()).isEqualTo(firstAttachment.getOriginalId());
+        // the preview is reused without processing
+        AssertionsForClassTypes.assertThat(secondAttachment.getPreviewState()).isEqualTo(Attachment.PreviewProcessingState.Completed);
+        AssertionsForClassTypes.assertThat(secondAttachment.getPreviewId()).isEqualTo(firstAttachment.getPreviewId());
+
+        // only the content and its preview are stored
+        AssertionsForClassTypes.assertThat(mongoTemplate.getCollection("fs.files").countDocuments()).isEqualTo(2);
+        var blob = mongoTemplate.findById(firstAttachment.getContentHash(), StorageBlob.class);
+        AssertionsForClassTypes.assertThat(blob).isNotNull();
+        AssertionsForClassTypes.assertThat(blob.getReferenceCount()).isEqualTo(2L);
+
+        // the content is still readable from both attachments
+        try (InputStream is = attachmentService.getAttachmentContent(secondAttachmentID).file()) {
+            AssertionsForClassTypes.assertThat(is.readAllBytes()).isEqualTo(content);
+        }
+    }
+
     @Test
     public void testPreviewPNGOk() throws IOException {
         try (InputStream is = assertDoesNotThrow(
@@ -16,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
@@ -26,6 +27,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.*;
 
 import static com.google.common.collect.ImmutableSet.of;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
@@ -734,6 +736,128 @@ public class BucketServiceTest {
         assertThat(alternateDomainFirst10Bucket).allMatch(bucket -> bucket.domainIds().contains(alternateDomainDTO.id()));
     }
 
+    @Test
+    public void claimBucketToStartInBatch() {
+        int processingTimeoutSeconds = 10;
+        List<String> bucketIds = createBucketsToStart(5);
+        LocalDateTime currentDate = LocalDateTime.of(2021, 1, 1, 11, 0);
+        LocalDateTime timeoutDate = currentDate.minusSeconds(processingTimeoutSeconds);
+
+        // claim the buckets in two batches
+        var firstBatch = assertDoesNotThrow(() -> bucketSlotService.claimNextBucketIdsToStart(currentDate, timeoutDate, 3));
+        assertThat(firstBatch.getBucketSlotIds()).hasSize(3);
+        var secondBatch = assertDoesNotThrow(() -> bucketSlotService.claimNextBucketIdsToStart(currentDate, timeoutDate, 3));
+        assertThat(secondBatch.getBucketSlotIds()).hasSize(2).doesNotContainAnyElementsOf(firstBatch.getBucketSlotIds());
+        assertThat(secondBatch.getProcessingId()).isNotEqualTo(firstBatch.getProcessingId());
+        var emptyBatch = assertDoesNotThrow(() -> bucketSlotService.claimNextBucketIdsToStart(currentDate, timeoutDate, 3));
+        assertThat(emptyBatch.isEmpty()).isTrue();
+
+        // a fresh claim is not taken over by a run that starts right after it
+        var nextRun = currentDate.plusSeconds(1);
+        var nextRunBatch = assertDoesNotThrow(() -> bucketSlotService.claimNextBucketIdsToStart(nextRun, nextRun.minusSeconds(processingTimeoutSeconds), 3));
+        assertThat(nextRunBatch.isEmpty()).isTrue();
+
+        // tag all as completed
+        List<String> allClaimed = new ArrayList<>(firstBatch.getBucketSlotIds());
+        allClaimed.addAll(secondBatch.getBucketSlotIds());
+        assertThat(allClaimed).containsExactlyInAnyOrderElementsOf(bucketIds);
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStartEventProcessing(firstBatch))).isEqualTo(3);
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStartEventProcessing(secondBatch))).isEqualTo(2);
+
+        // after the timeout nothing need to be claimed again
+        var afterTimeout = currentDate.plusSeconds(2L * processingTimeoutSeconds);
+        var afterTimeoutBatch = assertDoesNotThrow(() -> bucketSlotService.claimNextBucketIdsToStart(afterTimeout, afterTimeout.minusSeconds(processingTimeoutSeconds), 3));
+        assertThat(afterTimeoutBatch.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void expiredClaimCannotCompleteTheBucketsTakenOver() {
+        int processingTimeoutSeconds = 10;
+        List<String> bucketIds = createBucketsToStart(3);
+        LocalDateTime currentDate = LocalDateTime.of(2021, 1, 1, 11, 0);
+
+        var abandonedClaim = assertDoesNotThrow(() -> bucketSlotService.claimNextBucketIdsToStart(currentDate, currentDate.minusSeconds(processingTimeoutSeconds), 10));
+        assertThat(abandonedClaim.getBucketSlotIds()).containsExactlyInAnyOrderElementsOf(bucketIds);
+
+        // after the timeout another run takes over the buckets
+        var afterTimeout = currentDate.plusSeconds(2L * processingTimeoutSeconds);
+        var takeOverClaim = assertDoesNotThrow(() -> bucketSlotService.claimNextBucketIdsToStart(afterTimeout, afterTimeout.minusSeconds(processingTimeoutSeconds), 10));
+        assertThat(takeOverClaim.getBucketSlotIds()).containsExactlyInAnyOrderElementsOf(bucketIds);
+
+        // the first run cannot complete the buckets it no longer owns
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStartEventProcessing(abandonedClaim))).isZero();
+        assertThat(mongoTemplate.count(new Query(Criteria.where("startEventManaged").is(true)), BucketSlot.class)).isZero();
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStartEventProcessing(takeOverClaim))).isEqualTo(3);
+        assertThat(mongoTemplate.count(new Query(Criteria.where("startEventManaged").is(true)), BucketSlot.class)).isEqualTo(3);
+    }
+
+    @Test
+    public void concurrentClaimsNeverShareBuckets() throws Exception {
+        int bucketCount = 40;
+        List<String> bucketIds = createBucketsToStart(bucketCount);
+        LocalDateTime currentDate = LocalDateTime.of(2021, 1, 1, 11, 0);
+        LocalDateTime timeoutDate = currentDate.minusSeconds(30);
+
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Callable<List<String>> claimer = () -> {
+            List<String> claimed = new ArrayList<>();
+            startLatch.await();
+            BucketSlotClaim claim;
+            while (!(claim = bucketSlotService.claimNextBucketIdsToStart(currentDate, timeoutDate, 5)).isEmpty()) {
+                claimed.addAll(claim.getBucketSlotIds());
+            }
+            return claimed;
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> first = executor.submit(claimer);
+            Future<List<String>> second = executor.submit(claimer);
+            startLatch.countDown();
+            List<String> firstClaimed = first.get(30, TimeUnit.SECONDS);
+            List<String> secondClaimed = second.get(30, TimeUnit.SECONDS);
+
+            // every bucket is claimed by exactly one of the two runs
+            assertThat(firstClaimed).doesNotContainAnyElementsOf(secondClaimed);
+            List<String> allClaimed = new ArrayList<>(firstClaimed);
+            allClaimed.addAll(secondClaimed);
+            assertThat(allClaimed).containsExactlyInAnyOrderElementsOf(bucketIds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Create buckets already started at the 2021-01-01 11:00
+     *
+     * @param count the number of buckets to create
+     * @return the ids of the created buckets
+     */
+    private List<String> createBucketsToStart(int count) {
+        List<String> bucketIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int finalI = i;
+            bucketIds.add(
+                    bucketSlotService.createNew(
+                            NewBucketDTO.builder()
+                                    .description("Bucket %d".formatted(finalI))
+                                    .type(bucketTypeLOVIds.getFirst())
+                                    .status(bucketStatusLOVIds.getFirst())
+                                    .from(LocalDateTime.of(2021, 1, 1, 8, 0).plusSeconds(finalI))
+                                    .to(LocalDateTime.of(2021, 1, 1, 12, 0))
+                                    .domainIds(Set.of(domainDTO.id()))
+                                    .admittedWorkTypeIds(Set.of(
+                                            BucketSlotWorkTypeDTO.builder()
+                                                    .domainId(domainDTO.id())
+                                                    .workTypeId(workTypeId)
+                                                    .build()
+                                    ))
+                                    .build()
+                    )
+            );
+        }
+        return bucketIds;
+    }
+
     // create test for the bucket start event
     @Test
     public void processBucketStartEvent() {
@@ -786,27 +910,26 @@ public class BucketServiceTest {
         LocalDateTime currentDate = LocalDateTime.of(2021, 1, 1, 11, 0);
 
         // Step 3: Invoke the function under test
-        BucketSlotDTO bucketToStart = bucketSlotService.findNextBucketToStart(currentDate, currentDate.plusSeconds(processingTimeoutSeconds));
+        BucketSlotClaim startClaim = bucketSlotService.claimNextBucketIdsToStart(currentDate, currentDate.minusSeconds(processingTimeoutSeconds), 10);
 
         // Step 4: Assert the results
-        assertThat(bucketToStart).isNotNull();
-        assertThat(bucketToStart.id()).isEqualTo(bucket1Id);
+        assertThat(startClaim.getBucketSlotIds()).containsExactly(bucket1Id);
 
-        // get wit the same date should return false
-        bucketToStart = bucketSlotService.findNextBucketToStart(currentDate, currentDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStart).isNull();
+        // claim wit the same date should return nothing
+        var duplicateStartClaim = bucketSlotService.claimNextBucketIdsToStart(currentDate, currentDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(duplicateStartClaim.isEmpty()).isTrue();
 
         /// advance to a date that is after the bucket expired for processing
-        var currentCheckDate = currentDate.plusSeconds(processingTimeoutSeconds);
-        BucketSlotDTO bucketToStartAgain = bucketSlotService.findNextBucketToStart(currentCheckDate, currentCheckDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStartAgain).isNotNull();
+        var currentCheckDate = currentDate.plusSeconds(processingTimeoutSeconds + 1);
+        BucketSlotClaim startClaimAgain = bucketSlotService.claimNextBucketIdsToStart(currentCheckDate, currentCheckDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(startClaimAgain.getBucketSlotIds()).containsExactly(bucket1Id);
 
         // now tag as completed
-        assertDoesNotThrow(()->bucketSlotService.completeStartEventProcessing(bucket1Id));
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStartEventProcessing(startClaimAgain))).isEqualTo(1);
 
         // now it doesn't need to be selected again
-        bucketToStartAgain = bucketSlotService.findNextBucketToStart(currentDate, currentCheckDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStartAgain).isNull();
+        var afterCompletionClaim = bucketSlotService.claimNextBucketIdsToStart(currentCheckDate, currentCheckDate.plusSeconds(processingTimeoutSeconds), 10);
+        assertThat(afterCompletionClaim.isEmpty()).isTrue();
     }
 
     @Test
@@ -859,28 +982,27 @@ public class BucketServiceTest {
         // Step 2: Define 'currentDate' and 'processingTimeoutSeconds' for stop event
         LocalDateTime currentDate = LocalDateTime.of(2021, 1, 1, 12, 0);
 
-        // Step 3: Invoke the function under test to find the next bucket to stop
-        BucketSlotDTO bucketToStop = bucketSlotService.findNextBucketToStop(currentDate, currentDate.plusSeconds(processingTimeoutSeconds));
+        // Step 3: Invoke the function under test to claim the next bucket to stop
+        BucketSlotClaim stopClaim = bucketSlotService.claimNextBucketIdsToStop(currentDate, currentDate.minusSeconds(processingTimeoutSeconds), 10);
 
         // Step 4: Assert the results
-        assertThat(bucketToStop).isNotNull();
-        assertThat(bucketToStop.id()).isEqualTo(bucket1Id);
+        assertThat(stopClaim.getBucketSlotIds()).containsExactly(bucket1Id);
 
-        // Attempt to get the same bucket again should return null
-        bucketToStop = bucketSlotService.findNextBucketToStop(currentDate, currentDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStop).isNull();
+        // Attempt to claim the same bucket again should return nothing
+        var duplicateStopClaim = bucketSlotService.claimNextBucketIdsToStop(currentDate, currentDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(duplicateStopClaim.isEmpty()).isTrue();
 
         // Advance to a date after the processing timeout
-        var currentCheckDate = currentDate.plusSeconds(processingTimeoutSeconds);
-        BucketSlotDTO bucketToStopAgain = bucketSlotService.findNextBucketToStop(currentCheckDate, currentCheckDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStopAgain).isNotNull();
+        var currentCheckDate = currentDate.plusSeconds(processingTimeoutSeconds + 1);
+        BucketSlotClaim stopClaimAgain = bucketSlotService.claimNextBucketIdsToStop(currentCheckDate, currentCheckDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(stopClaimAgain.getBucketSlotIds()).containsExactly(bucket1Id);
 
         // Now mark the stop event as completed
-        assertDoesNotThrow(() -> bucketSlotService.completeStopEventProcessing(bucket1Id));
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStopEventProcessing(stopClaimAgain))).isEqualTo(1);
 
         // The bucket should not be selected again after completion
-        bucketToStopAgain = bucketSlotService.findNextBucketToStop(currentDate, currentCheckDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStopAgain).isNull();
+        var afterCompletionClaim = bucketSlotService.claimNextBucketIdsToStop(currentCheckDate, currentCheckDate.plusSeconds(processingTimeoutSeconds), 10);
+        assertThat(afterCompletionClaim.isEmpty()).isTrue();
     }
 
     @Test
@@ -932,84 +1054,80 @@ public class BucketServiceTest {
 
         // Step 2: Process Start Event for Bucket 1
         LocalDateTime startEventDate = LocalDateTime.of(2021, 1, 1, 7, 59);
-        BucketSlotDTO bucketToStart = bucketSlotService.findNextBucketToStart(startEventDate, startEventDate.plusSeconds(processingTimeoutSeconds));
+        BucketSlotClaim startClaim = bucketSlotService.claimNextBucketIdsToStart(startEventDate, startEventDate.minusSeconds(processingTimeoutSeconds), 10);
 
         // Assert that no bucket is ready to start yet
-        assertThat(bucketToStart).isNull();
+        assertThat(startClaim.isEmpty()).isTrue();
 
         // Move to time when bucket 1 should start
         startEventDate = LocalDateTime.of(2021, 1, 1, 8, 0);
-        bucketToStart = bucketSlotService.findNextBucketToStart(startEventDate, startEventDate.plusSeconds(processingTimeoutSeconds));
+        startClaim = bucketSlotService.claimNextBucketIdsToStart(startEventDate, startEventDate.minusSeconds(processingTimeoutSeconds), 10);
 
         // Assert that bucket 1 is ready to start
-        assertThat(bucketToStart).isNotNull();
-        assertThat(bucketToStart.id()).isEqualTo(bucket1Id);
+        assertThat(startClaim.getBucketSlotIds()).containsExactly(bucket1Id);
 
-        // Attempt to start the same bucket again should return null
-        BucketSlotDTO duplicateStartAttempt = bucketSlotService.findNextBucketToStart(startEventDate, startEventDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(duplicateStartAttempt).isNull();
+        // Attempt to start the same bucket again should return nothing
+        BucketSlotClaim duplicateStartAttempt = bucketSlotService.claimNextBucketIdsToStart(startEventDate, startEventDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(duplicateStartAttempt.isEmpty()).isTrue();
 
         // Simulate processing timeout by moving time forward
-        LocalDateTime processingExpiredDate = startEventDate.plusSeconds(processingTimeoutSeconds);
-        BucketSlotDTO bucketToStartAgain = bucketSlotService.findNextBucketToStart(processingExpiredDate, processingExpiredDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStartAgain).isNotNull();
-        assertThat(bucketToStartAgain.id()).isEqualTo(bucket1Id);
+        LocalDateTime processingExpiredDate = startEventDate.plusSeconds(processingTimeoutSeconds + 1);
+        BucketSlotClaim startClaimAgain = bucketSlotService.claimNextBucketIdsToStart(processingExpiredDate, processingExpiredDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(startClaimAgain.getBucketSlotIds()).containsExactly(bucket1Id);
 
-        // Mark the start event as completed
-        assertDoesNotThrow(() -> bucketSlotService.completeStartEventProcessing(bucket1Id));
+        // the expired claim cannot complete the bucket taken over, only the last one can
+        BucketSlotClaim expiredStartClaim = startClaim;
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStartEventProcessing(expiredStartClaim))).isZero();
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStartEventProcessing(startClaimAgain))).isEqualTo(1);
 
-        // Attempt to start again after completion should return null
-        BucketSlotDTO afterCompletionStartAttempt = bucketSlotService.findNextBucketToStart(startEventDate, processingExpiredDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(afterCompletionStartAttempt).isNull();
+        // Attempt to start again after completion should return nothing
+        BucketSlotClaim afterCompletionStartAttempt = bucketSlotService.claimNextBucketIdsToStart(processingExpiredDate, processingExpiredDate.plusSeconds(processingTimeoutSeconds), 10);
+        assertThat(afterCompletionStartAttempt.isEmpty()).isTrue();
 
         // Step 3: Process Stop Event for Bucket 1
         LocalDateTime stopEventDate = bucket1To; // The 'to' date when the bucket is supposed to stop
 
-        // Find the bucket to stop
-        BucketSlotDTO bucketToStop = bucketSlotService.findNextBucketToStop(stopEventDate, stopEventDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStop).isNotNull();
-        assertThat(bucketToStop.id()).isEqualTo(bucket1Id);
+        // Claim the bucket to stop
+        BucketSlotClaim stopClaim = bucketSlotService.claimNextBucketIdsToStop(stopEventDate, stopEventDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(stopClaim.getBucketSlotIds()).containsExactly(bucket1Id);
 
-        // Attempt to stop the same bucket again should return null
-        BucketSlotDTO duplicateStopAttempt = bucketSlotService.findNextBucketToStop(stopEventDate, stopEventDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(duplicateStopAttempt).isNull();
+        // Attempt to stop the same bucket again should return nothing
+        BucketSlotClaim duplicateStopAttempt = bucketSlotService.claimNextBucketIdsToStop(stopEventDate, stopEventDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(duplicateStopAttempt.isEmpty()).isTrue();
 
         // Simulate processing timeout by moving time forward
-        LocalDateTime stopProcessingExpiredDate = stopEventDate.plusSeconds(processingTimeoutSeconds);
-        BucketSlotDTO bucketToStopAgain = bucketSlotService.findNextBucketToStop(stopProcessingExpiredDate, stopProcessingExpiredDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucketToStopAgain).isNotNull();
-        assertThat(bucketToStopAgain.id()).isEqualTo(bucket1Id);
+        LocalDateTime stopProcessingExpiredDate = stopEventDate.plusSeconds(processingTimeoutSeconds + 1);
+        BucketSlotClaim stopClaimAgain = bucketSlotService.claimNextBucketIdsToStop(stopProcessingExpiredDate, stopProcessingExpiredDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(stopClaimAgain.getBucketSlotIds()).containsExactly(bucket1Id);
 
         // Mark the stop event as completed
-        assertDoesNotThrow(() -> bucketSlotService.completeStopEventProcessing(bucket1Id));
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStopEventProcessing(stopClaimAgain))).isEqualTo(1);
 
-        // Attempt to stop again after completion should return null
-        BucketSlotDTO afterCompletionStopAttempt = bucketSlotService.findNextBucketToStop(stopEventDate, stopProcessingExpiredDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(afterCompletionStopAttempt).isNull();
+        // Attempt to stop again after completion should return nothing
+        BucketSlotClaim afterCompletionStopAttempt = bucketSlotService.claimNextBucketIdsToStop(stopProcessingExpiredDate, stopProcessingExpiredDate.plusSeconds(processingTimeoutSeconds), 10);
+        assertThat(afterCompletionStopAttempt.isEmpty()).isTrue();
 
         // Step 4: Process Start Event for Bucket 2
         LocalDateTime bucket2StartEventDate = bucket2From;
-        BucketSlotDTO bucket2ToStart = bucketSlotService.findNextBucketToStart(bucket2StartEventDate, bucket2StartEventDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucket2ToStart).isNotNull();
-        assertThat(bucket2ToStart.id()).isEqualTo(bucket2Id);
+        BucketSlotClaim bucket2StartClaim = bucketSlotService.claimNextBucketIdsToStart(bucket2StartEventDate, bucket2StartEventDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(bucket2StartClaim.getBucketSlotIds()).containsExactly(bucket2Id);
 
         // Mark the start event as completed for Bucket 2
-        assertDoesNotThrow(() -> bucketSlotService.completeStartEventProcessing(bucket2Id));
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStartEventProcessing(bucket2StartClaim))).isEqualTo(1);
 
         // Step 5: Process Stop Event for Bucket 2
         LocalDateTime bucket2StopEventDate = bucket2To;
-        BucketSlotDTO bucket2ToStop = bucketSlotService.findNextBucketToStop(bucket2StopEventDate, bucket2StopEventDate.plusSeconds(processingTimeoutSeconds));
-        assertThat(bucket2ToStop).isNotNull();
-        assertThat(bucket2ToStop.id()).isEqualTo(bucket2Id);
+        BucketSlotClaim bucket2StopClaim = bucketSlotService.claimNextBucketIdsToStop(bucket2StopEventDate, bucket2StopEventDate.minusSeconds(processingTimeoutSeconds), 10);
+        assertThat(bucket2StopClaim.getBucketSlotIds()).containsExactly(bucket2Id);
 
         // Mark the stop event as completed for Bucket 2
-        assertDoesNotThrow(() -> bucketSlotService.completeStopEventProcessing(bucket2Id));
+        assertThat(assertDoesNotThrow(() -> bucketSlotService.completeStopEventProcessing(bucket2StopClaim))).isEqualTo(1);
 
         // Final Assertions: Ensure no buckets are pending for start or stop
-        BucketSlotDTO noBucketToStart = bucketSlotService.findNextBucketToStart(LocalDateTime.now(), LocalDateTime.now().plusSeconds(processingTimeoutSeconds));
-        assertThat(noBucketToStart).isNull();
+        BucketSlotClaim noBucketToStart = bucketSlotService.claimNextBucketIdsToStart(LocalDateTime.now(), LocalDateTime.now().plusSeconds(processingTimeoutSeconds), 10);
+        assertThat(noBucketToStart.isEmpty()).isTrue();
 
-        BucketSlotDTO noBucketToStop = bucketSlotService.findNextBucketToStop(LocalDateTime.now(), LocalDateTime.now().plusSeconds(processingTimeoutSeconds));
-        assertThat(noBucketToStop).isNull();
+        BucketSlotClaim noBucketToStop = bucketSlotService.claimNextBucketIdsToStop(LocalDateTime.now(), LocalDateTime.now().plusSeconds(processingTimeoutSeconds), 10);
+        assertThat(noBucketToStop.isEmpty()).isTrue();
     }
 }
@@ -0,0 +1,161 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.api.v1.dto.DomainDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.NewDomainDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.NewWorkTypeDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkflowDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkflowStateDTO;
+import edu.stanford.slac.core_work_management.config.CacheConfig;
+import edu.stanford.slac.core_work_management.model.Domain;
+import edu.stanford.slac.core_work_management.model.WorkType;
+import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Objects;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+/**
+ * Test the domain, work type and workflow caches, the test profile disable the caches so they are enabled here
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.cache.type=hazelcast")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class DomainServiceCacheTest {
+    @Autowired
+    private DomainService domainService;
+    @Autowired
+    private WorkTypeRepository workTypeRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    private String domainId;
+    private String workTypeId;
+
+    @BeforeEach
+    public void prepareDomain() {
+        mongoTemplate.remove(new Query(), Domain.class);
+        mongoTemplate.remove(new Query(), WorkType.class);
+        Set.of(CacheConfig.DOMAINS_CACHE, CacheConfig.WORK_TYPES_CACHE, CacheConfig.WORKFLOW_CACHE).forEach(
+                cacheName -> Objects.requireNonNull(cacheManager.getCache(cacheName)).clear()
+        );
+
+        DomainDTO domain = assertDoesNotThrow(
+                () -> domainService.createNewAndGet(
+                        NewDomainDTO
+                                .builder()
+                                .name("Cache Domain")
+                                .description("Cache Domain Description")
+                                .workflowImplementations(Set.of("DummyParentWorkflow"))
+                                .build()
+                )
+        );
+        domainId = domain.id();
+        WorkflowDTO workflow = domain.workflows().stream().findFirst().orElseThrow();
+        workTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Cache work type")
+                                .description("Cache work type description")
+                                .workflowId(workflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+    }
+
+    @Test
+    public void domainIsServedByTheCache() {
+        var first = assertDoesNotThrow(() -> domainService.findById(domainId));
+        // a change written around the repository is not seen until the entry is evicted
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(domainId)),
+                new Update().set("description", "changed outside the cache"),
+                Domain.class
+        );
+        var second = assertDoesNotThrow(() -> domainService.findById(domainId));
+        assertThat(second.description()).isEqualTo(first.description());
+
+        Objects.requireNonNull(cacheManager.getCache(CacheConfig.DOMAINS_CACHE)).evict(domainId);
+        var third = assertDoesNotThrow(() -> domainService.findById(domainId));
+        assertThat(third.description()).isEqualTo("changed outside the cache");
+    }
+
+    @Test
+    public void statisticsUpdateKeepTheCachedDomain() {
+        assertDoesNotThrow(() -> domainService.findById(domainId));
+        var domainCache = Objects.requireNonNull(cacheManager.getCache(CacheConfig.DOMAINS_CACHE));
+        assertThat(domainCache.get(domainId)).isNotNull();
+
+        assertDoesNotThrow(() -> domainService.updateDomainStatistics(domainId, workTypeId, null, WorkflowState.Created));
+
+        // the domain is still cached but the statistics are the current ones
+        assertThat(domainCache.get(domainId)).isNotNull();
+        var domain = assertDoesNotThrow(() -> domainService.findById(domainId));
+        assertThat(domain.workTypeStatusStatistics()).hasSize(1);
+        assertThat(domain.workTypeStatusStatistics().getFirst().status())
+                .anySatisfy(
+                        stat -> {
+                            assertThat(stat.status()).isEqualTo(WorkflowStateDTO.Created);
+                            assertThat(stat.count()).isEqualTo(1);
+                        }
+                );
+    }
+
+    @Test
+    public void workTypeSaveEvictTheCachedWorkType() {
+        var workType = workTypeRepository.findById(workTypeId);
+        assertThat(workType).isPresent();
+        var workTypeCache = Objects.requireNonNull(cacheManager.getCache(CacheConfig.WORK_TYPES_CACHE));
+        assertThat(workTypeCache.get(workTypeId)).isNotNull();
+
+        workType.get().setDescription("updated description");
+        workTypeRepository.save(workType.get());
+        assertThat(workTypeCache.get(workTypeId)).isNull();
+        assertThat(workTypeRepository.findById(workTypeId))
+                .hasValueSatisfying(updated -> assertThat(updated.getDescription()).isEqualTo("updated description"));
+    }
+
+    @Test
+    public void workflowBindingIsCachedThroughTheProxy() {
+        var workflow = assertDoesNotThrow(() -> domainService.getWorkflowInstanceByDomainIdAndWorkTypeId(domainId, workTypeId));
+        assertThat(workflow).isNotNull();
+        var workflowCache = Objects.requireNonNull(cacheManager.getCache(CacheConfig.WORKFLOW_CACHE));
+        assertThat(workflowCache.get("%s/%s".formatted(domainId, workTypeId))).isNotNull();
+    }
+
+    @Test
+    public void cacheMetricsAreRegistered() {
+        assertDoesNotThrow(() -> domainService.findById(domainId));
+        assertDoesNotThrow(() -> domainService.findById(domainId));
+        Set.of(CacheConfig.DOMAINS_CACHE, CacheConfig.WORK_TYPES_CACHE, CacheConfig.WORKFLOW_CACHE).forEach(
+                cacheName -> assertThat(meterRegistry.find("cache.gets").tag("cache", cacheName).meters()).isNotEmpty()
+        );
+    }
+}
@@ -7,10 +7,13 @@ import edu.stanford.slac.core_work_management.exception.DomainNotFound;
 import edu.stanford.slac.core_work_management.model.Domain;
 import edu.stanford.slac.core_work_management.model.LOVElement;
 import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkStatusCountStatistics;
 import edu.stanford.slac.core_work_management.model.WorkType;
 import edu.stanford.slac.core_work_management.repository.WorkRepository;
 import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
 import jakarta.validation.ConstraintViolationException;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -20,11 +23,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
@@ -77,6 +83,118 @@ public class DomainServiceTest {
         assertThat(domainId).isNotNull().isNotEmpty();
     }
 
+    @Test
+    public void testIncrementalDomainStatistics() {
+        String domainId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        NewDomainDTO.builder()
+                                .name("TEST domain")
+                                .description("Test domain description")
+                                .workflowImplementations(
+                                        Set.of(
+                                                "DummyParentWorkflow"
+                                        )
+                                )
+                                .build()
+                )
+        );
+        // two new works and one moved to in progress
+        assertDoesNotThrow(() -> domainService.updateDomainStatistics(domainId, "wt-1", null, WorkflowState.Created));
+        assertDoesNotThrow(() -> domainService.updateDomainStatistics(domainId, "wt-1", null, WorkflowState.Created));
+        assertDoesNotThrow(() -> domainService.updateDomainStatistics(domainId, "wt-1", WorkflowState.Created, WorkflowState.InProgress));
+
+        var domain = mongoTemplate.findById(domainId, Domain.class);
+        assertThat(domain).isNotNull();
+        assertThat(domain.getWorkTypeStatusStatistics().get("wt-1"))
+                .hasSize(2)
+                .anySatisfy(stat -> {
+                    assertThat(stat.getStatus()).isEqualTo(WorkflowState.Created);
+                    assertThat(stat.getCount()).isEqualTo(1);
+                })
+                .anySatisfy(stat -> {
+                    assertThat(stat.getStatus()).isEqualTo(WorkflowState.InProgress);
+                    assertThat(stat.getCount()).isEqualTo(1);
+                });
+
+        // the reconciliation realign the statistic with the real works (none in this case)
+        assertDoesNotThrow(() -> domainService.reconcileDomainStatistics(domainId));
+        domain = mongoTemplate.findById(domainId, Domain.class);
+        assertThat(domain).isNotNull();
+        assertThat(domain.getWorkTypeStatusStatistics()).isEmpty();
+    }
+
+    @Test
+    public void testIncrementNeverCreateNotPositiveCounter() {
+        String domainId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        NewDomainDTO.builder()
+                                .name("TEST domain")
+                                .description("Test domain description")
+                                .workflowImplementations(
+                                        Set.of(
+                                                "DummyParentWorkflow"
+                                        )
+                                )
+                                .build()
+                )
+        );
+        // the counter of the previous status has never been created
+        assertDoesNotThrow(() -> domainService.updateDomainStatistics(domainId, "wt-1", WorkflowState.Created, WorkflowState.InProgress));
+
+        var domain = mongoTemplate.findById(domainId, Domain.class);
+        assertThat(domain).isNotNull();
+        assertThat(domain.getWorkTypeStatusStatistics().get("wt-1"))
+                .hasSize(1)
+                .allSatisfy(stat -> {
+                    assertThat(stat.getStatus()).isEqualTo(WorkflowState.InProgress);
+                    assertThat(stat.getCount()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    public void testReconcileIgnoreCounterOrderAndZeroCount() {
+        String domainId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        NewDomainDTO.builder()
+                                .name("TEST domain")
+                                .description("Test domain description")
+                                .workflowImplementations(
+                                        Set.of(
+                                                "DummyParentWorkflow"
+                                        )
+                                )
+                                .build()
+                )
+        );
+        // two created works and one in progress
+        String workCollection = mongoTemplate.getCollectionName(Work.class);
+        List.of(WorkflowState.Created, WorkflowState.Created, WorkflowState.InProgress).forEach(
+                status -> mongoTemplate.insert(
+                        new Document("domainId", domainId)
+                                .append("workTypeId", "wt-1")
+                                .append("currentStatus", new Document("status", status.name())),
+                        workCollection
+                )
+        );
+        // the stored statistics are aligned but in another order and with a zero counter
+        List<WorkStatusCountStatistics> storedStatistics = List.of(
+                WorkStatusCountStatistics.builder().status(WorkflowState.InProgress).count(1).build(),
+                WorkStatusCountStatistics.builder().status(WorkflowState.Closed).count(0).build(),
+                WorkStatusCountStatistics.builder().status(WorkflowState.Created).count(2).build()
+        );
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(domainId)),
+                new Update().set("workTypeStatusStatistics", Map.of("wt-1", storedStatistics)),
+                Domain.class
+        );
+
+        // the reconciliation find them aligned so they are not rewritten
+        assertDoesNotThrow(() -> domainService.reconcileDomainStatistics(domainId));
+        var domain = mongoTemplate.findById(domainId, Domain.class);
+        assertThat(domain).isNotNull();
+        assertThat(domain.getWorkTypeStatusStatistics().get("wt-1")).containsExactlyElementsOf(storedStatistics);
+    }
+
     @Test
     public void testFetchDomainById() {
         String domainId = assertDoesNotThrow(
@@ -58,6 +58,8 @@ public class LOVServiceTest {
     @Autowired
     private LOVElementRepository lovElementRepository;
     @Autowired
+    private LOVSnapshotService lovSnapshotService;
+    @Autowired
     private HelperService helperService;
     @Autowired
     private DomainService domainService;
@@ -277,4 +279,50 @@ public class LOVServiceTest {
         );
         assertThat(fieldNotFound.getErrorCode()).isEqualTo(-1);
     }
+
+    @Test
+    public void writePublishNewSnapshotVersion() {
+        var lovIds = assertDoesNotThrow(
+                () -> lovService.createNew(
+                        "group-1",
+                        of(
+                                NewLOVElementDTO.builder().value("group-1 value1").description("group-1 value1 description").build()
+                        )
+                )
+        );
+        long version = lovSnapshotService.getVersion();
+        assertThat(lovSnapshotService.findByGroupName("group-1")).extracting(LOVElement::getId).containsExactlyElementsOf(lovIds);
+
+        // a write publish a new version with the field reference indexed
+        assertDoesNotThrow(() -> lovService.addFieldReferenceToGroupName("group-1", of("field1")));
+        assertThat(lovSnapshotService.getVersion()).isGreaterThan(version);
+        assertThat(lovSnapshotService.findByFieldReference("field1")).extracting(LOVElement::getId).containsExactlyElementsOf(lovIds);
+        assertThat(lovSnapshotService.existsByIdAndFieldReference(lovIds.get(0), "field1")).isTrue();
+        assertThat(lovSnapshotService.existsByIdAndFieldReference(lovIds.get(0), "field2")).isFalse();
+        assertThat(lovService.findLovValueById(lovIds.get(0))).isEqualTo("group-1 value1");
+    }
+
+    @Test
+    public void snapshotReadNotNotifiedGroupFromDatabase() {
+        // the snapshot is aligned with the clean collection
+        lovSnapshotService.reload();
+
+        // a group written by another node whose notification has not been received
+        LOVElement element = mongoTemplate.insert(
+                LOVElement.builder()
+                        .groupName("new-group")
+                        .value("new-group value1")
+                        .fieldReference(List.of("new-field"))
+                        .build()
+        );
+        assertThat(lovSnapshotService.findByGroupName("new-group")).extracting(LOVElement::getId).containsExactly(element.getId());
+        assertThat(lovSnapshotService.findByFieldReference("new-field")).extracting(LOVElement::getId).containsExactly(element.getId());
+
+        // the group not found is remembered until the next snapshot
+        assertThat(lovSnapshotService.findByGroupName("missing-group")).isEmpty();
+        mongoTemplate.insert(LOVElement.builder().groupName("missing-group").value("missing-group value1").build());
+        assertThat(lovSnapshotService.findByGroupName("missing-group")).isEmpty();
+        lovSnapshotService.reload();
+        assertThat(lovSnapshotService.findByGroupName("missing-group")).hasSize(1);
+    }
 }
@@ -0,0 +1,145 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.PersonNotFound;
+import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
+import edu.stanford.slac.core_work_management.api.v1.mapper.PersonMapper;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class PersonResolverServiceTest {
+    @Autowired
+    PersonResolverService personResolverService;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    PeopleGroupService peopleGroupService;
+    @Autowired
+    LdapTemplate ldapTemplate;
+    @Autowired
+    PersonMapper personMapper;
+
+    @BeforeEach
+    public void cleanCache() {
+        personResolverService.evictAll();
+    }
+
+    @Test
+    public void findPersonsByEMailsInOneLookup() {
+        var found = assertDoesNotThrow(
+                () -> personResolverService.findPersonsByEMails(
+                        List.of("user1@slac.stanford.edu", "user2@slac.stanford.edu", "user3@slac.stanford.edu", "unknown@slac.stanford.edu")
+                )
+        );
+        assertThat(found).containsOnlyKeys("user1@slac.stanford.edu", "user2@slac.stanford.edu", "user3@slac.stanford.edu");
+        assertThat(found.get("user2@slac.stanford.edu").uid()).isEqualTo("user2");
+        assertThat(meterRegistry.get("cwm_person_ldap_lookup").tag("type", "batch").timer().count()).isGreaterThanOrEqualTo(1);
+
+        // now all the persons are served by the cache
+        double hits = cacheCount("hit");
+        var person = assertDoesNotThrow(() -> personResolverService.findPersonByEMail("user1@slac.stanford.edu"));
+        assertThat(person.mail()).isEqualTo("user1@slac.stanford.edu");
+        assertThat(cacheCount("hit")).isEqualTo(hits + 1);
+
+        // the unknown email is cached as not found
+        double negativeHits = cacheCount("negative-hit");
+        assertThrows(
+                PersonNotFound.class,
+                () -> personResolverService.findPersonByEMail("unknown@slac.stanford.edu")
+        );
+        assertThat(cacheCount("negative-hit")).isEqualTo(negativeHits + 1);
+    }
+
+    @Test
+    public void findPersonByEMailCacheNotFound() {
+        double misses = cacheCount("miss");
+        assertThrows(
+                PersonNotFound.class,
+                () -> personResolverService.findPersonByEMail("wrong@slac.stanford.edu")
+        );
+        assertThrows(
+                PersonNotFound.class,
+                () -> personResolverService.findPersonByEMail("wrong@slac.stanford.edu")
+        );
+        // only the first lookup reached ldap
+        assertThat(cacheCount("miss")).isEqualTo(misses + 1);
+    }
+
+    @Test
+    public void checkPersonsExistFailsOnUnknownEmail() {
+        assertDoesNotThrow(
+                () -> personResolverService.checkPersonsExist(List.of("user1@slac.stanford.edu", "user2@slac.stanford.edu"))
+        );
+        var notFound = assertThrows(
+                PersonNotFound.class,
+                () -> personResolverService.checkPersonsExist(List.of("user1@slac.stanford.edu", "wrong@slac.stanford.edu"))
+        );
+        assertThat(notFound.getErrorCode()).isEqualTo(-1);
+    }
+
+    @Test
+    public void cachedNotFoundThrowNewException() {
+        var first = assertThrows(
+                PersonNotFound.class,
+                () -> personResolverService.findPersonByEMail("wrong@slac.stanford.edu")
+        );
+        var second = assertThrows(
+                PersonNotFound.class,
+                () -> personResolverService.findPersonByEMail("wrong@slac.stanford.edu")
+        );
+        var third = assertThrows(
+                PersonNotFound.class,
+                () -> personResolverService.findPersonByEMail("wrong@slac.stanford.edu")
+        );
+        assertThat(third).isNotSameAs(second);
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    public void fullCacheEvictOnlyTheFirstToExpire() throws InterruptedException {
+        CWMAppProperties cwmAppProperties = new CWMAppProperties();
+        cwmAppProperties.setPersonCacheMaxSize(2);
+        MeterRegistry localMeterRegistry = new SimpleMeterRegistry();
+        PersonResolverService smallResolver = new PersonResolverService(peopleGroupService, ldapTemplate, personMapper, cwmAppProperties, localMeterRegistry);
+        assertDoesNotThrow(() -> smallResolver.findPersonByEMail("user1@slac.stanford.edu"));
+        // be sure the entries expire at different times
+        Thread.sleep(5);
+        assertDoesNotThrow(() -> smallResolver.findPersonByEMail("user2@slac.stanford.edu"));
+        Thread.sleep(5);
+        assertDoesNotThrow(() -> smallResolver.findPersonByEMail("user3@slac.stanford.edu"));
+
+        // only the first person has been evicted
+        assertDoesNotThrow(() -> smallResolver.findPersonByEMail("user2@slac.stanford.edu"));
+        assertDoesNotThrow(() -> smallResolver.findPersonByEMail("user3@slac.stanford.edu"));
+        assertThat(localMeterRegistry.get("cwm_person_cache").tag("result", "hit").counter().count()).isEqualTo(2);
+        assertDoesNotThrow(() -> smallResolver.findPersonByEMail("user1@slac.stanford.edu"));
+        assertThat(localMeterRegistry.get("cwm_person_cache").tag("result", "miss").counter().count()).isEqualTo(4);
+    }
+
+    private double cacheCount(String result) {
+        return meterRegistry.get("cwm_person_cache").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,138 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.model.SchedulerLease;
+import edu.stanford.slac.core_work_management.repository.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class SchedulerLeaderElectionTest {
+    private static final String JOB = "test-job";
+    private static final Duration LEASE_TTL = Duration.ofSeconds(1);
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    private final List<SchedulerLeaderElection> contenders = new ArrayList<>();
+    private final Map<SchedulerLeaderElection, MeterRegistry> registries = new HashMap<>();
+
+    @BeforeEach
+    public void createContenders() {
+        mongoTemplate.remove(new Query(), SchedulerLease.class);
+        // simulate three nodes competing on the same database
+        IntStream.range(0, 3).forEach(
+                i -> {
+                    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+                    SchedulerLeaderElection contender = new SchedulerLeaderElection(
+                            schedulerLeaseRepository,
+                            Clock.systemUTC(),
+                            LEASE_TTL,
+                            "node-%d".formatted(i),
+                            meterRegistry
+                    );
+                    contenders.add(contender);
+                    registries.put(contender, meterRegistry);
+                }
+        );
+    }
+
+    @AfterEach
+    public void stopContenders() {
+        contenders.forEach(SchedulerLeaderElection::shutdown);
+        contenders.clear();
+        registries.clear();
+    }
+
+    @Test
+    public void onlyOneContenderLeadsAJob() {
+        assertThat(leaders()).hasSize(1);
+        SchedulerLeaderElection leader = leaders().getFirst();
+
+        // the leader keeps the job while it renews the lease
+        for (int i = 0; i < 10; i++) {
+            await().pollDelay(200, MILLISECONDS).until(() -> true);
+            assertThat(leaders()).containsExactly(leader);
+        }
+        MeterRegistry meterRegistry = registries.get(leader);
+        assertThat(meterRegistry.get("cwm_scheduler_leader").tag("job", JOB).gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cwm_scheduler_lease_renewal").tag("job", JOB).timer().count()).isGreaterThan(1L);
+    }
+
+    @Test
+    public void failoverWhenTheLeaderStopsRenewing() {
+        assertThat(leaders()).hasSize(1);
+        SchedulerLeaderElection leader = leaders().getFirst();
+
+        // the leader crashes without releasing the lease
+        leader.suspend();
+        await()
+                .atMost(LEASE_TTL.multipliedBy(3).toMillis(), MILLISECONDS)
+                .pollInterval(50, MILLISECONDS)
+                .until(() -> leaders().size() == 1 && !leaders().contains(leader));
+        assertThat(leader.isLeader(JOB)).isFalse();
+
+        SchedulerLeaderElection newLeader = leaders().getFirst();
+        assertThat(
+                registries.get(newLeader).get("cwm_scheduler_leadership_change").tag("job", JOB).tag("change", "acquired").counter().count()
+        ).isEqualTo(1.0);
+    }
+
+    @Test
+    public void releaseHandsOverTheJob() {
+        assertThat(leaders()).hasSize(1);
+        SchedulerLeaderElection leader = leaders().getFirst();
+
+        List<String> calledListeners = new CopyOnWriteArrayList<>();
+        contenders.forEach(c -> c.addLeadershipListener(JOB, () -> calledListeners.add(c.getOwnerId())));
+
+        // the lease is released so it is taken at the next renewal, before it would expire
+        leader.shutdown();
+        await()
+                .atMost(LEASE_TTL.toMillis(), MILLISECONDS)
+                .pollInterval(50, MILLISECONDS)
+                .until(() -> leaders().size() == 1 && !leaders().contains(leader));
+        assertThat(calledListeners).containsExactly(leaders().getFirst().getOwnerId());
+    }
+
+    @Test
+    public void everyJobHasItsOwnLeader() {
+        assertThat(leaders()).hasSize(1);
+        contenders.forEach(c -> c.isLeader("another-job"));
+        assertThat(contenders.stream().filter(c -> c.isLeader("another-job")).count()).isEqualTo(1L);
+    }
+
+    private List<SchedulerLeaderElection> leaders() {
+        return contenders.stream().filter(c -> c.isLeader(JOB)).toList();
+    }
+}
@@ -8,6 +8,7 @@ import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.core_work_management.api.v1.dto.*;
 import edu.stanford.slac.core_work_management.model.Domain;
 import edu.stanford.slac.core_work_management.model.ShopGroup;
+import edu.stanford.slac.core_work_management.model.ShopGroupUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -20,6 +21,9 @@ import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
 
 import static com.google.common.collect.ImmutableSet.of;
 import static edu.stanford.slac.core_work_management.config.AuthorizationStringConfig.SHOP_GROUP_AUTHORIZATION_TEMPLATE;
@@ -62,6 +66,8 @@ public class ShopGroupServiceTest {
     private AuthService authService;
     @Autowired
     private MongoTemplate mongoTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     private DomainDTO domainDTO = null;
 
@@ -236,6 +242,116 @@ public class ShopGroupServiceTest {
         ).hasSize(1);
     }
 
+    @Test
+    public void membershipFollowShopGroupUpdate() {
+        var newShopGroupId = assertDoesNotThrow(
+                () -> shopGroupService.createNew(
+                        domainDTO.id(),
+                        NewShopGroupDTO.builder()
+                                .name("shop1")
+                                .description("shop1 user[2-3]")
+                                .users(
+                                        of(
+                                                ShopGroupUserInputDTO.builder()
+                                                        .userId("user2@slac.stanford.edu")
+                                                        .isLeader(true)
+                                                        .build(),
+                                                ShopGroupUserInputDTO.builder()
+                                                        .userId("user3@slac.stanford.edu")
+                                                        .build()
+                                        )
+                                )
+                                .build()
+                )
+        );
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "user3@slac.stanford.edu")).isTrue();
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "user1@slac.stanford.edu")).isFalse();
+        assertThat(shopGroupService.checkContainsAUserEmail("wrong-domain", newShopGroupId, "user3@slac.stanford.edu")).isFalse();
+        assertThat(shopGroupService.findShopGroupIdsByUserEmail("user2@slac.stanford.edu")).contains(newShopGroupId);
+
+        // update the shop group
+        assertDoesNotThrow(
+                () -> shopGroupService.update(
+                        domainDTO.id(),
+                        newShopGroupId,
+                        UpdateShopGroupDTO.builder()
+                                .name("shop1 updated")
+                                .description("shop1 user updated")
+                                .users(
+                                        of(
+                                                ShopGroupUserInputDTO.builder()
+                                                        .userId("user1@slac.stanford.edu")
+                                                        .isLeader(true)
+                                                        .build(),
+                                                ShopGroupUserInputDTO.builder()
+                                                        .userId("user3@slac.stanford.edu")
+                                                        .build()
+                                        )
+                                )
+                                .build()
+                )
+        );
+        assertThat(shopGroupService.findUserEmailsByDomainIdAndId(domainDTO.id(), newShopGroupId))
+                .containsExactlyInAnyOrder("user1@slac.stanford.edu", "user3@slac.stanford.edu");
+        assertThat(shopGroupService.findShopGroupIdsByUserEmail("user2@slac.stanford.edu")).doesNotContain(newShopGroupId);
+        assertThat(shopGroupService.findShopGroupIdsByUserEmail("user1@slac.stanford.edu")).contains(newShopGroupId);
+    }
+
+    @Test
+    public void membershipReadsShopGroupNeverIndexed() {
+        // the shop group is written by another node and its notification has not been received
+        var shopGroup = mongoTemplate.insert(
+                ShopGroup.builder()
+                        .domainId(domainDTO.id())
+                        .name("shop from another node")
+                        .description("shop from another node")
+                        .users(
+                                Set.of(
+                                        ShopGroupUser.builder()
+                                                .user(PersonDTO.builder().mail("user2@slac.stanford.edu").build())
+                                                .build()
+                                )
+                        )
+                        .build()
+        );
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), shopGroup.getId(), "user2@slac.stanford.edu")).isTrue();
+        assertThat(shopGroupService.findUserEmailsByDomainIdAndId(domainDTO.id(), shopGroup.getId()))
+                .containsExactly("user2@slac.stanford.edu");
+        // once read the shop group is indexed also by user
+        assertThat(shopGroupService.findShopGroupIdsByUserEmail("user2@slac.stanford.edu")).contains(shopGroup.getId());
+        // an unknown shop group is still not found
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), "unknown-shop-group", "user2@slac.stanford.edu")).isFalse();
+    }
+
+    @Test
+    public void rolledBackShopGroupIsNotIndexed() {
+        String shopGroupId = transactionTemplate.execute(
+                status -> {
+                    String id = shopGroupService.createNew(
+                            domainDTO.id(),
+                            NewShopGroupDTO.builder()
+                                    .name("rolled back shop")
+                                    .description("rolled back shop")
+                                    .users(
+                                            of(
+                                                    ShopGroupUserInputDTO.builder()
+                                                            .userId("user3@slac.stanford.edu")
+                                                            .build()
+                                            )
+                                    )
+                                    .build()
+                    );
+                    // the shop group is not visible to the index before the commit
+                    assertThat(shopGroupService.findShopGroupIdsByUserEmail("user3@slac.stanford.edu")).doesNotContain(id);
+                    status.setRollbackOnly();
+                    return id;
+                }
+        );
+        assertThat(shopGroupId).isNotNull();
+        assertThat(shopGroupService.findShopGroupIdsByUserEmail("user3@slac.stanford.edu")).doesNotContain(shopGroupId);
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), shopGroupId, "user3@slac.stanford.edu")).isFalse();
+    }
+
     @Test
     public void createNewShopGroupFailsWrongUserEmail() {
         PersonNotFound personNotFoundError = assertThrows(
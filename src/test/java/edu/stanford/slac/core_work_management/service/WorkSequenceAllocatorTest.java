@@ -0,0 +1,65 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.model.Counter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class WorkSequenceAllocatorTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    WorkSequenceAllocator workSequenceAllocator;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Counter.class);
+    }
+
+    @Test
+    public void concurrentAllocationReturnUniqueSequence() {
+        Set<Long> allocated = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> futures = IntStream.range(0, 500)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> allocated.add(workSequenceAllocator.next()), executor))
+                    .toList();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+        // all the sequence are unique
+        assertThat(allocated).hasSize(500);
+
+        // the counter has been incremented only once per block
+        var counter = mongoTemplate.findById("Work", Counter.class);
+        assertThat(counter).isNotNull();
+        assertThat(counter.getSequence()).isLessThanOrEqualTo(500L + 100L);
+
+        // a dedicated block is contiguous and does not overlap the allocated sequence
+        Long first = workSequenceAllocator.nextBlock(10);
+        assertThat(allocated).doesNotContain(first, first + 9);
+    }
+}
@@ -1,9 +1,13 @@
 package edu.stanford.slac.core_work_management.service;
 
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.ad.eed.baselib.exception.PersonNotFound;
 import edu.stanford.slac.ad.eed.baselib.exception.UserNotFound;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.core_work_management.api.v1.dto.*;
+import edu.stanford.slac.core_work_management.api.v1.mapper.WorkMapper;
 import edu.stanford.slac.core_work_management.exception.LocationNotFound;
 import edu.stanford.slac.core_work_management.exception.ShopGroupNotFound;
 import edu.stanford.slac.core_work_management.exception.WorkNotFound;
@@ -30,6 +34,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static com.google.common.collect.ImmutableSet.of;
+import static edu.stanford.slac.core_work_management.config.AuthorizationStringConfig.WORK_AUTHORIZATION_TEMPLATE;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -57,6 +62,10 @@ public class WorkServiceTest {
     BucketService bucketService;
     @Autowired
     ScriptService scriptService;
+    @Autowired
+    AuthService authService;
+    @Autowired
+    WorkMapper workMapper;
 
     private DomainDTO fullDomain;
     private WorkflowDTO parentWorkflow;
@@ -231,6 +240,67 @@ public class WorkServiceTest {
         assertThat(newWorkId).isNotNull();
     }
 
+    @Test
+    public void createManyWorksReportingErrorPerItem() {
+        String newWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workflowId(parentWorkflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+        assertThat(newWorkTypeId).isNotNull();
+        var results = assertDoesNotThrow(
+                () -> workService.createMany(
+                        domainId,
+                        List.of(
+                                NewWorkDTO
+                                        .builder()
+                                        .title("first work")
+                                        .description("first work description")
+                                        .workTypeId(newWorkTypeId)
+                                        .locationId(locationId)
+                                        .shopGroupId(shopGroupId)
+                                        .build(),
+                                NewWorkDTO
+                                        .builder()
+                                        .title("wrong work type")
+                                        .description("wrong work type description")
+                                        .workTypeId("bad-id")
+                                        .locationId(locationId)
+                                        .shopGroupId(shopGroupId)
+                                        .build(),
+                                NewWorkDTO
+                                        .builder()
+                                        .title("second work")
+                                        .description("second work description")
+                                        .workTypeId(newWorkTypeId)
+                                        .locationId(locationId)
+                                        .shopGroupId(shopGroupId)
+                                        .build()
+                        )
+                )
+        );
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).errorCode()).isEqualTo(0);
+        assertThat(results.get(0).id()).isNotNull();
+        assertThat(results.get(1).errorCode()).isNotEqualTo(0);
+        assertThat(results.get(1).id()).isNull();
+        assertThat(results.get(2).errorCode()).isEqualTo(0);
+        assertThat(results.get(2).id()).isNotNull();
+        assertThat(results.get(2).workNumber()).isGreaterThan(results.get(0).workNumber());
+
+        var foundWork = assertDoesNotThrow(
+                () -> workService.findWorkById(domainId, results.get(2).id(), WorkDetailsOptionDTO.builder().build())
+        );
+        assertThat(foundWork.title()).isEqualTo("second work");
+    }
+
     @Test
     public void createNewWorkAndGetIt() {
         String newWorkTypeId = assertDoesNotThrow(
@@ -394,6 +464,133 @@ public class WorkServiceTest {
         );
     }
 
+    @Test
+    public void updateWorkChangeOnlyTheNeededAuthorization() {
+        String newWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workflowId(parentWorkflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+        assertThat(newWorkTypeId).isNotNull();
+        var newWorkId = assertDoesNotThrow(
+                () -> workService.createNew(
+                        domainId,
+                        NewWorkDTO
+                                .builder()
+                                .title("Work 1")
+                                .description("Work 1 description")
+                                .workTypeId(newWorkTypeId)
+                                .locationId(locationId)
+                                .shopGroupId(shopGroupId)
+                                .build()
+                )
+        );
+        assertThat(newWorkId).isNotNull();
+        var authorizationsAfterCreation = authService.findByResourceIs(WORK_AUTHORIZATION_TEMPLATE.formatted(newWorkId));
+        assertThat(authorizationsAfterCreation).isNotEmpty();
+
+        // changing only the title doesn't touch the authorization
+        assertDoesNotThrow(
+                () -> workService.update(
+                        domainId,
+                        newWorkId,
+                        UpdateWorkDTO
+                                .builder()
+                                .title("Update work 1")
+                                .build()
+                )
+        );
+        var authorizationsAfterTitleUpdate = authService.findByResourceIs(WORK_AUTHORIZATION_TEMPLATE.formatted(newWorkId));
+        assertThat(authorizationsAfterTitleUpdate)
+                .extracting(AuthorizationDTO::id)
+                .containsExactlyInAnyOrderElementsOf(authorizationsAfterCreation.stream().map(AuthorizationDTO::id).toList());
+
+        // assigning a user add only its authorization
+        assertDoesNotThrow(
+                () -> workService.update(
+                        domainId,
+                        newWorkId,
+                        UpdateWorkDTO
+                                .builder()
+                                .assignedTo(List.of("user2@slac.stanford.edu"))
+                                .build()
+                )
+        );
+        var authorizationsAfterAssignment = authService.findByResourceIs(WORK_AUTHORIZATION_TEMPLATE.formatted(newWorkId));
+        assertThat(authorizationsAfterAssignment).hasSize(authorizationsAfterCreation.size() + 1);
+        assertThat(authorizationsAfterAssignment)
+                .extracting(AuthorizationDTO::id)
+                .containsAll(authorizationsAfterCreation.stream().map(AuthorizationDTO::id).toList());
+        assertThat(authorizationsAfterAssignment)
+                .filteredOn(authorization -> authorization.owner().equals("user2@slac.stanford.edu"))
+                .extracting(AuthorizationDTO::authorizationType)
+                .containsExactly(AuthorizationTypeDTO.Write);
+    }
+
+    @Test
+    public void updateWorkLocationGrantTheNewLocationManager() {
+        String newWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workflowId(parentWorkflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+        String newLocationId = assertDoesNotThrow(
+                () -> locationService.createNew(
+                        domainId,
+                        NewLocationDTO.builder()
+                                .name("New location")
+                                .description("New location managed by user3")
+                                .locationManagerUserId("user3@slac.stanford.edu")
+                                .build()
+                )
+        );
+        var newWorkId = assertDoesNotThrow(
+                () -> workService.createNew(
+                        domainId,
+                        NewWorkDTO
+                                .builder()
+                                .title("Work 1")
+                                .description("Work 1 description")
+                                .workTypeId(newWorkTypeId)
+                                .locationId(locationId)
+                                .shopGroupId(shopGroupId)
+                                .build()
+                )
+        );
+        assertThat(newWorkId).isNotNull();
+
+        // moving the work to another location move the admin authorization to its manager
+        assertDoesNotThrow(
+                () -> workService.update(
+                        domainId,
+                        newWorkId,
+                        UpdateWorkDTO
+                                .builder()
+                                .locationId(newLocationId)
+                                .build()
+                )
+        );
+        var authorizations = authService.findByResourceIs(WORK_AUTHORIZATION_TEMPLATE.formatted(newWorkId));
+        assertThat(authorizations)
+                .filteredOn(authorization -> authorization.authorizationType() == AuthorizationTypeDTO.Admin)
+                .extracting(AuthorizationDTO::owner)
+                .containsExactly("user3@slac.stanford.edu");
+    }
+
     @Test
     public void updateWorkFailOnInvalidLocationForDomainId() {
         String newWorkTypeId = assertDoesNotThrow(
@@ -588,9 +785,89 @@ public class WorkServiceTest {
         assertThat(fullChildrenWork.id()).isNotNull();
         assertThat(fullChildrenWork.domain().id()).isEqualTo(domainId);
         assertThat(fullChildrenWork.parentWorkId()).isEqualTo(newParentWorkId);
+
+        // the parent keep the summary of the children status
+        var parentWork = mongoTemplate.findById(newParentWorkId, Work.class);
+        assertThat(parentWork).isNotNull();
+        assertThat(parentWork.getChildrenSummary()).isNotNull();
+        assertThat(parentWork.getChildrenSummary().getTotal()).isEqualTo(1L);
+        var childWork = mongoTemplate.findById(newChildrenWorkId, Work.class);
+        assertThat(childWork).isNotNull();
+        assertThat(parentWork.getChildrenSummary().count(childWork.getCurrentStatus().getStatus())).isEqualTo(1L);
+        assertThat(parentWork.getChildrenSummary().getOpen() + parentWork.getChildrenSummary().getClosed()).isEqualTo(1L);
     }
 
 
+    @Test
+    public void updateParentWorkflowCoalesceTheParents() {
+        String newChildrenWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Children work type")
+                                .description("Update the documentation description")
+                                .workflowId(childWorkflow.id())
+                                .validatorName("validation/DummyChildValidation.groovy")
+                                .build()
+                )
+        );
+        String newParentWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Parent work type")
+                                .description("Update the documentation description")
+                                .childWorkTypeIds(Set.of(newChildrenWorkTypeId))
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .workflowId(parentWorkflow.id())
+                                .build()
+                )
+        );
+        var newParentWorkId = assertDoesNotThrow(
+                () -> workService.createNew(
+                        domainId,
+                        NewWorkDTO
+                                .builder()
+                                .title("Parent work")
+                                .description("Parent work description")
+                                .workTypeId(newParentWorkTypeId)
+                                .locationId(locationId)
+                                .shopGroupId(shopGroupId)
+                                .build()
+                )
+        );
+        for (int i = 0; i < 3; i++) {
+            int childIndex = i;
+            assertDoesNotThrow(
+                    () -> workService.createNew(
+                            domainId,
+                            NewWorkDTO
+                                    .builder()
+                                    .title("Child work %d".formatted(childIndex))
+                                    .description("Child work description")
+                                    .workTypeId(newChildrenWorkTypeId)
+                                    .locationId(locationId)
+                                    .shopGroupId(shopGroupId)
+                                    .parentWorkId(newParentWorkId)
+                                    .build()
+                    )
+            );
+        }
+        var parentBefore = mongoTemplate.findById(newParentWorkId, Work.class);
+        assertThat(parentBefore).isNotNull();
+
+        // the same parent marked many times is recalculated once and, without status change, not saved
+        assertDoesNotThrow(
+                () -> workService.updateParentWorkWorkflow(domainId, List.of(newParentWorkId, newParentWorkId, newParentWorkId))
+        );
+        var parentAfter = mongoTemplate.findById(newParentWorkId, Work.class);
+        assertThat(parentAfter).isNotNull();
+        assertThat(parentAfter.getCurrentStatus().getStatus()).isEqualTo(parentBefore.getCurrentStatus().getStatus());
+        assertThat(parentAfter.getVersion()).isEqualTo(parentBefore.getVersion());
+    }
+
     @Test
     public void checkWorkCustomAttributeLOV() {
         // create lov
@@ -699,6 +976,145 @@ public class WorkServiceTest {
 
     }
 
+    @Test
+    public void batchMappingMatchTheSingleWorkMapping() {
+        List<String> lovElementIds = lovService.createNew(
+                "SubsystemGroup",
+                List.of(
+                        NewLOVElementDTO.builder()
+                                .value("ACM")
+                                .description("ACM")
+                                .build(),
+                        NewLOVElementDTO.builder()
+                                .value("AIDA")
+                                .description("AIDA")
+                                .build()
+                )
+        );
+        String newWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Parent work type")
+                                .description("Update the documentation description")
+                                .workflowId(parentWorkflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .customFields(
+                                        List.of(
+                                                WATypeCustomFieldDTO.builder()
+                                                        .label("Subsystem")
+                                                        .description("Subsystem Group")
+                                                        .valueType(ValueTypeDTO.LOV)
+                                                        .group("General Information")
+                                                        .additionalMappingInfo("SubsystemGroup")
+                                                        .isMandatory(false)
+                                                        .build(),
+                                                WATypeCustomFieldDTO.builder()
+                                                        .label("attributeOne")
+                                                        .description("Attribute One")
+                                                        .valueType(ValueTypeDTO.String)
+                                                        .group("General Information")
+                                                        .isMandatory(false)
+                                                        .build()
+                                        )
+                                )
+                                .build()
+                )
+        );
+        var workType = assertDoesNotThrow(
+                () -> domainService.findWorkTypeById(domainId, newWorkTypeId)
+        );
+        // the works share some references and differ on others
+        List<String> workIds = List.of(
+                assertDoesNotThrow(
+                        () -> workService.createNew(
+                                domainId,
+                                NewWorkDTO
+                                        .builder()
+                                        .title("first work")
+                                        .description("first work description")
+                                        .workTypeId(newWorkTypeId)
+                                        .locationId(locationId)
+                                        .shopGroupId(shopGroupId)
+                                        .userWatchlist(Set.of("user1@slac.stanford.edu", "user2@slac.stanford.edu"))
+                                        .customFieldValues(
+                                                List.of(
+                                                        WriteCustomFieldDTO.builder()
+                                                                .id(workType.customFields().getFirst().id())
+                                                                .value(
+                                                                        ValueDTO.builder()
+                                                                                .type(ValueTypeDTO.LOV)
+                                                                                .value(lovElementIds.getFirst())
+                                                                                .build()
+                                                                )
+                                                                .build(),
+                                                        WriteCustomFieldDTO.builder()
+                                                                .id(workType.customFields().getLast().id())
+                                                                .value(
+                                                                        ValueDTO.builder()
+                                                                                .type(ValueTypeDTO.String)
+                                                                                .value("first value")
+                                                                                .build()
+                                                                )
+                                                                .build()
+                                                )
+                                        )
+                                        .build()
+                        )
+                ),
+                assertDoesNotThrow(
+                        () -> workService.createNew(
+                                domainId,
+                                NewWorkDTO
+                                        .builder()
+                                        .title("second work")
+                                        .description("second work description")
+                                        .workTypeId(newWorkTypeId)
+                                        .locationId(locationId)
+                                        .shopGroupId(shopGroupId)
+                                        .userWatchlist(Set.of("user2@slac.stanford.edu"))
+                                        .customFieldValues(
+                                                List.of(
+                                                        WriteCustomFieldDTO.builder()
+                                                                .id(workType.customFields().getFirst().id())
+                                                                .value(
+                                                                        ValueDTO.builder()
+                                                                                .type(ValueTypeDTO.LOV)
+                                                                                .value(lovElementIds.getLast())
+                                                                                .build()
+                                                                )
+                                                                .build()
+                                                )
+                                        )
+                                        .build()
+                        )
+                ),
+                assertDoesNotThrow(
+                        () -> workService.createNew(
+                                domainId,
+                                NewWorkDTO
+                                        .builder()
+                                        .title("third work")
+                                        .description("third work description")
+                                        .workTypeId(newWorkTypeId)
+                                        .locationId(locationId)
+                                        .shopGroupId(shopGroupId)
+                                        .build()
+                        )
+                )
+        );
+        List<Work> works = workIds.stream().map(id -> mongoTemplate.findById(id, Work.class)).toList();
+        assertThat(works).doesNotContainNull();
+        var options = WorkDetailsOptionDTO.builder().build();
+
+        // resolving the references once for the whole list give the same result of the per work mapping
+        assertThat(workMapper.toDTO(works, options))
+                .containsExactlyElementsOf(works.stream().map(w -> workMapper.toDTO(w, options)).toList());
+        assertThat(workMapper.toSummaryDTO(works, options))
+                .containsExactlyElementsOf(works.stream().map(w -> workMapper.toSummaryDTO(w, options)).toList());
+    }
+
     @Test
     public void testWorkChanges() {
         // create base work
@@ -26,6 +26,8 @@ import static com.google.common.collect.ImmutableSet.of;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.reset;
 
@@ -285,7 +287,7 @@ public class WorkServiceWorkflowArchitectureTestTest {
 
         // Temporarily mock the domainService to fails after the
         // parent workflow has been updated and saved
-        doThrow(ControllerLogicException.builder().build()).when(domainService).updateDomainStatistics(domainId);
+        doThrow(ControllerLogicException.builder().build()).when(domainService).updateDomainStatistics(eq(domainId), any(), any(), any());
 
         // add child work, send parent to in progress state
         NewWorkDTO newChildWorkDTO = NewWorkDTO.builder()
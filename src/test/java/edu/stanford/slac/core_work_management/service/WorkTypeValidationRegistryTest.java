@@ -0,0 +1,89 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidation;
+import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidationRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class WorkTypeValidationRegistryTest {
+    @Autowired
+    private WorkTypeValidationRegistry workTypeValidationRegistry;
+
+    private final String alternateContent = """
+            package validation
+
+            import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidation
+            import edu.stanford.slac.core_work_management.service.workflow.AdmitChildrenValidation
+            import edu.stanford.slac.core_work_management.service.workflow.NewWorkValidation
+            import edu.stanford.slac.core_work_management.service.workflow.WorkflowWorkUpdate
+
+            class ReloadedValidation extends WorkTypeValidation {
+                @Override
+                void updateWorkflow(WorkflowWorkUpdate workflowWorkUpdate) {}
+                @Override
+                void checkValid(NewWorkValidation newWorkValidation) {}
+                @Override
+                void admitChildren(AdmitChildrenValidation canHaveChildValidation) {}
+            }""";
+
+    @Test
+    public void validatorArePreloadedAndShared() {
+        assertThat(workTypeValidationRegistry.getLoadedValidatorNames())
+                .contains("validation/DummyParentValidation.groovy", "validation/DummyChildValidation.groovy");
+        WorkTypeValidation first = assertDoesNotThrow(
+                () -> workTypeValidationRegistry.get("validation/DummyParentValidation.groovy")
+        );
+        WorkTypeValidation second = assertDoesNotThrow(
+                () -> workTypeValidationRegistry.get("validation/DummyParentValidation.groovy")
+        );
+        assertThat(first).isSameAs(second);
+    }
+
+    @Test
+    public void reloadSwapTheInstance() {
+        WorkTypeValidation original = assertDoesNotThrow(
+                () -> workTypeValidationRegistry.get("validation/DummyChildValidation.groovy")
+        );
+        assertDoesNotThrow(
+                () -> workTypeValidationRegistry.reload("validation/ReloadedValidation.groovy", alternateContent)
+        );
+        WorkTypeValidation reloaded = assertDoesNotThrow(
+                () -> workTypeValidationRegistry.get("validation/ReloadedValidation.groovy")
+        );
+        assertThat(reloaded.getClass().getSimpleName()).isEqualTo("ReloadedValidation");
+
+        // reload from classpath create a new instance
+        assertDoesNotThrow(
+                () -> workTypeValidationRegistry.reload("validation/DummyChildValidation.groovy")
+        );
+        WorkTypeValidation afterReload = assertDoesNotThrow(
+                () -> workTypeValidationRegistry.get("validation/DummyChildValidation.groovy")
+        );
+        assertThat(afterReload).isNotSameAs(original);
+    }
+
+    @Test
+    public void failOnNotExistingValidator() {
+        assertThrows(
+                ControllerLogicException.class,
+                () -> workTypeValidationRegistry.get("validation/NotExisting.groovy")
+        );
+        assertThat(workTypeValidationRegistry.getLoadedValidatorNames()).doesNotContain("validation/NotExisting.groovy");
+    }
+}
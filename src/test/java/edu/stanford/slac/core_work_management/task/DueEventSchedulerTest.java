@@ -0,0 +1,92 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.core_work_management.model.BucketSlot;
+import edu.stanford.slac.core_work_management.model.SchedulerLease;
+import edu.stanford.slac.core_work_management.repository.BucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test", "async-ops"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class DueEventSchedulerTest {
+    @Autowired
+    private Clock clock;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private BucketRepository bucketRepository;
+    @Autowired
+    private DueEventScheduler dueEventScheduler;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), BucketSlot.class);
+        mongoTemplate.remove(new Query(), SchedulerLease.class);
+    }
+
+    @Test
+    public void bucketStartAndStopFireAtTheirInstant() {
+        LocalDateTime from = LocalDateTime.now(clock).plusSeconds(2);
+        LocalDateTime to = from.plusSeconds(2);
+        String bucketId = bucketRepository.save(
+                BucketSlot.builder()
+                        .description("due bucket")
+                        .domainIds(Set.of("domain"))
+                        .from(from)
+                        .to(to)
+                        .build()
+        ).getId();
+        // the notification of the save can be delivered asynchronously
+        await()
+                .atMost(2, SECONDS)
+                .pollInterval(50, MILLISECONDS)
+                .until(() -> dueEventScheduler.getUpcomingCount() >= 2);
+
+        // nothing happens before the start
+        assertThat(bucketRepository.findById(bucketId).orElseThrow().getStartEventManaged()).isFalse();
+
+        await()
+                .atMost(10, SECONDS)
+                .pollInterval(100, MILLISECONDS)
+                .until(() -> bucketRepository.findById(bucketId).orElseThrow().getStartEventManaged());
+        assertThat(LocalDateTime.now(clock)).isAfterOrEqualTo(from);
+        assertThat(bucketRepository.findById(bucketId).orElseThrow().getStopEventManaged()).isFalse();
+
+        await()
+                .atMost(10, SECONDS)
+                .pollInterval(100, MILLISECONDS)
+                .until(() -> bucketRepository.findById(bucketId).orElseThrow().getStopEventManaged());
+        assertThat(LocalDateTime.now(clock)).isAfterOrEqualTo(to);
+    }
+
+    @Test
+    public void farInstantsAreLeftToTheSweep() {
+        int upcoming = dueEventScheduler.getUpcomingCount();
+        dueEventScheduler.schedule(new DueEvent(DueEvent.Type.EventTrigger, LocalDateTime.now(clock).plusYears(1)));
+        dueEventScheduler.schedule(new DueEvent(DueEvent.Type.EventTrigger, LocalDateTime.now(clock).minusYears(1)));
+        assertThat(dueEventScheduler.getUpcomingCount()).isEqualTo(upcoming);
+    }
+}
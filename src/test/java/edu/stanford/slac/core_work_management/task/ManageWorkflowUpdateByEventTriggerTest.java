@@ -0,0 +1,107 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.model.EventTrigger;
+import edu.stanford.slac.core_work_management.model.OutboxMessage;
+import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
+import edu.stanford.slac.core_work_management.repository.EventTriggerRepository;
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static edu.stanford.slac.core_work_management.task.ManageWorkflowUpdateByEventTrigger.WORK_PLANNED_START;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+@Log4j2
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ManageWorkflowUpdateByEventTriggerTest {
+    private static final int DUE_TRIGGERS = 5000;
+    @Autowired
+    private Clock clock;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private EventTriggerRepository eventTriggerRepository;
+    @Autowired
+    private CWMAppProperties cwmAppProperties;
+    @Autowired
+    private ManageWorkflowUpdateByEventTrigger manageWorkflowUpdateByEventTrigger;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), EventTrigger.class);
+        mongoTemplate.remove(new Query(), OutboxMessage.class);
+    }
+
+    @Test
+    public void fireThousandsOfDueTriggers() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<EventTrigger> dueTriggers = IntStream.range(0, DUE_TRIGGERS)
+                .mapToObj(
+                        i -> EventTrigger.builder()
+                                .typeName(WORK_PLANNED_START)
+                                .referenceId("work-%d".formatted(i))
+                                .eventFireTimestamp(now.minusMinutes(1))
+                                .payload(ProcessWorkflowInfo.builder().domainId("domain").workId("work-%d".formatted(i)).build())
+                                .build()
+                )
+                .toList();
+        mongoTemplate.insert(dueTriggers, EventTrigger.class);
+        // an invalid trigger and one not yet due
+        eventTriggerRepository.save(EventTrigger.builder().typeName(WORK_PLANNED_START).referenceId("invalid").eventFireTimestamp(now.minusMinutes(1)).build());
+        eventTriggerRepository.save(
+                EventTrigger.builder()
+                        .typeName(WORK_PLANNED_START)
+                        .referenceId("future")
+                        .eventFireTimestamp(now.plusDays(1))
+                        .payload(ProcessWorkflowInfo.builder().domainId("domain").workId("future").build())
+                        .build()
+        );
+
+        long start = System.nanoTime();
+        assertDoesNotThrow(() -> manageWorkflowUpdateByEventTrigger.processTriggeredEvent());
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Fired {} event triggers in {} ms ({} triggers/s)", DUE_TRIGGERS, elapsedMillis, DUE_TRIGGERS * 1000L / elapsedMillis);
+
+        assertThat(mongoTemplate.count(new Query(Criteria.where("fired").is(true)), EventTrigger.class)).isEqualTo(DUE_TRIGGERS + 1L);
+        assertThat(mongoTemplate.count(new Query(Criteria.where("processingId").ne(null)), EventTrigger.class)).isZero();
+        var futureTrigger = mongoTemplate.findOne(new Query(Criteria.where("referenceId").is("future")), EventTrigger.class);
+        assertThat(futureTrigger).isNotNull();
+        assertThat(futureTrigger.getFired()).isFalse();
+
+        // the workflow updates are published by the outbox relay
+        Query workflowRecords = new Query(Criteria.where("topic").is(cwmAppProperties.getWorkflowProcessingTopic()));
+        assertThat(mongoTemplate.count(workflowRecords, OutboxMessage.class)).isEqualTo(DUE_TRIGGERS);
+        await()
+                .atMost(60, SECONDS)
+                .pollInterval(100, MILLISECONDS)
+                .until(() -> mongoTemplate.count(Query.of(workflowRecords).addCriteria(Criteria.where("sentDate").is(null)), OutboxMessage.class) == 0);
+        long publishedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Published {} workflow updates in {} ms ({} records/s)", DUE_TRIGGERS, publishedMillis, DUE_TRIGGERS * 1000L / publishedMillis);
+    }
+}
@@ -0,0 +1,114 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.model.OutboxMessage;
+import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
+import edu.stanford.slac.core_work_management.repository.OutboxMessageRepository;
+import edu.stanford.slac.core_work_management.service.OutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class OutboxRelayTest {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private CWMAppProperties cwmAppProperties;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @Value("${edu.stanford.slac.core-work-management.elog-import-topic}")
+    private String importEntryTopic;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), OutboxMessage.class);
+    }
+
+    @Test
+    public void committedRecordIsSent() {
+        transactionTemplate.executeWithoutResult(
+                status -> outboxService.enqueue(
+                        cwmAppProperties.getWorkflowProcessingTopic(),
+                        "domain/work",
+                        ProcessWorkflowInfo.builder().domainId("domain").workId("work").build(),
+                        Map.of("test-header", "value")
+                )
+        );
+        var enqueued = outboxMessageRepository.findAll();
+        assertThat(enqueued).hasSize(1);
+        assertThat(enqueued.getFirst().getKey()).isEqualTo("domain/work");
+        assertThat(enqueued.getFirst().getHeaders()).containsEntry("test-header", "value");
+
+        await()
+                .atMost(30, SECONDS)
+                .pollInterval(50, MILLISECONDS)
+                .until(() -> outboxMessageRepository.findById(enqueued.getFirst().getId()).orElseThrow().getSentDate() != null);
+        var sent = outboxMessageRepository.findById(enqueued.getFirst().getId()).orElseThrow();
+        assertThat(sent.getProcessingId()).isNull();
+        assertThat(sent.getAttempts()).isZero();
+        assertThat(outboxMessageRepository.countPending()).isZero();
+    }
+
+    @Test
+    public void elogRecordIsStoredWithoutCredential() {
+        transactionTemplate.executeWithoutResult(
+                status -> outboxService.enqueue(importEntryTopic, null, Map.of("title", "log entry"))
+        );
+        var enqueued = outboxMessageRepository.findAll();
+        assertThat(enqueued).hasSize(1);
+        // the authorization is added only when the record is published
+        assertThat(enqueued.getFirst().getHeaders()).doesNotContainKey("Authorization");
+        // the type header is sent as the kafka template did before the outbox
+        assertThat(enqueued.getFirst().getHeaders()).containsKey("__TypeId__");
+
+        await()
+                .atMost(30, SECONDS)
+                .pollInterval(50, MILLISECONDS)
+                .until(() -> outboxMessageRepository.findById(enqueued.getFirst().getId()).orElseThrow().getSentDate() != null);
+        assertThat(outboxMessageRepository.findById(enqueued.getFirst().getId()).orElseThrow().getHeaders()).doesNotContainKey("Authorization");
+    }
+
+    @Test
+    public void rolledBackRecordIsNeverSent() {
+        transactionTemplate.executeWithoutResult(
+                status -> {
+                    outboxService.enqueue(
+                            cwmAppProperties.getWorkflowProcessingTopic(),
+                            "domain/rolled-back",
+                            ProcessWorkflowInfo.builder().domainId("domain").workId("rolled-back").build()
+                    );
+                    // the business change fails after the record has been enqueued
+                    status.setRollbackOnly();
+                }
+        );
+        assertThat(outboxMessageRepository.count()).isZero();
+    }
+}
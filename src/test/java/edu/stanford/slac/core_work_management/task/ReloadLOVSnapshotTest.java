@@ -0,0 +1,78 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.core_work_management.api.v1.dto.NewLOVElementDTO;
+import edu.stanford.slac.core_work_management.model.LOVElement;
+import edu.stanford.slac.core_work_management.service.LOVService;
+import edu.stanford.slac.core_work_management.service.LOVSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Test the periodic reload of the LOV snapshot on a node without the async-ops profile
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "edu.stanford.slac.core-work-management.lov-snapshot-reload-delay=200")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ReloadLOVSnapshotTest {
+    @Autowired
+    private Environment environment;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private LOVService lovService;
+    @Autowired
+    private LOVSnapshotService lovSnapshotService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), LOVElement.class);
+    }
+
+    @Test
+    public void snapshotIsReloadedWithoutAsyncOps() {
+        assertThat(environment.getActiveProfiles()).doesNotContain("async-ops");
+        List<String> ids = lovService.createNew(
+                "ReloadGroup",
+                List.of(NewLOVElementDTO.builder().value("before").description("before").build())
+        );
+        assertThat(lovSnapshotService.findById(ids.getFirst()))
+                .hasValueSatisfying(element -> assertThat(element.getValue()).isEqualTo("before"));
+
+        // a change without notification, as when the notification is lost
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(ids.getFirst())),
+                new Update().set("value", "after"),
+                LOVElement.class
+        );
+        await()
+                .atMost(10, SECONDS)
+                .pollInterval(100, MILLISECONDS)
+                .untilAsserted(
+                        () -> assertThat(lovSnapshotService.findById(ids.getFirst()))
+                                .hasValueSatisfying(element -> assertThat(element.getValue()).isEqualTo("after"))
+                );
+    }
+}
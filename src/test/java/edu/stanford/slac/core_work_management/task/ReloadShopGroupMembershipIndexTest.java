@@ -0,0 +1,84 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
+import edu.stanford.slac.core_work_management.model.ShopGroup;
+import edu.stanford.slac.core_work_management.model.ShopGroupUser;
+import edu.stanford.slac.core_work_management.service.ShopGroupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Test the periodic reload of the shop group membership index on a node without the async-ops profile
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "edu.stanford.slac.core-work-management.shop-group-index-reload-delay=200")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ReloadShopGroupMembershipIndexTest {
+    @Autowired
+    private Environment environment;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private ShopGroupService shopGroupService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), ShopGroup.class);
+    }
+
+    @Test
+    public void indexIsReloadedWithoutAsyncOps() {
+        assertThat(environment.getActiveProfiles()).doesNotContain("async-ops");
+        var shopGroup = mongoTemplate.insert(
+                ShopGroup.builder()
+                        .domainId("domain-id")
+                        .name("reloaded shop")
+                        .description("reloaded shop")
+                        .users(
+                                Set.of(
+                                        ShopGroupUser.builder()
+                                                .user(PersonDTO.builder().mail("user2@slac.stanford.edu").build())
+                                                .build()
+                                )
+                        )
+                        .build()
+        );
+        assertThat(shopGroupService.checkContainsAUserEmail("domain-id", shopGroup.getId(), "user2@slac.stanford.edu")).isTrue();
+
+        // a change without notification, as when the notification is lost
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(shopGroup.getId())),
+                new Update().set("users", Set.of()),
+                ShopGroup.class
+        );
+        await()
+                .atMost(10, SECONDS)
+                .pollInterval(100, MILLISECONDS)
+                .untilAsserted(
+                        () -> assertThat(shopGroupService.checkContainsAUserEmail("domain-id", shopGroup.getId(), "user2@slac.stanford.edu")).isFalse()
+                );
+    }
+}